@@ -0,0 +1,158 @@
+package com.study.mate.config;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.util.WebSocketTransportProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 메시지 한 개를 JSON 과 CBOR 로 보낼 때의 크기와 CPU 비용을 비교합니다.
+ *
+ * - jsonEncode: 응답 DTO → JSON 바이트(모든 메시지가 이미 한 번 내는 비용)
+ * - cborTranscode: CBOR 세션으로 가는 새 메시지의 JSON → CBOR 변환(메시지당 한 번 더 드는 비용)
+ * - cborReused: 같은 메시지를 다른 CBOR 구독자에게 보낼 때(변환해 둔 결과를 다시 씀)
+ * - jsonDecode / cborDecode: 받는 쪽에서 본문을 읽는 비용
+ *
+ * cborTranscode 결과 옆의 jsonBytesPerMessage / cborBytesPerMessage 가 메시지 한 개의 본문 크기입니다.
+ *
+ * 실행: ./gradlew jmh (결과: build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class StompPayloadEncodingBenchmark {
+
+    private static final String SESSION_ID = "cbor-session";
+    // 인터셉터의 변환 캐시(256칸)보다 훨씬 많은 서로 다른 본문을 돌려 써서 cborTranscode 가 캐시에 걸리지 않게 합니다.
+    private static final int DISTINCT_PAYLOADS = 4096;
+
+    /** 메시지 내용 글자 수(짧은 채팅, 긴 채팅) */
+    @Param({"20", "500"})
+    public int contentLength;
+
+    // 인터셉터는 채널을 쓰지 않으므로 아무것도 하지 않는 채널을 넘깁니다.
+    private final MessageChannel channel = (message, timeout) -> true;
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules()
+            .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+    private final CBORMapper cborMapper = new CBORMapper();
+    private StompPayloadEncodingInterceptor interceptor;
+    private ChatMessageResponse payload;
+    private Message<?>[] distinct;
+    private Message<?> shared;
+    private byte[] json;
+    private byte[] cbor;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        interceptor = new StompPayloadEncodingInterceptor(new WebSocketTransportProperties(), new SimpleMeterRegistry());
+        StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+        connect.setSessionId(SESSION_ID);
+        connect.setNativeHeader(StompPayloadEncodingInterceptor.ENCODING_HEADER, "cbor");
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], connect.getMessageHeaders()), channel);
+
+        payload = ChatMessageResponse.builder()
+                .id(7_301_234_567_890_123L)
+                .roomId(42L)
+                .senderId(1_001L)
+                .senderNickname("스터디메이트")
+                .senderProfileImageUrl("https://cdn.example.com/profile/1001.png")
+                .content("가".repeat(contentLength))
+                .createdAt(LocalDateTime.of(2024, 5, 1, 21, 30, 15))
+                .seq(12_345L)
+                .build();
+        json = objectMapper.writeValueAsBytes(payload);
+        distinct = new Message<?>[DISTINCT_PAYLOADS];
+        for (int i = 0; i < DISTINCT_PAYLOADS; i++) {
+            distinct[i] = message(json.clone());
+        }
+        shared = message(json);
+        cbor = (byte[]) interceptor.preSend(shared, channel).getPayload();
+    }
+
+    @Benchmark
+    public byte[] jsonEncode() throws IOException {
+        return objectMapper.writeValueAsBytes(payload);
+    }
+
+    @Benchmark
+    public Object cborTranscode(Cursor cursor, PayloadSize size) {
+        Object converted = interceptor.preSend(distinct[cursor.next()], channel).getPayload();
+        size.jsonBytesPerMessage = json.length;
+        size.cborBytesPerMessage = ((byte[]) converted).length;
+        return converted;
+    }
+
+    @Benchmark
+    public Object cborReused() {
+        return interceptor.preSend(shared, channel).getPayload();
+    }
+
+    @Benchmark
+    public JsonNode jsonDecode() throws IOException {
+        return objectMapper.readTree(json);
+    }
+
+    @Benchmark
+    public JsonNode cborDecode() throws IOException {
+        return cborMapper.readTree(cbor);
+    }
+
+    // 브로커가 CBOR 세션으로 내보내는 MESSAGE 프레임
+    private static Message<byte[]> message(byte[] body) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(SESSION_ID);
+        accessor.setDestination("/topic/rooms/42");
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+
+    /** 스레드마다 서로 다른 본문을 차례로 고릅니다. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position;
+
+        int next() {
+            position = position + 1 == DISTINCT_PAYLOADS ? 0 : position + 1;
+            return position;
+        }
+    }
+
+    /** 메시지 한 개의 본문 크기(바이트). 누적하지 않고 값을 그대로 보고합니다. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class PayloadSize {
+        public long jsonBytesPerMessage;
+        public long cborBytesPerMessage;
+    }
+}
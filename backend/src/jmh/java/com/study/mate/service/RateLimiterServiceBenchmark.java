@@ -0,0 +1,75 @@
+package com.study.mate.service;
+
+import com.study.mate.service.ratelimit.LocalQuotaStore;
+import com.study.mate.util.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 64개 스레드가 동시에 AI 호출 한도를 검사할 때의 처리량을 잽니다.
+ *
+ * - hotKey: 모든 스레드가 한 사용자에게 몰림(같은 AtomicLong 에 CAS 경합, 대부분 분당 한도 초과로 거절)
+ * - spreadKeys: 스레드마다 여러 사용자를 돌아가며 요청(맵 조회 + 사용자별 CAS, 임대 경로 포함)
+ *
+ * 실행: ./gradlew jmh (결과: build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@Threads(64)
+public class RateLimiterServiceBenchmark {
+
+    private static final int KEYS = 10_000;
+
+    private RateLimiterService service;
+    private String[] keys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setSnapshotPath("");
+        service = new RateLimiterService(properties, new LocalQuotaStore(properties), new SimpleMeterRegistry());
+        keys = new String[KEYS];
+        for (int i = 0; i < KEYS; i++) {
+            keys[i] = "user-" + i;
+        }
+    }
+
+    @Benchmark
+    public boolean hotKey() {
+        return service.tryConsume("hot-user", 100);
+    }
+
+    @Benchmark
+    public boolean spreadKeys(Cursor cursor) {
+        return service.tryConsume(keys[cursor.next()], 100);
+    }
+
+    /** 스레드마다 다른 위치에서 사용자 키를 차례로 고릅니다. */
+    @State(Scope.Thread)
+    public static class Cursor {
+        private int position = ThreadLocalRandom.current().nextInt(KEYS);
+
+        int next() {
+            position = position + 1 == KEYS ? 0 : position + 1;
+            return position;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.study.mate.service.chat.search;
+
+import com.study.mate.service.chat.search.ChatSearchIndex.Candidates;
+import com.study.mate.service.chat.search.ChatSearchIndex.SearchQuery;
+import com.study.mate.util.ChatSearchProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 메시지 1,000만 건을 색인한 뒤 검색 후보를 고르는 시간을 잽니다(DB 본문 확인 단계는 빼고 색인만).
+ *
+ * - rooms: 1,000만 건을 몇 개 방에 나눠 담을지(1000 = 방마다 1만 건, 10 = 방마다 100만 건)
+ * - keyword: 자주 나오는 단어 / 두 단어 / 드물게(0.1%) 나오는 단어
+ * - firstPage: 첫 화면(20건), candidatePage: 요청 한 번의 후보 상한(max-candidates)까지
+ *
+ * 결과 옆의 indexedMessages / postingBytes 가 색인한 메시지 수와 압축된 번호 목록 크기(바이트)입니다.
+ * 실행: ./gradlew jmh (결과: build/results/jmh/results.json, 힙 8GB로 포크)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx8g"})
+public class ChatSearchIndexBenchmark {
+
+    private static final String[] WORDS = {
+            "오늘", "내일", "스터디", "알고리즘", "문제", "풀이", "자료", "공유", "질문", "답변", "과제", "제출",
+            "시험", "준비", "모집", "참여", "일정", "확인", "자바", "스프링", "데이터베이스", "인덱스", "배포", "리뷰",
+            "정리", "발표", "같이", "먼저", "다시", "혹시", "감사합니다", "좋아요", "네", "ㅋㅋ", "java", "spring"
+    };
+    private static final String[] PARTICLES = {"", "", "를", "을", "에서", "은", "는", "도", "로"};
+    private static final String RARE_WORD = "회의록";
+
+    @Param({"10000000"})
+    public int messages;
+
+    @Param({"1000", "10"})
+    public int rooms;
+
+    @Param({"스터디", "알고리즘 문제", "회의록"})
+    public String keyword;
+
+    private ChatSearchIndex index;
+    private SearchQuery query;
+    private int maxCandidates;
+    private long indexedMessages;
+    private long postingBytes;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        ChatSearchProperties properties = new ChatSearchProperties();
+        properties.setRebuildOnStartup(false);
+        properties.setSettleDelay(Duration.ZERO);
+        maxCandidates = properties.getMaxCandidates();
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        // 색인을 채우고 후보를 고르는 경로는 DB 를 쓰지 않습니다.
+        index = new ChatSearchIndex(properties, new JdbcTemplate(), meterRegistry);
+
+        Random random = new Random(42);
+        StringBuilder text = new StringBuilder();
+        for (int i = 1; i <= messages; i++) {
+            index.add((long) (i % rooms) + 1, i, message(random, text));
+            // 대기 목록이 커지지 않도록 자주 색인으로 옮깁니다(운영에서는 seal-interval 마다).
+            if (i % 100_000 == 0) {
+                index.seal();
+            }
+        }
+        index.seal();
+        query = index.parse(keyword);
+        indexedMessages = (long) meterRegistry.get("chat.search.index.messages").gauge().value();
+        postingBytes = (long) meterRegistry.get("chat.search.index.bytes").gauge().value();
+    }
+
+    @Benchmark
+    public Candidates firstPage(IndexSize size) {
+        size.record(this);
+        return index.candidates(randomRoom(), query, Long.MAX_VALUE, 20);
+    }
+
+    @Benchmark
+    public Candidates candidatePage(IndexSize size) {
+        size.record(this);
+        return index.candidates(randomRoom(), query, Long.MAX_VALUE, maxCandidates);
+    }
+
+    private long randomRoom() {
+        return ThreadLocalRandom.current().nextInt(rooms) + 1L;
+    }
+
+    /** 색인 크기. 누적하지 않고 값을 그대로 보고합니다. */
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class IndexSize {
+        public long indexedMessages;
+        public long postingBytes;
+
+        void record(ChatSearchIndexBenchmark benchmark) {
+            indexedMessages = benchmark.indexedMessages;
+            postingBytes = benchmark.postingBytes;
+        }
+    }
+
+    // 단어 3~8개짜리 메시지. 드문 단어는 1,000건에 한 번 꼴로 넣습니다.
+    private static String message(Random random, StringBuilder text) {
+        text.setLength(0);
+        int words = 3 + random.nextInt(6);
+        for (int w = 0; w < words; w++) {
+            if (w > 0) {
+                text.append(' ');
+            }
+            text.append(WORDS[random.nextInt(WORDS.length)]).append(PARTICLES[random.nextInt(PARTICLES.length)]);
+        }
+        if (random.nextInt(1000) == 0) {
+            text.append(' ').append(RARE_WORD);
+        }
+        return text.toString();
+    }
+}
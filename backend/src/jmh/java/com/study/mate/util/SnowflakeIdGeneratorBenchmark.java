@@ -0,0 +1,65 @@
+package com.study.mate.util;
+
+import com.study.mate.entity.id.TimeOrderedIdGenerator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 시간 순 id 발급기의 처리량을 잽니다(한 노드 기준).
+ *
+ * - singleThread: 경합 없는 발급 속도
+ * - contended: 64개 스레드가 같은 AtomicLong 에 CAS 로 경합
+ * - hibernateGenerator: 엔티티 저장 때 Hibernate 가 부르는 경로({@link TimeOrderedIdGenerator}, Long 박싱 포함)
+ *
+ * 한 밀리초에 4096개를 넘게 발급하면 다음 밀리초 값을 미리 당겨 씁니다(멈추지 않음).
+ * 그래서 처리량이 초당 409만 개를 넘으면 id 속 시각이 실제 시각보다 앞서 나갑니다.
+ *
+ * 실행: ./gradlew jmh (결과: build/results/jmh/results.json)
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SnowflakeIdGeneratorBenchmark {
+
+    private SnowflakeIdGenerator generator;
+    private TimeOrderedIdGenerator hibernateGenerator;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        generator = new SnowflakeIdGenerator(1);
+        hibernateGenerator = new TimeOrderedIdGenerator();
+    }
+
+    @Benchmark
+    @Threads(1)
+    public long singleThread() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public long contended() {
+        return generator.nextId();
+    }
+
+    @Benchmark
+    @Threads(64)
+    public Object hibernateGenerator() {
+        return hibernateGenerator.generate(null, null);
+    }
+}
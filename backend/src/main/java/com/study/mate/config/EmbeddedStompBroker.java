@@ -0,0 +1,64 @@
+package com.study.mate.config;
+
+import com.study.mate.util.StompBrokerProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.activemq.artemis.core.config.Configuration;
+import org.apache.activemq.artemis.core.config.impl.ConfigurationImpl;
+import org.apache.activemq.artemis.core.server.embedded.EmbeddedActiveMQ;
+import org.apache.activemq.artemis.core.settings.impl.AddressSettings;
+import org.springframework.stereotype.Component;
+
+/**
+ * 서버 프로세스 안에서 띄우는 STOMP 브로커(ActiveMQ Artemis)입니다. stomp-broker.mode=EMBEDDED 일 때만 동작합니다.
+ *
+ * 왜 필요한가요?
+ * - 외부 브로커(RELAY 모드)를 설치하지 않고도 "브로커 중계" 경로를 그대로 써 볼 수 있습니다(단일 서버, 개발/테스트).
+ * - 같은 장비에 서버를 여러 개 띄울 때는 하나만 EMBEDDED 로 두고 나머지는 RELAY 로 이 브로커에 붙이면 됩니다.
+ *
+ * 설정
+ * - 메시지는 디스크에 남기지 않고(persistence off), 인증도 하지 않습니다(외부에 포트를 열지 마세요).
+ * - 구독하는 순간 주소를 자동으로 만들고, 구독자가 없어지면 지웁니다("/topic/rooms/1" 같은 주소를 미리 만들 필요 없음).
+ *
+ * 서버 시작 단계(@PostConstruct)에서 띄우므로, 스프링의 브로커 중계기가 연결을 시도하는 시점에는 이미 준비되어 있습니다.
+ */
+@Component
+@Slf4j
+@RequiredArgsConstructor
+public class EmbeddedStompBroker {
+
+    private final StompBrokerProperties properties;
+    private EmbeddedActiveMQ broker;
+
+    @PostConstruct
+    void start() throws Exception {
+        if (properties.getMode() != StompBrokerProperties.Mode.EMBEDDED) {
+            return;
+        }
+        String acceptor = "tcp://" + properties.getRelayHost() + ":" + properties.getRelayPort() + "?protocols=STOMP";
+        Configuration configuration = new ConfigurationImpl()
+                .setName("study-mate-embedded")
+                .setPersistenceEnabled(false)
+                .setSecurityEnabled(false)
+                .setJMXManagementEnabled(false)
+                .addAcceptorConfiguration("stomp", acceptor)
+                .addAddressSetting("#", new AddressSettings()
+                        .setAutoCreateAddresses(true)
+                        .setAutoDeleteAddresses(true)
+                        .setAutoCreateQueues(true)
+                        .setAutoDeleteQueues(true));
+        broker = new EmbeddedActiveMQ().setConfiguration(configuration);
+        broker.start();
+        log.info("내장 STOMP 브로커 시작: {}:{}", properties.getRelayHost(), properties.getRelayPort());
+    }
+
+    @PreDestroy
+    void stop() throws Exception {
+        if (broker != null) {
+            broker.stop();
+            broker = null;
+        }
+    }
+}
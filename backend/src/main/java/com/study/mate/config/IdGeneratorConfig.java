@@ -0,0 +1,39 @@
+package com.study.mate.config;
+
+import com.study.mate.util.AppProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.net.InetAddress;
+
+/**
+ * 시간 순 id 발급기(SnowflakeIdGenerator)의 노드 번호를 정하고 빈으로 등록합니다.
+ *
+ * - app.node-id 를 지정하면 그 값을 씁니다(서버가 여러 대면 서로 다른 값을 꼭 지정하세요).
+ * - 지정하지 않으면(-1) 호스트 이름으로 0~1023 사이 값을 정합니다(대부분 겹치지 않지만 보장되지는 않음).
+ *   서버 한 대로 띄우는 로컬 개발용입니다. 운영(prod)에서는 APP_NODE_ID 가 없으면 설정을 읽는 단계에서 시작하지 않습니다.
+ *   두 노드의 번호가 겹치면 id(기본 키)가 중복되고, 알림 중계(JdbcNotificationBus)가 다른 노드를 자기로 착각하기 때문입니다.
+ */
+@Configuration
+@Slf4j
+public class IdGeneratorConfig {
+
+    @Bean
+    public SnowflakeIdGenerator snowflakeIdGenerator(AppProperties appProperties) {
+        int nodeId = appProperties.getNodeId() >= 0 ? appProperties.getNodeId() : hostNodeId();
+        SnowflakeIdGenerator generator = SnowflakeIdGenerator.shared();
+        generator.setNodeId(nodeId);
+        log.info("시간 순 id 발급기 노드 번호: {}", nodeId);
+        return generator;
+    }
+
+    private static int hostNodeId() {
+        try {
+            return Math.floorMod(InetAddress.getLocalHost().getHostName().hashCode(), SnowflakeIdGenerator.MAX_NODE_ID + 1);
+        } catch (Exception e) {
+            return 0;
+        }
+    }
+}
@@ -29,8 +29,8 @@ import org.springframework.web.servlet.HandlerInterceptor;
  * - 한도를 초과하면 {@link BusinessException} 을 던져 요청을 즉시 차단합니다.
  *
  * 주의사항(학습 포인트)
- * - 현재 구현은 "인메모리" 카운터입니다. 서버 인스턴스가 여러 대일 경우 한도가 서버 간에 공유되지 않습니다.
- *   운영 환경에서는 Redis 같은 외부 저장소를 사용한 분산 레이트 리미팅으로 대체하세요.
+ * - 분당 한도는 인스턴스별 인메모리 카운터입니다. 일일 한도는 rate-limit.quota-store=jdbc 로 설정하면
+ *   DB 테이블(ai_quota_usage)을 통해 여러 인스턴스가 공유합니다(각 인스턴스는 한도를 청크 단위로 임대해 사용).
  * - 토큰 추정은 매우 단순화된 근사치입니다. 모델/프롬프트/언어에 따라 실제 토큰 수는 달라질 수 있습니다.
  * - 이 인터셉터는 설정 클래스(WebMvcConfig)에서 "/api/ai/**" 경로에만 적용되도록 등록되어 있습니다.
  */
@@ -38,7 +38,7 @@ import org.springframework.web.servlet.HandlerInterceptor;
 @RequiredArgsConstructor
 public class RateLimitInterceptor implements HandlerInterceptor {
 
-    private final RateLimiterService rateLimiterService; // 사용자별 요청/토큰 한도를 관리하는 서비스(인메모리)
+    private final RateLimiterService rateLimiterService; // 사용자별 요청/토큰 한도를 관리하는 서비스
 
     @Override
     public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
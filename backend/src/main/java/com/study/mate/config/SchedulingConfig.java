@@ -0,0 +1,44 @@
+package com.study.mate.config;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.task.ThreadPoolTaskSchedulerBuilder;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.lang.NonNull;
+import org.springframework.scheduling.annotation.SchedulingConfigurer;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskScheduler;
+import org.springframework.scheduling.config.ScheduledTaskRegistrar;
+
+/**
+ * @Scheduled 작업들을 돌릴 전용 스레드 풀을 정합니다.
+ *
+ * 왜 필요한가요?
+ * - 알림 버스 폴링, 캐시 정리, 검색 색인 봉인, 채팅 보관 등 주기 작업이 10개가 넘는데,
+ *   스레드 하나를 같이 쓰면 오래 걸리는 작업(예: 보관) 하나가 도는 동안 나머지가 모두 밀립니다.
+ * - WebSocket 브로커도 하트비트용 TaskScheduler 빈을 등록하므로, 그대로 두면 @Scheduled 작업이 그 스케줄러에
+ *   섞이거나(스프링 부트의 기본 스케줄러가 만들어지지 않음) spring.task.scheduling.* 설정이 적용되지 않습니다.
+ *
+ * 크기와 스레드 이름은 spring.task.scheduling.pool.size / thread-name-prefix 로 정합니다(application.yml).
+ */
+@Configuration
+@Slf4j
+public class SchedulingConfig implements SchedulingConfigurer, DisposableBean {
+
+    private final ThreadPoolTaskScheduler scheduler;
+
+    public SchedulingConfig(ThreadPoolTaskSchedulerBuilder builder) {
+        this.scheduler = builder.build();
+        this.scheduler.initialize();
+        log.info("@Scheduled 작업 스레드 수: {}", scheduler.getScheduledThreadPoolExecutor().getCorePoolSize());
+    }
+
+    @Override
+    public void configureTasks(@NonNull ScheduledTaskRegistrar registrar) {
+        registrar.setTaskScheduler(scheduler);
+    }
+
+    @Override
+    public void destroy() {
+        scheduler.shutdown();
+    }
+}
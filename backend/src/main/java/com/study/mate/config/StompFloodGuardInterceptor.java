@@ -0,0 +1,215 @@
+package com.study.mate.config;
+
+import com.study.mate.util.StompFloodProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.stereotype.Component;
+
+import java.security.Principal;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * STOMP 수신 채널(clientInboundChannel)에서 프레임 폭주를 막는 인터셉터입니다.
+ *
+ * 왜 필요한가요?
+ * - 채팅 프레임 하나마다 DB 조회/저장과 방 전체 브로드캐스트가 일어납니다.
+ *   잘못 만든(또는 악의적인) 클라이언트가 초당 수천 개를 보내면 서버 전체가 느려집니다.
+ *
+ * 동작
+ * - 목적지(destination)를 chat / presence / heartbeat / other 네 가지 규칙으로 나누고,
+ *   규칙마다 "세션별" 버킷과 "사용자별"(여러 탭 합산) 버킷을 둡니다.
+ * - 버킷은 토큰 버킷과 같은 효과를 내는 GCRA 방식으로, 규칙당 long 하나(다음 허용 시각)만 CAS 로 갱신합니다.
+ * - 상태는 CONNECT 때 한 번 만들고 DISCONNECT 때 지웁니다. SEND 프레임 검사 경로에서는 객체를 만들지 않습니다.
+ * - 한도를 넘은 프레임은 @MessageMapping 핸들러에 닿기 전에 버리거나(DROP), ERROR 프레임으로 응답합니다(ERROR).
+ *   버린 수는 "ws.inbound.dropped"(rule 태그) 카운터로 확인할 수 있습니다.
+ */
+@Component
+@Slf4j
+public class StompFloodGuardInterceptor implements ChannelInterceptor {
+
+    private static final int CHAT = 0;
+    private static final int PRESENCE = 1;
+    private static final int HEARTBEAT = 2;
+    private static final int OTHER = 3;
+    private static final String[] RULE_NAMES = {"chat", "presence", "heartbeat", "other"};
+
+    private final StompFloodProperties properties;
+    // 규칙별 GCRA 파라미터(나노초): 프레임 1개당 간격, 허용 버스트
+    private final long[] sessionInterval = new long[RULE_NAMES.length];
+    private final long[] sessionTolerance = new long[RULE_NAMES.length];
+    private final long[] userInterval = new long[RULE_NAMES.length];
+    private final long[] userTolerance = new long[RULE_NAMES.length];
+    private final Counter[] dropped = new Counter[RULE_NAMES.length];
+
+    private final Map<String, SessionBuckets> sessions = new ConcurrentHashMap<>();
+    private final Map<String, UserBuckets> users = new ConcurrentHashMap<>();
+
+    public StompFloodGuardInterceptor(StompFloodProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        StompFloodProperties.Limit[] limits = {
+                properties.getChat(), properties.getPresence(), properties.getHeartbeat(), properties.getOther()
+        };
+        for (int i = 0; i < limits.length; i++) {
+            sessionInterval[i] = intervalNanos(limits[i].getPerSecond());
+            sessionTolerance[i] = sessionInterval[i] * Math.max(0, limits[i].getBurst() - 1);
+            userInterval[i] = intervalNanos(limits[i].getPerSecond() * properties.getUserFactor());
+            userTolerance[i] = userInterval[i] * Math.max(0, (long) Math.ceil(limits[i].getBurst() * properties.getUserFactor()) - 1);
+            dropped[i] = Counter.builder("ws.inbound.dropped")
+                    .tag("rule", RULE_NAMES[i])
+                    .description("한도를 넘어 처리되지 않은 STOMP 수신 프레임 수")
+                    .register(meterRegistry);
+        }
+    }
+
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        if (!properties.isEnabled()) {
+            return message;
+        }
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> sessions.computeIfAbsent(sessionId, id -> new SessionBuckets(userBuckets(headers)));
+            case DISCONNECT -> closeSession(sessionId);
+            case MESSAGE -> {
+                String destination = SimpMessageHeaderAccessor.getDestination(headers);
+                if (destination == null) {
+                    return message;
+                }
+                SessionBuckets buckets = sessions.get(sessionId);
+                if (buckets == null) {
+                    // CONNECT 를 놓친 예외적인 경우에만 여기서 만듭니다.
+                    buckets = sessions.computeIfAbsent(sessionId, id -> new SessionBuckets(userBuckets(headers)));
+                }
+                int rule = ruleOf(destination);
+                long now = System.nanoTime();
+                if (!tryTake(buckets.tat, rule, now, sessionInterval[rule], sessionTolerance[rule])
+                        || (buckets.user != null && !tryTake(buckets.user.tat, rule, now, userInterval[rule], userTolerance[rule]))) {
+                    return reject(rule, sessionId);
+                }
+            }
+            default -> {
+                // SUBSCRIBE/UNSUBSCRIBE/HEARTBEAT 등은 제한하지 않습니다.
+            }
+        }
+        return message;
+    }
+
+    private Message<?> reject(int rule, String sessionId) {
+        dropped[rule].increment();
+        if (properties.getAction() == StompFloodProperties.Action.ERROR) {
+            // 예외를 던지면 STOMP 처리기가 클라이언트에게 ERROR 프레임을 보냅니다.
+            throw new MessageDeliveryException("too many " + RULE_NAMES[rule] + " frames");
+        }
+        if (log.isDebugEnabled()) {
+            log.debug("STOMP 프레임 한도 초과로 버림: sessionId={}, rule={}", sessionId, RULE_NAMES[rule]);
+        }
+        return null;
+    }
+
+    /**
+     * 목적지 문자열을 규칙 번호로 바꿉니다(정규식/패턴 매처 없이 접미사만 비교).
+     */
+    private static int ruleOf(String destination) {
+        if (destination.endsWith("/chat")) return CHAT;
+        if (destination.endsWith("/presence/update")) return PRESENCE;
+        if (destination.endsWith("/presence/heartbeat")) return HEARTBEAT;
+        return OTHER;
+    }
+
+    /**
+     * GCRA 한 번: 다음 허용 시각(tat)이 now + tolerance 이내이면 interval 만큼 뒤로 미루고 통과시킵니다.
+     */
+    private static boolean tryTake(AtomicLongArray tat, int rule, long now, long interval, long tolerance) {
+        while (true) {
+            long current = tat.get(rule);
+            long base = Math.max(current, now);
+            if (base - now > tolerance) {
+                return false;
+            }
+            if (tat.compareAndSet(rule, current, base + interval)) {
+                return true;
+            }
+        }
+    }
+
+    private UserBuckets userBuckets(MessageHeaders headers) {
+        String userKey = userKey(headers);
+        if (userKey == null) {
+            return null;
+        }
+        return users.compute(userKey, (k, cur) -> {
+            UserBuckets ub = (cur != null) ? cur : new UserBuckets(k);
+            ub.sessions.incrementAndGet();
+            return ub;
+        });
+    }
+
+    private void closeSession(String sessionId) {
+        SessionBuckets buckets = sessions.remove(sessionId);
+        if (buckets == null || buckets.user == null) {
+            return;
+        }
+        users.computeIfPresent(buckets.user.key, (k, cur) -> cur.sessions.decrementAndGet() <= 0 ? null : cur);
+    }
+
+    // 핸드셰이크에서 인증된 사용자(Principal 또는 세션 속성 wsUser)를 사용자 버킷 키로 씁니다.
+    private static String userKey(MessageHeaders headers) {
+        Principal user = SimpMessageHeaderAccessor.getUser(headers);
+        if (user != null) {
+            return user.getName();
+        }
+        Map<String, Object> attributes = SimpMessageHeaderAccessor.getSessionAttributes(headers);
+        Object wsUser = attributes != null ? attributes.get("wsUser") : null;
+        return wsUser != null ? wsUser.toString() : null;
+    }
+
+    private static long intervalNanos(double perSecond) {
+        // 0 이하이면 간격 0 = 제한 없음
+        return perSecond <= 0 ? 0L : (long) (1_000_000_000L / perSecond);
+    }
+
+    // nanoTime 은 음수일 수도 있으므로, 처음 상태는 가장 작은 값으로 채워 "언제든 허용"으로 시작합니다.
+    private static AtomicLongArray newTatArray() {
+        AtomicLongArray tat = new AtomicLongArray(RULE_NAMES.length);
+        for (int i = 0; i < RULE_NAMES.length; i++) {
+            tat.set(i, Long.MIN_VALUE);
+        }
+        return tat;
+    }
+
+    private static final class SessionBuckets {
+        final AtomicLongArray tat = newTatArray();
+        final UserBuckets user;
+
+        SessionBuckets(UserBuckets user) {
+            this.user = user;
+        }
+    }
+
+    private static final class UserBuckets {
+        final String key;
+        final AtomicLongArray tat = newTatArray();
+        final AtomicInteger sessions = new AtomicInteger();
+
+        UserBuckets(String key) {
+            this.key = key;
+        }
+    }
+}
@@ -0,0 +1,166 @@
+package com.study.mate.config;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.study.mate.util.WebSocketTransportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ChannelInterceptor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.messaging.support.MessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 세션이 CONNECT 때 고른 형식(JSON 또는 CBOR)으로 STOMP 본문을 보내는 인터셉터입니다.
+ *
+ * 왜 필요한가요?
+ * - 채팅/프레즌스 본문은 JSON 이라 "providerId", "nickname" 같은 필드 이름이 매 메시지마다 글자 그대로 반복됩니다.
+ *   CBOR(바이너리 JSON)는 같은 내용을 더 적은 바이트로 담고, 읽고 쓰는 비용도 작습니다(모바일 데이터 절약).
+ *
+ * 사용법(클라이언트)
+ * - CONNECT 프레임에 "x-payload-encoding: cbor" 헤더를 붙이면, 그 세션이 받는 JSON 본문은 CBOR 로 바뀌어 옵니다.
+ * - 바뀐 프레임에는 같은 "x-payload-encoding: cbor" 헤더가 붙고, content-type 은 application/octet-stream 입니다
+ *   (STOMP 처리기가 이 타입일 때만 WebSocket 바이너리 프레임으로 보내기 때문).
+ * - 헤더를 보내지 않은 세션은 지금처럼 JSON 을 받습니다. 브라우저 → 서버 방향은 계속 JSON 입니다.
+ *
+ * 비용
+ * - 방 하나에 보내는 메시지는 구독자마다 같은 본문(byte[])을 공유하므로, 최근 변환 결과를 본문 객체 기준으로
+ *   작은 캐시에 두어 "메시지당 한 번"만 변환합니다(구독자 수만큼 변환하지 않음).
+ * - 변환은 트리를 만들지 않고 JSON 토큰을 CBOR 로 그대로 옮겨 씁니다.
+ */
+@Component
+@Slf4j
+public class StompPayloadEncodingInterceptor implements ChannelInterceptor {
+
+    /** CONNECT 때 원하는 형식을, MESSAGE 에는 실제 형식을 알려 주는 헤더 */
+    public static final String ENCODING_HEADER = "x-payload-encoding";
+    private static final String CBOR = "cbor";
+    private static final int CACHE_SLOTS = 256;
+
+    private final WebSocketTransportProperties properties;
+    private final JsonFactory jsonFactory = new JsonFactory();
+    private final CBORFactory cborFactory = new CBORFactory();
+    // CBOR 를 고른 세션 id 집합(값은 쓰지 않음)
+    private final Map<String, Boolean> cborSessions = new ConcurrentHashMap<>();
+    // 원본 본문(byte[]) → 변환 결과. 같은 칸을 덮어쓰는 단순 캐시라 크기가 고정입니다.
+    private final AtomicReferenceArray<Encoded> recent = new AtomicReferenceArray<>(CACHE_SLOTS);
+    private final Counter encoded;
+    private final Counter reused;
+
+    public StompPayloadEncodingInterceptor(WebSocketTransportProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.encoded = Counter.builder("ws.outbound.cbor").tag("result", "encoded")
+                .description("JSON 본문을 CBOR 로 새로 변환한 수")
+                .register(meterRegistry);
+        this.reused = Counter.builder("ws.outbound.cbor").tag("result", "reused")
+                .description("다른 구독자용으로 변환해 둔 CBOR 본문을 다시 쓴 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 수신 채널: CONNECT 에서 원하는 형식을 기록하고, DISCONNECT 에서 지웁니다.
+     * 송신 채널: CBOR 세션으로 가는 JSON MESSAGE 의 본문을 바꿉니다.
+     */
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        MessageHeaders headers = message.getHeaders();
+        SimpMessageType type = SimpMessageHeaderAccessor.getMessageType(headers);
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        if (type == null || sessionId == null) {
+            return message;
+        }
+        switch (type) {
+            case CONNECT -> {
+                StompHeaderAccessor accessor = MessageHeaderAccessor.getAccessor(message, StompHeaderAccessor.class);
+                String requested = accessor != null ? accessor.getFirstNativeHeader(ENCODING_HEADER) : null;
+                if (properties.isCbor() && CBOR.equalsIgnoreCase(requested)) {
+                    cborSessions.put(sessionId, Boolean.TRUE);
+                }
+                return message;
+            }
+            case DISCONNECT -> {
+                cborSessions.remove(sessionId);
+                return message;
+            }
+            case MESSAGE -> {
+                return cborSessions.containsKey(sessionId) ? toCbor(message) : message;
+            }
+            default -> {
+                return message;
+            }
+        }
+    }
+
+    private Message<?> toCbor(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] json)) {
+            return message;
+        }
+        Object contentType = message.getHeaders().get(MessageHeaders.CONTENT_TYPE);
+        MimeType mimeType = contentType instanceof MimeType m ? m
+                : contentType != null ? MimeTypeUtils.parseMimeType(contentType.toString()) : null;
+        if (mimeType == null || !MimeTypeUtils.APPLICATION_JSON.isCompatibleWith(mimeType)) {
+            return message;
+        }
+        byte[] cbor = cached(json);
+        if (cbor == null) {
+            return message;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(message);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        accessor.setNativeHeader(ENCODING_HEADER, CBOR);
+        return MessageBuilder.createMessage(cbor, accessor.getMessageHeaders());
+    }
+
+    // 같은 본문 객체를 이미 변환했다면 그 결과를 돌려주고, 아니면 변환해 캐시에 넣습니다. 변환 실패 시 null.
+    private byte[] cached(byte[] json) {
+        int slot = System.identityHashCode(json) & (CACHE_SLOTS - 1);
+        Encoded hit = recent.get(slot);
+        if (hit != null && hit.source == json) {
+            reused.increment();
+            return hit.cbor;
+        }
+        byte[] cbor = transcode(json);
+        if (cbor != null) {
+            recent.set(slot, new Encoded(json, cbor));
+            encoded.increment();
+        }
+        return cbor;
+    }
+
+    /**
+     * JSON 토큰을 CBOR 로 그대로 옮겨 씁니다(객체/트리를 만들지 않음).
+     */
+    private byte[] transcode(byte[] json) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(json.length);
+        try (JsonParser parser = jsonFactory.createParser(json);
+             JsonGenerator generator = cborFactory.createGenerator(out)) {
+            while (parser.nextToken() != null) {
+                generator.copyCurrentEvent(parser);
+            }
+        } catch (IOException e) {
+            log.debug("CBOR 변환 실패, JSON 그대로 전송: cause={}", e.getMessage());
+            return null;
+        }
+        return out.toByteArray();
+    }
+
+    private record Encoded(byte[] source, byte[] cbor) {}
+}
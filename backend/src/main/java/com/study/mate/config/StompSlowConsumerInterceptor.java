@@ -0,0 +1,297 @@
+package com.study.mate.config;
+
+import com.study.mate.util.WebSocketTransportProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.lang.NonNull;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessageHeaders;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.support.ExecutorChannelInterceptor;
+import org.springframework.messaging.support.NativeMessageHeaderAccessor;
+import org.springframework.stereotype.Component;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.WebSocketHandlerDecorator;
+import org.springframework.web.socket.handler.WebSocketHandlerDecoratorFactory;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 서버 → 브라우저 전송 채널(clientOutboundChannel)에서 "느린 구독자"를 다루는 인터셉터입니다.
+ *
+ * 왜 필요한가요?
+ * - 전송 스레드 풀은 모든 세션이 함께 씁니다. 와이파이가 나쁜 휴대폰 한 대가 프레임을 못 받아 가면
+ *   그 세션 앞으로 보낼 프레임이 계속 쌓여 메모리와 스레드를 잡아먹습니다.
+ *
+ * 동작(세션마다)
+ * - 순서 지키기: 한 세션 앞으로는 한 번에 한 프레임만 스레드 풀에 넣고, 나머지는 세션 대기열에 발행한 순서대로 세워 둡니다.
+ *   앞 프레임을 다 보내면 그 스레드가 다음 프레임을 채널에 다시 넣습니다(채팅 순번이 뒤바뀌어 도착하지 않도록).
+ *   → 스프링의 setPreservePublishOrder 는 자체 대기열에 한도 없이 쌓아서 아래 한도/합치기가 듣지 않으므로 쓰지 않습니다.
+ * - 전송 대기 중인(세션 대기열 + 보내는 중) 프레임 수를 셉니다.
+ * - 합치기(coalesce): "x-coalesce-key" 헤더가 붙은 프레임(예: 프레즌스)은 같은 구독·같은 키의 프레임이
+ *   아직 대기 중이면 새로 줄을 세우지 않고, 대기 중인 자리의 내용을 최신 것으로 바꿉니다.
+ *   → 누군가의 상태가 ONLINE → STUDYING → BREAK 로 빠르게 바뀌어도 느린 세션에는 BREAK 하나만 갑니다.
+ * - 대기 프레임이 max-pending-frames 를 넘으면 느린 구독자로 보고 연결을 끊습니다(클라이언트는 재연결 후 다시 받음).
+ *
+ * 지표
+ * - ws.outbound.pending(게이지): 모든 세션의 전송 대기 프레임 합계, ws.outbound.pending.max: 가장 많이 밀린 세션의 대기 수
+ * - ws.outbound.session.pending(분포): 프레임을 줄 세울 때마다 그 세션의 대기 수를 기록(세션별 대기 깊이 분포)
+ * - ws.outbound.coalesced / ws.outbound.slow_consumer.closed(카운터)
+ *
+ * 세션을 끊으려면 WebSocketSession 이 필요하므로, WebSocket 핸들러 데코레이터로도 등록해 세션을 보관합니다.
+ */
+@Component
+@Slf4j
+public class StompSlowConsumerInterceptor implements ExecutorChannelInterceptor, WebSocketHandlerDecoratorFactory {
+
+    /** 이 헤더가 같은 프레임끼리는 느린 세션에서 최신 하나로 합쳐집니다. */
+    public static final String COALESCE_KEY_HEADER = "x-coalesce-key";
+
+    // 세션 대기열에서 꺼낸 프레임을 채널에 다시 넣는 중인지(이미 센 프레임이라 preSend 에서 다시 세지 않음)
+    private static final ThreadLocal<Boolean> RELEASING = new ThreadLocal<>();
+
+    private final WebSocketTransportProperties properties;
+    private final Map<String, SessionState> sessions = new ConcurrentHashMap<>();
+    private final DistributionSummary pendingDepth;
+    private final Counter coalesced;
+    private final Counter closed;
+
+    public StompSlowConsumerInterceptor(WebSocketTransportProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("ws.outbound.pending", sessions, s -> s.values().stream().mapToInt(st -> st.pending.get()).sum())
+                .description("모든 세션의 전송 대기 프레임 수 합계")
+                .register(meterRegistry);
+        Gauge.builder("ws.outbound.pending.max", sessions, s -> s.values().stream().mapToInt(st -> st.pending.get()).max().orElse(0))
+                .description("가장 많이 밀린 세션의 전송 대기 프레임 수")
+                .register(meterRegistry);
+        this.pendingDepth = DistributionSummary.builder("ws.outbound.session.pending")
+                .description("프레임을 줄 세울 때 그 세션의 전송 대기 프레임 수")
+                .register(meterRegistry);
+        this.coalesced = Counter.builder("ws.outbound.coalesced")
+                .description("대기 중인 프레임에 합쳐져 따로 보내지 않은 프레임 수")
+                .register(meterRegistry);
+        this.closed = Counter.builder("ws.outbound.slow_consumer.closed")
+                .description("전송 대기가 한도를 넘어 연결을 끊은 세션 수")
+                .register(meterRegistry);
+    }
+
+    // ===== WebSocket 세션 보관(연결/종료) =====
+
+    @Override
+    @NonNull
+    public WebSocketHandler decorate(@NonNull WebSocketHandler handler) {
+        return new WebSocketHandlerDecorator(handler) {
+            @Override
+            public void afterConnectionEstablished(@NonNull WebSocketSession session) throws Exception {
+                sessions.put(session.getId(), new SessionState(session));
+                super.afterConnectionEstablished(session);
+            }
+
+            @Override
+            public void afterConnectionClosed(@NonNull WebSocketSession session, @NonNull CloseStatus closeStatus) throws Exception {
+                sessions.remove(session.getId());
+                super.afterConnectionClosed(session, closeStatus);
+            }
+        };
+    }
+
+    // ===== 전송 채널 =====
+
+    /**
+     * 보내는 쪽 스레드에서, 스레드 풀 대기열에 넣기 직전에 호출됩니다.
+     *
+     * 세어서 세션 대기열에 세운 뒤, 이 세션 앞으로 보내는 중인 프레임이 없을 때만 대기열 맨 앞 프레임을 돌려줘
+     * 스레드 풀에 넣습니다(null 을 돌려주면 채널은 보내지 않음).
+     */
+    @Override
+    public Message<?> preSend(@NonNull Message<?> message, @NonNull MessageChannel channel) {
+        if (RELEASING.get() != null) {
+            return message;
+        }
+        SessionState state = stateOf(message.getHeaders());
+        if (state == null) {
+            return message;
+        }
+        if (state.closing.get()) {
+            return null;
+        }
+        String key = properties.isCoalesce() ? coalesceKey(message.getHeaders()) : null;
+        if (key != null) {
+            // 같은 키의 프레임이 이미 대기 중이면 그 자리의 내용만 최신으로 바꾸고, 이 프레임은 줄 세우지 않습니다.
+            boolean[] queued = {false};
+            state.latest.compute(key, (k, current) -> {
+                queued[0] = current == null;
+                return message;
+            });
+            if (!queued[0]) {
+                coalesced.increment();
+                return null;
+            }
+        }
+        int pending = state.pending.incrementAndGet();
+        pendingDepth.record(pending);
+        if (pending > properties.getMaxPendingFrames()) {
+            state.pending.decrementAndGet();
+            if (key != null) {
+                state.latest.remove(key);
+            }
+            closeSlowConsumer(state, pending);
+            return null;
+        }
+        state.queue.add(message);
+        return state.sending.compareAndSet(false, true) ? nextOrRelease(state) : null;
+    }
+
+    /**
+     * 스레드 풀에 넣지 못했을 때(스레드 풀 거절 등) 세어 둔 수와 합치기 자리를 되돌립니다.
+     * 이 세션은 이미 제때 보내지 못하는 상태이므로 남은 대기열은 버리고 연결을 끊습니다.
+     */
+    @Override
+    public void afterSendCompletion(@NonNull Message<?> message, @NonNull MessageChannel channel, boolean sent, @Nullable Exception ex) {
+        if (sent && ex == null) {
+            return;
+        }
+        SessionState state = stateOf(message.getHeaders());
+        if (state != null) {
+            int pending = state.pending.decrementAndGet();
+            String key = coalesceKey(message.getHeaders());
+            if (key != null) {
+                state.latest.remove(key);
+            }
+            closeSlowConsumer(state, pending);
+        }
+    }
+
+    /**
+     * 스레드 풀에서 실제로 보내기 직전: 합쳐진 프레임이면 최신 내용으로 바꿔 보냅니다.
+     */
+    @Override
+    public Message<?> beforeHandle(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler) {
+        if (!properties.isCoalesce()) {
+            return message;
+        }
+        String key = coalesceKey(message.getHeaders());
+        if (key == null) {
+            return message;
+        }
+        SessionState state = stateOf(message.getHeaders());
+        if (state == null) {
+            return message;
+        }
+        Message<?> latest = state.latest.remove(key);
+        return latest != null ? latest : message;
+    }
+
+    /**
+     * 한 프레임을 다 보낸 스레드에서: 이 세션 대기열의 다음 프레임을 채널에 넣습니다(다시 스레드 풀을 거쳐 다른 세션과 번갈아 보냄).
+     */
+    @Override
+    public void afterMessageHandled(@NonNull Message<?> message, @NonNull MessageChannel channel, @NonNull MessageHandler handler, @Nullable Exception ex) {
+        SessionState state = stateOf(message.getHeaders());
+        if (state == null) {
+            return;
+        }
+        state.pending.decrementAndGet();
+        Message<?> next = nextOrRelease(state);
+        if (next == null) {
+            return;
+        }
+        RELEASING.set(Boolean.TRUE);
+        try {
+            channel.send(next);
+        } finally {
+            RELEASING.remove();
+        }
+    }
+
+    /**
+     * "보내는 중" 자리를 가진 쪽에서 호출: 대기열 맨 앞 프레임을 꺼내거나, 비어 있으면 자리를 내놓습니다.
+     * 자리를 내놓는 사이에 다른 스레드가 프레임을 세웠다면 자리를 다시 잡아 그 프레임을 꺼냅니다.
+     */
+    private static Message<?> nextOrRelease(SessionState state) {
+        while (true) {
+            Message<?> next = state.queue.poll();
+            if (next != null) {
+                return next;
+            }
+            state.sending.set(false);
+            if (state.queue.isEmpty() || !state.sending.compareAndSet(false, true)) {
+                return null;
+            }
+        }
+    }
+
+    private void closeSlowConsumer(SessionState state, int pending) {
+        if (!state.closing.compareAndSet(false, true)) {
+            return;
+        }
+        closed.increment();
+        // 세워 둔 프레임은 끊을 세션으로 가는 것이므로 버립니다.
+        state.pending.addAndGet(-drain(state.queue));
+        state.latest.clear();
+        log.warn("느린 구독자 연결 종료: sessionId={}, pending={}", state.session.getId(), pending);
+        try {
+            state.session.close(CloseStatus.SESSION_NOT_RELIABLE);
+        } catch (IOException e) {
+            log.debug("느린 구독자 연결 종료 실패: sessionId={}, cause={}", state.session.getId(), e.getMessage());
+        }
+    }
+
+    private static int drain(Queue<Message<?>> queue) {
+        int dropped = 0;
+        while (queue.poll() != null) {
+            dropped++;
+        }
+        return dropped;
+    }
+
+    private SessionState stateOf(MessageHeaders headers) {
+        String sessionId = SimpMessageHeaderAccessor.getSessionId(headers);
+        return sessionId != null ? sessions.get(sessionId) : null;
+    }
+
+    // 구독(subscription id)마다 따로 합쳐야 하므로 "구독 id + 헤더 값"을 키로 씁니다.
+    @SuppressWarnings("unchecked")
+    private static String coalesceKey(MessageHeaders headers) {
+        Object nativeHeaders = headers.get(NativeMessageHeaderAccessor.NATIVE_HEADERS);
+        if (!(nativeHeaders instanceof Map<?, ?> map)) {
+            return null;
+        }
+        List<String> values = (List<String>) map.get(COALESCE_KEY_HEADER);
+        if (values == null || values.isEmpty()) {
+            return null;
+        }
+        return SimpMessageHeaderAccessor.getSubscriptionId(headers) + "|" + values.get(0);
+    }
+
+    private static final class SessionState {
+        final WebSocketSession session;
+        final AtomicInteger pending = new AtomicInteger();
+        final AtomicBoolean closing = new AtomicBoolean();
+        // 발행한 순서대로 세워 둔, 아직 스레드 풀에 넣지 않은 프레임
+        final Queue<Message<?>> queue = new ConcurrentLinkedQueue<>();
+        // 이 세션 앞으로 스레드 풀에 넣은(보내는 중인) 프레임이 있는지
+        final AtomicBoolean sending = new AtomicBoolean();
+        // 합치기 키 → 대기 중인 자리에 실어 보낼 최신 프레임
+        final Map<String, Message<?>> latest = new ConcurrentHashMap<>();
+
+        SessionState(WebSocketSession session) {
+            this.session = session;
+        }
+    }
+}
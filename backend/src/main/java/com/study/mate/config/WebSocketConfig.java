@@ -1,12 +1,17 @@
 package com.study.mate.config;
 
+import com.study.mate.util.StompBrokerProperties;
+import com.study.mate.util.WebSocketTransportProperties;
 import lombok.RequiredArgsConstructor;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.lang.NonNull;
+import org.springframework.messaging.simp.config.ChannelRegistration;
 import org.springframework.messaging.simp.config.MessageBrokerRegistry;
+import org.springframework.messaging.simp.config.TaskExecutorRegistration;
 import org.springframework.web.socket.config.annotation.EnableWebSocketMessageBroker;
 import org.springframework.web.socket.config.annotation.StompEndpointRegistry;
 import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketTransportRegistration;
 
 /**
  * WebSocket + STOMP 기본 설정 클래스.
@@ -43,6 +48,11 @@ import org.springframework.web.socket.config.annotation.WebSocketMessageBrokerCo
 public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
 
     private final CookieAuthHandshakeInterceptor cookieAuthHandshakeInterceptor;
+    private final StompFloodGuardInterceptor stompFloodGuardInterceptor;
+    private final StompBrokerProperties brokerProperties;
+    private final StompSlowConsumerInterceptor stompSlowConsumerInterceptor;
+    private final StompPayloadEncodingInterceptor stompPayloadEncodingInterceptor;
+    private final WebSocketTransportProperties transportProperties;
 
     /**
      * 브라우저가 WebSocket 연결을 "시작"할 문(주소)을 등록합니다.
@@ -80,11 +90,89 @@ public class WebSocketConfig implements WebSocketMessageBrokerConfigurer {
      * - 구독: client.subscribe('/topic/rooms/1', handler)
      * - 전송: client.send('/app/rooms/1/chat', {}, JSON.stringify({text: '안녕하세요'}))
      * - 수신: 위 구독으로 같은 방의 모든 사람이 메시지를 받음
+     *
+     * 서버가 여러 대일 때(stomp-broker.mode)
+     * - SIMPLE: 배달부가 서버 메모리 안에 있어, 다른 서버에 연결된 사람에게는 메시지가 가지 않습니다(서버 1대용).
+     * - RELAY: 외부 STOMP 브로커(RabbitMQ/ActiveMQ 등)에 구독/전송을 중계합니다. 모든 서버가 같은 브로커를 보므로
+     *   "/topic/rooms/*", 프레즌스, "/user/..." 개인 알림이 어느 서버에 연결된 사람에게든 전달됩니다.
+     * - EMBEDDED: RELAY 와 같지만, 브로커를 이 서버 안에 띄웁니다(EmbeddedStompBroker, 개발/단일 장비용).
      */
     @Override
     public void configureMessageBroker(@NonNull MessageBrokerRegistry registry) {
-        registry.enableSimpleBroker("/topic", "/queue");
+        if (brokerProperties.getMode() == StompBrokerProperties.Mode.SIMPLE) {
+            registry.enableSimpleBroker("/topic", "/queue");
+        } else {
+            long heartbeat = brokerProperties.getSystemHeartbeat().toMillis();
+            registry.enableStompBrokerRelay("/topic", "/queue")
+                    .setRelayHost(brokerProperties.getRelayHost())
+                    .setRelayPort(brokerProperties.getRelayPort())
+                    .setClientLogin(brokerProperties.getClientLogin())
+                    .setClientPasscode(brokerProperties.getClientPasscode())
+                    .setSystemLogin(brokerProperties.getSystemLogin())
+                    .setSystemPasscode(brokerProperties.getSystemPasscode())
+                    .setVirtualHost(brokerProperties.getVirtualHost())
+                    .setSystemHeartbeatSendInterval(heartbeat)
+                    .setSystemHeartbeatReceiveInterval(heartbeat)
+                    // 다른 서버에 연결된 사용자의 "/user/..." 메시지와 서버별 접속자 목록을 브로커를 통해 서로 나눕니다.
+                    .setUserDestinationBroadcast("/topic/unresolved-user-destination")
+                    .setUserRegistryBroadcast("/topic/simp-user-registry");
+        }
         registry.setApplicationDestinationPrefixes("/app");
         registry.setUserDestinationPrefix("/user");
+        // 한 세션으로 가는 프레임의 순서는 StompSlowConsumerInterceptor 가 세션별 대기열로 지킵니다.
+        // (registry.setPreservePublishOrder 는 한도 없는 자체 대기열에 프레임을 쌓아, 느린 구독자 한도가 듣지 않게 만듭니다.)
+    }
+
+    /**
+     * 브라우저 → 서버로 들어오는 STOMP 프레임이 지나가는 길(clientInboundChannel)에 검사기를 붙입니다.
+     *
+     * - StompFloodGuardInterceptor: 세션/사용자별로 초당 보낼 수 있는 프레임 수를 제한합니다.
+     *   한도를 넘은 프레임은 @MessageMapping 메서드에 닿기 전에 걸러집니다.
+     * - StompPayloadEncodingInterceptor: CONNECT 프레임의 "x-payload-encoding" 헤더로 세션이 받을 본문 형식을 기록합니다.
+     */
+    @Override
+    public void configureClientInboundChannel(@NonNull ChannelRegistration registration) {
+        configurePool(registration.taskExecutor(), transportProperties.getInbound());
+        registration.interceptors(stompFloodGuardInterceptor, stompPayloadEncodingInterceptor);
+    }
+
+    /**
+     * 서버 → 브라우저로 나가는 STOMP 프레임이 지나가는 길(clientOutboundChannel)을 설정합니다.
+     *
+     * - 스레드 풀 크기와 대기열을 정해, 느린 세션 때문에 스레드/대기열이 끝없이 늘지 않게 합니다.
+     * - StompPayloadEncodingInterceptor: CONNECT 때 CBOR 를 고른 세션에는 JSON 본문을 CBOR 로 바꿔 보냅니다.
+     * - StompSlowConsumerInterceptor: 밀린 프레즌스 프레임을 최신 하나로 합치고, 너무 밀린 세션은 끊습니다.
+     *
+     * 참고: 브라우저가 WebSocket 압축(permessage-deflate)을 제안하면 내장 톰캣이 그대로 받아들이므로 따로 설정하지 않습니다.
+     */
+    @Override
+    public void configureClientOutboundChannel(@NonNull ChannelRegistration registration) {
+        configurePool(registration.taskExecutor(), transportProperties.getOutbound());
+        registration.interceptors(stompPayloadEncodingInterceptor, stompSlowConsumerInterceptor);
+    }
+
+    /**
+     * WebSocket 연결 자체의 한도를 정합니다.
+     *
+     * - sendTimeLimit / sendBufferSizeLimit: 한 세션에 보내기가 너무 오래 막히거나 쌓인 바이트가 너무 많으면 연결을 끊습니다.
+     * - messageSizeLimit: 브라우저가 보내는 프레임 한 개의 최대 크기
+     * - timeToFirstMessage: 연결만 맺고 CONNECT 를 보내지 않는 연결을 정리합니다.
+     */
+    @Override
+    public void configureWebSocketTransport(@NonNull WebSocketTransportRegistration registration) {
+        registration
+            .setSendTimeLimit((int) transportProperties.getSendTimeLimit().toMillis())
+            .setSendBufferSizeLimit(transportProperties.getSendBufferSizeLimit())
+            .setMessageSizeLimit(transportProperties.getMessageSizeLimit())
+            .setTimeToFirstMessage((int) transportProperties.getTimeToFirstMessage().toMillis())
+            .addDecoratorFactory(stompSlowConsumerInterceptor);
+    }
+
+    private static void configurePool(TaskExecutorRegistration executor, WebSocketTransportProperties.Pool pool) {
+        executor
+            .corePoolSize(pool.getCorePoolSize())
+            .maxPoolSize(Math.max(pool.getCorePoolSize(), pool.getMaxPoolSize()))
+            .queueCapacity(pool.getQueueCapacity())
+            .keepAliveSeconds((int) pool.getKeepAlive().toSeconds());
     }
 }
@@ -14,6 +14,7 @@ import org.springframework.web.socket.messaging.SessionSubscribeEvent;
 import org.springframework.web.socket.messaging.SessionUnsubscribeEvent;
 
 import com.study.mate.service.UsersService;
+import com.study.mate.service.chat.ChatResumeService;
 import com.study.mate.service.chat.UserSessionRegistry;
 import com.study.mate.service.presence.PresenceService;
 import com.study.mate.service.notification.NotificationService;
@@ -42,6 +43,8 @@ public class WebSocketEventsListener {
   private final PresenceService presenceService;
   private final NotificationService notificationService;
   private final RoomParticipantRepository roomParticipantRepository;
+  // 재구독 때 놓친 채팅(x-last-seq 이후)을 한 번에 보충
+  private final ChatResumeService chatResumeService;
 
     @EventListener
     public void onSubscribe(SessionSubscribeEvent event) {
@@ -69,6 +72,12 @@ public class WebSocketEventsListener {
                     NotificationDto joinNotification = NotificationDto.userJoin(roomId, providerId, nickname);
                     notificationService.sendToRoomParticipants(roomParticipants, joinNotification);
                 }
+                // 재접속: 마지막으로 받은 순번을 보냈다면 그 뒤에 놓친 메시지를 RESUME 프레임으로 보냅니다.
+                String lastSeq = accessor.getFirstNativeHeader(ChatResumeService.LAST_SEQ_HEADER);
+                if (lastSeq != null) {
+                    chatResumeService.resume(accessor.getSessionId(), accessor.getSubscriptionId(), destination,
+                        roomId, providerId, lastSeq);
+                }
             }
             // 프레즌스 토픽: /topic/rooms/{id}/presence → presence 레지스트리 카운트 기반으로 ONLINE 전송
             if (isPresenceTopic(destination, roomId)) {
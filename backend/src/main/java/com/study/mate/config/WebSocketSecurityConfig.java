@@ -1,5 +1,6 @@
 package com.study.mate.config;
 
+import com.study.mate.service.cluster.ClusterEvents;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.messaging.Message;
@@ -10,6 +11,7 @@ import org.springframework.security.messaging.access.intercept.MessageMatcherDel
  * STOMP 보안을 HTTP 스타일 DSL로 단순화.
  * - /app/** 로 보내는 전송(SEND)은 인증 필요
  * - /topic/**, /queue/** 구독(SUBSCRIBE)은 인증 필요
+ *   (단, 서버끼리만 쓰는 브로커 내부 주소는 구독 금지: 노드 간 이벤트, 다른 서버 사용자 메시지, 서버별 접속자 목록)
  * - 그 외 메시지는 거부
  */
 @Configuration
@@ -22,6 +24,8 @@ public class WebSocketSecurityConfig {
 
         builder
             .simpDestMatchers("/app/**").authenticated()
+            .simpSubscribeDestMatchers(ClusterEvents.DESTINATION,
+                "/topic/unresolved-user-destination", "/topic/simp-user-registry").denyAll()
             .simpSubscribeDestMatchers("/topic/**", "/queue/**").authenticated()
             .anyMessage().denyAll();
 
@@ -2,7 +2,10 @@ package com.study.mate.controller;
 
 import com.study.mate.dto.request.ChatSendRequest;
 import com.study.mate.service.chat.ChatSocketService;
+import com.study.mate.service.chat.receipt.ReadReceiptService;
+import com.study.mate.service.presence.RoomActivityCoalescer;
 
+import jakarta.validation.Valid;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
@@ -18,6 +21,8 @@ import java.security.Principal;
  * 설명:
  * - 브라우저가 "/app/rooms/{roomId}/chat" 로 보낸 메시지를 받습니다(@MessageMapping).
  * - DB에 저장한 뒤, 같은 방을 구독한 모두에게 "/topic/rooms/{roomId}" 로 브로드캐스트합니다.
+ * - "/app/rooms/{roomId}/typing" 으로 입력 중 상태를 받아 "/topic/rooms/{roomId}/typing" 으로 모아서 알립니다.
+ * - "/app/rooms/{roomId}/read" 로 어디까지 읽었는지(seq)를 받아 안 읽은 메시지 수를 갱신합니다.
  */
 @Controller
 @RequiredArgsConstructor
@@ -25,11 +30,25 @@ import java.security.Principal;
 public class ChatController {
 
     private final ChatSocketService chatSocketService;
+    private final RoomActivityCoalescer roomActivityCoalescer;
+    private final ReadReceiptService readReceiptService;
+
+    /**
+     * 입력 중 상태 요청 바디
+     * - typing: true(입력 중, 생략 가능) | false(입력 멈춤/전송 완료)
+     */
+    public record TypingRequest(Boolean typing) {}
+
+    /**
+     * 읽음 처리 요청 바디
+     * - seq: 화면에 보인 가장 최근 메시지의 seq(ChatMessageResponse.seq)
+     */
+    public record ReadRequest(Long seq) {}
 
     @MessageMapping("/rooms/{roomId}/chat")
     public void handleChat(
         @DestinationVariable Long roomId,
-        @Payload ChatSendRequest request,
+        @Valid @Payload ChatSendRequest request,
         Principal principal
     ) {
         final String providerId = (principal != null ? principal.getName() : null);
@@ -38,6 +57,7 @@ public class ChatController {
         /**
          * 1) 요청 바디 검증
          * - 빈 문자열은 저장/방송하지 않습니다.
+         * - 1000자를 넘는 내용은 @Valid 검증에서 걸러져 이 메서드까지 오지 않습니다.
          */
         if (request == null || request.content() == null || request.content().isBlank()) {
             return;
@@ -53,6 +73,42 @@ public class ChatController {
         // 3) 서비스에 위임: 저장 + 브로드캐스트
         chatSocketService.saveAndBroadcast(roomId, request, providerId);
     }
-}
 
+    /**
+     * 입력 중 이벤트 수신. 키 입력마다 보내도 되지만, 1~2초에 한 번이면 충분합니다(typing-ttl 안에서만 다시 보내면 유지됨).
+     * - 방 참여자별로 메모리에만 기록하고, 목록이 바뀐 경우에만 tick 마다 방 전체에 한 번 알립니다.
+     *
+     * 프론트엔드 예시
+     *
+     * wsSend(`/app/rooms/${roomId}/typing`, { typing: true });
+     * client.subscribe(`/topic/rooms/${roomId}/typing`, (frame) => { const { typers, count } = JSON.parse(frame.body); ... });
+     */
+    @MessageMapping("/rooms/{roomId}/typing")
+    public void handleTyping(
+        @DestinationVariable Long roomId,
+        @Payload(required = false) TypingRequest request,
+        Principal principal
+    ) {
+        if (principal == null) return;
+        boolean typing = request == null || request.typing() == null || request.typing();
+        roomActivityCoalescer.typing(roomId, principal.getName(), typing);
+    }
 
+    /**
+     * 읽음 처리. 방 화면이 보이는 동안 새 메시지를 받았을 때나 방에 들어왔을 때 보내면 됩니다.
+     * - 메모리의 읽음 위치만 올리고, DB 에는 주기적으로 모아서 씁니다.
+     *
+     * 프론트엔드 예시
+     *
+     * wsSend(`/app/rooms/${roomId}/read`, { seq: lastMessage.seq });
+     */
+    @MessageMapping("/rooms/{roomId}/read")
+    public void handleRead(
+        @DestinationVariable Long roomId,
+        @Payload ReadRequest request,
+        Principal principal
+    ) {
+        if (principal == null || request == null || request.seq() == null) return;
+        readReceiptService.markRead(roomId, principal.getName(), request.seq());
+    }
+}
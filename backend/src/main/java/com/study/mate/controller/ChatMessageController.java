@@ -2,6 +2,7 @@ package com.study.mate.controller;
 
 import com.study.mate.dto.ApiResponse;
 import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.dto.response.ChatMessageSliceResponse;
 import com.study.mate.service.ChatMessageService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.data.domain.PageRequest;
@@ -42,6 +43,36 @@ public class ChatMessageController {
         List<ChatMessageResponse> messages = chatMessageService.getRecentMessages(roomId, pageable);
         return ApiResponse.ok(messages);
     }
-}
 
+    /**
+     * GET /api/rooms/{roomId}/messages/history?before={messageId}&size=20
+     * GET /api/rooms/{roomId}/messages/history?after={messageId}&size=20
+     * - 메시지 id 를 커서로 쓰는 기록 조회입니다. 깊이 스크롤해도 앞의 행을 읽고 버리지 않고, COUNT 쿼리도 없습니다.
+     * - 응답의 nextCursor 를 다음 요청의 before(또는 after)에 넣으면 이어서 불러옵니다.
+     */
+    @GetMapping("/{roomId}/messages/history")
+    public ApiResponse<ChatMessageSliceResponse> getMessageHistory(
+            @PathVariable Long roomId,
+            @RequestParam(required = false) Long before,
+            @RequestParam(required = false) Long after,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ApiResponse.ok(chatMessageService.getMessages(roomId, before, after, size));
+    }
 
+    /**
+     * GET /api/rooms/{roomId}/messages/search?q=스터디&before={messageId}&size=20
+     * - 검색어가 들어 있는 메시지를 최신순으로 찾습니다(띄어쓰기로 나눈 단어가 모두 들어 있어야 함, 두 글자 이상).
+     * - 응답의 nextCursor 를 다음 요청의 before 에 넣으면 이어서 찾습니다.
+     *   한 번에 확인하는 후보 수에 상한이 있어, 결과가 size 보다 적어도 hasNext 가 true 면 이어서 요청하면 됩니다.
+     */
+    @GetMapping("/{roomId}/messages/search")
+    public ApiResponse<ChatMessageSliceResponse> searchMessages(
+            @PathVariable Long roomId,
+            @RequestParam String q,
+            @RequestParam(required = false) Long before,
+            @RequestParam(defaultValue = "20") int size
+    ) {
+        return ApiResponse.ok(chatMessageService.search(roomId, q, before, size));
+    }
+}
@@ -38,15 +38,23 @@ public class NotificationController {
      * 클라이언트가 이 엔드포인트에 연결하면 실시간 알림을 받을 수 있습니다.
      * 연결은 최대 30분간 유지되며, 타임아웃이나 오류 발생 시 자동으로 해제됩니다.
      * 
+     * 재연결: 브라우저(EventSource)는 다시 연결할 때 마지막으로 받은 알림 id 를 Last-Event-ID 헤더로 보냅니다.
+     * 직접 다시 연결하는 경우에는 ?lastEventId= 로 보내도 됩니다. 그 뒤에 놓친 알림을 먼저 다시 보내 줍니다.
+     * 
      * @param providerId JWT 토큰에서 추출된 사용자 식별자 (JwtAuthenticationFilter에서 자동 처리)
+     * @param lastEventIdHeader 마지막으로 받은 알림 id (Last-Event-ID 헤더)
+     * @param lastEventIdParam 마지막으로 받은 알림 id (쿼리 파라미터, 헤더가 없을 때)
      * @return SseEmitter 객체
      */
     @GetMapping(value = "/subscribe", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
-    public SseEmitter subscribe(@AuthenticationPrincipal String providerId) {
+    public SseEmitter subscribe(@AuthenticationPrincipal String providerId,
+                                @RequestHeader(value = "Last-Event-ID", required = false) String lastEventIdHeader,
+                                @RequestParam(value = "lastEventId", required = false) String lastEventIdParam) {
         log.info("SSE 구독 요청 수신: providerId={}", providerId);
         
         // JwtAuthenticationFilter에서 이미 인증이 완료되었으므로 providerId는 항상 유효함
-        return notificationService.createConnection(providerId);
+        String lastEventId = lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam;
+        return notificationService.createConnection(providerId, lastEventId);
     }
     
     /**
@@ -55,17 +55,19 @@ public class StudyRoomController {
     /**
      * 스터디룸 목록 조회 (참여자 수 포함)
      *
+     * @param subject 로그인 사용자(providerId). 참여한 방에는 안 읽은 메시지 수가 채워집니다.
      * @param keyword 검색 키워드(제목/설명)
      * @param hostId  호스트 ID(선택)
      * @param pageable 페이지 정보
      * @return 페이징된 스터디룸 목록을 ApiResponse로 래핑하여 반환
      */
     @GetMapping
-    public ApiResponse<Page<StudyRoomListItemResponse>> list(@RequestParam(required = false) String keyword,
+    public ApiResponse<Page<StudyRoomListItemResponse>> list(@AuthenticationPrincipal String subject,
+                                                             @RequestParam(required = false) String keyword,
                                                              @RequestParam(required = false) Long hostId,
                                                              Pageable pageable) {
         log.debug("[RoomList] keyword='{}', hostId={}, page={}~{}", keyword, hostId, pageable.getPageNumber(), pageable.getPageSize());
-        return ApiResponse.ok(studyRoomService.listRooms(keyword, hostId, pageable));
+        return ApiResponse.ok(studyRoomService.listRooms(keyword, hostId, pageable, subject));
     }
 
     /**
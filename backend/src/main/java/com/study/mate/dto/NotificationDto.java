@@ -4,6 +4,7 @@ import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Builder;
 
 import java.time.LocalDateTime;
+import java.util.List;
 import java.util.Map;
 
 /**
@@ -68,6 +69,29 @@ public record NotificationDto(
             .build();
     }
     
+    /**
+     * 채팅 묶음 알림 생성 (바쁜 방에서 여러 메시지를 하나로 요약)
+     * 
+     * @param count 묶인 메시지 수
+     * @param senders 보낸 사람 닉네임(보여 줄 만큼만, 먼저 보낸 순)
+     * @param totalSenders 보낸 사람 전체 수
+     * @param lastMessage 마지막 메시지 내용
+     */
+    public static NotificationDto chatDigest(Long roomId, int count, List<String> senders, int totalSenders, String lastMessage) {
+        String names = String.join(", ", senders);
+        String who = totalSenders > senders.size()
+            ? names + " 님 외 " + (totalSenders - senders.size()) + "명"
+            : names + " 님";
+        return NotificationDto.builder()
+            .type("CHAT_DIGEST")
+            .roomId(roomId)
+            .nickname(totalSenders == 1 ? senders.get(0) : null)
+            .message(who + "의 새 메시지 " + count + "개")
+            .timestamp(LocalDateTime.now())
+            .data(Map.of("count", count, "senders", senders, "lastMessage", lastMessage != null ? lastMessage : ""))
+            .build();
+    }
+    
     /**
      * 사용자 입장 알림 생성
      */
@@ -1,13 +1,17 @@
 package com.study.mate.dto.request;
 
+import jakarta.validation.constraints.Size;
+
 /**
  * 채팅 전송 요청 (MVP: 텍스트만)
  *
  * 설명:
  * - 브라우저가 서버로 보낼 때 사용하는 간단한 요청입니다.
  * - 예) client.send('/app/rooms/1/chat', {}, JSON.stringify({ content: '안녕하세요' }))
+ * - content 길이는 chat_messages.content 컬럼(1000자)을 넘지 않도록 받을 때 검증합니다.
  */
 public record ChatSendRequest(
+        @Size(max = 1000, message = "content는 최대 1000자입니다.")
         String content
 ) {}
 
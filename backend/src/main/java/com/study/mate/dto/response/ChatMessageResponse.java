@@ -8,6 +8,8 @@ import lombok.Builder;
 
 /**
  * 채팅 메시지 응답 DTO (record)
+ *
+ * - seq: 방 안의 메시지 순번. 읽음 처리(/app/rooms/{roomId}/read)에 그대로 보내면 됩니다(순번을 매기기 전의 옛 메시지는 null).
  */
 @Builder
 public record ChatMessageResponse(
@@ -17,7 +19,8 @@ public record ChatMessageResponse(
     String senderNickname,
     String senderProfileImageUrl,
     String content,
-    LocalDateTime createdAt
+    LocalDateTime createdAt,
+    Long seq
 ) {
 
   public static ChatMessageResponse from(ChatMessage chatMessage) {
@@ -29,6 +32,7 @@ public record ChatMessageResponse(
         .senderProfileImageUrl(chatMessage.getSender().getProfileImageUrl())
         .content(chatMessage.getContent())
         .createdAt(chatMessage.getCreatedAt())
+        .seq(chatMessage.getSeq())
         .build();
   }
 }
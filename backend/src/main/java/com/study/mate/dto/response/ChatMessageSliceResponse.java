@@ -0,0 +1,22 @@
+package com.study.mate.dto.response;
+
+import java.util.List;
+
+/**
+ * 커서 기반 채팅 기록 조회 응답 DTO (record)
+ *
+ * - messages: 조회된 메시지(before 조회는 최신순, after 조회는 오래된 순)
+ * - hasNext: 같은 방향으로 더 불러올 메시지가 있는지
+ * - nextCursor: 다음 요청의 before/after 에 그대로 넣으면 되는 메시지 id(없으면 null)
+ */
+public record ChatMessageSliceResponse(
+    List<ChatMessageResponse> messages,
+    boolean hasNext,
+    Long nextCursor
+) {
+
+  public static ChatMessageSliceResponse of(List<ChatMessageResponse> messages, boolean hasNext) {
+    Long cursor = messages.isEmpty() ? null : messages.get(messages.size() - 1).id();
+    return new ChatMessageSliceResponse(messages, hasNext, cursor);
+  }
+}
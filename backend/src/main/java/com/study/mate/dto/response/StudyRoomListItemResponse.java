@@ -3,8 +3,12 @@ package com.study.mate.dto.response;
 import com.study.mate.repository.dto.StudyRoomWithParticipantCount;
 import lombok.Builder;
 
-@Builder
-public record StudyRoomListItemResponse(Long id, String title, String description, Long participantCount) {
+/**
+ * 스터디룸 목록 항목
+ * - unreadCount: 내가 참여한 방의 안 읽은 메시지 수(참여하지 않은 방이면 null)
+ */
+@Builder(toBuilder = true)
+public record StudyRoomListItemResponse(Long id, String title, String description, Long participantCount, Long unreadCount) {
 
     public static StudyRoomListItemResponse from(StudyRoomWithParticipantCount src) {
         return StudyRoomListItemResponse.builder()
@@ -14,6 +18,10 @@ public record StudyRoomListItemResponse(Long id, String title, String descriptio
                 .participantCount(src.getParticipantCount())
                 .build();
     }
+
+    public StudyRoomListItemResponse withUnreadCount(Long unreadCount) {
+        return toBuilder().unreadCount(unreadCount).build();
+    }
 }
 
 
@@ -0,0 +1,53 @@
+package com.study.mate.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 사용자별 일일 AI 사용량(클러스터 공유 카운터)
+ *
+ * 설명:
+ * - 여러 서버 인스턴스가 같은 한도를 나눠 쓰도록, "오늘 이 사용자에게 임대(lease)해 준 요청/토큰 총량"을 DB에 기록합니다.
+ * - 각 서버는 한도를 조금씩(청크 단위) 임대받아 메모리에서 소진하고, 다 쓰면 다시 임대받습니다.
+ * - epochDay: 서버 타임존 기준 일자 번호(LocalDate#toEpochDay)
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "ai_quota_usage",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_ai_quota_provider_day", columnNames = {"provider_id", "epoch_day"})
+        },
+        indexes = {
+                @Index(name = "idx_ai_quota_epoch_day", columnList = "epoch_day")
+        })
+public class AIQuotaUsage {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "provider_id", nullable = false, length = 255)
+    private String providerId;
+
+    @Column(name = "epoch_day", nullable = false)
+    private Long epochDay;
+
+    // 오늘 임대된 요청 수 누계
+    @Column(name = "requests", nullable = false)
+    private Integer requests;
+
+    // 오늘 임대된 토큰 수 누계
+    @Column(name = "tokens", nullable = false)
+    private Integer tokens;
+
+    /**
+     * 임대량을 더합니다(음수면 반납).
+     */
+    public void add(int requests, int tokens) {
+        this.requests = Math.max(0, this.requests + requests);
+        this.tokens = Math.max(0, this.tokens + tokens);
+    }
+}
@@ -1,5 +1,6 @@
 package com.study.mate.entity;
 
+import com.study.mate.entity.id.TimeOrderedId;
 import jakarta.persistence.*;
 import lombok.*;
 
@@ -9,6 +10,9 @@ import lombok.*;
  * 설명:
  * - 이 테이블은 "누가 어떤 방에서 어떤 메시지를 언제 보냈는지"를 저장합니다.
  * - User(보낸 사람), StudyRoom(어느 방), content(내용), createdAt(보낸 시각)
+ * - id 는 애플리케이션이 정하는 시간 순 64비트 값입니다(@TimeOrderedId). 같은 방 안에서 id 순서 = 작성 순서입니다.
+ * - seq 는 방 안에서 1, 2, 3... 으로 늘어나는 메시지 순번입니다. "방의 마지막 순번 - 내가 읽은 순번" 이 안 읽은 메시지 수가 됩니다.
+ *   (이 컬럼이 생기기 전에 저장된 메시지는 null)
  */
 @Getter
 @Builder
@@ -16,12 +20,16 @@ import lombok.*;
 @AllArgsConstructor
 @Entity
 @Table(name = "chat_messages", indexes = {
-    @Index(name = "idx_chat_room_created", columnList = "room_id, created_at")
+    @Index(name = "idx_chat_room_created", columnList = "room_id, created_at"),
+    // id 커서(keyset) 조회용: WHERE room_id = ? AND id < ? ORDER BY id DESC
+    @Index(name = "idx_chat_room_id", columnList = "room_id, id"),
+    // 방별 마지막 순번 조회용: SELECT MAX(seq) ... WHERE room_id = ?
+    @Index(name = "idx_chat_room_seq", columnList = "room_id, seq")
 })
 public class ChatMessage extends BaseTimeEntity {
 
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @TimeOrderedId
     private Long id;
 
     @ManyToOne(fetch = FetchType.LAZY, optional = false)
@@ -34,6 +42,10 @@ public class ChatMessage extends BaseTimeEntity {
 
     @Column(nullable = false, length = 1000)
     private String content;
+
+    // 방 안의 메시지 순번(RoomSequencer 가 정함)
+    @Column(name = "seq")
+    private Long seq;
 }
 
 
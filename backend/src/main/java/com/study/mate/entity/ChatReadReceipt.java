@@ -0,0 +1,43 @@
+package com.study.mate.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 사용자별 방 읽음 위치
+ *
+ * 설명:
+ * - "이 사용자가 이 방에서 몇 번째 메시지(seq)까지 읽었는지"를 기록합니다.
+ * - 안 읽은 메시지 수 = 방의 마지막 seq - last_read_seq 입니다(COUNT 쿼리가 필요 없음).
+ * - 평소에는 메모리({@code ReadReceiptService})에서 갱신하고, 바뀐 행만 주기적으로 모아 이 테이블에 씁니다.
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "chat_read_receipts",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_read_receipt_user_room", columnNames = {"user_id", "room_id"})
+        })
+public class ChatReadReceipt {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "user_id", nullable = false)
+    private Long userId;
+
+    @Column(name = "room_id", nullable = false)
+    private Long roomId;
+
+    // 마지막으로 읽은 메시지 순번(ChatMessage.seq)
+    @Column(name = "last_read_seq", nullable = false)
+    private Long lastReadSeq;
+
+    @Column(name = "updated_at", nullable = false)
+    private LocalDateTime updatedAt;
+}
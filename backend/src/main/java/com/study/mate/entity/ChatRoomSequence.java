@@ -0,0 +1,30 @@
+package com.study.mate.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+/**
+ * 방별 마지막 메시지 순번(high-water mark)
+ *
+ * 설명:
+ * - 서버가 순번을 몇 개씩(sequence-block-size) 예약할 때마다 짧은 트랜잭션으로 last_seq 를 그만큼 올립니다.
+ *   예약한 구간은 그 서버만 쓰므로, 서버가 여러 대여도 같은 방에 같은 순번이 두 번 나오지 않습니다.
+ * - 메시지가 보관(chat-archive)되어 chat_messages 에서 지워져도 이 행은 남으므로, 재시작 후에도 순번이 1로 돌아가지 않습니다.
+ * - 행은 {@code RoomSequencer} 가 JdbcTemplate 로 직접 읽고 씁니다(이 클래스는 테이블 정의용).
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "chat_room_sequences")
+public class ChatRoomSequence {
+
+    @Id
+    @Column(name = "room_id")
+    private Long roomId;
+
+    // 이 방에서 마지막으로 매긴 메시지 순번(ChatMessage.seq)
+    @Column(name = "last_seq", nullable = false)
+    private Long lastSeq;
+}
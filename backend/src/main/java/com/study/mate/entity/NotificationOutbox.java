@@ -0,0 +1,54 @@
+package com.study.mate.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * 다른 서버 인스턴스(노드)로 보낼 SSE 알림(아웃박스)
+ *
+ * 설명:
+ * - 알림을 만든 노드가 "받는 사람이 연결된 노드"마다 한 행씩 씁니다(받는 사람 목록 + 알림 JSON).
+ * - 받을 노드는 자기 앞으로 온 행(target_node)만 주기적으로 읽어 자기 SSE 연결에 보내고 지웁니다.
+ * - 받을 노드가 죽어 읽어 가지 않은 행은 outbox-ttl 이 지나면 정리합니다.
+ * - 행은 {@code JdbcNotificationBus} 가 JdbcTemplate 로 직접 읽고 씁니다(이 클래스는 테이블 정의용).
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "notification_outbox",
+        indexes = {
+                @Index(name = "idx_notification_outbox_target", columnList = "target_node, id")
+        })
+public class NotificationOutbox {
+
+    // 시간 순 id(SnowflakeIdGenerator): 읽는 순서와 오래된 행 정리 기준
+    @Id
+    private Long id;
+
+    @Column(name = "target_node", nullable = false)
+    private Integer targetNode;
+
+    @Column(name = "origin_node", nullable = false)
+    private Integer originNode;
+
+    // SSE 이벤트 id(모든 노드에서 같은 값)
+    @Column(name = "event_id", nullable = false)
+    private Long eventId;
+
+    // 받는 사람 providerId 목록(줄바꿈으로 구분)
+    @Lob
+    @Column(name = "recipients", nullable = false)
+    private String recipients;
+
+    // 알림 JSON(NotificationDto)
+    @Lob
+    @Column(name = "payload", nullable = false)
+    private String payload;
+
+    @Column(name = "created_at", nullable = false)
+    private LocalDateTime createdAt;
+}
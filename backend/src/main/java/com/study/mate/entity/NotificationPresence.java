@@ -0,0 +1,43 @@
+package com.study.mate.entity;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * SSE 알림 위치 힌트: "이 사용자가 이 노드에 SSE 로 연결되어 있다"
+ *
+ * 설명:
+ * - 노드는 사용자의 첫 SSE 연결이 생기면 행을 쓰고, 마지막 연결이 끊기면 지웁니다.
+ * - 알림을 발행하는 노드는 이 표를 보고 받는 사람이 있는 노드에만 아웃박스 행을 씁니다(모든 노드에 뿌리지 않음).
+ * - 노드가 죽어도 잘못된 힌트가 남지 않도록 expires_at 을 두고, 살아 있는 노드는 주기적으로 늘립니다.
+ * - 행은 {@code JdbcNotificationBus} 가 JdbcTemplate 로 직접 읽고 씁니다(이 클래스는 테이블 정의용).
+ */
+@Getter
+@NoArgsConstructor(access = AccessLevel.PROTECTED)
+@AllArgsConstructor
+@Builder
+@Entity
+@Table(name = "notification_presence",
+        uniqueConstraints = {
+                @UniqueConstraint(name = "uk_notification_presence_user_node", columnNames = {"provider_id", "node_id"})
+        },
+        indexes = {
+                @Index(name = "idx_notification_presence_node", columnList = "node_id")
+        })
+public class NotificationPresence {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    @Column(name = "provider_id", nullable = false, length = 255)
+    private String providerId;
+
+    @Column(name = "node_id", nullable = false)
+    private Integer nodeId;
+
+    @Column(name = "expires_at", nullable = false)
+    private LocalDateTime expiresAt;
+}
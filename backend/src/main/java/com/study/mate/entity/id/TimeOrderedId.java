@@ -0,0 +1,19 @@
+package com.study.mate.entity.id;
+
+import org.hibernate.annotations.IdGeneratorType;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 엔티티 id 를 DB(IDENTITY)가 아닌 {@link TimeOrderedIdGenerator}(Snowflake 방식)로 만들도록 지정합니다.
+ *
+ * 사용 예) @Id @TimeOrderedId private Long id;
+ */
+@IdGeneratorType(TimeOrderedIdGenerator.class)
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.FIELD, ElementType.METHOD})
+public @interface TimeOrderedId {
+}
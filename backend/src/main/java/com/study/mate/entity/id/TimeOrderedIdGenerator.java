@@ -0,0 +1,20 @@
+package com.study.mate.entity.id;
+
+import com.study.mate.util.SnowflakeIdGenerator;
+import org.hibernate.engine.spi.SharedSessionContractImplementor;
+import org.hibernate.id.IdentifierGenerator;
+
+/**
+ * Hibernate 가 INSERT 전에 호출하는 id 생성기입니다.
+ *
+ * 왜 IDENTITY 대신 쓰나요?
+ * - IDENTITY 는 INSERT 를 해 봐야 id 를 알 수 있어서, 저장할 때마다 DB 왕복이 필요하고 JDBC 배치도 꺼집니다.
+ * - 여기서는 애플리케이션이 미리 id 를 정하므로, 저장 전에도 id 로 방송할 수 있고 INSERT 를 모아 보낼 수 있습니다.
+ */
+public class TimeOrderedIdGenerator implements IdentifierGenerator {
+
+    @Override
+    public Object generate(SharedSessionContractImplementor session, Object object) {
+        return SnowflakeIdGenerator.shared().nextId();
+    }
+}
@@ -18,6 +18,7 @@ public enum ErrorCode {
     ALREADY_PARTICIPANT(HttpStatus.CONFLICT, "already participant"),
     HOST_CANNOT_LEAVE(HttpStatus.BAD_REQUEST, "host cannot leave"),
     RATE_LIMIT_EXCEEDED(HttpStatus.TOO_MANY_REQUESTS, "rate limit exceeded"),
+    AI_OVERLOADED(HttpStatus.TOO_MANY_REQUESTS, "ai service is busy, retry later"),
     INTERNAL_ERROR(HttpStatus.INTERNAL_SERVER_ERROR, "internal error");
 
     private final HttpStatus status;
@@ -0,0 +1,17 @@
+package com.study.mate.exception;
+
+import lombok.Getter;
+
+/**
+ * 잠시 후 다시 시도하면 처리될 수 있는 429 응답용 예외입니다.
+ * - GlobalExceptionHandler 가 retryAfterSeconds 를 Retry-After 헤더로 내려줍니다.
+ */
+@Getter
+public class TooManyRequestsException extends BusinessException {
+    private final long retryAfterSeconds;
+
+    public TooManyRequestsException(ErrorCode errorCode, long retryAfterSeconds) {
+        super(errorCode);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+}
@@ -0,0 +1,28 @@
+package com.study.mate.repository;
+
+import com.study.mate.entity.AIQuotaUsage;
+import jakarta.persistence.LockModeType;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.util.Optional;
+
+public interface AIQuotaUsageRepository extends JpaRepository<AIQuotaUsage, Long> {
+
+    /**
+     * 사용자/일자별 사용량 행을 쓰기 잠금(SELECT ... FOR UPDATE)으로 조회합니다.
+     * 여러 노드가 동시에 임대해도 총량이 한도를 넘지 않도록 직렬화합니다.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    Optional<AIQuotaUsage> findByProviderIdAndEpochDay(String providerId, Long epochDay);
+
+    /**
+     * 지난 날짜의 사용량 행을 일괄 삭제합니다.
+     */
+    @Modifying
+    @Query("DELETE FROM AIQuotaUsage q WHERE q.epochDay < :epochDay")
+    int deleteOlderThan(@Param("epochDay") Long epochDay);
+}
@@ -1,29 +1,71 @@
 package com.study.mate.repository;
 
+import com.study.mate.dto.response.ChatMessageResponse;
 import com.study.mate.entity.ChatMessage;
-import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * 채팅 메시지 저장소 (JPA)
  *
- * - 방 아이디로 최근 메시지를 페이징 조회합니다.
+ * - 방 아이디로 최근 메시지를 조회합니다.
+ * - 모든 조회는 보낸 사람(sender)을 JOIN 해 ChatMessageResponse 로 바로 담습니다(생성자 프로젝션).
+ *   엔티티를 꺼낸 뒤 sender 를 하나씩 지연 로딩하는 N+1 이 생기지 않습니다.
+ * - Page 대신 Slice 를 반환해 COUNT(*) 쿼리를 따로 날리지 않습니다(다음 묶음이 있는지만 size+1 로 확인).
+ * - 메시지 id 는 시간 순으로 증가하므로, (room_id, id) 인덱스를 따라 id 를 커서로 쓰는 keyset 조회를 합니다.
  */
 public interface ChatMessageRepository extends JpaRepository<ChatMessage, Long> {
 
+    String RESPONSE_PROJECTION =
+        "SELECT new com.study.mate.dto.response.ChatMessageResponse(" +
+        "m.id, m.room.id, s.id, s.nickname, s.profileImageUrl, m.content, m.createdAt, m.seq) " +
+        "FROM ChatMessage m JOIN m.sender s ";
+
     /**
-     * 특정 방의 최근 메시지를 생성시각 내림차순으로 조회합니다.
+     * 특정 방의 최근 메시지를 최신순으로 조회합니다(오프셋 방식, 하위 호환용).
      *
      * @param roomId   방 아이디
      * @param pageable 페이지/사이즈 정보 (예: PageRequest.of(0, 20))
      */
-    @Query(
-        "SELECT m FROM ChatMessage m WHERE m.room.id = :roomId ORDER BY m.createdAt DESC"
-    )
-    Page<ChatMessage> findRecentMessagesByRoomId(@Param("roomId") Long roomId, Pageable pageable);
-}
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId ORDER BY m.id DESC")
+    Slice<ChatMessageResponse> findRecentMessagesByRoomId(@Param("roomId") Long roomId, Pageable pageable);
 
+    /**
+     * 커서(before)보다 오래된 메시지를 최신순으로 조회합니다(위로 스크롤하며 과거 불러오기).
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId AND m.id < :before ORDER BY m.id DESC")
+    Slice<ChatMessageResponse> findBefore(@Param("roomId") Long roomId, @Param("before") Long before, Pageable pageable);
 
+    /**
+     * 커서(after)보다 새로운 메시지를 오래된 순으로 조회합니다(재접속 후 놓친 메시지 이어받기).
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId AND m.id > :after ORDER BY m.id ASC")
+    Slice<ChatMessageResponse> findAfter(@Param("roomId") Long roomId, @Param("after") Long after, Pageable pageable);
+
+    /**
+     * 방 안의 순번(seq)이 afterSeq 보다 큰 메시지를 순번 순으로 조회합니다(구독 재개 때 놓친 메시지 보충).
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId AND m.seq > :afterSeq ORDER BY m.seq ASC")
+    Slice<ChatMessageResponse> findAfterSeq(@Param("roomId") Long roomId, @Param("afterSeq") Long afterSeq, Pageable pageable);
+
+    /**
+     * 검색 색인이 고른 후보 메시지를 한 번에 조회합니다(본문 확인용, 순서는 보장하지 않음).
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId AND m.id IN :ids")
+    List<ChatMessageResponse> findByRoomIdAndIdIn(@Param("roomId") Long roomId, @Param("ids") Collection<Long> ids);
+
+    /**
+     * 검색 색인을 쓸 수 없을 때(재구성 중/꺼짐) 본문 LIKE 로 커서보다 오래된 메시지를 최신순으로 찾습니다.
+     * - pattern 은 소문자로, %·_·! 는 앞에 '!' 를 붙여 이스케이프해서 넘깁니다('\' 는 DB 마다 해석이 달라 쓰지 않음).
+     */
+    @Query(RESPONSE_PROJECTION + "WHERE m.room.id = :roomId AND m.id < :before " +
+        "AND LOWER(m.content) LIKE :pattern ESCAPE '!' ORDER BY m.id DESC")
+    Slice<ChatMessageResponse> searchBefore(@Param("roomId") Long roomId, @Param("before") Long before,
+                                            @Param("pattern") String pattern, Pageable pageable);
+}
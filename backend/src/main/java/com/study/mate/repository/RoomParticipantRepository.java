@@ -1,6 +1,7 @@
 package com.study.mate.repository;
 
 import com.study.mate.entity.RoomParticipant;
+import com.study.mate.repository.dto.RoomMemberRow;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
@@ -60,6 +61,11 @@ public interface RoomParticipantRepository extends JpaRepository<RoomParticipant
      */
     @Query("SELECT u.providerId FROM RoomParticipant rp JOIN rp.user u WHERE rp.room.id = :roomId")
     List<String> findParticipantProviderIds(@Param("roomId") Long roomId);
-}
-
 
+    /**
+     * 특정 스터디룸(roomId) 참여자의 사용자 id 와 providerId 를 한 번에 조회합니다.
+     * 채팅 전송 경로의 참여자 캐시(RoomMembershipCache)를 채울 때 사용됩니다.
+     */
+    @Query("SELECT new com.study.mate.repository.dto.RoomMemberRow(u.id, u.providerId) FROM RoomParticipant rp JOIN rp.user u WHERE rp.room.id = :roomId")
+    List<RoomMemberRow> findMemberRows(@Param("roomId") Long roomId);
+}
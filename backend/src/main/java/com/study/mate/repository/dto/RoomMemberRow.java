@@ -0,0 +1,14 @@
+package com.study.mate.repository.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * 방 참여자 한 명의 식별 정보(사용자 id, providerId)만 담는 조회용 DTO
+ */
+@Getter
+@AllArgsConstructor
+public class RoomMemberRow {
+    private Long userId;
+    private String providerId;
+}
@@ -1,31 +1,163 @@
 package com.study.mate.service;
 
 import com.study.mate.dto.response.ChatMessageResponse;
-import com.study.mate.entity.ChatMessage;
+import com.study.mate.dto.response.ChatMessageSliceResponse;
 import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.service.chat.RecentMessageCache;
+import com.study.mate.service.chat.archive.ChatArchiveService;
+import com.study.mate.service.chat.search.ChatSearchIndex;
+import com.study.mate.service.chat.search.ChatSearchIndex.Candidates;
+import com.study.mate.service.chat.search.ChatSearchIndex.SearchQuery;
+import com.study.mate.util.ChatSearchProperties;
 import lombok.RequiredArgsConstructor;
-import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
- * 채팅 메시지 조회 서비스 (MVP: 최근 메시지 페이징만)
+ * 채팅 메시지 조회 서비스
  */
 @Service
 @RequiredArgsConstructor
+@Transactional(readOnly = true)
 public class ChatMessageService {
 
+    private static final int MAX_SIZE = 100;
+
     private final ChatMessageRepository chatMessageRepository;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatArchiveService chatArchiveService;
+    private final ChatSearchIndex chatSearchIndex;
+    private final ChatSearchProperties chatSearchProperties;
 
     /**
      * 방의 최근 메시지를 페이징으로 조회합니다(최신순).
+     * - 첫 페이지는 방별 메모리 캐시에서 먼저 찾습니다.
      */
     public List<ChatMessageResponse> getRecentMessages(Long roomId, Pageable pageable) {
-        Page<ChatMessage> page = chatMessageRepository.findRecentMessagesByRoomId(roomId, pageable);
-        return page.map(ChatMessageResponse::from).getContent();
+        if (pageable.getPageNumber() == 0) {
+            ChatMessageSliceResponse cached = recentMessageCache.findBefore(roomId, null, pageable.getPageSize());
+            if (cached != null) {
+                return cached.messages();
+            }
+        }
+        return chatMessageRepository.findRecentMessagesByRoomId(roomId, pageable).getContent();
     }
-}
 
+    /**
+     * 메시지 id 커서로 기록을 조회합니다.
+     * - before 가 있으면 그보다 오래된 메시지를 최신순으로,
+     * - after 가 있으면 그보다 새로운 메시지를 오래된 순으로,
+     * - 둘 다 없으면 가장 최근 메시지를 최신순으로 돌려줍니다.
+     * - 최신순 조회가 메모리 캐시 범위 안이면 DB 에 가지 않습니다.
+     * - DB 에 남은 메시지를 다 읽었는데 보관(archive) 파일에 더 오래된 메시지가 있으면 그대로 이어서 채웁니다.
+     *   보관된 메시지는 항상 DB 에 남은 메시지보다 id 가 작으므로, 커서는 경계를 신경 쓰지 않고 그대로 쓰면 됩니다.
+     */
+    public ChatMessageSliceResponse getMessages(Long roomId, Long before, Long after, int size) {
+        int limitSize = Math.max(1, Math.min(size, MAX_SIZE));
+        if (after != null) {
+            return getAfter(roomId, after, limitSize);
+        }
+        ChatMessageSliceResponse newest = getBefore(roomId, before, limitSize);
+        if (newest.hasNext() || !chatArchiveService.hasArchive(roomId)) {
+            return newest;
+        }
+        // DB 쪽이 끝났으므로 남은 개수(+1: 다음이 있는지 확인용)만큼 보관 파일에서 이어 읽습니다.
+        int need = limitSize - newest.messages().size();
+        Long cursor = newest.messages().isEmpty() ? before : newest.nextCursor();
+        List<ChatMessageResponse> archived = chatArchiveService.findBefore(roomId, cursor, need + 1);
+        List<ChatMessageResponse> merged = new ArrayList<>(newest.messages());
+        merged.addAll(archived.subList(0, Math.min(need, archived.size())));
+        return ChatMessageSliceResponse.of(merged, archived.size() > need);
+    }
 
+    /**
+     * 방의 채팅 기록에서 검색어가 들어 있는 메시지를 최신순으로 찾습니다(before 가 있으면 그보다 오래된 것만).
+     * - 검색 색인이 후보 id 를 고르고, DB 에서 본문을 읽어 검색어가 실제로 들어 있는지 확인합니다.
+     * - 후보가 max-candidates 개를 넘으면 그만큼만 확인하고 hasNext=true 와 "마지막으로 확인한 후보 id" 를 nextCursor 로 돌려줍니다.
+     *   그래서 messages 가 size 보다 적어도 hasNext 가 true 일 수 있습니다(nextCursor 로 이어서 요청).
+     * - 색인이 아직 준비되지 않았으면(시작 직후 재구성 중, 꺼짐) DB LIKE 조회로 대신 찾습니다.
+     */
+    public ChatMessageSliceResponse search(Long roomId, String q, Long before, int size) {
+        SearchQuery query = chatSearchIndex.parse(q);
+        int limitSize = Math.max(1, Math.min(size, MAX_SIZE));
+        long cursor = before != null ? before : Long.MAX_VALUE;
+        if (!chatSearchIndex.isReady()) {
+            return searchByScan(roomId, query, cursor, limitSize);
+        }
+        Candidates candidates = chatSearchIndex.candidates(roomId, query, cursor, chatSearchProperties.getMaxCandidates());
+        List<Long> ids = candidates.ids();
+        List<ChatMessageResponse> found = new ArrayList<>(limitSize + 1);
+        // 후보는 대부분 실제로 일치하므로 size+1 개씩 끊어 확인합니다(+1 은 다음 페이지가 있는지 확인용).
+        int chunk = limitSize + 1;
+        for (int from = 0; from < ids.size() && found.size() <= limitSize; from += chunk) {
+            List<Long> part = ids.subList(from, Math.min(ids.size(), from + chunk));
+            Map<Long, ChatMessageResponse> rows = new HashMap<>();
+            for (ChatMessageResponse row : chatMessageRepository.findByRoomIdAndIdIn(roomId, part)) {
+                rows.put(row.id(), row);
+            }
+            for (Long id : part) {
+                ChatMessageResponse row = rows.get(id);
+                if (row != null && query.matches(row.content()) && found.add(row) && found.size() > limitSize) {
+                    break;
+                }
+            }
+        }
+        if (found.size() > limitSize) {
+            return ChatMessageSliceResponse.of(found.subList(0, limitSize), true);
+        }
+        if (!candidates.exhausted()) {
+            return new ChatMessageSliceResponse(found, true, ids.get(ids.size() - 1));
+        }
+        return ChatMessageSliceResponse.of(found, false);
+    }
+
+    // 색인 없이 찾기: 가장 긴 단어로 LIKE 조회한 뒤 나머지 단어는 메모리에서 확인합니다.
+    private ChatMessageSliceResponse searchByScan(Long roomId, SearchQuery query, long before, int limitSize) {
+        String term = query.terms().stream().max(Comparator.comparingInt(String::length)).orElseThrow();
+        String pattern = "%" + term.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+        Slice<ChatMessageResponse> slice = chatMessageRepository.searchBefore(roomId, before, pattern, PageRequest.of(0, limitSize));
+        List<ChatMessageResponse> matched = slice.getContent().stream()
+                .filter(message -> query.matches(message.content()))
+                .toList();
+        Long next = slice.hasContent() ? slice.getContent().get(slice.getNumberOfElements() - 1).id() : null;
+        return new ChatMessageSliceResponse(matched, slice.hasNext(), next);
+    }
+
+    private ChatMessageSliceResponse getBefore(Long roomId, Long before, int limitSize) {
+        ChatMessageSliceResponse cached = recentMessageCache.findBefore(roomId, before, limitSize);
+        if (cached != null) {
+            return cached;
+        }
+        Pageable limit = PageRequest.of(0, limitSize);
+        Slice<ChatMessageResponse> slice = (before != null)
+                ? chatMessageRepository.findBefore(roomId, before, limit)
+                : chatMessageRepository.findRecentMessagesByRoomId(roomId, limit);
+        return ChatMessageSliceResponse.of(slice.getContent(), slice.hasNext());
+    }
+
+    // 커서가 보관 범위 안이면 보관 파일부터 읽고, 모자란 만큼 DB 에서 이어 읽습니다.
+    private ChatMessageSliceResponse getAfter(Long roomId, Long after, int limitSize) {
+        List<ChatMessageResponse> messages = new ArrayList<>(chatArchiveService.findAfter(roomId, after, limitSize + 1));
+        if (messages.size() > limitSize) {
+            return ChatMessageSliceResponse.of(messages.subList(0, limitSize), true);
+        }
+        long cursor = messages.isEmpty() ? after : messages.get(messages.size() - 1).id();
+        int remaining = limitSize - messages.size();
+        // 다 채웠어도 DB 에 다음 메시지가 있는지는 1개만 읽어 확인합니다.
+        Slice<ChatMessageResponse> slice = chatMessageRepository.findAfter(roomId, cursor, PageRequest.of(0, Math.max(1, remaining)));
+        if (remaining == 0) {
+            return ChatMessageSliceResponse.of(messages, slice.hasContent());
+        }
+        messages.addAll(slice.getContent());
+        return ChatMessageSliceResponse.of(messages, slice.hasNext());
+    }
+}
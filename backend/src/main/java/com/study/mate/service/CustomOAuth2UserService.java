@@ -3,6 +3,7 @@ package com.study.mate.service;
 import com.study.mate.entity.Provider;
 import com.study.mate.entity.User;
 import com.study.mate.repository.UserRepository;
+import com.study.mate.service.chat.RoomMembershipCache;
 import lombok.RequiredArgsConstructor;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.oauth2.client.userinfo.DefaultOAuth2UserService;
@@ -39,6 +40,7 @@ import java.util.Optional;
 public class CustomOAuth2UserService extends DefaultOAuth2UserService {
 
     private final UserRepository userRepository;
+    private final RoomMembershipCache roomMembershipCache;
 
     /**
      * 공급자에서 사용자 정보를 조회하고, 우리 DB와 동기화한 뒤 OAuth2User를 반환합니다.
@@ -102,6 +104,8 @@ public class CustomOAuth2UserService extends DefaultOAuth2UserService {
                 .build());
 
         userRepository.save(user);
+        // 닉네임/프로필이 바뀌었을 수 있으므로 채팅용 사용자 정보 캐시를 지웁니다.
+        roomMembershipCache.evictSender(providerId);
 
         return new DefaultOAuth2User(
                 Collections.singleton(new SimpleGrantedAuthority("ROLE_USER")),
@@ -1,24 +1,80 @@
 package com.study.mate.service;
 
-
+import com.study.mate.service.ratelimit.QuotaStore;
+import com.study.mate.util.RateLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
 
 import java.time.Instant;
+import java.time.LocalDate;
 import java.time.ZoneId;
-import java.time.ZonedDateTime;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
+/**
+ * 사용자(providerId)별 AI 호출 한도를 관리하는 레이트 리미터입니다.
+ *
+ * 구현 개요 (락 없이 CAS 로만 갱신)
+ * - 분당 한도: GCRA(Generic Cell Rate Algorithm). "다음 요청이 이론상 도착해야 할 시각(TAT)" 하나를
+ *   AtomicLong 에 담아 compareAndSet 으로 갱신합니다. 창(window) 리셋이 없으므로 경계 경합이 없습니다.
+ * - 일일 한도: (일자 번호 | 남은 임대 요청 수 | 남은 임대 토큰 수)를 64비트 하나에 묶어 AtomicLong 하나로 CAS 갱신합니다.
+ *   날짜가 바뀌면 새 일자 번호로 교체되는 것 자체가 리셋이므로, 읽기-확인-쓰기 경합이 생기지 않습니다.
+ * - 날짜 경계: 다음 자정(epoch millis)을 미리 계산해 두고, 자정을 넘긴 첫 요청에서만 한 번 다시 계산합니다.
+ *   요청마다 ZonedDateTime 을 만들지 않습니다.
+ *
+ * 클러스터 공유 한도(임대 방식)
+ * - 일일 한도는 {@link QuotaStore}(공유 저장소)가 관리하고, 이 노드는 한도를 청크 단위(lease-requests/lease-tokens)로
+ *   임대받아 메모리에서만 차감합니다. 저장소에는 임대분을 다 썼을 때만 접근합니다.
+ * - 저장소는 한도를 넘겨 임대하지 않으므로 클러스터 전체 사용량은 한도를 넘지 않습니다.
+ *   대신 다른 노드에 남은 미사용 임대분(노드당 최대 청크 크기)만큼 사용자가 덜 쓸 수 있습니다.
+ * - 분당 한도(GCRA)는 순간 폭주를 막는 용도로 노드별로 유지합니다.
+ *
+ * 메모리 관리
+ * - 한 번이라도 AI 를 호출한 사용자가 영원히 남지 않도록, 주기적으로 키 공간을 세그먼트 단위로 나눠 순환 정리합니다.
+ * - 정리 기준: idle-ttl 동안 요청이 없고 분당 버킷이 가득 찬 항목. 남은 임대분은 저장소에 반납하므로
+ *   일일 사용량은 저장소에 그대로 남아 한도가 느슨해지지 않습니다.
+ * - 추적 키 수가 max-tracked-keys 를 넘으면, 분당 버킷이 덜 찼더라도 idle-ttl 을 넘긴 항목을 정리해 메모리를 우선 보호합니다.
+ * - 현재 추적 중인 키 수는 "ai.ratelimit.tracked.keys" 게이지로 노출합니다.
+ */
 @Service
+@Slf4j
 public class RateLimiterService {
 
     private static final int REQUESTS_PER_MINUTE = 10;
     private static final int REQUESTS_PER_DAY = 100;
     private static final int TOKENS_PER_DAY = 100000;
 
-    private final Map<String, MinuteWindow> minuteWindows = new ConcurrentHashMap<>();
-    private final Map<String, DayCounter> dayCounters = new ConcurrentHashMap<>();
+    // GCRA 파라미터: 요청 1건당 간격(T)과 허용 버스트(τ). 1분 동안 최대 REQUESTS_PER_MINUTE 건까지 몰아서 허용합니다.
+    private static final long EMISSION_INTERVAL_MILLIS = 60_000L / REQUESTS_PER_MINUTE;
+    private static final long BURST_TOLERANCE_MILLIS = 60_000L - EMISSION_INTERVAL_MILLIS;
+
+    private final Map<String, Quota> quotas = new ConcurrentHashMap<>();
+
+    private final ZoneId zone = ZoneId.systemDefault();
+    private volatile DayBoundary dayBoundary = DayBoundary.of(System.currentTimeMillis(), zone);
+
+    private final RateLimitProperties properties;
+    private final QuotaStore quotaStore;
+    private final Counter evictions;
+    // 다음 정리 차례인 세그먼트 번호(스케줄러 단일 스레드에서만 변경)
+    private int sweepCursor = 0;
+
+    public RateLimiterService(RateLimitProperties properties, QuotaStore quotaStore, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.quotaStore = quotaStore;
+        Gauge.builder("ai.ratelimit.tracked.keys", quotas, Map::size)
+                .description("레이트 리미터가 현재 메모리에 보관 중인 사용자 키 수")
+                .register(meterRegistry);
+        this.evictions = Counter.builder("ai.ratelimit.evictions")
+                .description("유휴 상태로 정리된 레이트 리미터 키 수")
+                .register(meterRegistry);
+    }
 
     /**
      * 사용자별 요청 한도를 검사하고 사용량을 기록합니다.
@@ -29,130 +85,337 @@ public class RateLimiterService {
         if (providerId == null || providerId.isBlank()) {
             return false;
         }
-        // 각 메소드가 true를 반환해야만 전체 요청이 허용됩니다.
-        boolean minuteOk = checkMinuteLimit(providerId);
-        boolean dayOk = checkDayLimit(providerId, estimatedTokens);
+        long nowMillis = System.currentTimeMillis();
+        int tokens = Math.max(0, estimatedTokens);
+        Quota quota = acquireQuota(providerId, nowMillis);
 
-        return minuteOk && dayOk;
+        // 1) 분당 한도를 먼저 차감합니다.
+        if (!quota.tryAcquireMinute(nowMillis)) {
+            return false; // 분당 한도 초과!
+        }
+        // 2) 일일 한도를 차감합니다. 실패하면 방금 차감한 분당 슬롯을 되돌려 "전부 아니면 전무"를 유지합니다.
+        if (!tryAcquireDay(quota, providerId, currentDay(nowMillis), tokens)) {
+            quota.releaseMinute();
+            return false; // 일일 요청/토큰 한도 초과!
+        }
+        return true;
     }
 
     /**
-     * 분당 요청 한도를 검사하고 갱신합니다.
+     * 현재 분(Window)에서 남아있는 요청 가능 횟수.
      */
-    private boolean checkMinuteLimit(String providerId) {
-        long nowMillis = System.currentTimeMillis();
-        // 1. 사용자의 분당 카운터를 가져오거나, 없으면 새로 만듭니다.
-        MinuteWindow window = minuteWindows.computeIfAbsent(providerId, k -> new MinuteWindow(nowMillis));
+    public int getRemainingRequestsPerMinute(String providerId) {
+        Quota q = quotas.get(providerId);
+        if (q == null) return REQUESTS_PER_MINUTE;
+        return q.remainingMinute(System.currentTimeMillis());
+    }
 
-        // 2. 분이 바뀌었는지 확인하고, 바뀌었다면 카운터를 리셋합니다.
-        if (!window.isSameMinute(nowMillis)) {
-            window.reset(nowMillis);
-        }
-        // 3. 현재 카운터가 한도를 넘었는지 확인합니다.
-        if (window.count.get() >= REQUESTS_PER_MINUTE) {
-            return false; // 한도 초과!
-        }
-        // 4. 한도 내라면 카운터를 1 증가시키고 통과시킵니다.
-        window.count.incrementAndGet();
-        return true;
+    /**
+     * 오늘(Day) 남은 요청 가능 횟수.
+     */
+    public int getRemainingRequestsPerDay(String providerId) {
+        Quota q = quotas.get(providerId);
+        long today = currentDay(System.currentTimeMillis());
+        if (q == null || q.storeDay != today) return REQUESTS_PER_DAY;
+        // 이 노드에 남은 임대분 + 마지막 임대 시점에 저장소에 남아 있던 한도
+        long balance = q.day.get();
+        int local = DayState.day(balance) == today ? DayState.requests(balance) : 0;
+        return Math.min(REQUESTS_PER_DAY, local + q.storeRemainingRequests);
     }
 
     /**
-     * 일일 요청 및 토큰 한도를 검사하고 갱신합니다.
+     * 오늘(Day) 남은 토큰 가능 수.
      */
-    private boolean checkDayLimit(String providerId, int estimatedTokens) {
-        long nowMillis = System.currentTimeMillis();
-        DayCounter day = dayCounters.computeIfAbsent(providerId, k -> new DayCounter(nowMillis));
+    public int getRemainingTokensPerDay(String providerId) {
+        Quota q = quotas.get(providerId);
+        long today = currentDay(System.currentTimeMillis());
+        if (q == null || q.storeDay != today) return TOKENS_PER_DAY;
+        long balance = q.day.get();
+        int local = DayState.day(balance) == today ? DayState.tokens(balance) : 0;
+        return Math.min(TOKENS_PER_DAY, local + q.storeRemainingTokens);
+    }
 
-        if (!day.isSameDay(nowMillis)) {
-            day.reset(nowMillis);
+    /**
+     * 일일 한도를 차감합니다.
+     * - 빠른 경로: 이 노드에 남은 임대분에서 CAS 로 차감(저장소 접근 없음)
+     * - 느린 경로: 임대분이 모자라면 사용자 단위로 잠그고 저장소에서 다음 청크를 임대합니다.
+     *   같은 사용자의 동시 요청은 한 스레드만 저장소에 가고, 나머지는 채워진 임대분을 씁니다.
+     */
+    private boolean tryAcquireDay(Quota q, String providerId, long epochDay, int tokens) {
+        if (q.trySpend(epochDay, tokens)) {
+            return true;
         }
-        if (day.requests.get() >= REQUESTS_PER_DAY) {
-            return false; // 일일 요청 한도 초과!
+        synchronized (q) {
+            if (q.trySpend(epochDay, tokens)) {
+                return true; // 다른 스레드가 방금 임대분을 채웠습니다.
+            }
+            long balance = q.day.get();
+            boolean sameDay = DayState.day(balance) == epochDay;
+            int localRequests = sameDay ? DayState.requests(balance) : 0;
+            int localTokens = sameDay ? DayState.tokens(balance) : 0;
+            // 저장소에 남은 한도를 이미 알고 있고 그걸로도 부족하면, 저장소에 가지 않고 바로 거절합니다.
+            if (q.storeDay == epochDay
+                    && (localRequests + q.storeRemainingRequests < 1 || localTokens + q.storeRemainingTokens < tokens)) {
+                return false;
+            }
+            // 모자란 쪽만 임대합니다(남아 있는 쪽까지 더 임대하면 다른 노드가 쓸 몫이 묶입니다).
+            int wantRequests = localRequests >= 1 ? 0 : Math.max(1, properties.getLeaseRequests());
+            int wantTokens = localTokens >= tokens ? 0 : Math.max(properties.getLeaseTokens(), tokens - localTokens);
+            QuotaStore.Lease lease;
+            try {
+                lease = quotaStore.lease(providerId, epochDay, wantRequests, wantTokens, REQUESTS_PER_DAY, TOKENS_PER_DAY);
+            } catch (RuntimeException e) {
+                // 공유 저장소 장애 시에는 비용 보호를 위해 거절합니다.
+                log.warn("일일 한도 임대 실패(요청 거절): providerId={}, cause={}", providerId, e.getMessage());
+                return false;
+            }
+            q.storeDay = epochDay;
+            q.storeRemainingRequests = lease.remainingRequests();
+            q.storeRemainingTokens = lease.remainingTokens();
+            q.deposit(epochDay, lease.grantedRequests(), lease.grantedTokens());
+            return q.trySpend(epochDay, tokens);
         }
-        if (day.tokens.get() + estimatedTokens > TOKENS_PER_DAY) {
-            return false; // 일일 토큰 한도 초과!
+    }
+
+    /**
+     * 사용자 항목을 가져오거나 만들고, 마지막 접근 시각을 갱신합니다.
+     * - 정리 작업이 막 제거한(은퇴시킨) 항목을 잡았다면 맵에서 떼어내고 새 항목으로 다시 시도합니다.
+     *   은퇴한 항목에 사용량을 기록해 한도가 새는 일을 막기 위함입니다.
+     */
+    private Quota acquireQuota(String providerId, long nowMillis) {
+        while (true) {
+            Quota quota = quotas.computeIfAbsent(providerId, k -> new Quota(nowMillis));
+            if (quota.touch(nowMillis)) {
+                return quota;
+            }
+            quotas.remove(providerId, quota);
         }
-        day.requests.incrementAndGet();
-        day.tokens.addAndGet(estimatedTokens);
-        return true;
     }
 
     /**
-     * 현재 분(Window)에서 남아있는 요청 가능 횟수.
+     * 유휴 항목 정리(세그먼트 순환).
+     *
+     * - 매 주기마다 키 해시 기준으로 전체의 1/sweep-segments 만 검사하므로 한 번의 작업이 짧고,
+     *   sweep-interval × sweep-segments 마다 전체 키를 한 바퀴 돕니다.
+     * - 추적 키 수가 상한을 넘은 경우에는 압박 모드로 전환해, 분당 버킷이 덜 찼더라도 idle-ttl 을 넘긴 항목을 정리합니다.
+     * - 정리한 항목에 남아 있던 오늘 임대분은 저장소에 반납합니다.
      */
-    public int getRemainingRequestsPerMinute(String providerId) {
-        long now = System.currentTimeMillis();
-        MinuteWindow w = minuteWindows.get(providerId);
-        if (w == null || !w.isSameMinute(now)) return REQUESTS_PER_MINUTE;
-        return Math.max(0, REQUESTS_PER_MINUTE - w.count.get());
+    @Scheduled(fixedDelayString = "#{@rateLimitProperties.sweepInterval.toMillis()}")
+    public void sweepIdle() {
+        if (quotas.isEmpty()) {
+            return;
+        }
+        long nowMillis = System.currentTimeMillis();
+        long idleTtlMillis = properties.getIdleTtl().toMillis();
+        long today = currentDay(nowMillis);
+        int segments = Math.max(1, properties.getSweepSegments());
+        boolean pressure = quotas.size() > properties.getMaxTrackedKeys();
+        int segment = sweepCursor;
+        sweepCursor = (segment + 1) % segments;
+
+        int removed = 0;
+        for (Map.Entry<String, Quota> entry : quotas.entrySet()) {
+            // 압박 모드에서는 세그먼트와 무관하게 전체를 검사합니다.
+            if (!pressure && Math.floorMod(entry.getKey().hashCode(), segments) != segment) {
+                continue;
+            }
+            Quota q = entry.getValue();
+            long lastAccess = q.lastAccess.get();
+            if (lastAccess < 0 || nowMillis - lastAccess < idleTtlMillis) {
+                continue;
+            }
+            boolean minuteRefilled = q.tat.get() <= nowMillis;
+            if ((minuteRefilled || pressure) && q.retire(lastAccess)) {
+                quotas.remove(entry.getKey(), q);
+                releaseBalance(entry.getKey(), q, today);
+                removed++;
+            }
+        }
+        if (removed > 0) {
+            evictions.increment(removed);
+            log.debug("레이트 리미터 유휴 키 정리: removed={}, remaining={}, pressure={}", removed, quotas.size(), pressure);
+        }
     }
 
     /**
-     * 오늘(Day) 남은 요청 가능 횟수.
+     * 종료(배포) 시 모든 항목의 미사용 임대분을 저장소에 반납합니다.
+     * 임대분은 저장소에 "사용됨"으로 기록되어 있으므로, 반납하지 않으면 재시작 후 그만큼 한도를 잃습니다.
      */
-    public int getRemainingRequestsPerDay(String providerId) {
-        long now = System.currentTimeMillis();
-        DayCounter d = dayCounters.get(providerId);
-        if (d == null || !d.isSameDay(now)) return REQUESTS_PER_DAY;
-        return Math.max(0, REQUESTS_PER_DAY - d.requests.get());
+    @PreDestroy
+    public void releaseAllOnShutdown() {
+        long today = currentDay(System.currentTimeMillis());
+        for (Map.Entry<String, Quota> entry : quotas.entrySet()) {
+            Quota q = entry.getValue();
+            long lastAccess = q.lastAccess.get();
+            if (lastAccess >= 0 && q.retire(lastAccess)) {
+                releaseBalance(entry.getKey(), q, today);
+            }
+        }
+    }
+
+    // 은퇴한 항목의 남은 오늘 임대분을 저장소에 돌려줍니다(다른 노드가 쓸 수 있도록).
+    private void releaseBalance(String providerId, Quota q, long today) {
+        long balance = q.day.get();
+        if (DayState.day(balance) != today) return;
+        int requests = DayState.requests(balance);
+        int tokens = DayState.tokens(balance);
+        if (requests == 0 && tokens == 0) return;
+        try {
+            quotaStore.release(providerId, today, requests, tokens);
+        } catch (RuntimeException e) {
+            log.warn("미사용 임대분 반납 실패: providerId={}, cause={}", providerId, e.getMessage());
+        }
     }
 
     /**
-     * 오늘(Day) 남은 토큰 가능 수.
+     * 현재 시각이 속한 "일자 번호"(epochDay)를 반환합니다.
+     * - 대부분의 호출은 미리 계산된 경계와 long 비교 한 번으로 끝납니다.
+     * - 자정을 넘긴 경우에만 새 경계를 계산해 교체합니다(여러 스레드가 동시에 계산해도 결과가 같아 안전).
      */
-    public int getRemainingTokensPerDay(String providerId) {
-        long now = System.currentTimeMillis();
-        DayCounter d = dayCounters.get(providerId);
-        if (d == null || !d.isSameDay(now)) return TOKENS_PER_DAY;
-        return Math.max(0, TOKENS_PER_DAY - d.tokens.get());
+    private long currentDay(long nowMillis) {
+        DayBoundary b = dayBoundary;
+        if (nowMillis >= b.startMillis() && nowMillis < b.nextStartMillis()) {
+            return b.epochDay();
+        }
+        b = DayBoundary.of(nowMillis, zone);
+        dayBoundary = b;
+        return b.epochDay();
     }
 
 
     // --- 내부 카운터 클래스들 ---
 
-    private static final class MinuteWindow {
-        long windowStartMillis;
-        AtomicInteger count = new AtomicInteger(0);
+    /**
+     * 사용자 한 명의 한도 상태. 요청 경로의 값들은 CAS 로만 갱신됩니다.
+     * - tat: GCRA 의 TAT(Theoretical Arrival Time, epoch millis)
+     * - day: {@link DayState} 로 인코딩된 (일자 번호, 남은 임대 요청 수, 남은 임대 토큰 수)
+     * - lastAccess: 마지막 요청 시각(epoch millis). 정리 작업이 제거를 확정하면 -1(은퇴)로 바뀝니다.
+     * - storeDay/storeRemaining*: 마지막 임대 시점에 저장소에 남아 있던 한도(임대 경로의 잠금 안에서만 갱신)
+     */
+    private static final class Quota {
+        final AtomicLong tat = new AtomicLong(0L);
+        final AtomicLong day = new AtomicLong(0L);
+        final AtomicLong lastAccess;
+        volatile long storeDay = -1L;
+        volatile int storeRemainingRequests;
+        volatile int storeRemainingTokens;
+
+        Quota(long now) {
+            this.lastAccess = new AtomicLong(now);
+        }
 
-        MinuteWindow(long now) {
-            this.windowStartMillis = now;
+        /** 마지막 접근 시각을 갱신합니다. 이미 은퇴한 항목이면 false. */
+        boolean touch(long now) {
+            while (true) {
+                long seen = lastAccess.get();
+                if (seen < 0) return false;
+                if (seen >= now || lastAccess.compareAndSet(seen, now)) return true;
+            }
         }
-        
-        boolean isSameMinute(long now) {
-            return (this.windowStartMillis / 60000) == (now / 60000);
+
+        /** 정리 작업이 관찰한 시각 이후 접근이 없었을 때만 은퇴(-1)로 확정합니다. */
+        boolean retire(long observedLastAccess) {
+            return lastAccess.compareAndSet(observedLastAccess, -1L);
         }
 
-        void reset(long now) {
-            this.windowStartMillis = now;
-            this.count.set(0);
+        boolean tryAcquireMinute(long now) {
+            while (true) {
+                long current = tat.get();
+                long base = Math.max(current, now);
+                // 다음 TAT 가 "지금 + 버스트 허용치 + 간격"을 넘으면 한도 초과
+                if (base - now > BURST_TOLERANCE_MILLIS) {
+                    return false;
+                }
+                if (tat.compareAndSet(current, base + EMISSION_INTERVAL_MILLIS)) {
+                    return true;
+                }
+            }
+        }
+
+        void releaseMinute() {
+            tat.addAndGet(-EMISSION_INTERVAL_MILLIS);
+        }
+
+        int remainingMinute(long now) {
+            long backlog = Math.max(0L, tat.get() - now);
+            long remaining = (BURST_TOLERANCE_MILLIS + EMISSION_INTERVAL_MILLIS - backlog) / EMISSION_INTERVAL_MILLIS;
+            return (int) Math.max(0L, Math.min(REQUESTS_PER_MINUTE, remaining));
+        }
+
+        /** 오늘 임대분에서 요청 1건과 토큰을 차감합니다. 지난 날짜의 임대분이거나 모자라면 false. */
+        boolean trySpend(long epochDay, int tokens) {
+            while (true) {
+                long current = day.get();
+                if (DayState.day(current) != epochDay) {
+                    return false;
+                }
+                int requests = DayState.requests(current);
+                int leasedTokens = DayState.tokens(current);
+                if (requests < 1 || leasedTokens < tokens) {
+                    return false;
+                }
+                if (day.compareAndSet(current, DayState.pack(epochDay, requests - 1, leasedTokens - tokens))) {
+                    return true;
+                }
+            }
+        }
+
+        /** 새로 임대받은 양을 더합니다. 날짜가 바뀌었으면 지난 임대분은 버리고 새로 시작합니다. */
+        void deposit(long epochDay, int requests, int tokens) {
+            while (true) {
+                long current = day.get();
+                boolean sameDay = DayState.day(current) == epochDay;
+                int baseRequests = sameDay ? DayState.requests(current) : 0;
+                int baseTokens = sameDay ? DayState.tokens(current) : 0;
+                long next = DayState.pack(epochDay, baseRequests + requests, baseTokens + tokens);
+                if (day.compareAndSet(current, next)) {
+                    return;
+                }
+            }
         }
     }
 
-    private static final class DayCounter {
-        long dayStartMillis;
-        AtomicInteger requests = new AtomicInteger(0);
-        AtomicInteger tokens = new AtomicInteger(0);
+    /**
+     * 일일 임대분을 long 하나에 담기 위한 비트 배치.
+     * [ 일자 번호 24bit | 요청 수 16bit | 토큰 수 24bit ]
+     * - 임대분은 일일 한도(요청 100, 토큰 100,000)를 넘지 않으므로 각 필드 범위 안에 충분히 들어갑니다.
+     */
+    private static final class DayState {
+        private static final int TOKEN_BITS = 24;
+        private static final int REQUEST_BITS = 16;
+        private static final long TOKEN_MASK = (1L << TOKEN_BITS) - 1;
+        private static final long REQUEST_MASK = (1L << REQUEST_BITS) - 1;
+
+        static long pack(long epochDay, int requests, int tokens) {
+            return (epochDay << (REQUEST_BITS + TOKEN_BITS))
+                    | ((requests & REQUEST_MASK) << TOKEN_BITS)
+                    | (tokens & TOKEN_MASK);
+        }
+
+        static long day(long state) {
+            return state >>> (REQUEST_BITS + TOKEN_BITS);
+        }
 
-        DayCounter(long now) {
-            this.dayStartMillis = now;
+        static int requests(long state) {
+            return (int) ((state >>> TOKEN_BITS) & REQUEST_MASK);
         }
 
-        /**
-         * "일" 비교는 타임존 때문에 복잡해서 ZonedDateTime을 쓰는 것이 안전합니다.
-         * (예: 새벽 1시에 KST는 같은 날, UTC는 다른 날일 수 있음)
-         */
-        boolean isSameDay(long now) {
-            ZoneId zone = ZoneId.systemDefault();
-            ZonedDateTime a = Instant.ofEpochMilli(this.dayStartMillis).atZone(zone);
-            ZonedDateTime b = Instant.ofEpochMilli(now).atZone(zone);
-            return a.toLocalDate().isEqual(b.toLocalDate());
+        static int tokens(long state) {
+            return (int) (state & TOKEN_MASK);
         }
+    }
 
-        void reset(long now) {
-            this.dayStartMillis = now;
-            this.requests.set(0);
-            this.tokens.set(0);
+    /**
+     * 미리 계산된 하루의 경계. [startMillis, nextStartMillis) 구간이 epochDay 에 해당합니다.
+     * "일" 비교는 타임존 때문에 복잡하므로(예: 새벽 1시에 KST는 같은 날, UTC는 다른 날일 수 있음)
+     * 경계 계산에만 시스템 타임존을 사용합니다.
+     */
+    private record DayBoundary(long epochDay, long startMillis, long nextStartMillis) {
+        static DayBoundary of(long nowMillis, ZoneId zone) {
+            LocalDate today = Instant.ofEpochMilli(nowMillis).atZone(zone).toLocalDate();
+            long start = today.atStartOfDay(zone).toInstant().toEpochMilli();
+            long next = today.plusDays(1).atStartOfDay(zone).toInstant().toEpochMilli();
+            return new DayBoundary(today.toEpochDay(), start, next);
         }
     }
-}
\ No newline at end of file
+}
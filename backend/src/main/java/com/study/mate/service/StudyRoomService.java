@@ -18,9 +18,12 @@ import com.study.mate.exception.ErrorCode;
 import com.study.mate.repository.RoomParticipantRepository;
 import com.study.mate.repository.StudyRoomRepository;
 import com.study.mate.repository.UserRepository;
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.chat.receipt.ReadReceiptService;
 
 import lombok.RequiredArgsConstructor;
 
+import java.util.Map;
 import java.util.Optional;
 import java.util.List;
 import java.util.stream.Collectors;
@@ -45,13 +48,26 @@ public class StudyRoomService {
     private final StudyRoomRepository studyRoomRepository;
     private final RoomParticipantRepository roomParticipantRepository;
     private final UserRepository userRepository;
+    // 채팅 전송 경로의 참여자 캐시: 참여자가 바뀌면 해당 방 항목을 지웁니다.
+    private final RoomMembershipCache roomMembershipCache;
+    // 방별 안 읽은 메시지 수(메모리)
+    private final ReadReceiptService readReceiptService;
     /**
      * 스터디룸 목록(참여자 수 포함)을 페이지로 조회합니다.
+     * - 로그인 사용자가 참여한 방에는 안 읽은 메시지 수를 함께 채웁니다(메모리에서 계산).
+     *   이 노드가 처음 보는 방만 한 번 DB 에서 확인하고, 참여하지 않은 방도 기억해 두어 다시 묻지 않습니다.
      */
     @Transactional(readOnly = true)
-    public Page<StudyRoomListItemResponse> listRooms(String keyword, Long hostId, Pageable pageable) {
-        return studyRoomRepository.searchRooms(keyword, hostId, pageable)
+    public Page<StudyRoomListItemResponse> listRooms(String keyword, Long hostId, Pageable pageable, String providerId) {
+        Page<StudyRoomListItemResponse> page = studyRoomRepository.searchRooms(keyword, hostId, pageable)
                 .map(StudyRoomListItemResponse::from);
+        RoomMembershipCache.Sender me = roomMembershipCache.findSender(providerId);
+        if (me == null || page.isEmpty()) {
+            return page;
+        }
+        Map<Long, Long> unread = readReceiptService.unreadCounts(me.userId(),
+                page.getContent().stream().map(StudyRoomListItemResponse::id).toList());
+        return page.map(item -> item.withUnreadCount(unread.get(item.id())));
     }
 
     /**
@@ -101,6 +117,8 @@ public class StudyRoomService {
                 .build();
         // 5) 참여 기록 저장
         roomParticipantRepository.save(hostParticipation);
+        roomMembershipCache.evictRoom(saved.getId());
+        readReceiptService.markAllRead(host.getId(), saved.getId());
 
         // 6) 생성된 스터디룸을 응답 DTO로 반환(정적 팩토리 사용)
         return StudyRoomResponse.from(saved);
@@ -132,6 +150,9 @@ public class StudyRoomService {
                 .status(ParticipantStatus.ONLINE)
                 .build();
         roomParticipantRepository.save(participation);
+        roomMembershipCache.evictRoom(room.getId());
+        // 참여 전 메시지는 안 읽은 수에 넣지 않습니다.
+        readReceiptService.markAllRead(user.getId(), room.getId());
         long afterCount = roomParticipantRepository.countByRoomId(room.getId());
         return JoinLeaveResponse.of(room.getId(), user.getId(), "join", afterCount);
     }
@@ -153,6 +174,8 @@ public class StudyRoomService {
         }
 
         roomParticipantRepository.delete(participation);
+        roomMembershipCache.evictRoom(room.getId());
+        readReceiptService.forget(user.getId(), room.getId());
         long afterCount = roomParticipantRepository.countByRoomId(room.getId());
         return JoinLeaveResponse.of(room.getId(), user.getId(), "leave", afterCount);
     }
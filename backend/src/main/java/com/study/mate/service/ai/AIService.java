@@ -37,6 +37,8 @@ public class AIService {
     // Spring 이 자동 주입하는 ChatClient 입니다.
     private final ChatClient chatClient;
     private final AIConversationService conversationService;
+    // 모델 호출의 동시 진행 수를 지연/오류에 맞춰 자동 조절(초과 시 429 + Retry-After)
+    private final LlmConcurrencyLimiter llmLimiter;
 
     // JSON 블록 추출(코드펜스/문장 섞인 응답에서도 JSON만 뽑아내기 위함)
     private static final Pattern JSON_BLOCK = Pattern.compile("\\{.*?\\}", Pattern.DOTALL);
@@ -120,12 +122,12 @@ public class AIService {
             userContent.append("[코드]\n").append(req.code());
 
             // 2) 모델 호출 (언어별 가이드 + JSON 스키마 강제 프롬프트 사용)
-            response = chatClient
+            response = llmLimiter.execute(() -> chatClient
                     .prompt()
                     .system(s -> s.text(buildSystemPrompt(language)))
                     .user(u -> u.text(userContent.toString()))
                     .call()
-                    .content();
+                    .content());
 
             // 3) JSON 파싱 시도 → 실패 시 원문을 요약으로 반환
             log.info("response: {}", response);
@@ -319,7 +321,7 @@ public class AIService {
             }
             userMsg.append("[질문]\n").append(req.question());
 
-            String response = chatClient
+            String response = llmLimiter.execute(() -> chatClient
                     .prompt()
                     .system(s -> s.text("""
                       너는 한국어로 대답하는 초보자 친화 선생님이야.
@@ -340,7 +342,7 @@ public class AIService {
                       """))
                     .user(u -> u.text(userMsg.toString()))
                     .call()
-                    .content();
+                    .content());
             // 저장(사용자 문맥 + 질문/응답)
             try {
                 String providerId = resolveProviderId();
@@ -356,6 +358,8 @@ public class AIService {
                 ));
             } catch (Exception ignore) {}
             return new ChatResponse(response);
+        } catch (BusinessException e) {
+            throw e;
         } catch (Exception e) {
             throw new BusinessException(ErrorCode.INTERNAL_ERROR, "AI 질문 처리 중 오류가 발생했습니다.");
         }
@@ -0,0 +1,149 @@
+package com.study.mate.service.ai;
+
+import com.study.mate.exception.ErrorCode;
+import com.study.mate.exception.TooManyRequestsException;
+import com.study.mate.util.LlmLimitProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * LLM(ChatClient) 호출의 "동시 진행 수"를 관측된 지연/오류에 맞춰 스스로 조절하는 적응형 리미터입니다.
+ *
+ * 왜 고정 값이 아닌가요?
+ * - 너무 낮으면 모델이 한가할 때 처리량을 버리고, 너무 높으면 Gemini 가 느려질 때 요청이 서버에 쌓입니다.
+ * - 그래서 TCP 혼잡 제어처럼 "잘 되면 조금씩 늘리고, 느려지거나 실패하면 빠르게 줄이는" 방식을 씁니다.
+ *
+ * 알고리즘(Gradient 방식 + 실패 시 곱셈 감소)
+ * - 장기 평균 지연(longRtt)과 최근 지연(shortRtt)을 각각 지수 이동 평균으로 추적합니다.
+ * - gradient = clamp(rttTolerance × longRtt / shortRtt, 0.5, 1.0)
+ *   최근 지연이 평소보다 크게 늘면 gradient 가 1보다 작아져 한도가 줄어듭니다.
+ * - 새 한도 = 현재 한도 × gradient + √(현재 한도) (여유분만큼 조금씩 증가), 이후 smoothing 으로 완만하게 반영
+ * - 호출 실패(429/5xx/타임아웃 등)는 즉시 한도 × backoffRatio 로 줄입니다.
+ *
+ * 한도를 넘는 요청은 대기시키지 않고 즉시 429 + Retry-After 로 돌려보냅니다(load shedding).
+ * 현재 한도/진행 수는 "ai.llm.concurrency.limit", "ai.llm.inflight" 게이지로 노출합니다.
+ */
+@Component
+@Slf4j
+public class LlmConcurrencyLimiter {
+
+    // 장기/단기 지연 이동 평균의 가중치
+    private static final double LONG_RTT_ALPHA = 0.02;
+    private static final double SHORT_RTT_ALPHA = 0.3;
+
+    private final LlmLimitProperties properties;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final Counter rejected;
+
+    // 아래 값들은 샘플 반영 시 this 로 잠가서 갱신합니다(LLM 호출 빈도는 낮아 경합이 거의 없음).
+    private volatile double limit;
+    private double longRttNanos = -1;
+    private double shortRttNanos = -1;
+
+    public LlmConcurrencyLimiter(LlmLimitProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.limit = clamp(properties.getInitialLimit());
+        Gauge.builder("ai.llm.concurrency.limit", this, l -> l.limit)
+                .description("LLM 동시 호출 허용 한도(적응형)")
+                .register(meterRegistry);
+        Gauge.builder("ai.llm.inflight", inFlight, AtomicInteger::get)
+                .description("진행 중인 LLM 호출 수")
+                .register(meterRegistry);
+        this.rejected = Counter.builder("ai.llm.rejected")
+                .description("동시 호출 한도 초과로 즉시 거절된 LLM 요청 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 한도 안이면 호출을 실행하고 지연/성공 여부를 한도 조절에 반영합니다.
+     *
+     * @throws TooManyRequestsException 동시 호출 한도를 넘은 경우(429 + Retry-After)
+     */
+    public <T> T execute(Supplier<T> call) {
+        if (!tryAcquire()) {
+            rejected.increment();
+            throw new TooManyRequestsException(ErrorCode.AI_OVERLOADED, retryAfterSeconds());
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            T result = call.get();
+            success = true;
+            return result;
+        } finally {
+            int concurrent = inFlight.getAndDecrement();
+            if (success) {
+                onSuccess(System.nanoTime() - start, concurrent);
+            } else {
+                onFailure();
+            }
+        }
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    private boolean tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= (int) limit) {
+                return false;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return true;
+            }
+        }
+    }
+
+    private synchronized void onSuccess(long rttNanos, int concurrent) {
+        if (longRttNanos < 0) {
+            longRttNanos = rttNanos;
+            shortRttNanos = rttNanos;
+        } else {
+            longRttNanos += (rttNanos - longRttNanos) * LONG_RTT_ALPHA;
+            shortRttNanos += (rttNanos - shortRttNanos) * SHORT_RTT_ALPHA;
+        }
+        // 한도를 다 쓰지도 않았는데 늘리면 검증되지 않은 한도가 쌓이므로, 절반 이상 사용 중일 때만 증가를 허용합니다.
+        double gradient = Math.max(0.5, Math.min(1.0, properties.getRttTolerance() * longRttNanos / shortRttNanos));
+        double headroom = concurrent * 2 >= limit ? Math.sqrt(limit) : 0;
+        double target = limit * gradient + headroom;
+        double smoothing = properties.getSmoothing();
+        update(limit * (1 - smoothing) + target * smoothing);
+    }
+
+    private synchronized void onFailure() {
+        update(limit * properties.getBackoffRatio());
+    }
+
+    private void update(double next) {
+        double before = limit;
+        limit = clamp(next);
+        if ((int) before != (int) limit) {
+            log.debug("LLM 동시 호출 한도 변경: {} -> {} (shortRtt={}ms, longRtt={}ms)",
+                    (int) before, (int) limit, (long) (shortRttNanos / 1_000_000), (long) (longRttNanos / 1_000_000));
+        }
+    }
+
+    private double clamp(double value) {
+        return Math.max(properties.getMinLimit(), Math.min(properties.getMaxLimit(), value));
+    }
+
+    // 진행 중인 호출 하나가 끝나기까지의 대략적인 시간(최근 지연 / 진행 수)을 초 단위로 안내합니다.
+    private long retryAfterSeconds() {
+        double rtt = shortRttNanos;
+        if (rtt <= 0) return 1;
+        double perSlotNanos = rtt / Math.max(1, inFlight.get());
+        return Math.max(1L, (long) Math.ceil(perSlotNanos / 1_000_000_000d));
+    }
+}
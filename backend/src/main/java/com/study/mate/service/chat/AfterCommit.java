@@ -0,0 +1,28 @@
+package com.study.mate.service.chat;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * 트랜잭션이 커밋된 뒤에 할 일을 등록하는 작은 도우미입니다.
+ * - 트랜잭션 안이면 커밋 뒤에만 실행합니다(롤백되면 실행하지 않음).
+ * - 트랜잭션 밖이면(이미 반영된 변경) 바로 실행합니다.
+ */
+final class AfterCommit {
+
+    private AfterCommit() {
+    }
+
+    static void run(Runnable action) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    action.run();
+                }
+            });
+        } else {
+            action.run();
+        }
+    }
+}
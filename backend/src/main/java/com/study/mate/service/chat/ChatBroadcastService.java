@@ -1,44 +1,130 @@
 package com.study.mate.service.chat;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.study.mate.dto.response.ChatMessageResponse;
 import com.study.mate.entity.ChatMessage;
-import lombok.RequiredArgsConstructor;
+import com.study.mate.util.ChatBroadcastProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
 import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.support.MessageBuilder;
 import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
 
 /**
  * 채팅 메시지 브로드캐스트 전용 서비스
  *
  * 역할
  * - 저장된 메시지를 구독자들에게 STOMP로 배달하는 역할만 수행합니다.
+ *
+ * 성능/안정성 포인트
+ * - 응답 DTO 를 JSON 바이트로 "한 번만" 직렬화해 미리 인코딩된 Message<byte[]> 로 보냅니다.
+ *   재시도할 때도 같은 메시지를 다시 보내므로 변환 비용이 반복되지 않습니다.
+ * - 전송이 실패해도 수신 스레드에서 잠들지(sleep) 않습니다. 재시도는 별도 스케줄러에서
+ *   지수 백오프 + 지터(무작위 흔들림)로 수행하고, 끝내 실패하면 dead-letter 카운터에 기록합니다.
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class ChatBroadcastService {
 
     private final SimpMessagingTemplate messagingTemplate;
+    private final RecentMessageCache recentMessageCache;
+    private final ObjectMapper objectMapper;
+    private final ChatBroadcastProperties properties;
+    private final ScheduledExecutorService retryScheduler;
+    private final Counter retries;
+    private final Counter deadLetters;
+
+    public ChatBroadcastService(SimpMessagingTemplate messagingTemplate,
+                                RecentMessageCache recentMessageCache,
+                                ObjectMapper objectMapper,
+                                ChatBroadcastProperties properties,
+                                MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.recentMessageCache = recentMessageCache;
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.retryScheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "chat-broadcast-retry");
+            t.setDaemon(true);
+            return t;
+        });
+        this.retries = Counter.builder("chat.broadcast.retries")
+                .description("실패 후 재시도한 채팅 브로드캐스트 수")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("chat.broadcast.dead_letter")
+                .description("재시도를 모두 실패해 버려진 채팅 브로드캐스트 수")
+                .register(meterRegistry);
+    }
 
     public void broadcastToRoom(Long roomId, ChatMessage message) {
-        ChatMessageResponse payload = ChatMessageResponse.from(message);
+        broadcastToRoom(roomId, ChatMessageResponse.from(message));
+    }
+
+    public void broadcastToRoom(Long roomId, ChatMessageResponse payload) {
+        // 최근 기록 조회가 DB 없이 응답할 수 있도록 방 링 버퍼에도 담아 둡니다.
+        recentMessageCache.append(roomId, payload);
         String destination = "/topic/rooms/" + roomId;
-        // 간단한 재시도: 일시적인 오류에 대비해 최대 3회 시도
-        int attempts = 0;
-        RuntimeException lastError = null;
-        while (attempts < 3) {
-            try {
-                messagingTemplate.convertAndSend(destination, payload);
-                log.debug("브로드캐스트 완료: roomId={}, msgId={} -> {}", roomId, message.getId(), destination);
+        Message<byte[]> encoded = encode(destination, payload);
+        trySend(encoded, destination, payload.id(), 1);
+    }
+
+    /**
+     * 한 번 직렬화한 JSON 바이트와 STOMP 헤더로 전송용 메시지를 만듭니다.
+     * - content-type 을 지정해 두었으므로 브로커는 다시 변환하지 않고 그대로 구독자에게 전달합니다.
+     */
+    private Message<byte[]> encode(String destination, Object payload) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            throw new IllegalStateException("채팅 메시지 직렬화 실패", e);
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body, accessor.getMessageHeaders());
+    }
+
+    private void trySend(Message<byte[]> message, String destination, Long messageId, int attempt) {
+        try {
+            messagingTemplate.send(destination, message);
+            log.debug("브로드캐스트 완료: msgId={} -> {} (attempt={})", messageId, destination, attempt);
+        } catch (RuntimeException ex) {
+            if (attempt >= properties.getMaxAttempts()) {
+                deadLetters.increment();
+                log.error("브로드캐스트 최종 실패: msgId={} -> {}, attempts={}, cause={}",
+                        messageId, destination, attempt, ex.getMessage());
                 return;
-            } catch (RuntimeException ex) {
-                lastError = ex;
-                attempts++;
-                try { Thread.sleep(50L * attempts); } catch (InterruptedException ignored) {}
             }
+            retries.increment();
+            long delay = backoffMillis(attempt);
+            log.warn("브로드캐스트 실패, {}ms 후 재시도: msgId={} -> {}, cause={}", delay, messageId, destination, ex.getMessage());
+            retryScheduler.schedule(() -> trySend(message, destination, messageId, attempt + 1), delay, TimeUnit.MILLISECONDS);
         }
-        if (lastError != null) throw lastError;
     }
-}
 
+    // 지수 백오프(initial × 2^(attempt-1), 상한 max-backoff)에 0.5~1.0배 무작위 지터를 곱합니다.
+    private long backoffMillis(int attempt) {
+        long base = properties.getInitialBackoff().toMillis() << Math.min(attempt - 1, 20);
+        long capped = Math.min(base, properties.getMaxBackoff().toMillis());
+        return Math.max(1L, (long) (capped * (0.5 + ThreadLocalRandom.current().nextDouble() * 0.5)));
+    }
 
+    @PreDestroy
+    void shutdown() {
+        retryScheduler.shutdown();
+    }
+}
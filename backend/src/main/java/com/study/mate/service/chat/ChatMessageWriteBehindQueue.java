@@ -0,0 +1,249 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.util.ChatPersistenceProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.TransactionException;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 채팅 메시지를 모아서(JDBC 배치) 저장하는 write-behind 대기열입니다.
+ *
+ * 흐름
+ * - 요청 스레드: id 를 미리 정한 메시지를 대기열에 넣고 바로 돌아갑니다(방송은 호출 측이 즉시 수행).
+ * - 저장 스레드(1개): batch-size 만큼 모이거나 flush-interval 이 지나면 한 트랜잭션으로 묶어 INSERT 합니다.
+ *
+ * 보장 수준(at-least-once)
+ * - DB 가 잠시 안 되는 오류(연결 실패, 잠금 시간 초과 등)로 실패한 묶음은 버리지 않고 retry-backoff 후 다시 시도합니다.
+ * - 그 밖의 오류(중복 키, 제약 위반 등)는 다시 해도 똑같이 실패하므로, 묶음을 한 건씩 나눠 다시 넣습니다.
+ *   - id 가 미리 정해져 있으므로, 커밋은 됐는데 응답만 못 받은 경우의 재시도는 중복 키로 드러납니다 → 이미 있는 행은 건너뜀.
+ *   - 한 건만 넣어도 실패하는 행(독이 든 행)은 "chat.persist.dead_letter" 로 세고 ERROR 로그에 내용을 남긴 뒤 버립니다.
+ *     → 한 행 때문에 묶음 전체가 영원히 재시도되며 뒤의 메시지까지 막히지 않습니다.
+ * - 대기열이 가득 차면 그 메시지만 요청 스레드에서 즉시 INSERT 합니다(유실 없음, "chat.persist.overflow" 로 집계).
+ * - 종료 시 대기열에 남은 메시지를 모두 저장한 뒤 끝납니다.
+ */
+@Component
+@Slf4j
+public class ChatMessageWriteBehindQueue {
+
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_messages (id, room_id, sender_id, content, created_at, updated_at, seq) VALUES (?, ?, ?, ?, ?, ?, ?)";
+
+    private final ChatPersistenceProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final BlockingQueue<PendingChatMessage> queue;
+    private final Counter overflow;
+    private final Counter flushed;
+    private final Counter failures;
+    private final Counter deadLetters;
+
+    private volatile boolean running;
+    private Thread flusher;
+    // 저장 스레드가 들고 있는 묶음(종료 중 실패하면 drainOnShutdown 이 이어서 저장)
+    private final List<PendingChatMessage> batch = new ArrayList<>();
+
+    public ChatMessageWriteBehindQueue(ChatPersistenceProperties properties,
+                                       JdbcTemplate jdbcTemplate,
+                                       TransactionTemplate transactionTemplate,
+                                       MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, properties.getQueueCapacity()));
+        Gauge.builder("chat.persist.queue.size", queue, BlockingQueue::size)
+                .description("저장을 기다리는 채팅 메시지 수")
+                .register(meterRegistry);
+        this.overflow = Counter.builder("chat.persist.overflow")
+                .description("대기열이 가득 차 요청 스레드에서 바로 저장한 채팅 메시지 수")
+                .register(meterRegistry);
+        this.flushed = Counter.builder("chat.persist.flushed")
+                .description("배치로 저장된 채팅 메시지 수")
+                .register(meterRegistry);
+        this.failures = Counter.builder("chat.persist.failures")
+                .description("채팅 메시지 배치 저장 실패(재시도) 횟수")
+                .register(meterRegistry);
+        this.deadLetters = Counter.builder("chat.persist.dead_letter")
+                .description("한 건씩 넣어도 저장에 실패해 로그만 남기고 버린 채팅 메시지 수")
+                .register(meterRegistry);
+    }
+
+    @PostConstruct
+    void start() {
+        if (properties.getMode() != ChatPersistenceProperties.Mode.WRITE_BEHIND) {
+            return;
+        }
+        running = true;
+        flusher = new Thread(this::runLoop, "chat-write-behind");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    /**
+     * 메시지를 저장 대기열에 넣습니다. 대기열이 가득 찼거나 이미 종료 중이면 바로 INSERT 합니다.
+     */
+    public void enqueue(PendingChatMessage message) {
+        if (running && queue.offer(message)) {
+            return;
+        }
+        overflow.increment();
+        insertOneByOne(List.of(message));
+    }
+
+    /**
+     * 종료 시: 저장 스레드를 멈추고, 남은 메시지를 모두 저장합니다.
+     */
+    @PreDestroy
+    void drainOnShutdown() throws InterruptedException {
+        if (flusher == null) {
+            return;
+        }
+        // DB 작업 중 인터럽트로 끊지 않도록, 플래그만 내리고 진행 중인 묶음이 끝나길 기다립니다.
+        running = false;
+        flusher.join(TimeUnit.SECONDS.toMillis(10));
+        List<PendingChatMessage> rest = new ArrayList<>();
+        if (flusher.isAlive()) {
+            log.warn("채팅 저장 스레드가 제때 끝나지 않아, 진행 중인 묶음은 그 스레드에 맡깁니다.");
+        } else {
+            rest.addAll(batch);
+        }
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            log.info("종료 전 남은 채팅 메시지 저장: count={}", rest.size());
+            for (int from = 0; from < rest.size(); from += batchSize()) {
+                List<PendingChatMessage> chunk = rest.subList(from, Math.min(rest.size(), from + batchSize()));
+                try {
+                    writeBatch(chunk);
+                } catch (RuntimeException e) {
+                    failures.increment();
+                    log.error("종료 중 채팅 메시지 저장 실패: count={}, cause={}", chunk.size(), e.getMessage());
+                }
+            }
+        }
+    }
+
+    private void runLoop() {
+        long flushNanos = properties.getFlushInterval().toNanos();
+        while (running || !batch.isEmpty()) {
+            try {
+                if (batch.isEmpty()) {
+                    PendingChatMessage first = queue.poll(flushNanos, TimeUnit.NANOSECONDS);
+                    if (first == null) continue;
+                    batch.add(first);
+                }
+                // 묶음이 찰 때까지 최대 flush-interval 만큼만 더 기다립니다.
+                long deadline = System.nanoTime() + flushNanos;
+                while (batch.size() < batchSize()) {
+                    queue.drainTo(batch, batchSize() - batch.size());
+                    long wait = deadline - System.nanoTime();
+                    if (batch.size() >= batchSize() || wait <= 0) break;
+                    PendingChatMessage next = queue.poll(wait, TimeUnit.NANOSECONDS);
+                    if (next == null) break;
+                    batch.add(next);
+                }
+                writeBatch(batch);
+                batch.clear();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (RuntimeException e) {
+                failures.increment();
+                log.warn("채팅 메시지 배치 저장 실패, 재시도 예정: count={}, cause={}", batch.size(), e.getMessage());
+                if (!running) {
+                    // 종료 중이면 더 기다리지 않고, 들고 있던 묶음은 종료 처리(drainOnShutdown)에 넘깁니다.
+                    return;
+                }
+                sleepBackoff();
+            }
+        }
+    }
+
+    private void writeBatch(List<PendingChatMessage> batch) {
+        try {
+            transactionTemplate.executeWithoutResult(status -> jdbcTemplate.batchUpdate(INSERT_SQL, batch, batch.size(),
+                    (ps, m) -> {
+                        Timestamp createdAt = Timestamp.valueOf(m.createdAt());
+                        ps.setLong(1, m.id());
+                        ps.setLong(2, m.roomId());
+                        ps.setLong(3, m.senderId());
+                        ps.setString(4, m.content());
+                        ps.setTimestamp(5, createdAt);
+                        ps.setTimestamp(6, createdAt);
+                        ps.setLong(7, m.seq());
+                    }));
+        } catch (RuntimeException e) {
+            if (isRetryable(e)) {
+                throw e;
+            }
+            // 다시 해도 같은 오류(이전 시도가 실제로는 커밋됨, 제약 위반인 행이 섞임 등): 한 건씩 나눠 넣습니다.
+            log.warn("채팅 메시지 배치 저장 실패, 한 건씩 나눠 저장: count={}, cause={}", batch.size(), e.getMessage());
+            insertOneByOne(batch);
+        }
+        flushed.increment(batch.size());
+    }
+
+    /**
+     * 한 건씩 INSERT 합니다. 이미 있는 행은 건너뛰고, 다시 해도 실패할 행은 로그로 남기고 버립니다.
+     * DB 가 잠시 안 되는 오류는 그대로 던져 호출 측이 다시 시도하게 합니다.
+     */
+    private void insertOneByOne(List<PendingChatMessage> messages) {
+        for (PendingChatMessage m : messages) {
+            try {
+                Timestamp createdAt = Timestamp.valueOf(m.createdAt());
+                jdbcTemplate.update(INSERT_SQL, m.id(), m.roomId(), m.senderId(), m.content(), createdAt, createdAt, m.seq());
+            } catch (DuplicateKeyException ignore) {
+                // 이미 저장됨
+            } catch (RuntimeException e) {
+                if (isRetryable(e)) {
+                    throw e;
+                }
+                deadLetters.increment();
+                log.error("채팅 메시지 저장 불가, 버림(dead letter): id={}, roomId={}, senderId={}, seq={}, createdAt={}, content={}, cause={}",
+                        m.id(), m.roomId(), m.senderId(), m.seq(), m.createdAt(), m.content(), e.getMessage());
+            }
+        }
+    }
+
+    // 시간이 지나면 성공할 수 있는 오류인지(연결/트랜잭션 시작 실패, 잠금·시간 초과 등)
+    private static boolean isRetryable(RuntimeException e) {
+        return e instanceof TransientDataAccessException
+                || e instanceof RecoverableDataAccessException
+                || e instanceof DataAccessResourceFailureException
+                || e instanceof TransactionException;
+    }
+
+    private void sleepBackoff() {
+        try {
+            Thread.sleep(properties.getRetryBackoff().toMillis());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private int batchSize() {
+        return Math.max(1, properties.getBatchSize());
+    }
+
+    /**
+     * 저장 대기 중인 채팅 메시지(엔티티 대신 INSERT 에 필요한 값만 보관)
+     */
+    public record PendingChatMessage(long id, long roomId, long senderId, String content, LocalDateTime createdAt, long seq) {}
+}
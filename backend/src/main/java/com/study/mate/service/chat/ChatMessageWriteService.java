@@ -1,43 +1,80 @@
 package com.study.mate.service.chat;
 
+import com.study.mate.dto.response.ChatMessageResponse;
 import com.study.mate.entity.ChatMessage;
-import com.study.mate.entity.StudyRoom;
-import com.study.mate.entity.User;
 import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.repository.StudyRoomRepository;
+import com.study.mate.repository.UserRepository;
+import com.study.mate.util.ChatPersistenceProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
 import lombok.RequiredArgsConstructor;
-import lombok.extern.slf4j.Slf4j;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+
 /**
  * 채팅 메시지 저장 전용 서비스
  *
  * 역할
  * - 누가(sender)가 어느 방(room)에서 어떤 내용(content)을 보냈는지 DB에 "저장"만 담당합니다.
  * - 트랜잭션 경계도 여기서 관리합니다.
+ *
+ * 저장 방식(chat-persistence.mode)
+ * - SYNC: INSERT 가 끝난 뒤 방송합니다(기존 방식).
+ * - WRITE_BEHIND: id/작성 시각을 애플리케이션에서 정해 바로 방송하고,
+ *   실제 INSERT 는 {@link ChatMessageWriteBehindQueue} 가 모아서 배치로 처리합니다.
  */
 @Service
 @RequiredArgsConstructor
 @Transactional
-@Slf4j
 public class ChatMessageWriteService {
 
     private final ChatMessageRepository chatMessageRepository;
+    private final ChatPersistenceProperties persistenceProperties;
+    private final SnowflakeIdGenerator idGenerator;
+    private final ChatMessageWriteBehindQueue writeBehindQueue;
+    private final StudyRoomRepository studyRoomRepository;
+    private final UserRepository userRepository;
 
     /**
-     * 채팅 메시지를 생성/저장하고 영속화된 엔티티를 반환합니다.
-     * - 유효성 검사는 상위 계층(오케스트레이터)에서 완료되었다고 가정합니다.
+     * 설정된 저장 방식으로 메시지를 기록하고, 방송에 쓸 응답 DTO 를 돌려줍니다.
+     * - 방/사용자 엔티티를 DB 에서 읽지 않습니다. SYNC 모드에서도 getReferenceById(프록시)로 외래 키만 채웁니다.
+     * - 보낸 사람 정보는 캐시된 {@link RoomMembershipCache.Sender} 에서 가져옵니다.
+     * - seq 는 {@link RoomSequencer#sequenced} 가 매긴 방 안의 순번입니다.
+     *   SYNC 모드는 INSERT 를 바로 flush 해서, 저장 실패가 방송 전에 이 자리에서 드러나게 합니다.
+     * - WRITE_BEHIND 모드는 트랜잭션이 커밋된 뒤에 대기열에 넣습니다(롤백된 메시지가 나중에 INSERT 되지 않도록).
      */
-    public ChatMessage save(StudyRoom room, User sender, String content) {
-        ChatMessage saved = chatMessageRepository.save(ChatMessage.builder()
-            .room(room)
-            .sender(sender)
+    public ChatMessageResponse write(Long roomId, RoomMembershipCache.Sender sender, String content, long seq) {
+        if (persistenceProperties.getMode() != ChatPersistenceProperties.Mode.WRITE_BEHIND) {
+            ChatMessage saved = chatMessageRepository.saveAndFlush(ChatMessage.builder()
+                .room(studyRoomRepository.getReferenceById(roomId))
+                .sender(userRepository.getReferenceById(sender.userId()))
+                .content(content)
+                .seq(seq)
+                .build());
+            LocalDateTime createdAt = saved.getCreatedAt() != null ? saved.getCreatedAt() : LocalDateTime.now();
+            return toResponse(saved.getId(), roomId, sender, content, createdAt, seq);
+        }
+        long id = idGenerator.nextId();
+        LocalDateTime createdAt = LocalDateTime.now();
+        ChatMessageWriteBehindQueue.PendingChatMessage pending = new ChatMessageWriteBehindQueue.PendingChatMessage(
+            id, roomId, sender.userId(), content, createdAt, seq);
+        AfterCommit.run(() -> writeBehindQueue.enqueue(pending));
+        return toResponse(id, roomId, sender, content, createdAt, seq);
+    }
+
+    private static ChatMessageResponse toResponse(Long id, Long roomId, RoomMembershipCache.Sender sender,
+                                                  String content, LocalDateTime createdAt, long seq) {
+        return ChatMessageResponse.builder()
+            .id(id)
+            .roomId(roomId)
+            .senderId(sender.userId())
+            .senderNickname(sender.nickname())
+            .senderProfileImageUrl(sender.profileImageUrl())
             .content(content)
-            .build());
-        log.debug("채팅 저장 성공: roomId={}, senderId={}, msgId={}",
-            room.getId(), sender.getId(), saved.getId());
-        return saved;
+            .createdAt(createdAt)
+            .seq(seq)
+            .build();
     }
 }
-
-
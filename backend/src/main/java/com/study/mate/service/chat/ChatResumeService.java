@@ -0,0 +1,172 @@
+package com.study.mate.service.chat;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.util.ChatHistoryCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Service;
+import org.springframework.util.MimeTypeUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 재접속한 클라이언트에게 놓친 채팅을 한 번에 보충해 주는 서비스입니다.
+ *
+ * 사용법(프론트)
+ * - 채팅 토픽을 다시 구독할 때 마지막으로 받은 순번을 헤더로 보냅니다.
+ *   client.subscribe('/topic/rooms/1', handler, { 'x-last-seq': '42' })
+ * - 서버는 43번부터 지금까지의 메시지를 RESUME 프레임 "하나"에 담아 그 구독으로만 보냅니다.
+ *   (메시지마다 프레임을 보내지 않으므로 재접속이 몰려도 프레임 수가 늘지 않습니다)
+ *
+ * 어디서 읽나요?
+ * - 먼저 방의 최근 채팅 메모리 캐시({@link RecentMessageCache})에서 찾고, 범위를 벗어나면 DB 에서 순번으로 읽습니다.
+ * - 놓친 메시지가 resume-max-messages 보다 많거나 보관 파일로 옮겨져 이어지지 않으면 truncated=true 로 알려 줍니다.
+ *   이때 프론트는 기록 조회 API 로 화면을 다시 채웁니다.
+ *
+ * 구독 직후 방송되는 새 메시지와 RESUME 프레임이 겹쳐 올 수 있으므로, 프론트는 seq 로 중복을 거르고 정렬합니다.
+ */
+@Service
+@Slf4j
+public class ChatResumeService {
+
+    /** 마지막으로 받은 순번을 담는 SUBSCRIBE 헤더 이름 */
+    public static final String LAST_SEQ_HEADER = "x-last-seq";
+
+    private final MessageChannel clientOutboundChannel;
+    private final ObjectMapper objectMapper;
+    private final RoomSequencer roomSequencer;
+    private final RoomMembershipCache roomMembershipCache;
+    private final RecentMessageCache recentMessageCache;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatHistoryCacheProperties properties;
+    private final Counter fromMemory;
+    private final Counter fromDb;
+    private final Counter truncated;
+    private final Counter upToDate;
+
+    public ChatResumeService(@Qualifier("clientOutboundChannel") MessageChannel clientOutboundChannel,
+                             ObjectMapper objectMapper,
+                             RoomSequencer roomSequencer,
+                             RoomMembershipCache roomMembershipCache,
+                             RecentMessageCache recentMessageCache,
+                             ChatMessageRepository chatMessageRepository,
+                             ChatHistoryCacheProperties properties,
+                             MeterRegistry meterRegistry) {
+        this.clientOutboundChannel = clientOutboundChannel;
+        this.objectMapper = objectMapper;
+        this.roomSequencer = roomSequencer;
+        this.roomMembershipCache = roomMembershipCache;
+        this.recentMessageCache = recentMessageCache;
+        this.chatMessageRepository = chatMessageRepository;
+        this.properties = properties;
+        this.fromMemory = counter("memory", "메모리 캐시만으로 보충한 구독 재개 수", meterRegistry);
+        this.fromDb = counter("db", "DB 를 읽어 보충한 구독 재개 수", meterRegistry);
+        this.truncated = counter("truncated", "놓친 메시지가 너무 많거나 이어지지 않아 일부만 보낸 구독 재개 수", meterRegistry);
+        this.upToDate = counter("up_to_date", "놓친 메시지가 없던 구독 재개 수", meterRegistry);
+    }
+
+    private static Counter counter(String result, String description, MeterRegistry meterRegistry) {
+        return Counter.builder("chat.resume").tag("result", result)
+                .description(description)
+                .register(meterRegistry);
+    }
+
+    /**
+     * 구독 하나에 놓친 메시지를 RESUME 프레임으로 보냅니다. 방 참여자가 아니거나 헤더 값이 숫자가 아니면 무시합니다.
+     */
+    public void resume(String sessionId, String subscriptionId, String destination,
+                       Long roomId, String providerId, String lastSeqHeader) {
+        long lastSeq;
+        try {
+            lastSeq = Math.max(0, Long.parseLong(lastSeqHeader.trim()));
+        } catch (NumberFormatException e) {
+            return;
+        }
+        RoomMembershipCache.Sender sender = roomMembershipCache.findSender(providerId);
+        if (sender == null || !roomMembershipCache.members(roomId).contains(sender.userId())) {
+            return;
+        }
+        long latest = roomSequencer.latest(roomId);
+        if (lastSeq >= latest) {
+            upToDate.increment();
+            send(sessionId, subscriptionId, destination, new ResumePayload("RESUME", lastSeq, latest, false, List.of()));
+            return;
+        }
+        int max = Math.max(1, properties.getResumeMaxMessages());
+        // 너무 많이 놓쳤으면 가장 최근 max 개만 보내고 truncated 로 알립니다.
+        long from = Math.max(lastSeq, latest - max);
+        List<ChatMessageResponse> messages = recentMessageCache.findAfterSeq(roomId, from);
+        if (messages != null) {
+            fromMemory.increment();
+        } else {
+            messages = load(roomId, from, max);
+            fromDb.increment();
+        }
+        if (messages.size() > max) {
+            messages = messages.subList(messages.size() - max, messages.size());
+        }
+        boolean cut = from > lastSeq || !messages.isEmpty() && messages.get(0).seq() != from + 1;
+        if (cut) {
+            truncated.increment();
+        }
+        send(sessionId, subscriptionId, destination, new ResumePayload("RESUME", lastSeq, latest, cut, messages));
+    }
+
+    // DB 에서 순번 순으로 읽고, 아직 INSERT 되지 않은 최신 메시지(write-behind)는 메모리 캐시에서 이어 붙입니다.
+    private List<ChatMessageResponse> load(Long roomId, long from, int max) {
+        List<ChatMessageResponse> messages = new ArrayList<>(
+                chatMessageRepository.findAfterSeq(roomId, from, PageRequest.of(0, max)).getContent());
+        long last = messages.isEmpty() ? from : messages.get(messages.size() - 1).seq();
+        if (last < roomSequencer.latest(roomId)) {
+            List<ChatMessageResponse> recent = recentMessageCache.findAfterSeq(roomId, last);
+            if (recent != null) {
+                messages.addAll(recent);
+            }
+        }
+        return messages;
+    }
+
+    // 그 구독(sessionId + subscriptionId)으로만 가도록 브로커를 거치지 않고 전송 채널에 바로 넣습니다.
+    // 전송 채널의 StompSlowConsumerInterceptor 가 세션별 순서와 대기 한도를 브로커 프레임과 똑같이 적용합니다.
+    private void send(String sessionId, String subscriptionId, String destination, ResumePayload payload) {
+        byte[] body;
+        try {
+            body = objectMapper.writeValueAsBytes(payload);
+        } catch (JsonProcessingException e) {
+            log.warn("구독 재개 프레임 직렬화 실패: dest={}, cause={}", destination, e.getMessage());
+            return;
+        }
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId(subscriptionId);
+        accessor.setDestination(destination);
+        accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+        accessor.setLeaveMutable(true);
+        try {
+            clientOutboundChannel.send(MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+        } catch (MessagingException e) {
+            log.warn("구독 재개 프레임 전송 실패: sessionId={}, dest={}, cause={}", sessionId, destination, e.getMessage());
+        }
+    }
+
+    /**
+     * 구독 재개 프레임(채팅 토픽으로 그 구독에만 전송)
+     * - fromSeq: 클라이언트가 보낸 마지막 순번, latestSeq: 지금 방의 마지막 순번
+     * - truncated: true 면 messages 앞쪽이 빠져 있으니 기록 조회 API 로 다시 채워야 합니다.
+     * - messages: 순번 오름차순
+     */
+    public record ResumePayload(String type, long fromSeq, long latestSeq, boolean truncated,
+                                List<ChatMessageResponse> messages) {}
+}
@@ -1,18 +1,14 @@
 package com.study.mate.service.chat;
 
 import com.study.mate.dto.request.ChatSendRequest;
-import com.study.mate.entity.ChatMessage;
-import com.study.mate.entity.StudyRoom;
-import com.study.mate.entity.User;
-import com.study.mate.repository.StudyRoomRepository;
-import com.study.mate.repository.RoomParticipantRepository;
-import com.study.mate.repository.UserRepository;
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.service.chat.receipt.ReadReceiptService;
+import com.study.mate.service.chat.search.ChatSearchIndex;
 import com.study.mate.service.notification.NotificationService;
+import com.study.mate.service.presence.RoomActivityCoalescer;
 import com.study.mate.dto.NotificationDto;
 import lombok.RequiredArgsConstructor;
 
-import java.util.List;
-
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
@@ -41,14 +37,17 @@ public class ChatSocketService {
     private final ChatBroadcastService chatBroadcastService;
     private final ChatMessageWriteService chatMessageWriteService;
     private final NotificationService notificationService;
-    // 방(StudyRoom) 정보를 DB에서 찾는 저장소
-    private final StudyRoomRepository studyRoomRepository;
-    // 보낸 사람(User) 정보를 DB에서 찾는 저장소
-    private final UserRepository userRepository;
-    private final RoomParticipantRepository roomParticipantRepository;
+    // 보낸 사람 정보와 방 참여자 목록 캐시(채팅 한 줄마다 DB 를 읽지 않도록)
+    private final RoomMembershipCache roomMembershipCache;
+    private final ChatSearchIndex chatSearchIndex;
+    private final RoomActivityCoalescer roomActivityCoalescer;
+    private final ReadReceiptService readReceiptService;
+    // 방 안의 메시지 순번(저장 뒤 커밋되면 순번 순서대로 방송)
+    private final RoomSequencer roomSequencer;
 
     /**
      * 채팅 메시지를 저장하고, 구독자에게 브로드캐스트합니다.
+     * - 보낸 사람/참여자 확인은 캐시에서 하므로, 캐시가 채워진 뒤에는 메시지당 DB 읽기가 없습니다.
      * @param roomId 방 아이디
      * @param request { content }
      * @param providerId 인증 주체 식별자(subject)
@@ -57,37 +56,44 @@ public class ChatSocketService {
         // 1) 내용 검증: 비어있는 메시지는 저장/발송하지 않습니다.
         if (request == null || request.content() == null || request.content().isBlank()) return;
 
-        // 2) 보낸 사람 조회: 핸드셰이크 시 인증된 providerId로 User를 찾습니다.
-        User sender = userRepository.findByProviderId(providerId).orElse(null);
+        // 2) 보낸 사람 조회: 핸드셰이크 시 인증된 providerId로 사용자 정보를 찾습니다.
+        RoomMembershipCache.Sender sender = roomMembershipCache.findSender(providerId);
         if (sender == null) return;
 
-        // 3) 대상 방 조회: 존재하지 않는 방이라면 중단합니다.
-        StudyRoom room = studyRoomRepository.findById(roomId).orElse(null);
-        if (room == null) return;
-
-        // 3-1) 권한 검증: 이 유저가 이 방의 참여자인지 확인(입장하지 않은 사용자는 전송 불가)
-        boolean joined = roomParticipantRepository.findByRoomIdAndUserId(roomId, sender.getId()).isPresent();
-        if (!joined) return;
+        // 3) 권한 검증: 이 유저가 이 방의 참여자인지 확인(없는 방이면 참여자도 없으므로 함께 걸러집니다)
+        RoomMembershipCache.RoomMembers members = roomMembershipCache.members(roomId);
+        if (!members.contains(sender.userId())) return;
 
-        // 4) 메시지 저장: 누가(room/sender) 무엇을(content) 말했는지 기록합니다.
-        ChatMessage saved = chatMessageWriteService.save(room, sender, request.content());
+        // 4) 메시지 저장 + 5) 브로드캐스트
+        //    - 저장: 누가(room/sender) 무엇을(content) 말했는지 기록합니다.
+        //      (write-behind 모드에서는 대기열에만 넣고 INSERT 는 나중에 모아서 합니다)
+        //    - 브로드캐스트: 같은 방 토픽을 구독한 모두에게 전송합니다.
+        //      구독 주소 규칙: /topic/rooms/{roomId} (프론트는 client.subscribe('/topic/rooms/1', handler))
+        //    - 방송은 트랜잭션이 커밋된 뒤에, 같은 방 안에서는 순번 순서대로 나갑니다(롤백된 메시지는 방송하지 않음).
+        //      순번은 미리 예약해 둔 구간에서 받으므로 순번 행을 잠근 채 방송/알림을 하지 않습니다.
+        ChatMessageResponse saved = roomSequencer.sequenced(roomId,
+                seq -> chatMessageWriteService.write(roomId, sender, request.content(), seq),
+                message -> {
+                    chatBroadcastService.broadcastToRoom(roomId, message);
+                    //    검색 색인 대기 목록에도 넣습니다(잠깐 모았다가 id 순으로 색인).
+                    chatSearchIndex.add(roomId, message.id(), message.content());
+                    //    내가 보낸 메시지는 안 읽은 수에 넣지 않습니다.
+                    readReceiptService.markRead(sender.userId(), roomId, message.seq());
+                });
 
-        // 5) 브로드캐스트: 같은 방 토픽을 구독한 모두에게 전송합니다.
-        //    - 구독 주소 규칙: /topic/rooms/{roomId}
-        //    - 프론트는 client.subscribe('/topic/rooms/1', handler) 형태로 받습니다.
-        chatBroadcastService.broadcastToRoom(roomId, saved);
-        
+        //    메시지를 보냈으니 입력 중 목록에서 뺍니다(다음 tick 에 반영).
         // 6) SSE 알림: 탭이 비활성화된 사용자들에게 브라우저 알림 전송
         //    - 같은 방의 다른 참여자들에게 새 채팅 메시지 알림
-        List<String> roomParticipants = roomParticipantRepository.findParticipantProviderIds(roomId);
+        //    - 둘 다 커밋된 뒤에 합니다(저장이 롤백되면 알림도 보내지 않음).
         NotificationDto chatNotification = NotificationDto.chatMessage(
-            roomId, 
-            sender.getProviderId(), 
-            sender.getNickname(), 
-            request.content()
+            roomId,
+            sender.providerId(),
+            sender.nickname(),
+            saved.content()
         );
-        notificationService.sendToRoomParticipants(roomParticipants, chatNotification);
+        AfterCommit.run(() -> {
+            roomActivityCoalescer.typing(roomId, sender.providerId(), false);
+            notificationService.sendToRoomParticipants(members.providerIds(), chatNotification);
+        });
     }
 }
-
-
@@ -0,0 +1,305 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.dto.response.ChatMessageSliceResponse;
+import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.service.chat.archive.ChatArchiveService;
+import com.study.mate.util.ChatHistoryCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * 방별 "최근 채팅 N개"를 메모리에 들고 있는 링 버퍼 캐시입니다.
+ *
+ * 왜 필요한가요?
+ * - 방에 들어올 때마다 최근 20~50개를 DB 에서 읽습니다. 대부분 같은 최신 메시지들이라 매번 DB 에 갈 이유가 없습니다.
+ *
+ * 동작
+ * - 방송할 때(ChatBroadcastService) 링에 추가합니다. 자리는 AtomicLong 순번으로 잡고 AtomicReferenceArray 에 써서 락이 없습니다.
+ * - 방의 첫 조회 때 DB 에서 최근 N개를 한 번 읽어 "기본 목록"으로 붙입니다(lazy hydration).
+ * - 조회는 링 + 기본 목록을 id(시간 순) 내림차순으로 합쳐, 요청 범위가 이 안에 다 들어오면 DB 없이 응답합니다.
+ *   범위를 벗어나면(더 과거) null 을 돌려주고, 호출 측이 DB 로 조회합니다.
+ * - idle-ttl 동안 읽기/쓰기가 없는 방은 정리합니다.
+ * - 재접속한 클라이언트가 놓친 메시지(순번 seq 이후)도 범위가 메모리 안이면 여기서 돌려줍니다({@link #findAfterSeq}).
+ * - 적중/미스는 "chat.history.cache"(result 태그) 카운터로 확인할 수 있습니다.
+ *
+ * 서버가 여러 대일 때(stomp-broker.mode=RELAY/EMBEDDED)
+ * - 방송은 메시지를 보낸 노드에서만 일어나므로, 추가한 메시지를 {@link ClusterEvents} 로 다른 노드에도 보내 각 노드의 링에 담습니다.
+ * - 이벤트가 늦거나 사라지면 링에 중간이 빌 수 있습니다. 순번(seq)은 방마다 거의 빈 번호 없이 매겨지므로(롤백/비정상 종료 때만 빔),
+ *   응답할 범위의 순번이 이어지지 않으면 메모리로 응답하지 않고 DB 로 읽습니다(늦게 온 메시지는 자리만 찾아 들어감).
+ */
+@Component
+@Slf4j
+public class RecentMessageCache {
+
+    /** 다른 노드에 "이 방에 메시지를 추가했다"고 알리는 이벤트 종류 */
+    static final String APPENDED_EVENT = "chat-appended";
+
+    private static final Comparator<ChatMessageResponse> NEWEST_FIRST =
+            Comparator.comparing(ChatMessageResponse::id, Comparator.reverseOrder());
+
+    private final ChatHistoryCacheProperties properties;
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatArchiveService chatArchiveService;
+    private final ClusterEvents clusterEvents;
+    private final Map<Long, RoomRing> rooms = new ConcurrentHashMap<>();
+    private final int capacity;
+    private final Counter hits;
+    private final Counter misses;
+
+    public RecentMessageCache(ChatHistoryCacheProperties properties,
+                              ChatMessageRepository chatMessageRepository,
+                              ChatArchiveService chatArchiveService,
+                              ClusterEvents clusterEvents,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatArchiveService = chatArchiveService;
+        this.clusterEvents = clusterEvents;
+        // 인덱스 계산을 비트 연산으로 하기 위해 2의 거듭제곱으로 올립니다.
+        this.capacity = Integer.highestOneBit(Math.max(2, properties.getCapacity() - 1)) << 1;
+        Gauge.builder("chat.history.cache.rooms", rooms, Map::size)
+                .description("최근 채팅을 메모리에 보관 중인 방 수")
+                .register(meterRegistry);
+        this.hits = Counter.builder("chat.history.cache").tag("result", "hit")
+                .description("DB 없이 메모리에서 응답한 채팅 기록 조회 수")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.history.cache").tag("result", "miss")
+                .description("메모리 범위를 벗어나 DB 로 조회한 채팅 기록 조회 수")
+                .register(meterRegistry);
+        clusterEvents.subscribe(APPENDED_EVENT, Appended.class, event -> appendLocally(event.roomId(), event.message()));
+    }
+
+    /** 방송된 메시지를 방의 링에 추가하고, 다른 노드의 링에도 담기도록 알립니다. */
+    public void append(Long roomId, ChatMessageResponse message) {
+        if (appendLocally(roomId, message)) {
+            clusterEvents.publish(APPENDED_EVENT, new Appended(roomId, message));
+        }
+    }
+
+    private boolean appendLocally(Long roomId, ChatMessageResponse message) {
+        if (!properties.isEnabled() || roomId == null || message == null || message.id() == null) {
+            return false;
+        }
+        rooms.computeIfAbsent(roomId, id -> new RoomRing(capacity)).append(message);
+        return true;
+    }
+
+    /**
+     * 메모리에서 기록을 조회합니다.
+     *
+     * @param before 이 id 보다 오래된 메시지(null 이면 가장 최근부터)
+     * @return 메모리 범위 안이면 최신순 결과, 범위를 벗어나면 null(DB 조회 필요)
+     */
+    public ChatMessageSliceResponse findBefore(Long roomId, Long before, int size) {
+        if (!properties.isEnabled() || size > capacity) {
+            return null;
+        }
+        RoomRing ring = rooms.computeIfAbsent(roomId, id -> new RoomRing(capacity));
+        ring.touch();
+        if (!ring.hydrated) {
+            hydrate(roomId, ring);
+        }
+        List<ChatMessageResponse> window = ring.snapshot();
+        int start = 0;
+        if (before != null) {
+            while (start < window.size() && window.get(start).id() >= before) start++;
+        }
+        int available = window.size() - start;
+        // 요청 개수보다 하나 더 있으면 hasNext=true 를 확실히 알 수 있고, 방 전체 기록이 메모리에 있으면 끝까지 응답할 수 있습니다.
+        // 순번 확인은 바로 앞(더 최신) 메시지부터 합니다(이전 페이지와 이 페이지 사이가 빈 경우도 찾도록).
+        int from = Math.max(0, start - 1);
+        if (available > size && contiguous(window.subList(from, start + size + 1))) {
+            hits.increment();
+            return ChatMessageSliceResponse.of(new ArrayList<>(window.subList(start, start + size)), true);
+        }
+        if (available <= size && ring.complete() && contiguous(window.subList(from, window.size()))) {
+            hits.increment();
+            return ChatMessageSliceResponse.of(new ArrayList<>(window.subList(start, window.size())), false);
+        }
+        misses.increment();
+        return null;
+    }
+
+    // 최신순 목록의 순번이 1씩 줄어드는지(중간에 아직 오지 않은 메시지가 없는지) 확인합니다. 순번이 없는 예전 메시지는 건너뜁니다.
+    private static boolean contiguous(List<ChatMessageResponse> newestFirst) {
+        Long newer = null;
+        for (ChatMessageResponse message : newestFirst) {
+            Long seq = message.seq();
+            if (seq == null) {
+                continue;
+            }
+            if (newer != null && seq != newer - 1) {
+                return false;
+            }
+            newer = seq;
+        }
+        return true;
+    }
+
+    /**
+     * 순번 afterSeq 다음부터 지금까지의 메시지를 메모리에서 찾습니다(재접속 때 놓친 메시지 보충용).
+     *
+     * @return 빠진 순번 없이 모두 메모리에 있으면 순번 오름차순 목록, 아니면 null(DB 조회 필요)
+     */
+    public List<ChatMessageResponse> findAfterSeq(Long roomId, long afterSeq) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        RoomRing ring = rooms.computeIfAbsent(roomId, id -> new RoomRing(capacity));
+        ring.touch();
+        if (!ring.hydrated) {
+            hydrate(roomId, ring);
+        }
+        List<ChatMessageResponse> found = new ArrayList<>();
+        // 최신순으로 내려가다 afterSeq 이하(또는 순번이 없는 예전 메시지)를 만나면 그 앞은 모두 메모리에 있는 것입니다.
+        boolean covered = false;
+        for (ChatMessageResponse message : ring.snapshot()) {
+            if (message.seq() == null || message.seq() <= afterSeq) {
+                covered = true;
+                break;
+            }
+            found.add(message);
+        }
+        found.sort(Comparator.comparing(ChatMessageResponse::seq));
+        if (!covered && !ring.complete() || !contiguous(found, afterSeq)) {
+            misses.increment();
+            return null;
+        }
+        hits.increment();
+        return found;
+    }
+
+    // afterSeq+1, afterSeq+2 ... 처럼 빠진 번호 없이 이어지는지 확인합니다.
+    private static boolean contiguous(List<ChatMessageResponse> ascending, long afterSeq) {
+        long expected = afterSeq + 1;
+        for (ChatMessageResponse message : ascending) {
+            if (message.seq() != expected++) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * idle-ttl 동안 조회/추가가 없던 방을 메모리에서 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "#{@chatHistoryCacheProperties.sweepInterval.toMillis()}")
+    public void evictIdleRooms() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleTtl().toMillis();
+        rooms.entrySet().removeIf(e -> e.getValue().lastAccess < cutoff);
+    }
+
+    // 첫 조회 때 한 번만 DB 에서 최근 N개를 읽어 붙입니다(동시에 여러 요청이 와도 한 번만 읽도록 방 단위 잠금).
+    private void hydrate(Long roomId, RoomRing ring) {
+        synchronized (ring) {
+            if (ring.hydrated) {
+                return;
+            }
+            List<ChatMessageResponse> recent = chatMessageRepository
+                    .findRecentMessagesByRoomId(roomId, PageRequest.of(0, capacity))
+                    .getContent();
+            ring.base = List.copyOf(recent);
+            // DB 에 남은 게 전부여도, 보관 파일로 옮겨진 더 오래된 메시지가 있으면 "방 전체"가 아닙니다.
+            ring.baseComplete = recent.size() < capacity && !chatArchiveService.hasArchive(roomId);
+            ring.hydrated = true;
+            log.debug("최근 채팅 캐시 적재: roomId={}, loaded={}", roomId, recent.size());
+        }
+    }
+
+    /**
+     * 방 하나의 링 버퍼
+     * - slots[seq & mask] 에 (seq, 메시지)를 씁니다. 읽는 쪽은 seq 가 기대값과 같은 칸만 유효하게 봅니다.
+     * - base: 처음 조회할 때 DB 에서 읽어 온 최근 목록(최신순, 불변)
+     */
+    private static final class RoomRing {
+        final AtomicReferenceArray<Slot> slots;
+        final int mask;
+        final AtomicLong writeSeq = new AtomicLong();
+        volatile boolean hydrated;
+        volatile List<ChatMessageResponse> base = List.of();
+        volatile boolean baseComplete;
+        volatile long lastAccess = System.currentTimeMillis();
+
+        RoomRing(int capacity) {
+            this.slots = new AtomicReferenceArray<>(capacity);
+            this.mask = capacity - 1;
+        }
+
+        void append(ChatMessageResponse message) {
+            long seq = writeSeq.getAndIncrement();
+            slots.set((int) (seq & mask), new Slot(seq, message));
+            lastAccess = System.currentTimeMillis();
+        }
+
+        void touch() {
+            lastAccess = System.currentTimeMillis();
+        }
+
+        // 링이 한 바퀴 돌지 않았고 DB 기본 목록도 방 전체였다면, 방의 모든 기록이 메모리에 있습니다.
+        boolean complete() {
+            return baseComplete && writeSeq.get() <= slots.length();
+        }
+
+        /**
+         * 링과 기본 목록을 합쳐 id 내림차순(최신순) 목록을 만듭니다. 같은 id 는 한 번만 담습니다.
+         */
+        List<ChatMessageResponse> snapshot() {
+            long head = writeSeq.get();
+            long from = Math.max(0, head - slots.length());
+            List<ChatMessageResponse> fromRing = new ArrayList<>((int) (head - from));
+            for (long seq = head - 1; seq >= from; seq--) {
+                Slot slot = slots.get((int) (seq & mask));
+                // 아직 쓰는 중이거나 이미 덮어쓴 칸은 건너뜁니다.
+                if (slot != null && slot.seq == seq) {
+                    fromRing.add(slot.message);
+                }
+            }
+            fromRing.sort(NEWEST_FIRST);
+            List<ChatMessageResponse> baseList = base;
+            if (baseList.isEmpty()) {
+                return fromRing;
+            }
+            // 두 목록 모두 최신순이므로 병합하며 중복 id 를 제거합니다.
+            List<ChatMessageResponse> merged = new ArrayList<>(fromRing.size() + baseList.size());
+            int i = 0;
+            int j = 0;
+            while (i < fromRing.size() || j < baseList.size()) {
+                ChatMessageResponse next;
+                if (j >= baseList.size() || (i < fromRing.size() && fromRing.get(i).id() >= baseList.get(j).id())) {
+                    next = fromRing.get(i++);
+                } else {
+                    next = baseList.get(j++);
+                }
+                if (merged.isEmpty() || !merged.get(merged.size() - 1).id().equals(next.id())) {
+                    merged.add(next);
+                }
+            }
+            // 링이 한 바퀴 이상 돌았다면 링보다 오래된 기본 목록은 중간이 빠져 있을 수 있으므로 잘라냅니다.
+            if (from > 0 && !fromRing.isEmpty()) {
+                long oldestInRing = fromRing.get(fromRing.size() - 1).id();
+                merged.removeIf(m -> m.id() < oldestInRing);
+            }
+            return merged;
+        }
+    }
+
+    private record Slot(long seq, ChatMessageResponse message) {}
+
+    /** 다른 노드로 보내는 "방에 메시지 추가" 이벤트 */
+    record Appended(Long roomId, ChatMessageResponse message) {}
+}
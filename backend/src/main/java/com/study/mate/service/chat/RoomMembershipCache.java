@@ -0,0 +1,203 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.entity.User;
+import com.study.mate.repository.RoomParticipantRepository;
+import com.study.mate.repository.UserRepository;
+import com.study.mate.repository.dto.RoomMemberRow;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.MembershipCacheProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 채팅 전송 경로에서 쓰는 "방 참여자"와 "보낸 사람 정보" 캐시입니다.
+ *
+ * 왜 필요한가요?
+ * - 채팅 한 줄마다 사용자 조회 → 방 조회 → 참여 여부 조회 → 알림 대상 조회로 DB 를 4번 읽었습니다.
+ * - 참여자 목록과 닉네임은 거의 바뀌지 않으므로 메모리에 두고, 바뀌는 순간에만 지웁니다.
+ *
+ * 무효화(invalidation)
+ * - 방 생성/입장/퇴장(StudyRoomService)과 프로필 갱신(로그인 시)에서 evict 를 호출합니다.
+ * - DB 변경이 커밋된 "뒤"에도 한 번 더 지워, 커밋 전에 다른 스레드가 옛 값을 다시 채워 넣는 경우를 막습니다.
+ * - 조회 중에 무효화가 일어났다면(세대 번호가 바뀌었다면) 읽어 온 값을 캐시에 넣지 않습니다.
+ * - 서버가 여러 대면(stomp-broker.mode=RELAY/EMBEDDED) 커밋 뒤 {@link ClusterEvents} 로 다른 노드에도 지우라고 알립니다.
+ * - 그래도 놓친 변경(이벤트 유실 등)이 있을 수 있으므로 ttl 이 지나면 다시 읽습니다.
+ */
+@Component
+@Slf4j
+public class RoomMembershipCache {
+
+    static final String ROOM_EVICTED_EVENT = "membership-room-evicted";
+    static final String SENDER_EVICTED_EVENT = "membership-sender-evicted";
+
+    private final MembershipCacheProperties properties;
+    private final RoomParticipantRepository roomParticipantRepository;
+    private final UserRepository userRepository;
+    private final ClusterEvents clusterEvents;
+
+    private final Map<Long, RoomMembers> rooms = new ConcurrentHashMap<>();
+    private final Map<String, Sender> senders = new ConcurrentHashMap<>();
+    // 무효화가 일어날 때마다 증가. 조회 시작~끝 사이에 바뀌었으면 결과를 캐시하지 않습니다.
+    private final AtomicLong roomGeneration = new AtomicLong();
+    private final AtomicLong senderGeneration = new AtomicLong();
+    private final Counter hits;
+    private final Counter misses;
+
+    public RoomMembershipCache(MembershipCacheProperties properties,
+                               RoomParticipantRepository roomParticipantRepository,
+                               UserRepository userRepository,
+                               ClusterEvents clusterEvents,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.roomParticipantRepository = roomParticipantRepository;
+        this.userRepository = userRepository;
+        this.clusterEvents = clusterEvents;
+        this.hits = Counter.builder("chat.membership.cache").tag("result", "hit")
+                .description("DB 없이 응답한 참여자/사용자 조회 수")
+                .register(meterRegistry);
+        this.misses = Counter.builder("chat.membership.cache").tag("result", "miss")
+                .description("DB 에서 다시 읽은 참여자/사용자 조회 수")
+                .register(meterRegistry);
+        clusterEvents.subscribe(ROOM_EVICTED_EVENT, Long.class, this::removeRoom);
+        clusterEvents.subscribe(SENDER_EVICTED_EVENT, String.class, this::removeSender);
+    }
+
+    /**
+     * 방 참여자 목록(사용자 id 집합 + providerId 목록)을 돌려줍니다. 없는 방이면 빈 목록입니다.
+     */
+    public RoomMembers members(Long roomId) {
+        RoomMembers cached = rooms.get(roomId);
+        if (cached != null && !expired(cached.loadedAt())) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long generation = roomGeneration.get();
+        List<RoomMemberRow> rows = roomParticipantRepository.findMemberRows(roomId);
+        Set<Long> userIds = new HashSet<>(rows.size() * 2);
+        List<String> providerIds = new ArrayList<>(rows.size());
+        for (RoomMemberRow row : rows) {
+            userIds.add(row.getUserId());
+            providerIds.add(row.getProviderId());
+        }
+        RoomMembers loaded = new RoomMembers(Set.copyOf(userIds), List.copyOf(providerIds), System.currentTimeMillis());
+        if (roomGeneration.get() == generation) {
+            rooms.put(roomId, loaded);
+        }
+        return loaded;
+    }
+
+    /**
+     * providerId 로 보낸 사람 정보(id/닉네임/프로필 이미지)를 돌려줍니다. 없는 사용자면 null 입니다.
+     */
+    public Sender findSender(String providerId) {
+        if (providerId == null) {
+            return null;
+        }
+        Sender cached = senders.get(providerId);
+        if (cached != null && !expired(cached.loadedAt())) {
+            hits.increment();
+            return cached;
+        }
+        misses.increment();
+        long generation = senderGeneration.get();
+        User user = userRepository.findByProviderId(providerId).orElse(null);
+        if (user == null) {
+            return null;
+        }
+        Sender loaded = new Sender(user.getId(), user.getProviderId(), user.getNickname(),
+                user.getProfileImageUrl(), System.currentTimeMillis());
+        if (senderGeneration.get() == generation) {
+            senders.put(providerId, loaded);
+        }
+        return loaded;
+    }
+
+    /** 방 참여자 목록을 지웁니다(지금 한 번, 트랜잭션 커밋 뒤 한 번 더, 다른 노드에는 커밋 뒤에). */
+    public void evictRoom(Long roomId) {
+        runNowAndAfterCommit(() -> removeRoom(roomId));
+        AfterCommit.run(() -> clusterEvents.publish(ROOM_EVICTED_EVENT, roomId));
+    }
+
+    /** 사용자 정보(닉네임/프로필)를 지웁니다(지금 한 번, 트랜잭션 커밋 뒤 한 번 더). */
+    public void evictSender(String providerId) {
+        if (providerId == null) {
+            return;
+        }
+        runNowAndAfterCommit(() -> removeSender(providerId));
+        AfterCommit.run(() -> clusterEvents.publish(SENDER_EVICTED_EVENT, providerId));
+    }
+
+    private void removeRoom(Long roomId) {
+        roomGeneration.incrementAndGet();
+        rooms.remove(roomId);
+    }
+
+    private void removeSender(String providerId) {
+        senderGeneration.incrementAndGet();
+        senders.remove(providerId);
+    }
+
+    /**
+     * 만료된 항목을 정리하고, 상한을 넘으면 오래 전에 읽은 항목부터 지웁니다.
+     */
+    @Scheduled(fixedDelayString = "#{@membershipCacheProperties.sweepInterval.toMillis()}")
+    public void sweep() {
+        rooms.values().removeIf(m -> expired(m.loadedAt()));
+        senders.values().removeIf(s -> expired(s.loadedAt()));
+        trim(rooms, properties.getMaxRooms(), RoomMembers::loadedAt);
+        trim(senders, properties.getMaxUsers(), Sender::loadedAt);
+    }
+
+    private boolean expired(long loadedAt) {
+        return System.currentTimeMillis() - loadedAt > properties.getTtl().toMillis();
+    }
+
+    private static <K, V> void trim(Map<K, V> map, int max, java.util.function.ToLongFunction<V> loadedAt) {
+        int overflow = map.size() - max;
+        if (overflow <= 0) {
+            return;
+        }
+        map.entrySet().stream()
+                .sorted(Comparator.comparingLong(e -> loadedAt.applyAsLong(e.getValue())))
+                .limit(overflow)
+                .map(Map.Entry::getKey)
+                .toList()
+                .forEach(map::remove);
+    }
+
+    // 지금 한 번, 트랜잭션 안이면 커밋 뒤에 한 번 더(그 사이 다시 채워진 옛 값을 지우도록) 실행합니다.
+    private static void runNowAndAfterCommit(Runnable action) {
+        action.run();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            AfterCommit.run(action);
+        }
+    }
+
+    /**
+     * 방 참여자 스냅샷(불변)
+     */
+    public record RoomMembers(Set<Long> userIds, List<String> providerIds, long loadedAt) {
+        public boolean contains(Long userId) {
+            return userIds.contains(userId);
+        }
+    }
+
+    /**
+     * 채팅 메시지에 실을 보낸 사람 정보(불변)
+     */
+    public record Sender(Long userId, String providerId, String nickname, String profileImageUrl, long loadedAt) {}
+}
@@ -0,0 +1,260 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.util.ChatHistoryCacheProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayDeque;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.LongFunction;
+
+/**
+ * 방마다 메시지 순번(seq)을 1, 2, 3... 으로 매기는 컴포넌트입니다.
+ *
+ * 순번 받기(hi/lo)
+ * - DB 의 방별 마지막 순번 행(chat_room_sequences)을 sequence-block-size 만큼 한 번에 올려 그 구간을 예약하고,
+ *   예약한 구간 안에서는 메모리에서만 순번을 나눠 줍니다. 그래서 메시지마다 DB 를 읽거나 쓰지 않습니다.
+ * - 예약은 채팅 저장과 다른 짧은 트랜잭션으로 바로 커밋합니다. 순번 행의 잠금이 방송/알림까지 이어지지 않습니다.
+ * - 이 행은 메시지를 보관(chat-archive)해 chat_messages 에서 지워도 남으므로, 재시작해도 순번이 처음으로 돌아가지 않습니다.
+ * - 정상 종료 때는 쓰지 않은 예약분을 돌려줍니다(그 사이 다른 서버가 더 예약하지 않았을 때만).
+ *
+ * 커밋 뒤에만 방송
+ * - publish(방송)는 저장 트랜잭션이 커밋된 뒤에만 하고, 롤백된 메시지는 방송하지 않습니다.
+ * - 같은 방 안에서는 순번을 받은 순서대로 방송합니다. 먼저 받은 순번이 아직 커밋 전이면 뒤의 방송은 기다렸다가 이어서 나갑니다.
+ * - {@link #latest(Long)}(방의 마지막 순번, 안 읽은 수/구독 재개용)도 방송할 때 올라갑니다. DB 를 읽지 않습니다.
+ *
+ * 빈 번호가 생기는 경우(받는 쪽은 빈 번호를 "DB 로 확인"으로 처리합니다)
+ * - 롤백된 메시지의 순번은 다시 쓰지 않습니다(같은 순번이 두 번 나가지 않도록).
+ * - 비정상 종료로 돌려주지 못한 예약분은 건너뜁니다.
+ * - 서버가 여러 대이면 서버마다 다른 구간을 예약하므로, 같은 방에 여러 서버가 쓰면 순번이 서버별로 섞여 나갑니다.
+ *   구독 재개가 순번 순서에 기대므로, 여러 대일 때는 sequence-block-size 를 1 로 둡니다(application-prod.yml).
+ *   다른 서버가 예약한 순번은 sequence-refresh-interval 마다 한 번에 읽어 {@link #latest(Long)} 에 반영합니다.
+ */
+@Component
+@Slf4j
+public class RoomSequencer {
+
+    private static final String RESERVE_SQL = "UPDATE chat_room_sequences SET last_seq = last_seq + ? WHERE room_id = ?";
+    private static final String CURRENT_SQL = "SELECT last_seq FROM chat_room_sequences WHERE room_id = ?";
+    private static final String INSERT_SQL = "INSERT INTO chat_room_sequences (room_id, last_seq) VALUES (?, ?)";
+    private static final String ALL_SQL = "SELECT room_id, last_seq FROM chat_room_sequences";
+    // 예약한 뒤 아무도 더 예약하지 않았을 때만 쓴 곳까지로 되돌립니다.
+    private static final String RELEASE_SQL = "UPDATE chat_room_sequences SET last_seq = ? WHERE room_id = ? AND last_seq = ?";
+    // 순번 행이 아직 없는 방(이 테이블이 생기기 전의 방)은 남아 있는 메시지와 읽음 위치 중 큰 값에서 이어갑니다.
+    private static final String MAX_MESSAGE_SEQ_SQL = "SELECT MAX(seq) FROM chat_messages WHERE room_id = ?";
+    private static final String MAX_READ_SEQ_SQL = "SELECT MAX(last_read_seq) FROM chat_read_receipts WHERE room_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ChatHistoryCacheProperties properties;
+    // 채팅 저장 트랜잭션과 따로 바로 커밋하는 예약용 트랜잭션
+    private final TransactionTemplate reserveTransaction;
+    // 방 id → 이 서버의 방 순번 상태(같은 방의 순번 나눠 주기/방송 순서는 이 객체로 잠금)
+    private final Map<Long, Room> rooms = new ConcurrentHashMap<>();
+
+    public RoomSequencer(JdbcTemplate jdbcTemplate,
+                         PlatformTransactionManager transactionManager,
+                         ChatHistoryCacheProperties properties) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.properties = properties;
+        this.reserveTransaction = new TransactionTemplate(transactionManager);
+        this.reserveTransaction.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+    }
+
+    /**
+     * 다음 순번으로 write(저장)를 하고, 트랜잭션이 커밋되면 그 결과로 publish(방송)를 합니다.
+     * - write 는 호출한 쪽 트랜잭션 안에서 실행됩니다(없으면 이 메서드가 트랜잭션을 엽니다).
+     * - publish 는 커밋 뒤, 같은 방 안에서 순번 순서대로 실행됩니다. 그래서 다른 스레드에서 실행될 수도 있습니다.
+     *   write 가 실패하거나 롤백되면 publish 는 실행되지 않고, 그 순번은 비워 둡니다.
+     */
+    @Transactional
+    public <T> T sequenced(Long roomId, LongFunction<T> write, Consumer<T> publish) {
+        Room room = room(roomId);
+        Slot slot;
+        synchronized (room) {
+            slot = new Slot(nextSeq(roomId, room));
+            room.pending.addLast(slot);
+        }
+        boolean handedOff = false;
+        try {
+            T result = write.apply(slot.seq);
+            slot.publish = () -> publish.accept(result);
+            if (TransactionSynchronizationManager.isSynchronizationActive()) {
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                    @Override
+                    public void afterCompletion(int status) {
+                        complete(room, slot, status == STATUS_COMMITTED);
+                    }
+                });
+            } else {
+                complete(room, slot, true);
+            }
+            handedOff = true;
+            return result;
+        } finally {
+            if (!handedOff) {
+                complete(room, slot, false);
+            }
+        }
+    }
+
+    /** 이 방의 마지막 순번(메시지가 없으면 0) */
+    public long latest(Long roomId) {
+        return room(roomId).latest.get();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void preload() {
+        refresh();
+        log.info("방별 메시지 순번 로드 완료: rooms={}", rooms.size());
+    }
+
+    /**
+     * 모든 방의 마지막 순번을 다시 읽어 메모리 값을 올립니다(다른 서버가 매긴 순번 반영, 값은 앞으로만 감).
+     * DB 값이 이 서버가 예약한 끝과 같으면(그 뒤로 아무도 예약하지 않음) 아직 쓰지 않은 예약분이므로 반영하지 않습니다.
+     */
+    @Scheduled(fixedDelayString = "#{@chatHistoryCacheProperties.sequenceRefreshInterval.toMillis()}")
+    public void refresh() {
+        try {
+            jdbcTemplate.query(ALL_SQL, rs -> {
+                long stored = rs.getLong(2);
+                Room room = rooms.computeIfAbsent(rs.getLong(1), id -> new Room(stored));
+                synchronized (room) {
+                    if (stored != room.hi) {
+                        room.latest.accumulateAndGet(stored, Math::max);
+                    }
+                }
+            });
+        } catch (DataAccessException e) {
+            log.warn("방별 메시지 순번 읽기 실패(다음 주기에 다시 시도): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 종료할 때 쓰지 않은 예약분을 돌려줍니다. 그래서 다시 시작해도 순번이 건너뛰지 않습니다.
+     */
+    @PreDestroy
+    public void releaseReserved() {
+        rooms.forEach((roomId, room) -> {
+            synchronized (room) {
+                if (room.next > room.hi) {
+                    return;
+                }
+                try {
+                    jdbcTemplate.update(RELEASE_SQL, room.next - 1, roomId, room.hi);
+                    room.hi = room.next - 1;
+                } catch (DataAccessException e) {
+                    log.warn("예약한 메시지 순번 반환 실패(다음 순번이 건너뜀): roomId={}, cause={}", roomId, e.getMessage());
+                }
+            }
+        });
+    }
+
+    // 예약한 구간에서 다음 순번을 꺼냅니다. 다 썼으면 DB 에서 다음 구간을 예약합니다(room 잠금 안에서 호출).
+    private long nextSeq(Long roomId, Room room) {
+        if (room.next > room.hi) {
+            int block = Math.max(1, properties.getSequenceBlockSize());
+            long hi = reserveTransaction.execute(status -> reserve(roomId, block));
+            room.next = hi - block + 1;
+            room.hi = hi;
+        }
+        return room.next++;
+    }
+
+    // DB 의 순번 행을 block 만큼 올리고 예약한 구간의 끝을 돌려줍니다. 행이 없으면 이어갈 값으로 만듭니다.
+    private long reserve(Long roomId, int block) {
+        if (jdbcTemplate.update(RESERVE_SQL, block, roomId) == 0) {
+            long hi = seed(roomId) + block;
+            try {
+                jdbcTemplate.update(INSERT_SQL, roomId, hi);
+                return hi;
+            } catch (DuplicateKeyException e) {
+                // 다른 서버가 먼저 만든 경우: 이제 행이 있으므로 올리기만 합니다.
+                jdbcTemplate.update(RESERVE_SQL, block, roomId);
+            }
+        }
+        return jdbcTemplate.queryForObject(CURRENT_SQL, Long.class, roomId);
+    }
+
+    // 트랜잭션이 끝난 순번을 표시하고, 맨 앞부터 끝난 것들을 순서대로 방송합니다(롤백된 것은 건너뜀).
+    private void complete(Room room, Slot slot, boolean committed) {
+        synchronized (room) {
+            slot.state = committed ? Slot.COMMITTED : Slot.ABANDONED;
+            while (!room.pending.isEmpty() && room.pending.peekFirst().state != Slot.PENDING) {
+                Slot head = room.pending.pollFirst();
+                if (head.state != Slot.COMMITTED) {
+                    continue;
+                }
+                room.latest.accumulateAndGet(head.seq, Math::max);
+                try {
+                    head.publish.run();
+                } catch (RuntimeException e) {
+                    log.warn("채팅 방송 실패(저장은 완료): seq={}, cause={}", head.seq, e.getMessage());
+                }
+            }
+        }
+    }
+
+    private Room room(Long roomId) {
+        return rooms.computeIfAbsent(roomId, id -> {
+            List<Long> stored = jdbcTemplate.queryForList(CURRENT_SQL, Long.class, id);
+            return new Room(stored.isEmpty() ? seed(id) : stored.get(0));
+        });
+    }
+
+    // 순번 행이 없는 방이 이어갈 값: 남은 메시지의 최대 순번, 누군가 읽은 최대 순번, 이 서버가 아는 값 중 가장 큰 값
+    private long seed(Long roomId) {
+        Long maxMessage = jdbcTemplate.queryForObject(MAX_MESSAGE_SEQ_SQL, Long.class, roomId);
+        Long maxRead = jdbcTemplate.queryForObject(MAX_READ_SEQ_SQL, Long.class, roomId);
+        Room known = rooms.get(roomId);
+        long seed = Math.max(maxMessage != null ? maxMessage : 0, maxRead != null ? maxRead : 0);
+        return Math.max(seed, known != null ? known.latest.get() : 0);
+    }
+
+    /**
+     * 방 하나의 순번 상태
+     * - next..hi: 예약했지만 아직 나눠 주지 않은 순번(next > hi 면 다음 메시지 때 새로 예약)
+     * - latest: 방송한(또는 다른 서버가 매긴) 마지막 순번
+     * - pending: 순번을 받은 순서대로, 트랜잭션이 끝나길 기다리는 메시지
+     */
+    private static final class Room {
+        long next = 1;
+        long hi = 0;
+        final AtomicLong latest;
+        final ArrayDeque<Slot> pending = new ArrayDeque<>();
+
+        Room(long latest) {
+            this.latest = new AtomicLong(latest);
+        }
+    }
+
+    private static final class Slot {
+        static final int PENDING = 0;
+        static final int COMMITTED = 1;
+        static final int ABANDONED = 2;
+
+        final long seq;
+        int state = PENDING;
+        Runnable publish;
+
+        Slot(long seq) {
+            this.seq = seq;
+        }
+    }
+}
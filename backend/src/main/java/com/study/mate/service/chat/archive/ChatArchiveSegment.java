@@ -0,0 +1,325 @@
+package com.study.mate.service.chat.archive;
+
+import com.study.mate.dto.response.ChatMessageResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 한 방의 보관 메시지 묶음을 담은 읽기 전용 세그먼트 파일입니다({@link ChatArchiveService} 전용).
+ *
+ * 파일 구성(한 번 쓰면 바뀌지 않음)
+ * - [블록 0][블록 1]...[블록 N-1][인덱스][트레일러]
+ * - 블록: 메시지 block-messages 개를 이어 붙여 Deflate 로 압축한 바이트.
+ * - 인덱스(듬성듬성한 sparse 인덱스): 블록마다 (첫 id, 마지막 id, 파일 위치, 길이, CRC32) 한 칸.
+ *   메시지마다가 아니라 블록마다 한 칸이라 작고, 열 때 메모리에 올려 이진 탐색합니다.
+ * - 트레일러: [인덱스 위치:long][블록 수:int][magic:int]
+ *
+ * 블록 안 메시지 형식: [개수:int] 이후 메시지마다
+ *   [id:long][senderId:long][createdAt(UTC 기준 epoch millis):long][seq:long(-1 이면 없음)][nickname][profileImageUrl][content]
+ *   문자열은 [길이:int(-1 이면 null)][UTF-8 바이트]
+ *   (seq 가 없는 예전 형식(magic "CAS1") 파일도 그대로 읽습니다. 이때 seq 는 null 입니다.)
+ *
+ * 읽기는 파일 전체를 메모리 매핑(mmap)해 필요한 블록만 풀어 씁니다(OS 페이지 캐시를 그대로 활용).
+ * 쓰기는 임시 파일에 모두 쓴 뒤 원자적으로 이름을 바꾸므로, 도중에 죽어도 반쪽짜리 세그먼트가 보이지 않습니다.
+ */
+final class ChatArchiveSegment implements Closeable {
+
+    private static final int MAGIC_V1 = 0x43415331; // "CAS1": 메시지에 seq 없음
+    private static final int MAGIC = 0x43415332; // "CAS2"
+    private static final long NO_SEQ = -1L;
+    private static final int TRAILER_BYTES = 8 + 4 + 4;
+    private static final int INDEX_ENTRY_BYTES = 8 + 8 + 8 + 4 + 4;
+
+    private final Path file;
+    private final long roomId;
+    private final FileChannel channel;
+    private final MappedByteBuffer data;
+    // 메시지마다 seq 가 들어 있는 형식인지
+    private final boolean hasSeq;
+    // 블록별 sparse 인덱스
+    private final long[] firstIds;
+    private final long[] lastIds;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final int[] crcs;
+
+    private ChatArchiveSegment(Path file, long roomId) throws IOException {
+        this.file = file;
+        this.roomId = roomId;
+        this.channel = FileChannel.open(file, StandardOpenOption.READ);
+        this.data = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        int size = data.capacity();
+        int magic = size < TRAILER_BYTES ? 0 : data.getInt(size - 4);
+        if (magic != MAGIC && magic != MAGIC_V1) {
+            channel.close();
+            throw new IOException("손상된 채팅 보관 세그먼트: " + file);
+        }
+        this.hasSeq = magic == MAGIC;
+        long indexOffset = data.getLong(size - TRAILER_BYTES);
+        int blocks = data.getInt(size - TRAILER_BYTES + 8);
+        this.firstIds = new long[blocks];
+        this.lastIds = new long[blocks];
+        this.offsets = new long[blocks];
+        this.lengths = new int[blocks];
+        this.crcs = new int[blocks];
+        int pos = (int) indexOffset;
+        for (int i = 0; i < blocks; i++, pos += INDEX_ENTRY_BYTES) {
+            firstIds[i] = data.getLong(pos);
+            lastIds[i] = data.getLong(pos + 8);
+            offsets[i] = data.getLong(pos + 16);
+            lengths[i] = data.getInt(pos + 24);
+            crcs[i] = data.getInt(pos + 28);
+        }
+    }
+
+    static ChatArchiveSegment open(Path file, long roomId) throws IOException {
+        return new ChatArchiveSegment(file, roomId);
+    }
+
+    /**
+     * id 오름차순 메시지로 세그먼트 파일을 만듭니다. 파일 이름은 "첫id-마지막id.seg" 입니다.
+     */
+    static Path write(Path directory, List<ChatMessageResponse> ascending, int blockMessages) throws IOException {
+        Files.createDirectories(directory);
+        long firstId = ascending.get(0).id();
+        long lastId = ascending.get(ascending.size() - 1).id();
+        Path target = directory.resolve(firstId + "-" + lastId + ".seg");
+        Path temp = directory.resolve(firstId + "-" + lastId + ".seg.tmp");
+
+        int blocks = (ascending.size() + blockMessages - 1) / blockMessages;
+        ByteBuffer index = ByteBuffer.allocate(blocks * INDEX_ENTRY_BYTES + TRAILER_BYTES);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try (FileChannel out = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long offset = 0;
+            for (int from = 0; from < ascending.size(); from += blockMessages) {
+                List<ChatMessageResponse> block = ascending.subList(from, Math.min(ascending.size(), from + blockMessages));
+                byte[] compressed = compress(deflater, encodeBlock(block));
+                index.putLong(block.get(0).id())
+                        .putLong(block.get(block.size() - 1).id())
+                        .putLong(offset)
+                        .putInt(compressed.length)
+                        .putInt(crc(compressed));
+                ByteBuffer buf = ByteBuffer.wrap(compressed);
+                while (buf.hasRemaining()) {
+                    out.write(buf);
+                }
+                offset += compressed.length;
+            }
+            index.putLong(offset).putInt(blocks).putInt(MAGIC);
+            index.flip();
+            while (index.hasRemaining()) {
+                out.write(index);
+            }
+            out.force(true);
+        } finally {
+            deflater.end();
+        }
+        Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return target;
+    }
+
+    Path file() {
+        return file;
+    }
+
+    long firstId() {
+        return firstIds.length == 0 ? Long.MAX_VALUE : firstIds[0];
+    }
+
+    long lastId() {
+        return lastIds.length == 0 ? Long.MIN_VALUE : lastIds[lastIds.length - 1];
+    }
+
+    /**
+     * before 보다 작은 id 를 최신순으로 out 에 담습니다(out 이 limit 개가 되면 멈춤).
+     */
+    void collectBefore(long before, int limit, List<ChatMessageResponse> out) throws IOException {
+        // before 보다 작은 id 를 가진 마지막 블록부터 거꾸로 읽습니다.
+        int block = lastBlockWithFirstIdBelow(before);
+        for (; block >= 0 && out.size() < limit; block--) {
+            List<ChatMessageResponse> messages = readBlock(block);
+            for (int i = messages.size() - 1; i >= 0 && out.size() < limit; i--) {
+                if (messages.get(i).id() < before) {
+                    out.add(messages.get(i));
+                }
+            }
+        }
+    }
+
+    /**
+     * after 보다 큰 id 를 오래된 순으로 out 에 담습니다(out 이 limit 개가 되면 멈춤).
+     */
+    void collectAfter(long after, int limit, List<ChatMessageResponse> out) throws IOException {
+        int block = firstBlockWithLastIdAbove(after);
+        for (; block < lastIds.length && out.size() < limit; block++) {
+            for (ChatMessageResponse message : readBlock(block)) {
+                if (out.size() >= limit) break;
+                if (message.id() > after) {
+                    out.add(message);
+                }
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    private int lastBlockWithFirstIdBelow(long before) {
+        int lo = 0;
+        int hi = firstIds.length - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (firstIds[mid] < before) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private int firstBlockWithLastIdAbove(long after) {
+        int lo = 0;
+        int hi = lastIds.length - 1;
+        int found = lastIds.length;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (lastIds[mid] > after) {
+                found = mid;
+                hi = mid - 1;
+            } else {
+                lo = mid + 1;
+            }
+        }
+        return found;
+    }
+
+    private List<ChatMessageResponse> readBlock(int block) throws IOException {
+        byte[] compressed = new byte[lengths[block]];
+        data.get((int) offsets[block], compressed);
+        if (crc(compressed) != crcs[block]) {
+            throw new IOException("채팅 보관 블록 CRC 불일치: " + file + "#" + block);
+        }
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(compressed.length * 4);
+            byte[] chunk = new byte[8192];
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IOException("채팅 보관 블록이 잘렸습니다: " + file + "#" + block);
+                }
+                raw.write(chunk, 0, n);
+            }
+            return decodeBlock(ByteBuffer.wrap(raw.toByteArray()));
+        } catch (DataFormatException e) {
+            throw new IOException("채팅 보관 블록 압축 해제 실패: " + file + "#" + block, e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static byte[] encodeBlock(List<ChatMessageResponse> block) {
+        ByteArrayOutputStream raw = new ByteArrayOutputStream(block.size() * 128);
+        ByteBuffer fixed = ByteBuffer.allocate(32);
+        writeInt(raw, block.size());
+        for (ChatMessageResponse m : block) {
+            fixed.clear();
+            fixed.putLong(m.id()).putLong(m.senderId()).putLong(m.createdAt().toInstant(ZoneOffset.UTC).toEpochMilli())
+                    .putLong(m.seq() != null ? m.seq() : NO_SEQ);
+            raw.write(fixed.array(), 0, 32);
+            writeString(raw, m.senderNickname());
+            writeString(raw, m.senderProfileImageUrl());
+            writeString(raw, m.content());
+        }
+        return raw.toByteArray();
+    }
+
+    private List<ChatMessageResponse> decodeBlock(ByteBuffer buf) {
+        int count = buf.getInt();
+        List<ChatMessageResponse> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            long id = buf.getLong();
+            long senderId = buf.getLong();
+            LocalDateTime createdAt = LocalDateTime.ofInstant(Instant.ofEpochMilli(buf.getLong()), ZoneOffset.UTC);
+            long seq = hasSeq ? buf.getLong() : NO_SEQ;
+            String nickname = readString(buf);
+            String profileImageUrl = readString(buf);
+            String content = readString(buf);
+            messages.add(new ChatMessageResponse(id, roomId, senderId, nickname, profileImageUrl, content, createdAt,
+                    seq != NO_SEQ ? seq : null));
+        }
+        return messages;
+    }
+
+    private static byte[] compress(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, raw.length / 2));
+        byte[] chunk = new byte[8192];
+        while (!deflater.finished()) {
+            int n = deflater.deflate(chunk);
+            out.write(chunk, 0, n);
+        }
+        return out.toByteArray();
+    }
+
+    private static void writeInt(ByteArrayOutputStream out, int value) {
+        out.write(value >>> 24);
+        out.write(value >>> 16);
+        out.write(value >>> 8);
+        out.write(value);
+    }
+
+    private static void writeString(ByteArrayOutputStream out, String value) {
+        if (value == null) {
+            writeInt(out, -1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeInt(out, bytes.length);
+        out.write(bytes, 0, bytes.length);
+    }
+
+    private static String readString(ByteBuffer buf) {
+        int length = buf.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buf.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,331 @@
+package com.study.mate.service.chat.archive;
+
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.ChatArchiveProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 오래된 채팅 메시지를 DB 에서 방별 압축 세그먼트 파일로 옮기고(보관), 기록 조회 때 다시 읽어 주는 서비스입니다.
+ *
+ * 왜 필요한가요?
+ * - chat_messages 테이블과 (room_id, ...) 인덱스는 메시지가 쌓이는 만큼 끝없이 커집니다.
+ *   몇 달 지난 메시지는 거의 읽지 않으므로, DB 에서 빼 파일로 옮기면 "자주 쓰는" 테이블/인덱스가 작게 유지됩니다.
+ *
+ * 보관(주기 작업)
+ * - older-than 보다 오래된 메시지를 id 순으로 batch-size 개씩 읽어, 방마다 세그먼트 파일 하나로 씁니다.
+ *   한 번 실행에 max-batches-per-run 묶음까지만 옮깁니다(처음 켰을 때 쌓인 몇 달 치를 한 번에 옮기느라
+ *   DB 와 스케줄러 스레드를 오래 붙잡지 않도록, 남은 것은 다음 주기에 이어서 옮김).
+ *   id 가 시간 순이라 "그 시각의 가장 작은 id" 보다 작은 범위를 기본 키로 읽습니다(created_at 인덱스가 필요 없음).
+ * - 파일을 다 쓴(fsync + 이름 변경) 뒤에 DB 에서 지웁니다. 그 사이에 죽으면 다음 실행 때 같은 행을 다시 읽게 되는데,
+ *   이미 보관된 id(방의 마지막 보관 id 이하)는 파일에 다시 쓰지 않고 DB 에서 지우기만 합니다.
+ *
+ * 조회
+ * - 방 디렉터리의 세그먼트 목록(파일 이름에 첫/마지막 id)을 메모리에 두고, 필요한 세그먼트만 mmap 으로 엽니다.
+ *   열어 둔 세그먼트 수는 max-open-segments 로 제한합니다(오래 안 쓴 것부터 닫음).
+ * - 다른 서버가 보관하면 이 목록이 낡습니다(보관된 메시지가 DB 에서도 파일에서도 안 보임).
+ *   그래서 보관한 서버가 {@link ClusterEvents} 로 "이 방을 보관했다"고 알리면 목록을 버리고 다음 조회 때 다시 읽고,
+ *   이벤트를 놓쳤거나 못 받는 구성(SIMPLE 모드)이어도 segment-list-ttl 이 지나면 다시 읽습니다.
+ * - 파일을 읽다 문제가 생기면 로그를 남기고 읽은 데까지만 돌려줍니다(DB 기록 조회는 계속 동작).
+ *
+ * 경로
+ * - path 는 절대 경로여야 합니다. 상대 경로는 서버를 띄운 작업 디렉터리에 따라 달라져, 재배포 후 보관 파일을 못 찾을 수 있습니다.
+ * - 보관 작업을 켰는데 path 가 비었거나 상대 경로면 서버가 뜨지 않습니다(조용히 엉뚱한 곳에 쓰지 않도록).
+ * - 보관된 메시지는 DB 에서 지워지므로, 서버가 여러 대라면 path 를 모든 서버가 보는 공유 저장소로 두고
+ *   보관 작업(enabled)은 한 대에서만 켜세요. 그렇지 않으면 다른 서버에서는 보관된 기록이 보이지 않습니다.
+ * - path 가 비어 있으면(보관을 쓰지 않음) 보관 파일을 읽지 않습니다.
+ */
+@Service
+@Slf4j
+public class ChatArchiveService {
+
+    private static final String SELECT_SQL =
+            "SELECT m.id, m.room_id, m.sender_id, u.nickname, u.profile_image_url, m.content, m.created_at, m.seq " +
+            "FROM chat_messages m JOIN users u ON u.id = m.sender_id " +
+            "WHERE m.id < ? AND m.created_at < ? ORDER BY m.id LIMIT ?";
+    private static final String DELETE_SQL = "DELETE FROM chat_messages WHERE id = ?";
+
+    /** 다른 노드에 "이 방의 메시지를 보관했다(세그먼트 목록을 다시 읽어라)"고 알리는 이벤트 종류 */
+    static final String ARCHIVED_EVENT = "chat-archived";
+
+    private final ChatArchiveProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final ClusterEvents clusterEvents;
+    // 보관 디렉터리(path 가 비어 있으면 null: 보관 파일 없음)
+    private final Path root;
+    // 방 id → 세그먼트 목록(첫 id 오름차순, 불변 리스트를 통째로 교체)과 읽은 시각
+    private final Map<Long, RoomSegments> rooms = new ConcurrentHashMap<>();
+    // 열어 둔(mmap) 세그먼트, 접근 순서 LRU
+    private final LinkedHashMap<Path, ChatArchiveSegment> openSegments = new LinkedHashMap<>(16, 0.75f, true);
+    private final Counter archived;
+    private final Counter reads;
+
+    public ChatArchiveService(ChatArchiveProperties properties, JdbcTemplate jdbcTemplate,
+                              ClusterEvents clusterEvents, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.clusterEvents = clusterEvents;
+        this.root = resolveRoot(properties);
+        this.archived = Counter.builder("chat.archive.archived")
+                .description("DB 에서 보관 파일로 옮긴 채팅 메시지 수")
+                .register(meterRegistry);
+        this.reads = Counter.builder("chat.archive.reads")
+                .description("보관 파일까지 이어서 읽은 기록 조회 수")
+                .register(meterRegistry);
+        // 다른 노드가 보관했으면 목록을 버립니다(다음 조회 때 디렉터리를 다시 읽음).
+        clusterEvents.subscribe(ARCHIVED_EVENT, Archived.class, event -> rooms.remove(event.roomId()));
+    }
+
+    /** 이 방에 보관된 메시지가 있는지 */
+    public boolean hasArchive(Long roomId) {
+        return !segments(roomId).isEmpty();
+    }
+
+    /** 이 방에서 보관된 가장 큰 메시지 id(없으면 Long.MIN_VALUE). 이보다 큰 id 는 DB 에 있습니다. */
+    public long lastArchivedId(Long roomId) {
+        List<SegmentRef> list = segments(roomId);
+        return list.isEmpty() ? Long.MIN_VALUE : list.get(list.size() - 1).lastId();
+    }
+
+    /**
+     * before 보다 오래된 보관 메시지를 최신순으로 최대 limit 개 읽습니다(before 가 null 이면 가장 최근 보관분부터).
+     */
+    public List<ChatMessageResponse> findBefore(Long roomId, Long before, int limit) {
+        List<SegmentRef> list = segments(roomId);
+        List<ChatMessageResponse> out = new ArrayList<>(limit);
+        if (list.isEmpty() || limit <= 0) {
+            return out;
+        }
+        reads.increment();
+        long bound = before != null ? before : Long.MAX_VALUE;
+        for (int i = list.size() - 1; i >= 0 && out.size() < limit; i--) {
+            SegmentRef ref = list.get(i);
+            if (ref.firstId() >= bound) continue;
+            try {
+                open(ref, roomId).collectBefore(bound, limit, out);
+            } catch (IOException e) {
+                log.error("채팅 보관 파일 읽기 실패: file={}, cause={}", ref.file(), e.getMessage());
+                break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * after 보다 새로운 보관 메시지를 오래된 순으로 최대 limit 개 읽습니다.
+     */
+    public List<ChatMessageResponse> findAfter(Long roomId, long after, int limit) {
+        List<SegmentRef> list = segments(roomId);
+        List<ChatMessageResponse> out = new ArrayList<>(limit);
+        if (list.isEmpty() || limit <= 0 || after >= lastArchivedId(roomId)) {
+            return out;
+        }
+        reads.increment();
+        for (SegmentRef ref : list) {
+            if (out.size() >= limit) break;
+            if (ref.lastId() <= after) continue;
+            try {
+                open(ref, roomId).collectAfter(after, limit, out);
+            } catch (IOException e) {
+                log.error("채팅 보관 파일 읽기 실패: file={}, cause={}", ref.file(), e.getMessage());
+                break;
+            }
+        }
+        return out;
+    }
+
+    /**
+     * older-than 보다 오래된 메시지를 보관 파일로 옮깁니다.
+     */
+    @Scheduled(fixedDelayString = "#{@chatArchiveProperties.interval.toMillis()}",
+            initialDelayString = "#{@chatArchiveProperties.interval.toMillis()}")
+    public void archiveOldMessages() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        LocalDateTime cutoff = LocalDateTime.now().minus(properties.getOlderThan());
+        long idBoundary = SnowflakeIdGenerator.minIdAt(System.currentTimeMillis() - properties.getOlderThan().toMillis());
+        int batchSize = Math.max(1, properties.getBatchSize());
+        int maxBatches = Math.max(1, properties.getMaxBatchesPerRun());
+        long total = 0;
+        for (int batch = 0; batch < maxBatches; batch++) {
+            List<ChatMessageResponse> rows = jdbcTemplate.query(SELECT_SQL, (rs, i) -> new ChatMessageResponse(
+                    rs.getLong(1), rs.getLong(2), rs.getLong(3), rs.getString(4), rs.getString(5), rs.getString(6),
+                    rs.getTimestamp(7).toLocalDateTime(), rs.getObject(8, Long.class)), idBoundary, Timestamp.valueOf(cutoff), batchSize);
+            if (rows.isEmpty()) {
+                break;
+            }
+            Map<Long, List<ChatMessageResponse>> byRoom = new LinkedHashMap<>();
+            for (ChatMessageResponse row : rows) {
+                byRoom.computeIfAbsent(row.roomId(), k -> new ArrayList<>()).add(row);
+            }
+            for (Map.Entry<Long, List<ChatMessageResponse>> entry : byRoom.entrySet()) {
+                try {
+                    total += archiveRoom(entry.getKey(), entry.getValue());
+                } catch (IOException e) {
+                    // 파일을 못 썼으면 DB 에서 지우지 않았으므로 다음 주기에 다시 시도합니다.
+                    log.error("채팅 보관 실패: roomId={}, count={}, cause={}", entry.getKey(), entry.getValue().size(), e.getMessage());
+                    return;
+                }
+            }
+            if (rows.size() < batchSize) {
+                break;
+            }
+            if (batch == maxBatches - 1) {
+                log.info("보관할 메시지가 더 남아 다음 주기에 이어서 옮깁니다: maxBatchesPerRun={}", maxBatches);
+            }
+        }
+        if (total > 0) {
+            log.info("오래된 채팅 메시지 보관 완료: count={}, cutoff={}", total, cutoff);
+        }
+    }
+
+    @PreDestroy
+    void closeAll() {
+        synchronized (openSegments) {
+            for (ChatArchiveSegment segment : openSegments.values()) {
+                closeQuietly(segment);
+            }
+            openSegments.clear();
+        }
+    }
+
+    // 한 방의 메시지(id 오름차순)를 세그먼트로 쓰고 DB 에서 지웁니다. 이미 보관된 id 는 지우기만 합니다.
+    private int archiveRoom(Long roomId, List<ChatMessageResponse> ascending) throws IOException {
+        long alreadyArchived = lastArchivedId(roomId);
+        List<ChatMessageResponse> fresh = ascending.stream().filter(m -> m.id() > alreadyArchived).toList();
+        if (!fresh.isEmpty()) {
+            Path file = ChatArchiveSegment.write(roomDirectory(roomId), fresh, Math.max(1, properties.getBlockMessages()));
+            SegmentRef ref = new SegmentRef(file, fresh.get(0).id(), fresh.get(fresh.size() - 1).id());
+            rooms.compute(roomId, (k, current) -> {
+                List<SegmentRef> next = new ArrayList<>(current != null ? current.list() : scan(roomId).list());
+                next.removeIf(r -> r.file().equals(file));
+                next.add(ref);
+                next.sort(Comparator.comparingLong(SegmentRef::firstId));
+                return new RoomSegments(List.copyOf(next), System.nanoTime());
+            });
+        }
+        List<Object[]> ids = ascending.stream().map(m -> new Object[]{m.id()}).toList();
+        jdbcTemplate.batchUpdate(DELETE_SQL, ids);
+        if (!fresh.isEmpty()) {
+            // DB 에서 지운 뒤에 알려야 받은 노드가 다시 읽을 때 파일과 DB 를 합쳐 빈틈없이 봅니다.
+            clusterEvents.publish(ARCHIVED_EVENT, new Archived(roomId));
+        }
+        archived.increment(fresh.size());
+        return fresh.size();
+    }
+
+    private List<SegmentRef> segments(Long roomId) {
+        if (root == null) {
+            return List.of();
+        }
+        long ttl = properties.getSegmentListTtl().toNanos();
+        RoomSegments cached = rooms.get(roomId);
+        if (cached != null && System.nanoTime() - cached.scannedAt() < ttl) {
+            return cached.list();
+        }
+        // 다른 노드가 보관했을 수 있으므로 오래된 목록은 디렉터리를 다시 읽어 바꿉니다.
+        // 그 사이 이 노드가 보관해 목록을 바꿨으면 그쪽이 더 새로우므로 그대로 둡니다.
+        RoomSegments scanned = scan(roomId);
+        return rooms.merge(roomId, scanned, (current, fresh) -> current == cached ? fresh : current).list();
+    }
+
+    // 보관을 켰으면 절대 경로가 꼭 있어야 하고, 경로를 적었다면(읽기만 하더라도) 절대 경로여야 합니다.
+    private static Path resolveRoot(ChatArchiveProperties properties) {
+        String path = properties.getPath();
+        if (path == null || path.isBlank()) {
+            if (properties.isEnabled()) {
+                throw new IllegalStateException("chat-archive.enabled=true 이면 chat-archive.path(공유 저장소의 절대 경로)가 필요합니다.");
+            }
+            return null;
+        }
+        Path root = Paths.get(path);
+        if (!root.isAbsolute()) {
+            throw new IllegalStateException("chat-archive.path 는 절대 경로여야 합니다: " + path);
+        }
+        return root;
+    }
+
+    // 방 디렉터리의 "첫id-마지막id.seg" 파일 목록을 읽습니다. 쓰다 만 임시 파일은 지웁니다.
+    private RoomSegments scan(Long roomId) {
+        long scannedAt = System.nanoTime();
+        Path dir = roomDirectory(roomId);
+        if (!Files.isDirectory(dir)) {
+            return new RoomSegments(List.of(), scannedAt);
+        }
+        List<SegmentRef> found = new ArrayList<>();
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(dir)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(".seg.tmp")) {
+                    Files.deleteIfExists(file);
+                    continue;
+                }
+                if (!name.endsWith(".seg")) continue;
+                String[] range = name.substring(0, name.length() - 4).split("-");
+                if (range.length != 2) continue;
+                found.add(new SegmentRef(file, Long.parseLong(range[0]), Long.parseLong(range[1])));
+            }
+        } catch (IOException | NumberFormatException e) {
+            log.error("채팅 보관 디렉터리 읽기 실패: dir={}, cause={}", dir, e.getMessage());
+        }
+        found.sort(Comparator.comparingLong(SegmentRef::firstId));
+        return new RoomSegments(List.copyOf(found), scannedAt);
+    }
+
+    private ChatArchiveSegment open(SegmentRef ref, Long roomId) throws IOException {
+        synchronized (openSegments) {
+            ChatArchiveSegment segment = openSegments.get(ref.file());
+            if (segment == null) {
+                segment = ChatArchiveSegment.open(ref.file(), roomId);
+                openSegments.put(ref.file(), segment);
+                // 매핑된 메모리는 닫아도 읽던 쪽이 끝날 때까지 유효하므로, 넘친 만큼 오래된 것부터 바로 닫습니다.
+                while (openSegments.size() > Math.max(1, properties.getMaxOpenSegments())) {
+                    Map.Entry<Path, ChatArchiveSegment> eldest = openSegments.entrySet().iterator().next();
+                    openSegments.remove(eldest.getKey());
+                    closeQuietly(eldest.getValue());
+                }
+            }
+            return segment;
+        }
+    }
+
+    private Path roomDirectory(Long roomId) {
+        return root.resolve("room-" + roomId);
+    }
+
+    private static void closeQuietly(ChatArchiveSegment segment) {
+        try {
+            segment.close();
+        } catch (IOException ignore) {
+            // 읽기 전용 파일이라 닫기 실패는 무시합니다.
+        }
+    }
+
+    private record SegmentRef(Path file, long firstId, long lastId) {}
+
+    private record RoomSegments(List<SegmentRef> list, long scannedAt) {}
+
+    record Archived(Long roomId) {}
+}
@@ -0,0 +1,141 @@
+package com.study.mate.service.chat.receipt;
+
+import java.util.Arrays;
+
+/**
+ * long 키 → long 값 해시 맵({@link ReadReceiptService} 전용).
+ *
+ * HashMap&lt;Long, Long&gt; 은 항목마다 Entry 객체와 Long 두 개(약 80바이트)를 만들지만,
+ * 이 맵은 키/값 배열 두 개에 바로 담아(열린 주소법, 선형 탐사) 항목당 16~32바이트만 씁니다.
+ * 키 0 은 빈 칸 표시로 쓰므로 넣을 수 없습니다. 스레드 안전하지 않습니다(호출하는 쪽에서 잠금).
+ */
+final class LongLongHashMap {
+
+    /** 두 long 을 받는 콜백 */
+    interface Visitor {
+        void visit(long key, long value);
+    }
+
+    private long[] keys;
+    private long[] values;
+    private int mask;
+    private int size;
+
+    LongLongHashMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, expectedSize * 2) - 1) << 1;
+        keys = new long[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    long get(long key, long missing) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return missing;
+            }
+        }
+    }
+
+    boolean containsKey(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return true;
+            }
+            if (k == 0) {
+                return false;
+            }
+        }
+    }
+
+    void put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("key 0 is reserved");
+        }
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                values[i] = value;
+                return;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size * 2 > keys.length) {
+                    resize();
+                }
+                return;
+            }
+        }
+    }
+
+    boolean remove(long key) {
+        for (int i = slot(key); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == 0) {
+                return false;
+            }
+            if (k == key) {
+                // 뒤따르는 항목을 당겨 빈 칸 때문에 탐사가 끊기지 않게 합니다(backward shift).
+                int gap = i;
+                for (int j = (gap + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+                    int home = slot(keys[j]);
+                    if (((j - home) & mask) >= ((j - gap) & mask)) {
+                        keys[gap] = keys[j];
+                        values[gap] = values[j];
+                        gap = j;
+                    }
+                }
+                keys[gap] = 0;
+                values[gap] = 0;
+                size--;
+                return true;
+            }
+        }
+    }
+
+    void forEach(Visitor visitor) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                visitor.visit(keys[i], values[i]);
+            }
+        }
+    }
+
+    void clear() {
+        Arrays.fill(keys, 0);
+        Arrays.fill(values, 0);
+        size = 0;
+    }
+
+    private int slot(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    private void resize() {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        keys = new long[oldKeys.length * 2];
+        values = new long[oldValues.length * 2];
+        mask = keys.length - 1;
+        size = 0;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                put(oldKeys[i], oldValues[i]);
+            }
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.study.mate.service.chat.receipt;
+
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.chat.RoomSequencer;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.ReadReceiptProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * 사용자별 방 읽음 위치와 안 읽은 메시지 수를 관리하는 서비스입니다.
+ *
+ * 왜 메모리에 두나요?
+ * - 방 목록을 그릴 때마다 방별로 COUNT(*) 를 하면 DB 가 버티지 못합니다.
+ * - 대신 "방의 마지막 순번({@link RoomSequencer})" 과 "내가 읽은 순번" 을 메모리에 두고 빼기만 합니다.
+ *   방 목록의 안 읽은 수 배지를 위해 DB 를 읽지 않습니다.
+ *
+ * 저장
+ * - 읽음 위치는 (userId, roomId) 를 long 하나로 합친 키의 원시 타입 맵에 둡니다.
+ * - 바뀐 항목만 따로 모아 flush-interval 마다 chat_read_receipts 테이블에 배치로 씁니다.
+ *   같은 사람이 그 사이 여러 번 읽어도 마지막 값 한 번만 씁니다. 종료할 때도 한 번 씁니다.
+ * - 애플리케이션이 뜨면 테이블 전체를 읽어 맵을 미리 채웁니다.
+ *   맵에 없는 (사용자, 방) 은 그때 DB 에서 읽어 옵니다(그 사이 다른 노드가 쓴 값도 보이도록).
+ *   DB 에도 없던(참여하지 않은) 방은 "참여 안 함" 으로 맵에 적어 두어, 방 목록을 그릴 때마다 다시 묻지 않습니다.
+ *   나중에 참여하면 읽음 처리(이 노드)나 {@link ClusterEvents} 알림(다른 노드)이 이 표시를 덮어씁니다.
+ *
+ * 읽음 위치는 앞으로만 갑니다(더 작은 순번으로 읽음 처리해도 무시).
+ * - DB 도 GREATEST 로 더 큰 값만 남기므로, 노드 여러 대가 서로 다른 값을 써도 뒤로 가지 않습니다.
+ * - 다른 노드에서 읽음 위치가 바뀌면 {@link ClusterEvents} 로 알려, 이 노드 맵에 있는 값도 따라 올립니다.
+ *   알림을 놓치면 그 노드는 다음 읽음 처리나 재시작 때까지 안 읽은 수를 조금 크게 보여 줍니다.
+ */
+@Service
+@Slf4j
+public class ReadReceiptService {
+
+    private static final String LOAD_SQL = "SELECT user_id, room_id, last_read_seq FROM chat_read_receipts";
+    private static final String FIND_SQL =
+            "SELECT room_id, last_read_seq FROM chat_read_receipts WHERE user_id = ? AND room_id IN (%s)";
+    private static final String UPDATE_SQL =
+            "UPDATE chat_read_receipts SET last_read_seq = GREATEST(last_read_seq, ?), updated_at = ? WHERE user_id = ? AND room_id = ?";
+    private static final String INSERT_SQL =
+            "INSERT INTO chat_read_receipts (user_id, room_id, last_read_seq, updated_at) VALUES (?, ?, ?, ?)";
+    private static final String DELETE_SQL = "DELETE FROM chat_read_receipts WHERE user_id = ? AND room_id = ?";
+    // 바뀐 항목 맵에서 "방을 나가 지워야 함" 표시
+    private static final long REMOVED = -1L;
+    // 읽음 위치 맵에서 "DB 에 확인했는데 행이 없음(참여하지 않은 방)" 표시
+    private static final long NOT_JOINED = -2L;
+    static final String MOVED_EVENT = "read-receipt-moved";
+
+    private final ReadReceiptProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final RoomSequencer roomSequencer;
+    private final RoomMembershipCache roomMembershipCache;
+    private final ClusterEvents clusterEvents;
+    // (userId, roomId) → 마지막으로 읽은 순번. 아래 두 맵은 this 로 잠급니다.
+    private final LongLongHashMap lastRead = new LongLongHashMap(1024);
+    // 다음 flush 때 DB 에 쓸 항목(값이 REMOVED 면 삭제)
+    private LongLongHashMap dirty = new LongLongHashMap(256);
+    private final Counter flushed;
+
+    public ReadReceiptService(ReadReceiptProperties properties,
+                              JdbcTemplate jdbcTemplate,
+                              RoomSequencer roomSequencer,
+                              RoomMembershipCache roomMembershipCache,
+                              ClusterEvents clusterEvents,
+                              MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.roomSequencer = roomSequencer;
+        this.roomMembershipCache = roomMembershipCache;
+        this.clusterEvents = clusterEvents;
+        this.flushed = Counter.builder("chat.read_receipt.flushed")
+                .description("DB 에 쓴 읽음 위치 변경 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.read_receipt.entries", this, s -> s.size())
+                .description("메모리에 있는 (사용자, 방) 읽음 위치 수(참여 안 함 표시 포함)")
+                .register(meterRegistry);
+        clusterEvents.subscribe(MOVED_EVENT, Moved.class, this::applyRemote);
+    }
+
+    /**
+     * STOMP 읽음 프레임 처리: 방 참여자일 때만 읽음 위치를 seq 까지 올립니다.
+     */
+    public void markRead(Long roomId, String providerId, long seq) {
+        RoomMembershipCache.Sender sender = roomMembershipCache.findSender(providerId);
+        if (roomId == null || sender == null || !roomMembershipCache.members(roomId).contains(sender.userId())) {
+            return;
+        }
+        markRead(sender.userId(), roomId, seq);
+    }
+
+    /** 읽음 위치를 seq 까지 올립니다(방의 마지막 순번보다 크면 마지막 순번으로). */
+    public void markRead(long userId, long roomId, long seq) {
+        long key = key(userId, roomId);
+        if (key == 0) {
+            return;
+        }
+        long capped = Math.max(0, Math.min(seq, roomSequencer.latest(roomId)));
+        if (!contains(key)) {
+            // 처음 보는 (사용자, 방) 이면 저장된 값부터 읽어 와야 안 읽은 수가 맞습니다.
+            readThrough(userId, List.of(roomId));
+        }
+        boolean moved;
+        synchronized (this) {
+            moved = capped > lastRead.get(key, -1);
+            if (moved) {
+                lastRead.put(key, capped);
+                dirty.put(key, capped);
+            }
+        }
+        if (moved) {
+            clusterEvents.publish(MOVED_EVENT, new Moved(userId, roomId, capped));
+        }
+    }
+
+    /** 지금까지의 메시지를 모두 읽은 것으로 합니다(방 생성/참여 때: 참여 전 메시지는 안 읽은 수에 넣지 않음). */
+    public void markAllRead(long userId, long roomId) {
+        markRead(userId, roomId, roomSequencer.latest(roomId));
+    }
+
+    /** 방을 나간 사용자의 읽음 위치를 지웁니다. */
+    public void forget(long userId, long roomId) {
+        long key = key(userId, roomId);
+        if (key == 0) {
+            return;
+        }
+        synchronized (this) {
+            lastRead.put(key, NOT_JOINED);
+            dirty.put(key, REMOVED);
+        }
+        clusterEvents.publish(MOVED_EVENT, new Moved(userId, roomId, REMOVED));
+    }
+
+    /**
+     * 방마다 안 읽은 메시지 수를 돌려줍니다(맵에 있는 방은 DB 를 읽지 않음).
+     * 맵에 없는 방은 한 번의 쿼리로 DB 에서 읽어 옵니다. 그래도 읽음 위치가 없는 방(참여하지 않은 방 등)은 결과에 없고,
+     * "참여 안 함" 으로 적어 두어 다음부터는 DB 를 읽지 않습니다.
+     */
+    public Map<Long, Long> unreadCounts(long userId, Collection<Long> roomIds) {
+        Map<Long, Long> result = new HashMap<>();
+        List<Long> rooms = new ArrayList<>(roomIds);
+        List<Long> missing = rooms.stream().filter(roomId -> !contains(key(userId, roomId))).toList();
+        if (!missing.isEmpty()) {
+            readThrough(userId, missing);
+        }
+        long[] read = new long[rooms.size()];
+        synchronized (this) {
+            for (int i = 0; i < read.length; i++) {
+                long key = key(userId, rooms.get(i));
+                read[i] = key == 0 ? -1 : lastRead.get(key, -1);
+            }
+        }
+        for (int i = 0; i < read.length; i++) {
+            if (read[i] >= 0) {
+                result.put(rooms.get(i), Math.max(0, roomSequencer.latest(rooms.get(i)) - read[i]));
+            }
+        }
+        return result;
+    }
+
+    private synchronized int size() {
+        return lastRead.size();
+    }
+
+    // key 가 0(저장하지 않는 키)이면 읽어 올 것도 없으므로 있다고 칩니다.
+    private synchronized boolean contains(long key) {
+        return key == 0 || lastRead.containsKey(key);
+    }
+
+    /**
+     * 맵에 없는 방들의 읽음 위치를 DB 에서 읽어 맵에 넣고, 행이 없던 방은 "참여 안 함" 으로 적어 둡니다.
+     * 그 사이 이 노드에서 더 크게 바뀌었거나 나간 방이면 맵 값을 그대로 둡니다.
+     */
+    private void readThrough(long userId, List<Long> roomIds) {
+        String placeholders = roomIds.stream().map(id -> "?").collect(Collectors.joining(", "));
+        List<Object> args = new ArrayList<>(roomIds.size() + 1);
+        args.add(userId);
+        args.addAll(roomIds);
+        try {
+            jdbcTemplate.query(FIND_SQL.formatted(placeholders), rs -> {
+                put(key(userId, rs.getLong(1)), rs.getLong(2));
+            }, args.toArray());
+            synchronized (this) {
+                for (Long roomId : roomIds) {
+                    long key = key(userId, roomId);
+                    if (key != 0 && !lastRead.containsKey(key)) {
+                        lastRead.put(key, NOT_JOINED);
+                    }
+                }
+            }
+        } catch (DataAccessException e) {
+            log.warn("읽음 위치 조회 실패(이번에는 안 읽은 수 표시 안 함): userId={}, cause={}", userId, e.getMessage());
+        }
+    }
+
+    // 다른 노드에서 바뀐 읽음 위치: 이 노드 맵에 있는 값("참여 안 함" 포함)만 고칩니다(없으면 필요할 때 DB 에서 읽음). DB 에는 보낸 노드가 씁니다.
+    private void applyRemote(Moved event) {
+        long key = key(event.userId(), event.roomId());
+        if (key == 0) {
+            return;
+        }
+        synchronized (this) {
+            if (event.seq() == REMOVED) {
+                // 아직 쓰지 않은 이 노드의 값이 지워진 행을 되살리지 않도록 함께 버립니다.
+                lastRead.put(key, NOT_JOINED);
+                dirty.remove(key);
+            } else if (lastRead.containsKey(key) && event.seq() > lastRead.get(key, -1)) {
+                // "참여 안 함" 으로 적어 둔 방에 다른 노드에서 참여한 경우도 여기서 채워집니다.
+                lastRead.put(key, event.seq());
+            }
+        }
+    }
+
+    private synchronized void put(long key, long seq) {
+        if (key != 0 && dirty.get(key, 0) != REMOVED && seq > lastRead.get(key, -1)) {
+            lastRead.put(key, seq);
+        }
+    }
+
+    /**
+     * 애플리케이션이 뜬 뒤 저장된 읽음 위치를 모두 읽어 맵을 미리 채웁니다.
+     * 그 사이 바뀐 값이 더 크면 그대로 두고, 그 사이 나간 방은 되살리지 않습니다.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void load() {
+        try {
+            jdbcTemplate.query(LOAD_SQL, rs -> {
+                put(key(rs.getLong(1), rs.getLong(2)), rs.getLong(3));
+            });
+            log.info("읽음 위치 로드 완료: entries={}", size());
+        } catch (DataAccessException e) {
+            log.error("읽음 위치 로드 실패(필요할 때 DB 에서 읽음): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 바뀐 읽음 위치를 DB 에 씁니다. 실패하면 다음 주기에 다시 씁니다(그 사이 더 새 값이 생겼으면 그 값을).
+     */
+    @Scheduled(fixedDelayString = "#{@readReceiptProperties.flushInterval.toMillis()}")
+    public void flush() {
+        LongLongHashMap batch;
+        synchronized (this) {
+            if (dirty.isEmpty()) {
+                return;
+            }
+            batch = dirty;
+            dirty = new LongLongHashMap(Math.max(256, batch.size()));
+        }
+        List<long[]> upserts = new ArrayList<>(batch.size());
+        List<long[]> deletes = new ArrayList<>();
+        batch.forEach((key, value) -> {
+            long[] row = {key >>> 32, key & 0xFFFFFFFFL, value};
+            (value == REMOVED ? deletes : upserts).add(row);
+        });
+        try {
+            write(upserts, deletes);
+            flushed.increment(batch.size());
+        } catch (DataAccessException e) {
+            log.warn("읽음 위치 저장 실패(다음 주기에 다시 시도): rows={}, cause={}", batch.size(), e.getMessage());
+            synchronized (this) {
+                batch.forEach((key, value) -> {
+                    if (!dirty.containsKey(key)) {
+                        dirty.put(key, value);
+                    }
+                });
+            }
+        }
+    }
+
+    @PreDestroy
+    public void flushOnShutdown() {
+        flush();
+    }
+
+    private void write(List<long[]> upserts, List<long[]> deletes) {
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        int batchSize = Math.max(1, properties.getBatchSize());
+        List<long[]> missing = new ArrayList<>();
+        for (int from = 0; from < upserts.size(); from += batchSize) {
+            List<long[]> chunk = upserts.subList(from, Math.min(upserts.size(), from + batchSize));
+            int[] counts = jdbcTemplate.batchUpdate(UPDATE_SQL, chunk.stream()
+                    .map(r -> new Object[]{r[2], now, r[0], r[1]})
+                    .toList());
+            for (int i = 0; i < counts.length; i++) {
+                if (counts[i] == 0) {
+                    missing.add(chunk.get(i));
+                }
+            }
+        }
+        // 처음 읽음 처리하는 (사용자, 방) 은 행이 없으므로 INSERT 합니다(다른 서버가 먼저 넣었으면 UPDATE).
+        for (long[] r : missing) {
+            try {
+                jdbcTemplate.update(INSERT_SQL, r[0], r[1], r[2], now);
+            } catch (DuplicateKeyException e) {
+                jdbcTemplate.update(UPDATE_SQL, r[2], now, r[0], r[1]);
+            }
+        }
+        if (!deletes.isEmpty()) {
+            jdbcTemplate.batchUpdate(DELETE_SQL, deletes.stream().map(r -> new Object[]{r[0], r[1]}).toList());
+        }
+    }
+
+    /** 다른 노드로 보내는 읽음 위치 변경(seq 가 -1 이면 방을 나감) */
+    record Moved(long userId, long roomId, long seq) {}
+
+    // (userId, roomId) → long 키. 각각 32비트(약 42억)를 넘으면 0(저장하지 않음)
+    private static long key(long userId, long roomId) {
+        if (userId <= 0 || roomId <= 0 || userId > 0xFFFFFFFFL || roomId > 0xFFFFFFFFL) {
+            return 0;
+        }
+        return (userId << 32) | roomId;
+    }
+}
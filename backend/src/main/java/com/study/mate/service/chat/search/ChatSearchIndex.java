@@ -0,0 +1,512 @@
+package com.study.mate.service.chat.search;
+
+import com.study.mate.exception.BusinessException;
+import com.study.mate.exception.ErrorCode;
+import com.study.mate.util.ChatSearchProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 채팅 기록 검색용 방별 메모리 역색인(inverted index)입니다.
+ *
+ * 왜 2글자(bigram) 단위인가요?
+ * - 한국어는 "스터디를", "스터디에서" 처럼 조사가 붙어 띄어쓰기 단위 단어로는 잘 찾아지지 않습니다.
+ *   형태소 분석기 없이도 부분 일치가 되도록, 띄어쓰기로 나눈 조각 안의 연속된 두 글자를 색인 키로 씁니다.
+ *   (예: "스터디를" → "스터", "터디", "디를")
+ * - 검색어도 같은 방식으로 나눈 뒤, 모든 조각이 들어 있는 메시지만 후보로 고릅니다.
+ *   두 글자 조각이 모두 있어도 실제 문장에 검색어가 없을 수 있으므로, 최종 확인은 {@code ChatMessageService} 가 DB 본문으로 합니다.
+ *
+ * 구조
+ * - 방마다 메시지 id 배열(오름차순)과 "조각 → 메시지 번호 목록({@link PostingList})" 맵을 둡니다.
+ *   목록에는 id(8바이트) 대신 배열 위치(방 안의 순번)를 차이값 압축해 담습니다.
+ * - 새 메시지는 바로 색인하지 않고 임시 목록(tail)에 settle-delay 동안 두었다가, id 순으로 정렬해 색인 끝에 붙입니다.
+ *   write-behind 나 여러 서버 때문에 id 가 조금 뒤섞여 도착해도 목록이 오름차순으로 유지됩니다.
+ *   그보다 더 늦게 도착한(이미 색인된 마지막 id 보다 작은) 메시지는 따로 모아 두고 검색 때 직접 비교하다가,
+ *   late-merge-size 개가 모이거나 late-merge-age 가 지나면 별도 세그먼트({@link SearchSegment})로 색인해 합칩니다.
+ *
+ * 시작/여러 서버
+ * - 애플리케이션이 뜨면 별도 스레드에서 DB 의 채팅 기록을 방/ id 순으로 스트리밍해 색인을 다시 만듭니다.
+ *   다 만들기 전({@link #isReady()} 가 false)에는 검색이 DB 조회로 대신 처리됩니다.
+ * - catch-up 을 켜면 다른 서버가 저장한 메시지도 DB 에서 주기적으로 읽어 색인합니다(최근 catch-up-lag 만큼은 겹쳐 다시 읽음).
+ *
+ * 정리(purge)
+ * - 보관(archive) 파일로 옮겨졌거나 방과 함께 삭제된 메시지는 DB 확인 단계에서 걸러지지만, 색인에는 남아 메모리를 차지합니다.
+ * - purge-interval 마다 DB 에서 방별 가장 작은 메시지 id 를 읽어, 그보다 작은 id 를 색인에서 뺍니다(보관은 오래된 id 부터 옮기므로).
+ *   DB 에 메시지가 하나도 없는 방은 purge-lag 보다 오래된 메시지를 모두 빼고, 비면 방 색인 자체를 지웁니다.
+ *   (아직 저장 중인 최근 메시지를 빼지 않도록 purge-lag 보다 최근 id 는 건드리지 않습니다.)
+ */
+@Component
+@Slf4j
+public class ChatSearchIndex {
+
+    private static final String REBUILD_SQL = "SELECT id, room_id, content FROM chat_messages ORDER BY room_id, id";
+    private static final String CATCH_UP_SQL = "SELECT id, room_id, content FROM chat_messages WHERE id > ? ORDER BY id LIMIT ?";
+    private static final int CATCH_UP_BATCH = 10_000;
+    private static final String ROOM_FLOOR_SQL = "SELECT room_id, MIN(id) FROM chat_messages GROUP BY room_id";
+
+    private final ChatSearchProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    // 방 id → 방 색인
+    private final Map<Long, RoomIndex> rooms = new ConcurrentHashMap<>();
+    private volatile boolean ready;
+    // 다음 catch-up 에서 이 id 보다 큰 메시지를 읽음(스케줄러 스레드에서만 바꿈)
+    private volatile long catchUpFrom;
+
+    public ChatSearchIndex(ChatSearchProperties properties, JdbcTemplate jdbcTemplate, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        // 다시 만들지 않기로 했다면 지금부터 들어오는 메시지만 색인합니다.
+        this.ready = properties.isEnabled() && !properties.isRebuildOnStartup();
+        this.catchUpFrom = SnowflakeIdGenerator.minIdAt(System.currentTimeMillis() - properties.getCatchUpLag().toMillis());
+        Gauge.builder("chat.search.index.messages", rooms, r -> r.values().stream().mapToLong(RoomIndex::docCount).sum())
+                .description("검색 색인에 들어 있는 채팅 메시지 수")
+                .register(meterRegistry);
+        Gauge.builder("chat.search.index.bytes", rooms, r -> r.values().stream().mapToLong(RoomIndex::postingBytes).sum())
+                .description("검색 색인의 압축된 번호 목록 크기(바이트)")
+                .register(meterRegistry);
+    }
+
+    /** 색인을 검색에 써도 되는지(꺼져 있거나 재구성 중이면 false) */
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * 저장된 채팅 메시지를 색인 대기 목록에 넣습니다(채팅 전송 경로에서 호출, 잠금 없이 짧게 끝남).
+     */
+    public void add(Long roomId, long id, String content) {
+        if (!properties.isEnabled() || roomId == null || content == null) {
+            return;
+        }
+        Pending pending = new Pending(id, normalize(content), System.nanoTime());
+        // 정리로 방 색인이 막 빠졌다면 새 방 색인을 만들어 다시 넣습니다.
+        while (!room(roomId).offer(pending)) {
+            Thread.onSpinWait();
+        }
+    }
+
+    /**
+     * 검색어를 정규화하고 두 글자 조각으로 나눕니다.
+     * - 한 글자짜리 단어는 조각이 없어 본문 확인에만 쓰입니다. 조각이 하나도 없으면 잘못된 요청입니다.
+     */
+    public SearchQuery parse(String raw) {
+        if (raw == null || raw.isBlank()) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "검색어를 입력해 주세요.");
+        }
+        String text = normalize(raw.strip());
+        if (text.length() > properties.getMaxQueryLength()) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST,
+                    "검색어는 " + properties.getMaxQueryLength() + "자 이하로 입력해 주세요.");
+        }
+        List<String> terms = new ArrayList<>(new LinkedHashSet<>(Arrays.asList(text.split("\\s+"))));
+        Set<Integer> grams = new LinkedHashSet<>();
+        for (String term : terms) {
+            for (int i = 0; i + 1 < term.length(); i++) {
+                grams.add(SearchSegment.gram(term.charAt(i), term.charAt(i + 1)));
+            }
+        }
+        if (grams.isEmpty()) {
+            throw new BusinessException(ErrorCode.BAD_REQUEST, "검색어는 두 글자 이상 입력해 주세요.");
+        }
+        return new SearchQuery(List.copyOf(terms), grams.stream().mapToInt(Integer::intValue).toArray());
+    }
+
+    /**
+     * before 보다 작은 id 중 검색어의 모든 조각이 들어 있는 메시지 id 를 최신순으로 최대 max 개 고릅니다.
+     * - exhausted 가 false 면 max 개에서 멈춘 것이므로, 마지막 후보 id 를 커서로 다음 후보를 이어서 고르면 됩니다.
+     */
+    public Candidates candidates(Long roomId, SearchQuery query, long before, int max) {
+        RoomIndex room = rooms.get(roomId);
+        if (room == null) {
+            return new Candidates(List.of(), true);
+        }
+        return room.candidates(query, before, max);
+    }
+
+    /**
+     * 애플리케이션이 뜬 뒤 별도 스레드에서 DB 의 채팅 기록으로 색인을 다시 만듭니다(시작을 막지 않도록).
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void rebuildOnStartup() {
+        if (!properties.isEnabled() || !properties.isRebuildOnStartup()) {
+            return;
+        }
+        Thread rebuilder = new Thread(this::rebuild, "chat-search-rebuild");
+        rebuilder.setDaemon(true);
+        rebuilder.start();
+    }
+
+    void rebuild() {
+        long startedAt = System.currentTimeMillis();
+        long[] count = {0};
+        try {
+            // 전부 메모리에 올리지 않도록 fetch-size 단위로 스트리밍하며 바로 색인합니다.
+            jdbcTemplate.query(con -> {
+                PreparedStatement ps = con.prepareStatement(REBUILD_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+                ps.setFetchSize(properties.getRebuildFetchSize());
+                return ps;
+            }, rs -> {
+                room(rs.getLong(2)).index(rs.getLong(1), normalize(rs.getString(3)));
+                count[0]++;
+            });
+        } catch (DataAccessException e) {
+            log.error("채팅 검색 색인 재구성 실패(검색은 DB 조회로 계속 동작): {}", e.getMessage());
+            return;
+        }
+        // 재구성 중에 다른 서버가 저장한 메시지는 catch-up 이 이 시각부터 다시 읽어 채웁니다.
+        catchUpFrom = SnowflakeIdGenerator.minIdAt(startedAt - properties.getCatchUpLag().toMillis());
+        ready = true;
+        log.info("채팅 검색 색인 재구성 완료: messages={}, rooms={}, took={}ms",
+                count[0], rooms.size(), System.currentTimeMillis() - startedAt);
+    }
+
+    /**
+     * settle-delay 가 지난 대기 메시지를 id 순으로 색인에 넣습니다.
+     */
+    @Scheduled(fixedDelayString = "#{@chatSearchProperties.sealInterval.toMillis()}")
+    public void seal() {
+        if (!ready) {
+            return;
+        }
+        long cutoff = System.nanoTime() - properties.getSettleDelay().toNanos();
+        int lateMergeSize = Math.max(1, properties.getLateMergeSize());
+        long lateMergeAge = properties.getLateMergeAge().toNanos();
+        for (RoomIndex room : rooms.values()) {
+            room.seal(cutoff, lateMergeSize, lateMergeAge);
+        }
+    }
+
+    /**
+     * 보관되었거나 방과 함께 삭제되어 DB 에 없는 메시지를 색인에서 뺍니다.
+     */
+    @Scheduled(fixedDelayString = "#{@chatSearchProperties.purgeInterval.toMillis()}",
+            initialDelayString = "#{@chatSearchProperties.purgeInterval.toMillis()}")
+    public void purge() {
+        if (!ready) {
+            return;
+        }
+        // 이 시각 이후의 id 는 아직 저장 중일 수 있으므로 빼지 않습니다.
+        long settled = SnowflakeIdGenerator.minIdAt(System.currentTimeMillis() - properties.getPurgeLag().toMillis());
+        Map<Long, Long> firstIds = new HashMap<>();
+        try {
+            jdbcTemplate.query(ROOM_FLOOR_SQL, rs -> {
+                firstIds.put(rs.getLong(1), rs.getLong(2));
+            });
+        } catch (DataAccessException e) {
+            log.warn("채팅 검색 색인 정리 실패: {}", e.getMessage());
+            return;
+        }
+        long purged = 0;
+        int emptied = 0;
+        for (Map.Entry<Long, RoomIndex> entry : rooms.entrySet()) {
+            RoomIndex room = entry.getValue();
+            purged += room.purge(Math.min(firstIds.getOrDefault(entry.getKey(), Long.MAX_VALUE), settled));
+            if (room.retireIfEmpty() && rooms.remove(entry.getKey(), room)) {
+                emptied++;
+            }
+        }
+        if (purged > 0 || emptied > 0) {
+            log.info("채팅 검색 색인 정리: messages={}, rooms={}", purged, emptied);
+        }
+    }
+
+    /**
+     * 다른 서버가 저장한 메시지를 DB 에서 읽어 대기 목록에 넣습니다(이미 색인된 id 는 넣을 때 걸러짐).
+     */
+    @Scheduled(fixedDelayString = "#{@chatSearchProperties.catchUpInterval.toMillis()}")
+    public void catchUp() {
+        if (!ready || !properties.isCatchUp()) {
+            return;
+        }
+        long startedAt = System.currentTimeMillis();
+        long from = catchUpFrom;
+        long[] last = {from};
+        int[] rows = {0};
+        try {
+            jdbcTemplate.query(CATCH_UP_SQL, rs -> {
+                last[0] = rs.getLong(1);
+                rows[0]++;
+                add(rs.getLong(2), last[0], rs.getString(3));
+            }, from, CATCH_UP_BATCH);
+        } catch (DataAccessException e) {
+            log.warn("채팅 검색 색인 catch-up 실패: {}", e.getMessage());
+            return;
+        }
+        // 한 번에 다 못 읽었으면 읽은 데부터, 아니면 늦게 저장되는 메시지를 위해 최근 lag 만큼 겹쳐서 다음에 다시 읽습니다.
+        catchUpFrom = rows[0] == CATCH_UP_BATCH
+                ? last[0]
+                : Math.max(from, SnowflakeIdGenerator.minIdAt(startedAt - properties.getCatchUpLag().toMillis()));
+    }
+
+    /** 검색 비교용 정규화: 한글 자모 조합을 맞추고(NFC) 영문은 소문자로 */
+    public static String normalize(String text) {
+        return Normalizer.normalize(text, Normalizer.Form.NFC).toLowerCase(Locale.ROOT);
+    }
+
+    private RoomIndex room(Long roomId) {
+        return rooms.computeIfAbsent(roomId, id -> new RoomIndex());
+    }
+
+    /**
+     * 정규화된 검색어
+     * - terms: 띄어쓰기로 나눈 단어(본문 확인용), grams: 두 글자 조각(후보 고르기용)
+     */
+    public record SearchQuery(List<String> terms, int[] grams) {
+
+        /** 원문 본문에 모든 단어가 들어 있는지 */
+        public boolean matches(String content) {
+            return content != null && matchesNormalized(normalize(content));
+        }
+
+        boolean matchesNormalized(String text) {
+            for (String term : terms) {
+                if (!text.contains(term)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+
+    /** 후보 메시지 id(최신순)와, 더 고를 후보가 없는지 여부 */
+    public record Candidates(List<Long> ids, boolean exhausted) {
+    }
+
+    private record Pending(long id, String text, long addedAtNanos) {
+    }
+
+    /**
+     * 방 하나의 색인. 검색은 읽기 잠금, 색인 추가/합치기/정리는 쓰기 잠금으로 보호합니다.
+     * 대기 목록(tail)은 채팅 전송 경로가 쓰기 잠금을 기다리지 않도록 자체 모니터로 따로 보호합니다(잠금 순서: rw 잠금 → tail).
+     *
+     * - main: id 순으로 끝에 붙여 가는 본 세그먼트
+     * - late: main 의 마지막 id 보다 늦게 도착한 메시지(본문 그대로, 검색 때 직접 비교)
+     * - delta: late 를 late-merge-size 개 또는 late-merge-age 마다 색인해 합쳐 둔 세그먼트.
+     *   delta 가 커지면(main 의 1/8 이상, 최소 {@value #DELTA_FOLD_MIN}개) main 에 합칩니다.
+     */
+    private static final class RoomIndex {
+        private static final int DELTA_FOLD_MIN = 1024;
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<Pending> tail = new ArrayList<>();
+        private volatile SearchSegment main = new SearchSegment();
+        private volatile SearchSegment delta = new SearchSegment();
+        private final List<Pending> late = new ArrayList<>();
+        private final Set<Long> lateIds = new HashSet<>();
+        private volatile int lateCount;
+        private long lateSinceNanos;
+        // 정리(purge)로 비어 색인 맵에서 빠진 방(대기 목록에 넣지 못하게 해, 넣는 쪽이 새 방 색인을 만들도록)
+        private boolean retired;
+
+        long docCount() {
+            return main.docCount() + delta.docCount() + lateCount;
+        }
+
+        long postingBytes() {
+            return main.postingBytes() + delta.postingBytes();
+        }
+
+        boolean offer(Pending pending) {
+            synchronized (tail) {
+                if (retired) {
+                    return false;
+                }
+                tail.add(pending);
+                return true;
+            }
+        }
+
+        void seal(long cutoffNanos, int lateMergeSize, long lateMergeAgeNanos) {
+            lock.writeLock().lock();
+            try {
+                List<Pending> settled = new ArrayList<>();
+                synchronized (tail) {
+                    for (Iterator<Pending> it = tail.iterator(); it.hasNext(); ) {
+                        Pending pending = it.next();
+                        if (pending.addedAtNanos() - cutoffNanos <= 0) {
+                            settled.add(pending);
+                            it.remove();
+                        }
+                    }
+                }
+                settled.sort(Comparator.comparingLong(Pending::id));
+                for (Pending pending : settled) {
+                    index(pending.id(), pending.text());
+                }
+                if (late.size() >= lateMergeSize
+                        || (!late.isEmpty() && System.nanoTime() - lateSinceNanos >= lateMergeAgeNanos)) {
+                    mergeLate();
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        void index(long id, String text) {
+            lock.writeLock().lock();
+            try {
+                SearchSegment current = main;
+                if (id > current.lastId()) {
+                    current.append(id, text);
+                    return;
+                }
+                if (current.contains(id) || delta.contains(id) || !lateIds.add(id)) {
+                    return;
+                }
+                if (late.isEmpty()) {
+                    lateSinceNanos = System.nanoTime();
+                }
+                late.add(new Pending(id, text, 0));
+                lateCount = late.size();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        // late 를 세그먼트로 색인해 delta 에 합치고, delta 가 충분히 커졌으면 main 에 합칩니다(쓰기 잠금 안에서 호출).
+        private void mergeLate() {
+            late.sort(Comparator.comparingLong(Pending::id));
+            SearchSegment fresh = new SearchSegment();
+            for (Pending pending : late) {
+                fresh.append(pending.id(), pending.text());
+            }
+            SearchSegment merged = SearchSegment.merge(List.of(delta, fresh), Long.MIN_VALUE);
+            if (merged.docCount() >= Math.max(DELTA_FOLD_MIN, main.docCount() / 8)) {
+                main = SearchSegment.merge(List.of(main, merged), Long.MIN_VALUE);
+                delta = new SearchSegment();
+            } else {
+                delta = merged;
+            }
+            late.clear();
+            lateIds.clear();
+            lateCount = 0;
+        }
+
+        /**
+         * floor 보다 작은 id(보관되었거나 방과 함께 삭제된 메시지)를 색인에서 뺍니다.
+         *
+         * @return 뺀 메시지 수
+         */
+        int purge(long floor) {
+            lock.writeLock().lock();
+            try {
+                long before = docCount();
+                if (main.firstId() < floor) {
+                    main = SearchSegment.merge(List.of(main), floor);
+                }
+                if (delta.firstId() < floor) {
+                    delta = SearchSegment.merge(List.of(delta), floor);
+                }
+                if (late.removeIf(p -> p.id() < floor)) {
+                    lateIds.removeIf(id -> id < floor);
+                    lateCount = late.size();
+                }
+                return (int) (before - docCount());
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        /** 색인도 대기 목록도 비었으면 더는 쓰지 않도록 표시합니다(색인 맵에서 빼기 전에 호출). */
+        boolean retireIfEmpty() {
+            lock.writeLock().lock();
+            try {
+                synchronized (tail) {
+                    if (!tail.isEmpty() || docCount() > 0) {
+                        return false;
+                    }
+                    retired = true;
+                    return true;
+                }
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+
+        Candidates candidates(SearchQuery query, long before, int max) {
+            lock.readLock().lock();
+            try {
+                // 아직 색인에 안 들어간 메시지는 본문을 직접 비교합니다(tail 은 settle-delay 만큼, late 는 late-merge-size 개 이하).
+                List<Long> extra = new ArrayList<>();
+                synchronized (tail) {
+                    collect(tail, query, before, extra);
+                }
+                collect(late, query, before, extra);
+
+                List<Long> hits = new ArrayList<>(Math.min(max, 256));
+                boolean mainExhausted = main.search(query.grams(), before, max, hits);
+                long floor = mainExhausted || hits.isEmpty() ? Long.MIN_VALUE : hits.get(hits.size() - 1);
+                List<Long> deltaHits = new ArrayList<>();
+                boolean deltaExhausted = delta.search(query.grams(), before, max, deltaHits);
+                if (!deltaExhausted && !deltaHits.isEmpty()) {
+                    floor = Math.max(floor, deltaHits.get(deltaHits.size() - 1));
+                }
+                extra.addAll(deltaHits);
+                boolean exhausted = mainExhausted && deltaExhausted;
+                return new Candidates(merge(hits, extra, floor, exhausted), exhausted);
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+
+        private static void collect(List<Pending> source, SearchQuery query, long before, List<Long> out) {
+            for (Pending pending : source) {
+                if (pending.id() < before && query.matchesNormalized(pending.text())) {
+                    out.add(pending.id());
+                }
+            }
+        }
+
+        // 색인 후보와 그 밖의 후보를 최신순으로 합칩니다.
+        // 어느 세그먼트가 max 에서 멈췄다면, 그 마지막 후보(floor)보다 오래된 후보는 다음 페이지로 미룹니다.
+        private static List<Long> merge(List<Long> hits, List<Long> extra, long floor, boolean exhausted) {
+            if (extra.isEmpty()) {
+                return hits;
+            }
+            List<Long> merged = new ArrayList<>(hits.size() + extra.size());
+            for (Long id : hits) {
+                if (exhausted || id >= floor) {
+                    merged.add(id);
+                }
+            }
+            for (Long id : extra) {
+                if (exhausted || id >= floor) {
+                    merged.add(id);
+                }
+            }
+            merged.sort(Comparator.reverseOrder());
+            List<Long> distinct = new ArrayList<>(merged.size());
+            for (Long id : merged) {
+                if (distinct.isEmpty() || !distinct.get(distinct.size() - 1).equals(id)) {
+                    distinct.add(id);
+                }
+            }
+            return distinct;
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.study.mate.service.chat.search;
+
+import java.util.Arrays;
+
+/**
+ * 2글자 조각 하나가 들어 있는 메시지 번호(방 안의 순번) 목록입니다({@link ChatSearchIndex} 전용).
+ *
+ * 압축 방식
+ * - 번호는 항상 커지는 순서로만 추가되므로, 앞 번호와의 차이(delta)만 가변 길이 정수(varint)로 저장합니다.
+ *   차이는 대부분 작아서 번호 하나에 1~2바이트면 됩니다(int 배열의 4바이트 대비).
+ * - 64개마다 블록을 나누고 블록의 첫 번호와 시작 위치를 따로 둡니다(skip 목록).
+ *   그래서 "이 번호가 있나?" 나 "뒤에서부터 읽기"를 할 때 처음부터 풀 필요 없이 해당 블록만 풉니다.
+ *
+ * 스레드 안전하지 않습니다. 방 색인의 읽기/쓰기 잠금 안에서만 사용합니다.
+ */
+final class PostingList {
+
+    static final int BLOCK = 64;
+
+    private byte[] data = new byte[8];
+    private int size;
+    private int[] blockFirst = new int[1];
+    private int[] blockOffset = new int[1];
+    private int blocks;
+    private int count;
+    private int last = -1;
+
+    /** 번호를 추가합니다. 마지막 번호보다 커야 합니다(같으면 무시). */
+    void add(int ordinal) {
+        if (ordinal <= last) {
+            return;
+        }
+        if (count % BLOCK == 0) {
+            if (blocks == blockFirst.length) {
+                blockFirst = Arrays.copyOf(blockFirst, blocks * 2);
+                blockOffset = Arrays.copyOf(blockOffset, blocks * 2);
+            }
+            blockFirst[blocks] = ordinal;
+            blockOffset[blocks] = size;
+            blocks++;
+        } else {
+            writeVarint(ordinal - last);
+        }
+        last = ordinal;
+        count++;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int blocks() {
+        return blocks;
+    }
+
+    /** 압축된 바이트 수(지표/벤치마크용) */
+    long bytes() {
+        return size + blocks * 8L;
+    }
+
+    /** ordinal 이하의 번호가 들어 있는 마지막 블록 번호(없으면 -1) */
+    int blockAtOrBefore(int ordinal) {
+        int lo = 0;
+        int hi = blocks - 1;
+        int found = -1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (blockFirst[mid] <= ordinal) {
+                found = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /** 블록 하나를 풀어 out 에 오름차순으로 채우고 개수를 돌려줍니다(out 길이는 BLOCK 이상). */
+    int decodeBlock(int block, int[] out) {
+        int value = blockFirst[block];
+        int n = 0;
+        out[n++] = value;
+        int pos = blockOffset[block];
+        int end = block + 1 < blocks ? blockOffset[block + 1] : size;
+        while (pos < end) {
+            int delta = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[pos++];
+                delta |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            value += delta;
+            out[n++] = value;
+        }
+        return n;
+    }
+
+    private void writeVarint(int value) {
+        if (size + 5 > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, size + 5));
+        }
+        while ((value & ~0x7F) != 0) {
+            data[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        data[size++] = (byte) value;
+    }
+
+    /**
+     * 한 검색 동안 쓰는 "이 번호가 있나?" 확인기. 번호를 큰 쪽에서 작은 쪽으로 물어보는 경우가 대부분이라
+     * 마지막으로 푼 블록을 기억해 두고 같은 블록이면 다시 풀지 않습니다.
+     */
+    final class Probe {
+        private final int[] buffer = new int[BLOCK];
+        private int decodedBlock = -1;
+        private int length;
+
+        boolean contains(int ordinal) {
+            int block = blockAtOrBefore(ordinal);
+            if (block < 0) {
+                return false;
+            }
+            if (block != decodedBlock) {
+                length = decodeBlock(block, buffer);
+                decodedBlock = block;
+            }
+            return Arrays.binarySearch(buffer, 0, length, ordinal) >= 0;
+        }
+    }
+}
@@ -0,0 +1,221 @@
+package com.study.mate.service.chat.search;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 방 색인을 이루는 조각(세그먼트) 하나: 메시지 id 배열(오름차순)과 "2글자 조각 → 메시지 번호 목록" 맵입니다({@link ChatSearchIndex} 전용).
+ *
+ * - 새 메시지는 id 가 마지막 id 보다 클 때만 끝에 붙입니다(번호 = 배열 위치라 목록이 항상 오름차순).
+ * - 늦게 도착한 메시지를 모은 세그먼트를 합치거나, 보관/삭제된 메시지를 빼야 할 때는 {@link #merge} 로 새 세그먼트를 만듭니다.
+ *   번호 목록을 풀어 새 번호로 바꿔 다시 압축하므로 본문 없이도 합칠 수 있습니다.
+ *
+ * 스레드 안전하지 않습니다. 방 색인의 읽기/쓰기 잠금 안에서만 바꿉니다(개수/크기는 지표용으로 잠금 없이 읽음).
+ */
+final class SearchSegment {
+
+    private long[] docIds = new long[16];
+    private volatile int docs;
+    private final Map<Integer, PostingList> postings = new HashMap<>();
+    private volatile long postingBytes;
+
+    int docCount() {
+        return docs;
+    }
+
+    long postingBytes() {
+        return postingBytes;
+    }
+
+    /** 가장 작은 id(비었으면 Long.MAX_VALUE) */
+    long firstId() {
+        return docs == 0 ? Long.MAX_VALUE : docIds[0];
+    }
+
+    /** 가장 큰 id(비었으면 Long.MIN_VALUE) */
+    long lastId() {
+        return docs == 0 ? Long.MIN_VALUE : docIds[docs - 1];
+    }
+
+    boolean contains(long id) {
+        return Arrays.binarySearch(docIds, 0, docs, id) >= 0;
+    }
+
+    /** 메시지를 끝에 붙입니다. id 는 {@link #lastId()} 보다 커야 합니다. */
+    void append(long id, String text) {
+        int n = docs;
+        if (n == docIds.length) {
+            docIds = Arrays.copyOf(docIds, n * 2);
+        }
+        docIds[n] = id;
+        long bytes = postingBytes;
+        for (int i = 0; i + 1 < text.length(); i++) {
+            char first = text.charAt(i);
+            char second = text.charAt(i + 1);
+            if (Character.isWhitespace(first) || Character.isWhitespace(second)) {
+                continue;
+            }
+            PostingList list = postings.computeIfAbsent(gram(first, second), k -> new PostingList());
+            long before = list.bytes();
+            list.add(n);
+            bytes += list.bytes() - before;
+        }
+        postingBytes = bytes;
+        docs = n + 1;
+    }
+
+    /**
+     * before 보다 작은 id 중 모든 조각이 들어 있는 메시지 id 를 최신순으로 hits 에 최대 max 개 담습니다.
+     * 가장 짧은 번호 목록을 뒤에서부터 읽으며, 나머지 목록에도 있는 번호만 고릅니다.
+     *
+     * @return 더 고를 후보가 없으면 true(max 개에서 멈췄으면 false)
+     */
+    boolean search(int[] grams, long before, int max, List<Long> hits) {
+        int n = docs;
+        PostingList[] lists = new PostingList[grams.length];
+        for (int i = 0; i < grams.length; i++) {
+            lists[i] = postings.get(grams[i]);
+            if (lists[i] == null) {
+                return true;
+            }
+        }
+        Arrays.sort(lists, Comparator.comparingInt(PostingList::count));
+        PostingList.Probe[] probes = new PostingList.Probe[lists.length - 1];
+        for (int i = 1; i < lists.length; i++) {
+            probes[i - 1] = lists[i].new Probe();
+        }
+        int end = lowerBound(docIds, n, before);
+        int[] buffer = new int[PostingList.BLOCK];
+        int found = 0;
+        for (int block = lists[0].blockAtOrBefore(end - 1); block >= 0; block--) {
+            int length = lists[0].decodeBlock(block, buffer);
+            for (int i = length - 1; i >= 0; i--) {
+                int ordinal = buffer[i];
+                if (ordinal >= end || !containsAll(probes, ordinal)) {
+                    continue;
+                }
+                hits.add(docIds[ordinal]);
+                if (++found >= max) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 여러 세그먼트를 id 순으로 합친 새 세그먼트를 만듭니다. minId 보다 작은 id(보관/삭제된 메시지)는 빼고, 같은 id 는 하나만 남깁니다.
+     */
+    static SearchSegment merge(List<SearchSegment> parts, long minId) {
+        SearchSegment merged = new SearchSegment();
+        // 1) id 배열을 합치며 세그먼트별 "옛 번호 → 새 번호" 표를 만듭니다(빠진 번호는 -1).
+        int[][] remap = new int[parts.size()][];
+        int[] cursor = new int[parts.size()];
+        int total = 0;
+        for (int p = 0; p < parts.size(); p++) {
+            remap[p] = new int[parts.get(p).docs];
+            Arrays.fill(remap[p], -1);
+            total += parts.get(p).docs;
+        }
+        merged.docIds = new long[Math.max(16, total)];
+        int n = 0;
+        while (true) {
+            int pick = -1;
+            long pickId = Long.MAX_VALUE;
+            for (int p = 0; p < parts.size(); p++) {
+                if (cursor[p] < parts.get(p).docs && parts.get(p).docIds[cursor[p]] < pickId) {
+                    pick = p;
+                    pickId = parts.get(p).docIds[cursor[p]];
+                }
+            }
+            if (pick < 0) {
+                break;
+            }
+            if (pickId >= minId) {
+                if (n == 0 || merged.docIds[n - 1] != pickId) {
+                    merged.docIds[n++] = pickId;
+                }
+                remap[pick][cursor[pick]] = n - 1;
+            }
+            cursor[pick]++;
+        }
+        merged.docs = n;
+
+        // 2) 조각마다 번호 목록을 풀어 새 번호로 바꾼 뒤 오름차순으로 다시 압축합니다.
+        Set<Integer> grams = new HashSet<>();
+        for (SearchSegment part : parts) {
+            grams.addAll(part.postings.keySet());
+        }
+        int[] buffer = new int[PostingList.BLOCK];
+        long bytes = 0;
+        for (Integer gram : grams) {
+            int[] ordinals = new int[16];
+            int count = 0;
+            for (int p = 0; p < parts.size(); p++) {
+                PostingList list = parts.get(p).postings.get(gram);
+                if (list == null) {
+                    continue;
+                }
+                for (int block = 0; block < list.blocks(); block++) {
+                    int length = list.decodeBlock(block, buffer);
+                    for (int i = 0; i < length; i++) {
+                        int mapped = remap[p][buffer[i]];
+                        if (mapped < 0) {
+                            continue;
+                        }
+                        if (count == ordinals.length) {
+                            ordinals = Arrays.copyOf(ordinals, count * 2);
+                        }
+                        ordinals[count++] = mapped;
+                    }
+                }
+            }
+            if (count == 0) {
+                continue;
+            }
+            Arrays.sort(ordinals, 0, count);
+            PostingList list = new PostingList();
+            for (int i = 0; i < count; i++) {
+                list.add(ordinals[i]);
+            }
+            merged.postings.put(gram, list);
+            bytes += list.bytes();
+        }
+        merged.postingBytes = bytes;
+        return merged;
+    }
+
+    /** 두 글자를 색인 키 하나로 합칩니다. */
+    static int gram(char first, char second) {
+        return (first << 16) | second;
+    }
+
+    private static boolean containsAll(PostingList.Probe[] probes, int ordinal) {
+        for (PostingList.Probe probe : probes) {
+            if (!probe.contains(ordinal)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ids[0..n) 에서 key 이상인 첫 위치
+    private static int lowerBound(long[] ids, int n, long key) {
+        int lo = 0;
+        int hi = n;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ids[mid] < key) {
+                lo = mid + 1;
+            } else {
+                hi = mid;
+            }
+        }
+        return lo;
+    }
+}
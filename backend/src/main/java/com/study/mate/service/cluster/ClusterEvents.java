@@ -0,0 +1,172 @@
+package com.study.mate.service.cluster;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.util.SnowflakeIdGenerator;
+import com.study.mate.util.StompBrokerProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.lang.Nullable;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageHandler;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.broker.AbstractBrokerMessageHandler;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.util.MimeTypeUtils;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 서버 여러 대가 같은 STOMP 브로커를 쓸 때(stomp-broker.mode=RELAY/EMBEDDED) 노드끼리 작은 이벤트를 주고받는 통로입니다.
+ *
+ * 왜 필요한가요?
+ * - 최근 채팅 캐시, 참여자 캐시, 입력 중 목록은 노드 메모리에 있습니다. 다른 노드에서 생긴 변경을 모르면
+ *   오래된 기록/참여자 목록을 쓰거나, 노드마다 자기 입력 중 목록만 보내 서로 덮어씁니다.
+ *
+ * 동작
+ * - 발행: 이벤트를 JSON 으로 만들어 브로커의 내부 주소({@link #DESTINATION})로 보냅니다(브로커 중계기의 공용 연결 사용).
+ * - 수신: 브로커 중계기의 공용("system") 연결에 이 주소 구독을 더합니다.
+ *   스프링이 서버별 접속자 목록(user registry)을 나눌 때 쓰는 방식과 같습니다.
+ * - 자기 노드가 보낸 이벤트는 무시합니다(app.node-id 로 구분하므로 노드마다 달라야 함).
+ * - SIMPLE 모드(서버 한 대)에서는 아무것도 보내지 않습니다.
+ *
+ * 한계
+ * - 브로커 연결이 끊긴 사이의 이벤트는 사라집니다. 받는 쪽은 이를 전제로 동작합니다
+ *   (최근 채팅 캐시는 순번이 빠지면 DB 로 읽고, 참여자 캐시는 ttl, 입력 중 목록은 만료 시간으로 돌아옴).
+ * - 브라우저는 이 주소를 구독할 수 없습니다(WebSocketSecurityConfig).
+ */
+@Component
+@Slf4j
+public class ClusterEvents {
+
+    /** 노드 간 이벤트가 오가는 브로커 주소(브라우저 구독 금지) */
+    public static final String DESTINATION = "/topic/cluster-events";
+
+    private final boolean enabled;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final ObjectMapper objectMapper;
+    private final SnowflakeIdGenerator idGenerator;
+    // 이벤트 종류 → 받는 쪽
+    private final Map<String, Listener<?>> listeners = new ConcurrentHashMap<>();
+    private final Counter published;
+    private final Counter received;
+    private final Counter failed;
+
+    public ClusterEvents(StompBrokerProperties brokerProperties,
+                         SimpMessagingTemplate messagingTemplate,
+                         ObjectMapper objectMapper,
+                         SnowflakeIdGenerator idGenerator,
+                         @Qualifier("stompBrokerRelayMessageHandler") @Nullable AbstractBrokerMessageHandler brokerHandler,
+                         MeterRegistry meterRegistry) {
+        this.messagingTemplate = messagingTemplate;
+        this.objectMapper = objectMapper;
+        this.idGenerator = idGenerator;
+        this.published = Counter.builder("cluster.events.published")
+                .description("다른 노드로 보낸 캐시/입력 중 이벤트 수")
+                .register(meterRegistry);
+        this.received = Counter.builder("cluster.events.received")
+                .description("다른 노드에서 받아 반영한 캐시/입력 중 이벤트 수")
+                .register(meterRegistry);
+        this.failed = Counter.builder("cluster.events.failed")
+                .description("보내거나 반영하지 못한 노드 간 이벤트 수")
+                .register(meterRegistry);
+        // 브로커 중계기가 브로커에 연결할 때(시작 단계) 이 주소도 함께 구독하도록, 만들어질 때 등록해 둡니다.
+        this.enabled = brokerProperties.getMode() != StompBrokerProperties.Mode.SIMPLE
+                && brokerHandler instanceof StompBrokerRelayMessageHandler;
+        if (enabled) {
+            StompBrokerRelayMessageHandler relay = (StompBrokerRelayMessageHandler) brokerHandler;
+            Map<String, MessageHandler> subscriptions = new HashMap<>(relay.getSystemSubscriptions());
+            subscriptions.put(DESTINATION, this::onMessage);
+            relay.setSystemSubscriptions(subscriptions);
+            log.info("노드 간 이벤트 통로 사용: {} (node-id={})", DESTINATION, idGenerator.getNodeId());
+        }
+    }
+
+    /** 다른 노드와 이벤트를 주고받는지(SIMPLE 모드면 false) */
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /** 이 노드의 번호(app.node-id) */
+    public int nodeId() {
+        return idGenerator.getNodeId();
+    }
+
+    /**
+     * 다른 노드에서 온 type 이벤트를 받을 곳을 등록합니다(종류마다 하나).
+     */
+    public <T> void subscribe(String type, Class<T> payloadType, Consumer<T> listener) {
+        listeners.put(type, new Listener<>(payloadType, listener));
+    }
+
+    /**
+     * 다른 노드로 이벤트를 보냅니다. 실패해도 예외를 던지지 않습니다(받는 쪽이 유실을 견디도록 만들어져 있음).
+     */
+    public void publish(String type, Object payload) {
+        if (!enabled) {
+            return;
+        }
+        try {
+            byte[] body = objectMapper.writeValueAsBytes(new Envelope(nodeId(), type, objectMapper.valueToTree(payload)));
+            SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+            accessor.setDestination(DESTINATION);
+            accessor.setContentType(MimeTypeUtils.APPLICATION_JSON);
+            accessor.setLeaveMutable(true);
+            messagingTemplate.send(DESTINATION, MessageBuilder.createMessage(body, accessor.getMessageHeaders()));
+            published.increment();
+        } catch (JsonProcessingException | IllegalArgumentException | MessagingException e) {
+            failed.increment();
+            log.warn("노드 간 이벤트 발행 실패: type={}, cause={}", type, e.getMessage());
+        }
+    }
+
+    // 브로커 중계기의 공용 연결 스레드에서 호출됩니다.
+    private void onMessage(Message<?> message) {
+        if (!(message.getPayload() instanceof byte[] body)) {
+            return;
+        }
+        Envelope envelope;
+        try {
+            envelope = objectMapper.readValue(body, Envelope.class);
+        } catch (IOException e) {
+            failed.increment();
+            log.warn("노드 간 이벤트 해석 실패: {}", e.getMessage());
+            return;
+        }
+        if (envelope.origin() == nodeId()) {
+            return;
+        }
+        Listener<?> listener = listeners.get(envelope.type());
+        if (listener == null) {
+            return;
+        }
+        try {
+            listener.accept(objectMapper, envelope.payload());
+            received.increment();
+        } catch (IOException | RuntimeException e) {
+            failed.increment();
+            log.warn("노드 간 이벤트 반영 실패: type={}, origin={}, cause={}", envelope.type(), envelope.origin(), e.getMessage());
+        }
+    }
+
+    /** 브로커로 오가는 이벤트 한 건(보낸 노드, 종류, 내용) */
+    record Envelope(int origin, String type, JsonNode payload) {}
+
+    private record Listener<T>(Class<T> payloadType, Consumer<T> consumer) {
+        void accept(ObjectMapper objectMapper, JsonNode payload) throws IOException {
+            consumer.accept(objectMapper.treeToValue(payload, payloadType));
+        }
+    }
+}
@@ -0,0 +1,66 @@
+package com.study.mate.service.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 하트비트를 나눠 보내기 위한 해시 타이밍 휠입니다({@link NotificationService} 전용).
+ *
+ * 왜 필요한가요?
+ * - 모든 연결에 한꺼번에 하트비트를 보내면 연결이 수천 개일 때 그 순간에만 쓰기가 몰립니다.
+ * - 휠은 하트비트 주기를 tick 단위 칸(slot)으로 나누고, 연결을 칸마다 돌아가며 고르게 배치합니다.
+ *   tick 마다 한 칸만 처리하므로, 주기 동안 각 연결은 한 번씩, 전체로는 (연결 수 / 칸 수) 개씩 나뉘어 나갑니다.
+ *
+ * 새 연결은 연결 수가 가장 적은 칸에 넣습니다(같으면 등록 순서대로 돌아가며). 그래서 연결이 끊겨 어떤 칸이 비어도
+ * 다음 연결들이 그 칸부터 채워, 칸마다 연결 수가 거의 같게 유지됩니다(칸 수는 주기/tick, 기본 30개라 훑는 비용은 작음).
+ * advance 는 스케줄러 스레드 하나에서만 호출합니다.
+ */
+final class HeartbeatWheel {
+
+    private final List<Set<SseConnection>> slots;
+    private final AtomicInteger nextSlot = new AtomicInteger();
+    private int cursor;
+
+    HeartbeatWheel(int slotCount) {
+        int count = Math.max(1, slotCount);
+        this.slots = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            slots.add(ConcurrentHashMap.newKeySet());
+        }
+    }
+
+    int slotCount() {
+        return slots.size();
+    }
+
+    void add(SseConnection connection) {
+        int count = slots.size();
+        int start = Math.floorMod(nextSlot.getAndIncrement(), count);
+        int slot = start;
+        int smallest = slots.get(start).size();
+        for (int i = 1; i < count && smallest > 0; i++) {
+            int candidate = (start + i) % count;
+            int size = slots.get(candidate).size();
+            if (size < smallest) {
+                slot = candidate;
+                smallest = size;
+            }
+        }
+        connection.wheelSlot(slot);
+        slots.get(slot).add(connection);
+    }
+
+    void remove(SseConnection connection) {
+        slots.get(connection.wheelSlot()).remove(connection);
+    }
+
+    /** 이번 tick 에 하트비트를 보낼 칸을 돌려주고 다음 칸으로 넘어갑니다. */
+    Set<SseConnection> advance() {
+        Set<SseConnection> due = slots.get(cursor);
+        cursor = (cursor + 1) % slots.size();
+        return due;
+    }
+}
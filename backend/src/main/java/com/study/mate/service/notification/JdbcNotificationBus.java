@@ -0,0 +1,331 @@
+package com.study.mate.service.notification;
+
+import com.study.mate.util.NotificationBusProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * DB 테이블을 노드 간 통로로 쓰는 알림 버스(notification-bus.mode=jdbc, 서버 여러 대용).
+ *
+ * 위치 힌트(notification_presence)
+ * - 사용자의 첫 SSE 연결이 생기면 (사용자, 내 노드) 행을 쓰고, 마지막 연결이 끊기면 지웁니다.
+ * - 연결/끊김은 메모리에 표시만 하고 다음 주기에 모아서 씁니다(연결 요청이 DB 를 기다리지 않음).
+ * - 노드가 죽어도 힌트가 남지 않도록 expires_at 을 두고, presence-refresh 마다 내 노드 행 전체를 쿼리 한 번으로 늘립니다.
+ *
+ * 아웃박스(notification_outbox)
+ * - 발행은 메모리 대기열에 넣기만 하고, poll-interval 마다 모아서 씁니다.
+ *   이때 받는 사람 전체의 위치 힌트를 쿼리 한 번으로 찾아, 받는 사람이 있는 노드마다 한 행만 씁니다.
+ *   다른 노드에 연결된 받는 사람이 없으면(대부분 서버 한 대에 몰린 방) 아무 행도 쓰지 않습니다.
+ * - 각 노드는 자기 앞으로 온 행만 읽어 자기 연결에 보내고 지웁니다. 읽는 노드가 하나뿐이라 커서가 필요 없고,
+ *   다른 노드의 늦은 커밋 때문에 빠지는 행이 없습니다.
+ *
+ * 한계
+ * - 노드 간 전달은 최대 poll-interval 만큼 늦습니다. 연결 직후(힌트를 쓰기 전) 다른 노드에서 보낸 알림은 받지 못할 수 있습니다.
+ * - 노드 번호(app.node-id)가 겹치면 알림이 엉뚱한 노드로 가므로, 서버마다 다른 값을 꼭 지정하세요.
+ * - 아웃박스는 전달용이라 읽으면 바로 지웁니다. 재연결 때 놓친 알림은 각 노드의 {@link NotificationEventLog} 에서만 다시 보내므로,
+ *   재연결이 다른 노드로 가면 그 사이 알림은 다시 보내지 못합니다(로드 밸런서에서 SSE 를 sticky session 으로 운영).
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification-bus", name = "mode", havingValue = "jdbc")
+@Slf4j
+public class JdbcNotificationBus implements NotificationBus {
+
+    private static final String INSERT_OUTBOX_SQL = "INSERT INTO notification_outbox "
+            + "(id, target_node, origin_node, event_id, recipients, payload, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)";
+    private static final String POLL_SQL =
+            "SELECT id, event_id, recipients, payload FROM notification_outbox WHERE target_node = ? ORDER BY id LIMIT ?";
+    private static final String DELETE_OUTBOX_SQL = "DELETE FROM notification_outbox WHERE id = ?";
+    private static final String PURGE_OUTBOX_SQL = "DELETE FROM notification_outbox WHERE id < ?";
+    private static final String FIND_PRESENCE_SQL = "SELECT provider_id, node_id FROM notification_presence "
+            + "WHERE node_id <> ? AND expires_at > ? AND provider_id IN (%s)";
+    private static final String UPDATE_PRESENCE_SQL =
+            "UPDATE notification_presence SET expires_at = ? WHERE provider_id = ? AND node_id = ?";
+    private static final String INSERT_PRESENCE_SQL =
+            "INSERT INTO notification_presence (provider_id, node_id, expires_at) VALUES (?, ?, ?)";
+    private static final String DELETE_PRESENCE_SQL = "DELETE FROM notification_presence WHERE provider_id = ? AND node_id = ?";
+    private static final String REFRESH_PRESENCE_SQL = "UPDATE notification_presence SET expires_at = ? WHERE node_id = ?";
+    private static final String CLEAR_NODE_PRESENCE_SQL = "DELETE FROM notification_presence WHERE node_id = ?";
+    private static final String PURGE_PRESENCE_SQL = "DELETE FROM notification_presence WHERE expires_at < ?";
+    // 위치 힌트 조회 IN 절 하나에 넣을 사용자 수
+    private static final int IN_CHUNK = 500;
+    // 한 주기에 아웃박스를 최대 몇 번 이어 읽을지(밀렸을 때)
+    private static final int MAX_POLL_ROUNDS = 5;
+    private static final String RECIPIENT_SEPARATOR = "\n";
+
+    private final NotificationBusProperties properties;
+    private final JdbcTemplate jdbcTemplate;
+    private final SnowflakeIdGenerator idGenerator;
+    private final int nodeId;
+    // 아직 DB 에 쓰지 않은 위치 힌트 변경(true=연결됨, false=끊김). 같은 사용자는 마지막 값만 남습니다.
+    private final Map<String, Boolean> presenceChanges = new ConcurrentHashMap<>();
+    // 아직 DB 에 쓰지 않은 발행분
+    private final Queue<Outgoing> outgoing = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger outgoingSize = new AtomicInteger();
+    private volatile Consumer<RemoteNotification> listener = notification -> { };
+    // 첫 주기에 지난 실행이 남긴 내 노드 힌트를 지웠는지
+    private boolean started;
+    private long lastMaintainNanos = System.nanoTime();
+    private final Counter published;
+    private final Counter received;
+    private final Counter dropped;
+
+    public JdbcNotificationBus(NotificationBusProperties properties,
+                               JdbcTemplate jdbcTemplate,
+                               SnowflakeIdGenerator idGenerator,
+                               MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.jdbcTemplate = jdbcTemplate;
+        this.idGenerator = idGenerator;
+        this.nodeId = idGenerator.getNodeId();
+        this.published = Counter.builder("notification.bus.published")
+                .description("다른 노드로 보내려고 아웃박스에 쓴 행 수(받는 사람이 있는 노드마다 한 행)")
+                .register(meterRegistry);
+        this.received = Counter.builder("notification.bus.received")
+                .description("다른 노드에서 받아 이 노드 연결에 보낸 아웃박스 행 수")
+                .register(meterRegistry);
+        this.dropped = Counter.builder("notification.bus.dropped")
+                .description("대기열이 넘치거나 DB 쓰기에 실패해 다른 노드로 보내지 못한 알림 수")
+                .register(meterRegistry);
+        log.info("알림 버스(jdbc) 노드 번호: {}", nodeId);
+    }
+
+    @Override
+    public void publish(Collection<String> providerIds, long eventId, String json) {
+        if (providerIds.isEmpty()) {
+            return;
+        }
+        if (outgoingSize.incrementAndGet() > Math.max(1, properties.getMaxPending())) {
+            outgoingSize.decrementAndGet();
+            dropped.increment();
+            return;
+        }
+        outgoing.add(new Outgoing(List.copyOf(providerIds), eventId, json));
+    }
+
+    @Override
+    public void userConnected(String providerId) {
+        presenceChanges.put(providerId, Boolean.TRUE);
+    }
+
+    @Override
+    public void userDisconnected(String providerId) {
+        presenceChanges.put(providerId, Boolean.FALSE);
+    }
+
+    @Override
+    public void subscribe(Consumer<RemoteNotification> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * 한 주기: 위치 힌트 쓰기 → 발행분 쓰기 → 내 앞으로 온 알림 읽기 → (가끔) 힌트 연장/오래된 행 정리
+     * 단계마다 실패해도 다음 단계는 계속합니다.
+     */
+    @Scheduled(fixedDelayString = "#{@notificationBusProperties.pollInterval.toMillis()}")
+    public void pump() {
+        if (!started) {
+            try {
+                jdbcTemplate.update(CLEAR_NODE_PRESENCE_SQL, nodeId);
+                started = true;
+            } catch (DataAccessException e) {
+                log.warn("알림 버스 시작 정리 실패(다음 주기에 다시 시도): {}", e.getMessage());
+                return;
+            }
+        }
+        flushPresence();
+        flushOutgoing();
+        poll();
+        long now = System.nanoTime();
+        if (now - lastMaintainNanos >= properties.getPresenceRefresh().toNanos()) {
+            lastMaintainNanos = now;
+            maintain();
+        }
+    }
+
+    // 연결/끊김 표시를 DB 에 씁니다. 실패한 항목은 그 사이 새 변경이 없을 때만 다시 표시합니다.
+    private void flushPresence() {
+        if (presenceChanges.isEmpty()) {
+            return;
+        }
+        Timestamp expiresAt = Timestamp.valueOf(LocalDateTime.now().plus(properties.getPresenceTtl()));
+        for (String providerId : new ArrayList<>(presenceChanges.keySet())) {
+            Boolean connected = presenceChanges.remove(providerId);
+            if (connected == null) {
+                continue;
+            }
+            try {
+                if (!connected) {
+                    jdbcTemplate.update(DELETE_PRESENCE_SQL, providerId, nodeId);
+                } else if (jdbcTemplate.update(UPDATE_PRESENCE_SQL, expiresAt, providerId, nodeId) == 0) {
+                    try {
+                        jdbcTemplate.update(INSERT_PRESENCE_SQL, providerId, nodeId, expiresAt);
+                    } catch (DuplicateKeyException e) {
+                        jdbcTemplate.update(UPDATE_PRESENCE_SQL, expiresAt, providerId, nodeId);
+                    }
+                }
+            } catch (DataAccessException e) {
+                log.warn("알림 위치 힌트 저장 실패(다음 주기에 다시 시도): providerId={}, cause={}", providerId, e.getMessage());
+                presenceChanges.putIfAbsent(providerId, connected);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 모아 둔 발행분을 씁니다. 받는 사람 전체의 위치 힌트를 한 번에 찾아, 알림마다 받는 사람이 있는 노드에만 한 행씩 씁니다.
+     */
+    private void flushOutgoing() {
+        List<Outgoing> batch = new ArrayList<>();
+        Outgoing next;
+        while ((next = outgoing.poll()) != null) {
+            outgoingSize.decrementAndGet();
+            batch.add(next);
+        }
+        if (batch.isEmpty()) {
+            return;
+        }
+        try {
+            Set<String> recipients = new HashSet<>();
+            batch.forEach(out -> recipients.addAll(out.providerIds()));
+            Map<String, List<Integer>> nodesByUser = findRemoteNodes(recipients);
+            if (nodesByUser.isEmpty()) {
+                return;
+            }
+            Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+            List<Object[]> rows = new ArrayList<>();
+            for (Outgoing out : batch) {
+                Map<Integer, List<String>> usersByNode = new HashMap<>();
+                for (String providerId : out.providerIds()) {
+                    for (Integer node : nodesByUser.getOrDefault(providerId, List.of())) {
+                        usersByNode.computeIfAbsent(node, k -> new ArrayList<>()).add(providerId);
+                    }
+                }
+                usersByNode.forEach((node, users) -> rows.add(new Object[]{
+                        idGenerator.nextId(), node, nodeId, out.eventId(),
+                        String.join(RECIPIENT_SEPARATOR, users), out.json(), now}));
+            }
+            if (!rows.isEmpty()) {
+                jdbcTemplate.batchUpdate(INSERT_OUTBOX_SQL, rows);
+                published.increment(rows.size());
+            }
+        } catch (DataAccessException e) {
+            log.warn("알림 아웃박스 쓰기 실패(이번 알림은 다른 노드로 보내지 못함): notifications={}, cause={}",
+                    batch.size(), e.getMessage());
+            dropped.increment(batch.size());
+        }
+    }
+
+    // 사용자 → 그 사용자가 연결된 다른 노드 목록(만료된 힌트와 내 노드는 제외)
+    private Map<String, List<Integer>> findRemoteNodes(Set<String> providerIds) {
+        Map<String, List<Integer>> result = new HashMap<>();
+        Timestamp now = Timestamp.valueOf(LocalDateTime.now());
+        List<String> ids = new ArrayList<>(providerIds);
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<String> chunk = ids.subList(from, Math.min(ids.size(), from + IN_CHUNK));
+            String sql = String.format(FIND_PRESENCE_SQL, String.join(",", Collections.nCopies(chunk.size(), "?")));
+            List<Object> args = new ArrayList<>(chunk.size() + 2);
+            args.add(nodeId);
+            args.add(now);
+            args.addAll(chunk);
+            jdbcTemplate.query(sql, rs -> {
+                result.computeIfAbsent(rs.getString(1), k -> new ArrayList<>()).add(rs.getInt(2));
+            }, args.toArray());
+        }
+        return result;
+    }
+
+    /**
+     * 내 노드 앞으로 온 알림을 id 순으로 읽어 이 노드 연결에 넣고 지웁니다.
+     */
+    private void poll() {
+        int batchSize = Math.max(1, properties.getBatchSize());
+        for (int round = 0; round < MAX_POLL_ROUNDS; round++) {
+            List<Long> ids = new ArrayList<>();
+            List<RemoteNotification> notifications = new ArrayList<>();
+            try {
+                jdbcTemplate.query(POLL_SQL, rs -> {
+                    ids.add(rs.getLong(1));
+                    notifications.add(new RemoteNotification(
+                            List.of(rs.getString(3).split(RECIPIENT_SEPARATOR)), rs.getLong(2), rs.getString(4)));
+                }, nodeId, batchSize);
+            } catch (DataAccessException e) {
+                log.warn("알림 아웃박스 읽기 실패(다음 주기에 다시 시도): {}", e.getMessage());
+                return;
+            }
+            if (ids.isEmpty()) {
+                return;
+            }
+            // 지우기 전에 실패하면 다음 주기에 같은 알림을 다시 보낼 수 있으므로, 보낸 뒤 바로 지웁니다.
+            for (RemoteNotification notification : notifications) {
+                try {
+                    listener.accept(notification);
+                } catch (RuntimeException e) {
+                    log.warn("다른 노드 알림 전달 실패: eventId={}, cause={}", notification.eventId(), e.getMessage());
+                }
+            }
+            try {
+                jdbcTemplate.batchUpdate(DELETE_OUTBOX_SQL, ids.stream().map(id -> new Object[]{id}).toList());
+            } catch (DataAccessException e) {
+                log.warn("알림 아웃박스 정리 실패(중복 전송될 수 있음): rows={}, cause={}", ids.size(), e.getMessage());
+                return;
+            }
+            received.increment(ids.size());
+            if (ids.size() < batchSize) {
+                return;
+            }
+        }
+    }
+
+    // 내 노드 힌트 만료 시각을 늘리고, 죽은 노드의 힌트와 아무도 읽어 가지 않은 아웃박스 행을 정리합니다.
+    private void maintain() {
+        LocalDateTime now = LocalDateTime.now();
+        try {
+            jdbcTemplate.update(REFRESH_PRESENCE_SQL, Timestamp.valueOf(now.plus(properties.getPresenceTtl())), nodeId);
+            jdbcTemplate.update(PURGE_PRESENCE_SQL, Timestamp.valueOf(now));
+            long cutoff = System.currentTimeMillis() - properties.getOutboxTtl().toMillis();
+            jdbcTemplate.update(PURGE_OUTBOX_SQL, SnowflakeIdGenerator.minIdAt(cutoff));
+        } catch (DataAccessException e) {
+            log.warn("알림 버스 정리 실패(다음 주기에 다시 시도): {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 종료할 때 남은 발행분을 쓰고, 내 노드 힌트를 지워 다른 노드가 더는 이 노드로 보내지 않게 합니다.
+     */
+    @PreDestroy
+    public void shutdown() {
+        flushOutgoing();
+        try {
+            jdbcTemplate.update(CLEAR_NODE_PRESENCE_SQL, nodeId);
+        } catch (DataAccessException e) {
+            log.warn("알림 위치 힌트 정리 실패(presence-ttl 뒤 만료): {}", e.getMessage());
+        }
+    }
+
+    private record Outgoing(List<String> providerIds, long eventId, String json) {}
+}
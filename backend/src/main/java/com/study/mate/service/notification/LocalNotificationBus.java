@@ -0,0 +1,37 @@
+package com.study.mate.service.notification;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.Collection;
+import java.util.function.Consumer;
+
+/**
+ * 서버 한 대(JVM 하나)용 알림 버스(기본값).
+ *
+ * - 모든 SSE 연결이 이 노드에 있으므로, {@link NotificationService} 가 이미 보낸 것 외에 보낼 곳이 없습니다.
+ * - 그래서 발행은 아무 일도 하지 않고, 위치 힌트도 기록하지 않습니다(알림 경로에 비용이 없음).
+ * - 서버를 여러 대로 늘리면 notification-bus.mode=jdbc 로 {@link JdbcNotificationBus} 를 씁니다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "notification-bus", name = "mode", havingValue = "local", matchIfMissing = true)
+public class LocalNotificationBus implements NotificationBus {
+
+    @Override
+    public void publish(Collection<String> providerIds, long eventId, String json) {
+        // 다른 노드가 없음
+    }
+
+    @Override
+    public void userConnected(String providerId) {
+    }
+
+    @Override
+    public void userDisconnected(String providerId) {
+    }
+
+    @Override
+    public void subscribe(Consumer<RemoteNotification> listener) {
+        // 다른 노드에서 올 알림이 없음
+    }
+}
@@ -0,0 +1,52 @@
+package com.study.mate.service.notification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * SSE 알림을 다른 서버 인스턴스(노드)로 전달하는 버스 추상화입니다.
+ *
+ * 왜 필요한가요?
+ * - SSE 연결은 연결을 받은 노드의 메모리({@link NotificationService})에만 있습니다.
+ *   같은 방 참여자가 서로 다른 노드에 연결되어 있으면, 다른 노드의 사용자에게는 알림이 가지 않습니다.
+ *
+ * 동작 방식
+ * - 알림을 만든 노드는 자기 노드에 연결된 사용자에게 바로 보내고, 받는 사람 목록과 함께 버스에 "한 번" 발행합니다.
+ * - 버스는 "어느 사용자가 어느 노드에 연결되어 있는지" 힌트(userConnected/userDisconnected)를 보고,
+ *   받는 사람이 실제로 연결된 노드에만 전달합니다. 그 노드는 알림을 한 번만 프레임으로 만들어 자기 연결에만 넣습니다.
+ * - 전달은 "지금 연결된" 노드로만 합니다. 재연결 때 놓친 알림 다시 보내기(Last-Event-ID)는 노드 간에 지원하지 않습니다
+ *   (SSE 는 sticky session 으로 같은 노드에 다시 붙도록 운영).
+ *
+ * 구현체
+ * - {@link LocalNotificationBus}: 서버 한 대(JVM 하나)용. 모든 연결이 이 노드에 있으므로 다른 노드로 보낼 것이 없습니다(기본값).
+ * - {@link JdbcNotificationBus}: DB 테이블(notification_outbox, notification_presence)을 거쳐 노드끼리 전달(notification-bus.mode=jdbc)
+ */
+public interface NotificationBus {
+
+    /**
+     * 다른 노드에 연결된 받는 사람에게 알림을 발행합니다. 이 노드의 연결에는 호출한 쪽이 이미 보냈습니다.
+     * 호출한 스레드를 오래 붙잡지 않아야 합니다(채팅 수신 스레드 등에서 호출).
+     *
+     * @param providerIds 받는 사람(이 노드에 연결되어 있어도 포함: 다른 노드에도 탭이 있을 수 있음)
+     * @param eventId     알림 이벤트 id(모든 노드에서 같은 id 로 보냄. 놓친 알림 다시 보내기는 노드마다 따로이므로,
+     *                    재연결이 다른 노드로 가면 이어지지 않음 → {@link NotificationEventLog})
+     * @param json        알림 JSON(받는 노드가 다시 직렬화하지 않음)
+     */
+    void publish(Collection<String> providerIds, long eventId, String json);
+
+    /** 이 노드에 사용자의 첫 SSE 연결이 생겼습니다(위치 힌트). */
+    void userConnected(String providerId);
+
+    /** 이 노드에서 사용자의 마지막 SSE 연결이 끊겼습니다(위치 힌트). */
+    void userDisconnected(String providerId);
+
+    /** 다른 노드에서 온 알림을 받을 곳을 등록합니다({@link NotificationService} 가 한 번 호출). */
+    void subscribe(Consumer<RemoteNotification> listener);
+
+    /**
+     * 다른 노드에서 온 알림
+     * - providerIds: 이 노드에 연결된 받는 사람
+     */
+    record RemoteNotification(List<String> providerIds, long eventId, String json) {}
+}
@@ -0,0 +1,225 @@
+package com.study.mate.service.notification;
+
+import com.study.mate.util.NotificationReplayProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 사용자별 "최근에 보낸 SSE 알림"을 보관했다가, 재연결 때 놓친 것만 다시 보내 주기 위한 기록입니다.
+ *
+ * 왜 필요한가요?
+ * - 브라우저의 EventSource 는 연결이 끊기면 스스로 다시 연결하며, 마지막으로 받은 이벤트 id 를
+ *   Last-Event-ID 헤더로 보내 줍니다. 그 사이(재연결 중)에 보낸 알림은 원래 사라집니다.
+ * - 그래서 알림마다 id 를 붙이고, 사용자마다 최근 per-user 개를 보낸 순서대로 링 버퍼에 둡니다.
+ *   재연결하면 링에서 그 id 를 찾아 그 뒤에 기록된 알림만 다시 보냅니다.
+ *   (다른 노드에서 온 알림은 그 노드 시계로 만든 id 라 id 크기가 보낸 순서와 다를 수 있으므로, id 비교 대신 위치로 찾음)
+ *
+ * 서버가 여러 대일 때
+ * - 기록은 노드마다 따로 있습니다. 재연결이 다른 노드로 가면 그 노드에는 이 사용자의 이전 기록이 없어
+ *   놓친 알림을 다시 보내지 못합니다(notification.replay.gaps 로 집계). 노드 간 재전송은 지원하지 않으므로,
+ *   여러 대로 운영할 때는 로드 밸런서에서 /api/notifications/subscribe 를 같은 노드로 보내도록(sticky session) 설정하세요.
+ *
+ * 메모리
+ * - 링에는 이미 만들어 둔 SSE 프레임의 참조만 담습니다. 같은 알림을 받은 사람들은 같은 프레임을 공유합니다.
+ * - 기록은 SSE 에 한 번이라도 연결한 사용자에게만 만듭니다. 연결이 모두 끊긴 뒤 idle-ttl 이 지나면 정리합니다.
+ * - 사용자 수가 max-users 를 넘으면 연결이 없는 사용자 중 가장 오래된 기록부터 정리합니다.
+ *   그래서 전체 메모리는 (max-users × per-user) 개 참조를 넘지 않습니다(연결 중인 사용자는 정리하지 않음).
+ *
+ * 동시성: {@link UserLog} 는 NotificationService 가 그 객체로 잠근 채 기록/재전송을 하므로,
+ * 재연결과 새 알림이 겹쳐도 빠지거나 두 번 가는 알림이 없습니다.
+ */
+@Component
+public class NotificationEventLog {
+
+    private final NotificationReplayProperties properties;
+    private final Map<String, UserLog> users = new ConcurrentHashMap<>();
+    private final Counter replayedFrames;
+    private final Counter replayGaps;
+
+    public NotificationEventLog(NotificationReplayProperties properties, MeterRegistry meterRegistry) {
+        this.properties = properties;
+        Gauge.builder("notification.replay.users", users, Map::size)
+                .description("최근 알림 기록을 보관 중인 사용자 수")
+                .register(meterRegistry);
+        this.replayedFrames = Counter.builder("notification.replay.frames")
+                .description("재연결 때 다시 보낸 알림 수")
+                .register(meterRegistry);
+        this.replayGaps = Counter.builder("notification.replay.gaps")
+                .description("보관 범위를 벗어나 일부 알림을 다시 보내지 못한 재연결 수")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 연결이 생길 때 사용자의 기록을 가져오거나 만들고, 연결 수를 하나 올립니다(정리 대상에서 빠짐).
+     * 기록을 쓰지 않으면(enabled=false) null
+     */
+    UserLog open(String providerId) {
+        if (!properties.isEnabled()) {
+            return null;
+        }
+        if (!users.containsKey(providerId) && users.size() >= properties.getMaxUsers()) {
+            evictOldest();
+        }
+        return users.compute(providerId, (k, existing) -> {
+            UserLog userLog = existing != null ? existing : new UserLog(Math.max(1, properties.getPerUser()));
+            userLog.attach();
+            return userLog;
+        });
+    }
+
+    /** 연결마다 다시 보낼 수 있는 최대 알림 수(기록을 쓰지 않으면 0) */
+    int capacity() {
+        return properties.isEnabled() ? Math.max(1, properties.getPerUser()) : 0;
+    }
+
+    /** 이미 있는 기록(없으면 null). 연결한 적이 없거나 정리된 사용자는 기록하지 않습니다. */
+    UserLog find(String providerId) {
+        return users.get(providerId);
+    }
+
+    /** 연결 하나가 끊겼을 때 호출합니다. 마지막 연결이었다면 이때부터 idle-ttl 을 셉니다. */
+    void detach(String providerId) {
+        UserLog userLog = users.get(providerId);
+        if (userLog != null) {
+            userLog.detach();
+        }
+    }
+
+    /**
+     * lastEventId 뒤에 보낸 알림 프레임을 보낸 순서대로 돌려줍니다. userLog 로 잠근 채, 연결할 때마다 호출합니다.
+     * - lastEventId 가 null 이면(처음 연결) 다시 보낼 것이 없습니다.
+     * - lastEventId 가 링에 없으면(이미 밀려났거나 다른 노드에서 받은 알림) 빠짐이 있을 수 있습니다.
+     * - 기록이 이번 연결에서 새로 만들어졌다면 이 노드는 그 전의 알림을 모릅니다(연결을 여는 사이에 온 알림만 보냄).
+     */
+    List<Set<DataWithMediaType>> replay(UserLog userLog, Long lastEventId) {
+        UserLog.Replay replay = userLog.since(lastEventId);
+        if (lastEventId == null) {
+            return replay.frames();
+        }
+        if (!replay.complete()) {
+            replayGaps.increment();
+        }
+        replayedFrames.increment(replay.frames().size());
+        return replay.frames();
+    }
+
+    /**
+     * 연결이 모두 끊긴 채 idle-ttl 이 지난 사용자의 기록을 정리합니다.
+     */
+    @Scheduled(fixedDelayString = "#{@notificationReplayProperties.sweepInterval.toMillis()}")
+    public void evictIdle() {
+        long cutoff = System.currentTimeMillis() - properties.getIdleTtl().toMillis();
+        for (String providerId : users.keySet()) {
+            users.computeIfPresent(providerId, (k, userLog) -> userLog.idleSince(cutoff) ? null : userLog);
+        }
+    }
+
+    // 사용자 수 상한에 닿았을 때: 연결이 없는 사용자 중 가장 오래 조용했던 기록 하나를 정리합니다.
+    private void evictOldest() {
+        String oldest = null;
+        long oldestAccess = Long.MAX_VALUE;
+        for (Map.Entry<String, UserLog> entry : users.entrySet()) {
+            long access = entry.getValue().lastAccess;
+            if (access < oldestAccess && entry.getValue().idleSince(Long.MAX_VALUE)) {
+                oldest = entry.getKey();
+                oldestAccess = access;
+            }
+        }
+        if (oldest != null) {
+            users.computeIfPresent(oldest, (k, userLog) -> userLog.idleSince(Long.MAX_VALUE) ? null : userLog);
+        }
+    }
+
+    /**
+     * 사용자 한 명의 최근 알림 링 버퍼(모든 메서드는 이 객체로 잠금)
+     */
+    static final class UserLog {
+        private final long[] ids;
+        private final List<Set<DataWithMediaType>> frames;
+        private int next;
+        private int size;
+        // 기록이 새로 만들어졌으면, 그 전의 알림은 알 수 없습니다.
+        private boolean fresh = true;
+        private int connections;
+        private volatile long lastAccess = System.currentTimeMillis();
+
+        UserLog(int capacity) {
+            this.ids = new long[capacity];
+            this.frames = new ArrayList<>(capacity);
+        }
+
+        synchronized void append(long id, Set<DataWithMediaType> frame) {
+            if (size == ids.length) {
+                frames.set(next, frame);
+            } else {
+                frames.add(frame);
+                size++;
+            }
+            ids[next] = id;
+            next = (next + 1) % ids.length;
+        }
+
+        synchronized Replay since(Long lastEventId) {
+            boolean wasFresh = fresh;
+            fresh = false;
+            int start = size == ids.length ? next : 0;
+            if (wasFresh) {
+                // 이번 연결을 열며 만든 기록: 들어 있는 것은 모두 연결을 여는 사이에 온 알림입니다.
+                return new Replay(framesFrom(start, 0), lastEventId == null);
+            }
+            if (lastEventId == null) {
+                return new Replay(List.of(), true);
+            }
+            // 마지막으로 받은 알림을 뒤에서부터 찾아, 그 뒤에 기록된(= 그 뒤에 보낸) 알림을 돌려줍니다.
+            for (int i = size - 1; i >= 0; i--) {
+                if (ids[(start + i) % ids.length] == lastEventId) {
+                    return new Replay(framesFrom(start, i + 1), true);
+                }
+            }
+            // 링에 없음: 이미 밀려났거나 다른 노드에서 받은 알림입니다. id 가 더 큰 것만 보내되 빠짐이 있을 수 있습니다.
+            List<Set<DataWithMediaType>> result = new ArrayList<>();
+            for (int i = 0; i < size; i++) {
+                int index = (start + i) % ids.length;
+                if (ids[index] > lastEventId) {
+                    result.add(frames.get(index));
+                }
+            }
+            return new Replay(result, false);
+        }
+
+        // 링의 from 번째(오래된 순)부터 끝까지의 프레임
+        private List<Set<DataWithMediaType>> framesFrom(int start, int from) {
+            List<Set<DataWithMediaType>> result = new ArrayList<>(Math.max(0, size - from));
+            for (int i = from; i < size; i++) {
+                result.add(frames.get((start + i) % ids.length));
+            }
+            return result;
+        }
+
+        synchronized void attach() {
+            connections++;
+            lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized void detach() {
+            connections = Math.max(0, connections - 1);
+            lastAccess = System.currentTimeMillis();
+        }
+
+        synchronized boolean idleSince(long cutoff) {
+            return connections == 0 && lastAccess < cutoff;
+        }
+
+        record Replay(List<Set<DataWithMediaType>> frames, boolean complete) {}
+    }
+}
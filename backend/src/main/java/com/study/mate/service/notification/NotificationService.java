@@ -1,19 +1,34 @@
 package com.study.mate.service.notification;
 
+import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.study.mate.dto.NotificationDto;
-import lombok.RequiredArgsConstructor;
+import com.study.mate.util.NotificationDeliveryProperties;
+import com.study.mate.util.NotificationDigestProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * SSE 알림 서비스 
@@ -37,13 +52,34 @@ import java.util.concurrent.CopyOnWriteArrayList;
  * 2. 채팅 메시지, 입장/퇴장, 상태 변경 등의 알림을 전송합니다
  * 3. 연결이 끊어지지 않도록 주기적으로 하트비트를 보냅니다
  * 4. 오래된 연결을 자동으로 정리합니다
+ *
+ * 전송 방식(채팅이 SSE 쓰기를 기다리지 않도록):
+ * - 알림 하나는 SSE 프레임으로 "한 번만" 만들고(JSON 직렬화 1회), 받는 사람/탭이 몇 명이든 같은 프레임을 씁니다.
+ * - 보내는 쪽(채팅 수신 스레드 등)은 연결마다 있는 대기열({@link SseConnection})에 넣기만 하고 바로 돌아갑니다.
+ * - 실제 쓰기는 작은 전송 스레드 풀(notification-delivery.workers)이 연결별로 차례대로 합니다.
+ * - 쓰기에 실패하거나 대기열이 넘친(너무 느린) 연결은 그 연결만 끊고 목록에서 뺍니다. 다른 연결은 영향을 받지 않습니다.
+ * - 쓰기 하나가 write-timeout 을 넘기면(멈춘 연결) 그 연결을 끊고, 막힌 전송 스레드 대신 일할 스레드를 하나 더 띄웁니다.
+ *   그래서 멈춘 연결이 전송 스레드 수만큼 있어도 다른 연결은 계속 받습니다(막힌 쓰기가 끝나면 다시 줄임).
+ *   브라우저의 EventSource 는 끊기면 스스로 다시 연결합니다.
+ *
+ * 재연결 때 놓친 알림(Last-Event-ID):
+ * - 알림마다 시간 순 id 를 붙여 보내고, 사용자별 최근 알림을 {@link NotificationEventLog} 에 보관합니다.
+ * - 다시 연결하면서 Last-Event-ID 를 보내면 그 뒤의 알림만 새 연결로 다시 보냅니다.
+ *
+ * 바쁜 방의 채팅 알림 묶음:
+ * - 방의 첫 채팅 알림은 바로 보내고, 그 뒤 window 동안 오는 채팅 알림은 모았다가
+ *   "A, B 님의 새 메시지 N개" 요약(CHAT_DIGEST) 하나로 보냅니다. 입장/퇴장/상태 알림은 항상 바로 보냅니다.
+ *
+ * 서버가 여러 대일 때({@link NotificationBus}):
+ * - 이 노드에 연결된 받는 사람에게 바로 보내고, 같은 알림을 버스에 한 번 발행합니다.
+ * - 버스는 받는 사람이 연결된 다른 노드에만 전달하고, 그 노드는 자기 연결에만 보냅니다(이벤트 id 는 그대로).
+ * - 놓친 알림 기록은 노드마다 따로라, 재연결이 다른 노드로 가면 다시 보내지 못합니다(SSE 는 sticky session 으로 운영).
  * 
  * 💡 간단한 비유:
  * - WebSocket = 전화통화 (서로 대화 가능)
  * - SSE = 라디오 방송 (방송국에서 청취자에게만 전송)
  */
 @Service
-@RequiredArgsConstructor
 @Slf4j
 public class NotificationService {
     
@@ -55,11 +91,43 @@ public class NotificationService {
      */
     private final ObjectMapper objectMapper;
     
+    private final NotificationDeliveryProperties properties;
+    
+    /** 알림 이벤트 id 발급(시간 순으로 커지므로 "이 id 이후" 비교가 가능) */
+    private final SnowflakeIdGenerator idGenerator;
+    
+    /** 사용자별 최근 알림 기록(재연결 때 놓친 알림 다시 보내기) */
+    private final NotificationEventLog eventLog;
+    
+    private final NotificationDigestProperties digestProperties;
+    
+    /** 다른 노드에 연결된 받는 사람에게 알림을 전달하는 버스(서버 한 대면 아무 일도 하지 않음) */
+    private final NotificationBus notificationBus;
+    
+    /**
+     * 방 id → 채팅 알림 묶음 창
+     * - 창이 있는 방의 채팅 알림은 바로 보내지 않고 모아 둡니다. 모든 변경은 compute 안에서 합니다.
+     */
+    private final Map<Long, RoomChatDigest> chatDigests = new ConcurrentHashMap<>();
+    
+    /**
+     * SSE 쓰기를 맡는 전송 스레드 풀
+     * - 연결마다 "비우는 작업"은 한 번에 하나만 들어오므로, 작업 대기열 길이는 연결 수를 넘지 않습니다.
+     * - 기본 스레드 수는 workers 이고, 멈춘 쓰기가 있으면 그 수만큼(stalled-worker-limit 까지) 늘립니다.
+     */
+    private final ThreadPoolExecutor deliveryExecutor;
+    
+    /** 지금 쓰는 중인 연결(멈춘 쓰기 감지용, 전송 스레드 수만큼만 들어 있음) */
+    private final Set<SseConnection> writing = ConcurrentHashMap.newKeySet();
+    
+    /** 아직 끝나지 않은 멈춘 쓰기 수(이만큼 전송 스레드를 더 띄움) */
+    private final AtomicInteger stalledWrites = new AtomicInteger();
+    
     /**
      /**
       * 사용자별 SSE 연결을 관리하는 맵입니다.
       * Key: providerId (사용자 식별자)
-      * Value: SseEmitter의 리스트 (CopyOnWriteArrayList)
+      * Value: SSE 연결(SseEmitter + 전송 대기열)의 리스트 (CopyOnWriteArrayList)
       *
       * CopyOnWriteArrayList란?
       * - 자바의 스레드 안전한 리스트 구현체입니다.
@@ -70,7 +138,7 @@ public class NotificationService {
       * - 이 서비스처럼 "읽기(알림 전송)가 매우 많고, 쓰기(연결 추가/제거)는 드물게 일어나는" 상황에 적합합니다.
       * - 한 사용자가 여러 탭/브라우저에서 접속할 수 있으므로, providerId별로 여러 SseEmitter를 가질 수 있습니다.
       */
-    private final Map<String, CopyOnWriteArrayList<SseEmitter>> userEmitters = new ConcurrentHashMap<>();
+    private final Map<String, CopyOnWriteArrayList<SseConnection>> userEmitters = new ConcurrentHashMap<>();
     
     /**
      * SSE 연결 타임아웃 (2시간)
@@ -83,6 +151,80 @@ public class NotificationService {
      */
     private static final long SSE_TIMEOUT = 2 * 60 * 60 * 1000L;
     
+    /** 연결 직후 보내는 확인 이벤트(모든 연결이 같은 프레임을 씀) */
+    private static final Set<DataWithMediaType> CONNECTED_FRAME = SseEmitter.event()
+        .name("connected")
+        .data("SSE 연결이 성공했습니다.")
+        .build();
+    
+    private final Counter framesSent;
+    private final Counter evictedOverflow;
+    private final Counter evictedError;
+    private final Counter evictedStalled;
+    private final Counter heartbeats;
+    private final Counter digestCoalesced;
+    private final Counter digestFlushes;
+    
+    /**
+     * 하트비트를 주기 동안 고르게 나눠 보내기 위한 타이밍 휠
+     * - 칸 수 = heartbeat-interval / heartbeat-tick (예: 30초 / 1초 = 30칸)
+     */
+    private final HeartbeatWheel heartbeatWheel;
+    
+    public NotificationService(ObjectMapper objectMapper,
+                               NotificationDeliveryProperties properties,
+                               SnowflakeIdGenerator idGenerator,
+                               NotificationEventLog eventLog,
+                               NotificationDigestProperties digestProperties,
+                               NotificationBus notificationBus,
+                               MeterRegistry meterRegistry) {
+        this.objectMapper = objectMapper;
+        this.properties = properties;
+        this.idGenerator = idGenerator;
+        this.eventLog = eventLog;
+        this.digestProperties = digestProperties;
+        this.notificationBus = notificationBus;
+        int workers = Math.max(1, properties.getWorkers());
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.deliveryExecutor = new ThreadPoolExecutor(workers, workers + Math.max(0, properties.getStalledWorkerLimit()),
+            0L, TimeUnit.MILLISECONDS,
+            new LinkedBlockingQueue<>(), r -> {
+                Thread t = new Thread(r, "sse-delivery-" + threadNumber.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        Gauge.builder("notification.sse.connections", this, NotificationService::getTotalConnections)
+            .description("현재 열려 있는 SSE 연결(탭) 수")
+            .register(meterRegistry);
+        this.framesSent = Counter.builder("notification.sse.frames")
+            .description("SSE 연결에 쓴 프레임 수")
+            .register(meterRegistry);
+        this.evictedOverflow = Counter.builder("notification.sse.evicted").tag("reason", "overflow")
+            .description("대기열이 넘쳐(너무 느려서) 끊은 SSE 연결 수")
+            .register(meterRegistry);
+        this.evictedError = Counter.builder("notification.sse.evicted").tag("reason", "error")
+            .description("쓰기에 실패해 정리한 SSE 연결 수")
+            .register(meterRegistry);
+        this.evictedStalled = Counter.builder("notification.sse.evicted").tag("reason", "stalled")
+            .description("쓰기 하나가 write-timeout 을 넘겨 멈춘 것으로 보고 정리한 SSE 연결 수")
+            .register(meterRegistry);
+        Gauge.builder("notification.sse.stalled_writes", stalledWrites, AtomicInteger::get)
+            .description("아직 끝나지 않은 멈춘 SSE 쓰기 수(그만큼 전송 스레드를 더 띄움)")
+            .register(meterRegistry);
+        this.heartbeats = Counter.builder("notification.sse.heartbeats")
+            .description("대기열에 넣은 하트비트 수(최근에 다른 프레임을 쓴 연결은 생략)")
+            .register(meterRegistry);
+        this.digestCoalesced = Counter.builder("notification.digest.coalesced")
+            .description("바로 보내지 않고 요약으로 묶은 채팅 알림 수")
+            .register(meterRegistry);
+        this.digestFlushes = Counter.builder("notification.digest.flushes")
+            .description("방으로 보낸 채팅 요약 묶음 수")
+            .register(meterRegistry);
+        long tickMillis = Math.max(1, properties.getHeartbeatTick().toMillis());
+        this.heartbeatWheel = new HeartbeatWheel((int) Math.max(1, properties.getHeartbeatInterval().toMillis() / tickMillis));
+        notificationBus.subscribe(this::deliverRemote);
+    }
+    
     /**
      * 새로운 SSE 연결을 등록합니다 (사용자가 알림을 받기 시작할 때 호출)
      * 
@@ -90,29 +232,39 @@ public class NotificationService {
      * 1. 사용자가 웹페이지에 접속하면 프론트엔드에서 /api/notifications/subscribe를 호출
      * 2. 이 메서드가 실행되어 해당 사용자를 위한 SSE 연결을 만듦
      * 3. 이제 서버에서 이 사용자에게 실시간 알림을 보낼 수 있음
+     * 4. 재연결이면(Last-Event-ID) 그 사이 놓친 알림을 먼저 다시 보냄
      * 
      * @param providerId 사용자 ID (JWT 토큰에서 추출된 식별자)
+     * @param lastEventId 브라우저가 마지막으로 받은 알림 id (처음 연결이면 null)
      * @return SseEmitter 객체 (스프링이 SSE 연결을 관리하는 도구)
      */
-    public SseEmitter createConnection(String providerId) {
-        log.info("SSE 연결 생성 시작: providerId={}", providerId);
-        
+    public SseEmitter createConnection(String providerId, String lastEventId) {
         // 1) SseEmitter 생성 (SSE 연결을 관리하는 스프링의 도구)
-        SseEmitter emitter = new SseEmitter(SSE_TIMEOUT);
+        return createConnection(providerId, lastEventId, new SseEmitter(SSE_TIMEOUT));
+    }
+    
+    /**
+     * 만들어 둔 SseEmitter 로 연결을 등록합니다(테스트에서 쓰기가 멈추는 emitter 를 넣을 때도 사용).
+     */
+    SseEmitter createConnection(String providerId, String lastEventId, SseEmitter emitter) {
+        log.info("SSE 연결 생성 시작: providerId={}, lastEventId={}", providerId, lastEventId);
         
-        // 2) 사용자별 연결 목록에 추가 (한 사용자가 여러 탭을 열 수 있음)
-        // computeIfAbsent: 해당 키(providerId)가 없으면 새 리스트를 만들고, 있으면 기존 리스트를 가져옴
-        userEmitters.computeIfAbsent(providerId, k -> new CopyOnWriteArrayList<>()).add(emitter);
+        // 대기열은 다시 보낼 알림까지 한 번에 담을 수 있는 크기로 만듭니다.
+        SseConnection connection = new SseConnection(providerId, emitter,
+            properties.getQueueCapacity() + eventLog.capacity());
         
-        // 3) 연결 성공 메시지를 클라이언트에게 즉시 전송 (연결이 잘 되었는지 확인용)
-        try {
-            emitter.send(SseEmitter.event()
-                .name("connected")  // 이벤트 이름 (프론트엔드에서 addEventListener로 받음)
-                .data("SSE 연결이 성공했습니다.")); // 실제 데이터
-        } catch (IOException e) {
-            // 클라이언트 단절 등 예상 가능한 상황에서는 스택트레이스를 남기지 않습니다.
-            log.debug("SSE 연결 완료 이벤트 전송 실패(클라이언트 단절 가능): providerId={}", providerId);
-            removeEmitter(providerId, emitter); // 실패하면 연결 제거
+        // 2) 사용자별 연결 목록에 추가하고 놓친 알림을 다시 보냅니다.
+        //    사용자 기록으로 잠근 채 하므로, 그 사이 새 알림이 와도 빠지거나 두 번 가지 않습니다.
+        NotificationEventLog.UserLog userLog = eventLog.open(providerId);
+        if (userLog == null) {
+            register(connection);
+        } else {
+            synchronized (userLog) {
+                register(connection);
+                for (Set<DataWithMediaType> missed : eventLog.replay(userLog, parseEventId(lastEventId))) {
+                    deliver(connection, missed);
+                }
+            }
         }
         
         // 4) 연결 상태 변경 시 자동 처리 설정 (이벤트 리스너 등록)
@@ -120,26 +272,56 @@ public class NotificationService {
         // 타임아웃 발생 시 (2시간 후)
         emitter.onTimeout(() -> {
             log.info("SSE 연결 타임아웃: providerId={}", providerId);
-            removeEmitter(providerId, emitter); // 연결 목록에서 제거
+            removeConnection(connection); // 연결 목록에서 제거
         });
         
         // 연결 정상 종료 시 (클라이언트가 페이지를 닫거나 새로고침)
         emitter.onCompletion(() -> {
             log.info("SSE 연결 정상 종료: providerId={}", providerId);
-            removeEmitter(providerId, emitter); // 연결 목록에서 제거
+            removeConnection(connection); // 연결 목록에서 제거
         });
         
         // 연결 오류 발생 시 (네트워크 문제 등)
         emitter.onError((ex) -> {
             // Broken pipe / ClientAbortException 등은 정상 흐름에서 자주 발생하므로 과도한 로그를 피합니다.
             log.info("SSE 연결 오류 발생: providerId={} (연결 정리)", providerId);
-            removeEmitter(providerId, emitter); // 연결 목록에서 제거
+            removeConnection(connection); // 연결 목록에서 제거
         });
         
         log.info("현재 활성 SSE 연결 수: {}", getTotalConnections());
         return emitter; // 컨트롤러에게 반환 (스프링이 자동으로 SSE 응답 처리)
     }
     
+    /**
+     * 사용자별 연결 목록에 추가하고(한 사용자가 여러 탭을 열 수 있음) 연결 성공 메시지를 보냅니다.
+     */
+    private void register(SseConnection connection) {
+        // compute: 해당 키(providerId)가 없으면 새 리스트를 만들고, 있으면 기존 리스트에 추가 (제거와 겹쳐도 안전)
+        userEmitters.compute(connection.providerId(), (k, connections) -> {
+            CopyOnWriteArrayList<SseConnection> list = connections != null ? connections : new CopyOnWriteArrayList<>();
+            if (connections == null) {
+                notificationBus.userConnected(k); // 이 노드에 첫 연결: 다른 노드가 이 노드로 보내도록 위치 힌트
+            }
+            list.add(connection);
+            return list;
+        });
+        heartbeatWheel.add(connection);
+        // 연결 성공 메시지("connected" 이벤트)를 대기열에 넣어 전송 (연결이 잘 되었는지 확인용)
+        deliver(connection, CONNECTED_FRAME);
+    }
+    
+    // Last-Event-ID 헤더 값(숫자가 아니면 처음 연결처럼 다룸)
+    private static Long parseEventId(String lastEventId) {
+        if (lastEventId == null || lastEventId.isBlank()) {
+            return null;
+        }
+        try {
+            return Long.parseLong(lastEventId.trim());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+    
     /**
      * 특정 사용자에게 알림을 전송합니다 (핵심 메서드!)
      * 
@@ -149,50 +331,25 @@ public class NotificationService {
      * - 누군가 상태를 변경했을 때: "박민수님이 학습 중입니다"
      * 
      * 동작 과정:
-     * 1. 해당 사용자의 모든 SSE 연결을 찾음 (여러 탭을 열었을 수 있음)
-     * 2. 각 연결에 JSON 형태로 알림 데이터를 전송
+     * 1. 알림을 JSON 형태의 SSE 프레임으로 한 번만 만듦
+     * 2. 해당 사용자의 모든 SSE 연결(여러 탭을 열었을 수 있음) 대기열에 넣음 → 전송 스레드가 씀
      * 3. 전송에 실패한 연결은 자동으로 제거 (이미 끊어진 연결)
      * 
      * @param providerId 알림을 받을 사용자 ID
      * @param notification 전송할 알림 데이터 (NotificationDto 객체)
      */
     public void sendToUser(String providerId, NotificationDto notification) {
-        // 1) 해당 사용자의 SSE 연결 목록을 가져옴
-        CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(providerId);
-        
-        // 연결이 없다면 알림을 보낼 수 없음 (사용자가 오프라인이거나 SSE를 사용하지 않음)
-        if (emitters == null || emitters.isEmpty()) {
-            log.debug("SSE 연결이 없는 사용자 (알림 전송 불가): providerId={}", providerId);
+        // 1) 알림을 SSE 프레임으로 한 번만 만듭니다 (객체 → JSON 문자열)
+        EncodedNotification encoded = encode(notification);
+        if (encoded == null) {
             return;
         }
         
-        log.info("사용자별 알림 전송 시작: providerId={}, type={}, message={}", 
-            providerId, notification.type(), notification.message());
-        
-        // 2) 해당 사용자의 모든 연결(탭)에 알림 전송
-        // removeIf: 조건에 맞는 요소를 리스트에서 제거하는 메서드
-        emitters.removeIf(emitter -> {
-            try {
-                // JSON으로 변환된 알림 데이터를 SSE로 전송
-                emitter.send(SseEmitter.event()
-                    .name("notification")  // 이벤트 이름 (프론트엔드에서 구분용)
-                    .data(objectMapper.writeValueAsString(notification))); // 객체 → JSON 문자열
-                
-                log.debug("알림 전송 성공: providerId={}", providerId);
-                return false; // 성공하면 리스트에서 제거하지 않음 (연결 유지)
-                
-            } catch (IOException e) {
-                // Broken pipe 등 예측 가능한 예외는 스택 출력 없이 정리만 수행
-                log.debug("알림 전송 실패 (연결 끊김): providerId={}", providerId);
-                return true; // 실패하면 리스트에서 제거 (끊어진 연결 정리)
-            }
-        });
+        // 2) 해당 사용자의 모든 연결(탭) 대기열에 넣습니다 (쓰기는 전송 스레드가 함)
+        deliverToUser(providerId, encoded);
         
-        // 3) 모든 연결이 끊어졌다면 사용자 자체를 맵에서 제거 (메모리 절약)
-        if (emitters.isEmpty()) {
-            userEmitters.remove(providerId);
-            log.debug("🗑️ 모든 연결이 끊어진 사용자 제거: providerId={}", providerId);
-        }
+        // 3) 다른 노드에도 연결(탭)이 있을 수 있으므로 버스에 발행합니다
+        notificationBus.publish(List.of(providerId), encoded.id(), encoded.json());
     }
     
     /**
@@ -214,42 +371,362 @@ public class NotificationService {
      * @param roomParticipants 룸 참여자들의 providerId 목록
      * @param notification 전송할 알림 데이터
      */
-    public void sendToRoomParticipants(java.util.List<String> roomParticipants, NotificationDto notification) {
+    public void sendToRoomParticipants(List<String> roomParticipants, NotificationDto notification) {
         // 1) 참여자 목록이 비어있는지 확인
         if (roomParticipants == null || roomParticipants.isEmpty()) {
             log.debug("룸 참여자가 없음 (알림 전송 불가): roomId={}", notification.roomId());
             return;
         }
         
-        log.info("룸 전체 브로드캐스트 시작: roomId={}, participants={}, type={}", 
+        log.debug("룸 전체 브로드캐스트: roomId={}, participants={}, type={}", 
             notification.roomId(), roomParticipants.size(), notification.type());
         
-        // 2) 각 참여자에게 개별적으로 알림 전송 (반복문 사용)
+        // 채팅 알림은 방에 묶음 창이 열려 있으면 모아 두었다가 요약으로 보냅니다.
+        if (coalesce(roomParticipants, notification)) {
+            return;
+        }
+        
+        // 2) 알림을 SSE 프레임으로 한 번만 만듭니다 (참여자가 몇 명이든 직렬화는 1회)
+        EncodedNotification encoded = encode(notification);
+        if (encoded == null) {
+            return;
+        }
+        
+        // 3) 각 참여자의 연결 대기열에 넣습니다 (반복문 사용, SSE 쓰기를 기다리지 않음)
+        List<String> recipients = new ArrayList<>(roomParticipants.size());
         for (String providerId : roomParticipants) {
             // 중요: 자신이 발생시킨 이벤트는 자신에게 알림하지 않음
             // 예: 내가 채팅을 보냈는데 나에게 "새 메시지가 있습니다" 알림이 오면 이상함
             if (!providerId.equals(notification.providerId())) {
-                sendToUser(providerId, notification); // 위에서 정의한 개별 전송 메서드 호출
-                log.debug("개별 알림 전송 완료: providerId={}", providerId);
-            } else {
-                log.debug("본인에게는 알림 전송 스킵: providerId={}", providerId);
+                deliverToUser(providerId, encoded);
+                recipients.add(providerId);
             }
         }
         
-        log.info("룸 전체 브로드캐스트 완료: roomId={}", notification.roomId());
+        // 4) 다른 노드에 연결된 참여자를 위해 버스에 한 번 발행합니다 (받는 사람이 있는 노드에만 전달됨)
+        notificationBus.publish(recipients, encoded.id(), encoded.json());
+    }
+    
+    /**
+     * 채팅 알림을 묶음 창에 넣습니다.
+     * - 방에 창이 없으면(조용했던 방) 창을 열고 false → 이번 알림은 바로 보냅니다.
+     * - 창이 열려 있으면 모아 두고 true → 창이 끝날 때 요약으로 보냅니다.
+     */
+    private boolean coalesce(List<String> roomParticipants, NotificationDto notification) {
+        if (!digestProperties.isEnabled() || !"CHAT_MESSAGE".equals(notification.type()) || notification.roomId() == null) {
+            return false;
+        }
+        long deadline = System.nanoTime() + digestProperties.getWindow().toNanos();
+        boolean[] held = new boolean[1];
+        chatDigests.compute(notification.roomId(), (id, digest) -> {
+            if (digest == null) {
+                return new RoomChatDigest(deadline);
+            }
+            digest.add(roomParticipants, notification);
+            held[0] = true;
+            return digest;
+        });
+        if (held[0]) {
+            digestCoalesced.increment();
+        }
+        return held[0];
+    }
+    
+    /**
+     * 창이 끝난 방마다 모아 둔 채팅 알림을 요약으로 보냅니다.
+     * - 모은 것이 있으면 보내고 창을 한 번 더 엽니다(계속 바쁜 방은 window 마다 요약 하나).
+     * - 모은 것이 없으면(조용해짐) 창을 닫아, 다음 채팅 알림은 다시 바로 나갑니다.
+     */
+    @Scheduled(fixedDelayString = "#{@notificationDigestProperties.flushInterval.toMillis()}")
+    public void flushChatDigests() {
+        long now = System.nanoTime();
+        long next = now + digestProperties.getWindow().toNanos();
+        for (Long roomId : chatDigests.keySet()) {
+            RoomChatDigest.Batch[] drained = new RoomChatDigest.Batch[1];
+            chatDigests.computeIfPresent(roomId, (id, digest) -> {
+                if (!digest.isDue(now)) {
+                    return digest;
+                }
+                if (digest.isEmpty()) {
+                    return null;
+                }
+                drained[0] = digest.drain(next);
+                return digest;
+            });
+            if (drained[0] != null) {
+                sendDigest(roomId, drained[0]);
+            }
+        }
     }
     
     /**
-     * 특정 emitter를 제거합니다.
+     * 받는 사람마다 "나 말고 다른 사람이 보낸 메시지" 요약을 보냅니다.
+     * 창 안에서 메시지를 보내지 않은 참여자는 모두 같은 요약을 받으므로 한 번만 만듭니다.
      */
-    private void removeEmitter(String providerId, SseEmitter emitter) {
-        CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(providerId);
-        if (emitters != null) {
-            emitters.remove(emitter);
-            if (emitters.isEmpty()) {
-                userEmitters.remove(providerId);
+    private void sendDigest(Long roomId, RoomChatDigest.Batch batch) {
+        int maxSenders = digestProperties.getMaxSenders();
+        EncodedNotification common = null;
+        boolean commonBuilt = false;
+        List<String> commonRecipients = new ArrayList<>();
+        for (String providerId : batch.participants()) {
+            EncodedNotification encoded;
+            if (batch.isSender(providerId)) {
+                NotificationDto digest = batch.digestFor(roomId, providerId, maxSenders);
+                encoded = digest != null ? encode(digest) : null;
+                if (encoded != null) {
+                    notificationBus.publish(List.of(providerId), encoded.id(), encoded.json());
+                }
+            } else {
+                if (!commonBuilt) {
+                    NotificationDto digest = batch.digestFor(roomId, null, maxSenders);
+                    common = digest != null ? encode(digest) : null;
+                    commonBuilt = true;
+                }
+                encoded = common;
+                commonRecipients.add(providerId);
+            }
+            if (encoded != null) {
+                deliverToUser(providerId, encoded);
             }
         }
+        if (common != null) {
+            notificationBus.publish(commonRecipients, common.id(), common.json());
+        }
+        digestFlushes.increment();
+    }
+    
+    /**
+     * 알림에 이벤트 id 를 붙여 "notification" 이벤트 프레임으로 만듭니다. 직렬화에 실패하면 null
+     */
+    private EncodedNotification encode(NotificationDto notification) {
+        try {
+            // 객체 → JSON 문자열
+            return encode(idGenerator.nextId(), objectMapper.writeValueAsString(notification));
+        } catch (JsonProcessingException e) {
+            log.warn("알림 직렬화 실패: type={}, cause={}", notification.type(), e.getMessage());
+            return null;
+        }
+    }
+    
+    private static EncodedNotification encode(long id, String json) {
+        return new EncodedNotification(id, json, SseEmitter.event()
+            .id(Long.toString(id))  // 브라우저가 재연결할 때 Last-Event-ID 로 돌려줌
+            .name("notification")  // 이벤트 이름 (프론트엔드에서 구분용)
+            .data(json)
+            .build());
+    }
+    
+    /**
+     * 다른 노드에서 온 알림을 이 노드에 연결된 받는 사람에게 보냅니다.
+     * JSON 은 다시 만들지 않고 프레임만 한 번 만들며, 같은 이벤트 id 를 써서 재연결(Last-Event-ID)이 노드와 상관없이 이어집니다.
+     */
+    private void deliverRemote(NotificationBus.RemoteNotification notification) {
+        EncodedNotification encoded = encode(notification.eventId(), notification.json());
+        for (String providerId : notification.providerIds()) {
+            deliverToUser(providerId, encoded);
+        }
+    }
+    
+    /**
+     * 사용자의 최근 알림 기록에 남기고(재연결 대비) 모든 연결(탭)에 넣습니다.
+     * 기록으로 잠근 채 하므로 같은 사용자의 재연결(놓친 알림 다시 보내기)과 순서가 섞이지 않습니다.
+     */
+    private void deliverToUser(String providerId, EncodedNotification encoded) {
+        NotificationEventLog.UserLog userLog = eventLog.find(providerId);
+        if (userLog == null) {
+            deliverToUser(providerId, encoded.frame());
+            return;
+        }
+        synchronized (userLog) {
+            userLog.append(encoded.id(), encoded.frame());
+            deliverToUser(providerId, encoded.frame());
+        }
+    }
+    
+    /**
+     * 사용자의 모든 연결(탭)에 프레임을 넣습니다.
+     * @return 프레임을 받은 연결 수
+     */
+    private int deliverToUser(String providerId, Set<DataWithMediaType> frame) {
+        // 연결이 없다면 알림을 보낼 수 없음 (사용자가 오프라인이거나 SSE를 사용하지 않음)
+        List<SseConnection> connections = userEmitters.get(providerId);
+        if (connections == null) {
+            return 0;
+        }
+        int accepted = 0;
+        for (SseConnection connection : connections) {
+            if (deliver(connection, frame)) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+    
+    /**
+     * 연결 하나의 대기열에 프레임을 넣고, 비우는 작업이 없으면 전송 스레드에 맡깁니다.
+     * 대기열이 가득 찼다면 너무 느린 연결이므로 끊습니다(다른 연결은 계속 받음).
+     */
+    private boolean deliver(SseConnection connection, Set<DataWithMediaType> frame) {
+        if (!connection.offer(frame)) {
+            if (!connection.isClosed()) {
+                log.debug("SSE 대기열 넘침(느린 연결 종료): providerId={}", connection.providerId());
+                evictedOverflow.increment();
+                evict(connection);
+            }
+            return false;
+        }
+        schedule(connection);
+        return true;
+    }
+    
+    private void schedule(SseConnection connection) {
+        if (!connection.claim()) {
+            return; // 이미 다른 작업이 이 연결을 비우는 중(넣은 프레임도 그 작업이 보냄)
+        }
+        try {
+            deliveryExecutor.execute(() -> drain(connection));
+        } catch (RejectedExecutionException e) {
+            connection.release(); // 종료 중
+        }
+    }
+    
+    /**
+     * 전송 스레드: 연결 대기열의 프레임을 차례대로 씁니다.
+     * - 한 번에 drain-batch 개까지만 쓰고 남았으면 다시 줄을 섭니다(한 연결이 스레드를 독차지하지 않도록).
+     * - 쓰기에 실패하면 그 연결만 정리합니다.
+     */
+    private void drain(SseConnection connection) {
+        int budget = Math.max(1, properties.getDrainBatch());
+        writing.add(connection);
+        try {
+            Set<DataWithMediaType> frame;
+            while (budget-- > 0 && (frame = connection.poll()) != null) {
+                connection.beginWrite(System.nanoTime());
+                connection.emitter().send(frame);
+                endWrite(connection);
+                framesSent.increment();
+            }
+        } catch (IOException | IllegalStateException e) {
+            endWrite(connection);
+            // Broken pipe / 이미 끝난 emitter 등 예측 가능한 예외는 스택 출력 없이 정리만 수행
+            if (removeConnection(connection)) {
+                log.debug("SSE 전송 실패 (연결 끊김): providerId={}", connection.providerId());
+                evictedError.increment();
+                complete(connection, e);
+            }
+        } finally {
+            writing.remove(connection);
+            connection.release();
+        }
+        // 쓰는 사이 다른 스레드가 끊은 연결(대기열 넘침/멈춤)이면 여기서 응답을 끝냅니다.
+        if (connection.isClosed()) {
+            complete(connection, null);
+            return;
+        }
+        // 비우는 사이 새로 들어온 프레임이 있으면 다시 맡깁니다.
+        if (connection.hasPending()) {
+            schedule(connection);
+        }
+    }
+    
+    private void endWrite(SseConnection connection) {
+        if (connection.endWrite(System.nanoTime())) {
+            // 멈췄던 쓰기가 끝났으므로 대신 띄운 전송 스레드를 줄입니다.
+            resizeDeliveryPool(stalledWrites.decrementAndGet());
+        }
+    }
+    
+    /**
+     * 전송 스레드 수를 workers + 멈춘 쓰기 수(stalled-worker-limit 까지)로 맞춥니다.
+     * 줄일 때는 남는 스레드가 하던 일을 마친 뒤 끝납니다.
+     */
+    private void resizeDeliveryPool(int stalled) {
+        synchronized (deliveryExecutor) {
+            int workers = Math.max(1, properties.getWorkers());
+            int extra = Math.min(Math.max(0, stalled), deliveryExecutor.getMaximumPoolSize() - workers);
+            deliveryExecutor.setCorePoolSize(workers + extra);
+        }
+    }
+    
+    /**
+     * 쓰는 중인 연결 중 쓰기 하나가 write-timeout 을 넘긴 연결을 찾아 정리합니다.
+     * 
+     * - heartbeat-tick 마다 실행하므로, 멈춘 연결은 write-timeout + tick 안에 발견됩니다.
+     * - 막힌 전송 스레드는 쓰기가 끝날 때까지 돌려받을 수 없으므로, 그 대신 일할 스레드를 하나 더 띄웁니다.
+     *   (쓰기 하나를 강제로 끊을 방법이 없어서, 다른 연결이 기다리지 않게 하는 쪽을 택함)
+     * - 연결은 목록에서 바로 빼고, SSE 응답은 막힌 쓰기가 끝난 뒤 drain 이 끝냅니다.
+     */
+    @Scheduled(fixedRateString = "#{@notificationDeliveryProperties.heartbeatTick.toMillis()}")
+    public void checkStalledWrites() {
+        long now = System.nanoTime();
+        long writeTimeout = properties.getWriteTimeout().toNanos();
+        for (SseConnection connection : writing) {
+            if (connection.writingForNanos(now) > writeTimeout && connection.markStalled()) {
+                log.debug("SSE 쓰기 멈춤 (연결 정리): providerId={}", connection.providerId());
+                evictedStalled.increment();
+                resizeDeliveryPool(stalledWrites.incrementAndGet());
+                evict(connection);
+            }
+        }
+    }
+    
+    /**
+     * 실패했거나 너무 느린 연결을 목록에서 빼고 SSE 응답을 끝냅니다.
+     * - 응답을 끝내는 일은 호출한 스레드(채팅 스레드 등)가 아니라 전송 스레드가 합니다.
+     * - 지금 쓰는 중이면 그 쓰기가 끝난 뒤 drain 이 끝냅니다(멈춘 쓰기를 기다리며 잠기지 않도록).
+     */
+    private void evict(SseConnection connection) {
+        if (!removeConnection(connection) || connection.isWriting()) {
+            return;
+        }
+        try {
+            deliveryExecutor.execute(() -> complete(connection, null));
+        } catch (RejectedExecutionException ignored) {
+            // 종료 중
+        }
+    }
+    
+    private void complete(SseConnection connection, Throwable cause) {
+        if (!connection.markCompleted()) {
+            return;
+        }
+        try {
+            if (cause != null) {
+                connection.emitter().completeWithError(cause);
+            } else {
+                connection.emitter().complete();
+            }
+        } catch (RuntimeException ignored) {
+            // 이미 끝난 응답
+        }
+    }
+    
+    /**
+     * 특정 연결을 제거합니다.
+     * @return 이번에 처음 제거했으면 true (이미 제거된 연결이면 false)
+     */
+    private boolean removeConnection(SseConnection connection) {
+        if (!connection.close()) {
+            return false;
+        }
+        // 모든 연결이 끊어진 사용자는 맵에서 제거 (메모리 절약)
+        userEmitters.computeIfPresent(connection.providerId(), (k, connections) -> {
+            connections.remove(connection);
+            if (connections.isEmpty()) {
+                notificationBus.userDisconnected(k);
+                return null;
+            }
+            return connections;
+        });
+        heartbeatWheel.remove(connection);
+        // 최근 알림 기록은 idle-ttl 동안 남겨 두어 재연결 때 놓친 알림을 보낼 수 있게 합니다.
+        eventLog.detach(connection.providerId());
+        return true;
+    }
+    
+    @PreDestroy
+    public void shutdown() {
+        deliveryExecutor.shutdownNow();
     }
     
     /**
@@ -265,8 +742,8 @@ public class NotificationService {
      * 특정 사용자의 연결 수를 반환합니다.
      */
     public int getUserConnections(String providerId) {
-        CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(providerId);
-        return emitters != null ? emitters.size() : 0;
+        CopyOnWriteArrayList<SseConnection> connections = userEmitters.get(providerId);
+        return connections != null ? connections.size() : 0;
     }
     
     /**
@@ -277,58 +754,50 @@ public class NotificationService {
     }
     
     /**
-     * 주기적으로 모든 연결에 하트비트를 전송하여 연결을 유지합니다
+     * 하트비트 휠을 한 칸 넘기며, 그 칸에 있는 연결에만 하트비트를 보냅니다
      * 
      * 하트비트가 왜 필요한가요?
      * - 사람의 심장박동처럼 "나는 살아있어요!"라는 신호를 보내는 것입니다
-     * - SSE 연결이 2시간 동안 아무 데이터도 주고받지 않으면 자동으로 끊어집니다
-     * - 10분마다 작은 메시지를 보내서 "연결이 살아있다"는 것을 알려줍니다
-     * - 이렇게 하면 사용자가 아무것도 하지 않아도 알림을 계속 받을 수 있습니다
+     * - 오래 아무것도 보내지 않으면 중간의 프록시/로드밸런서가 연결을 끊을 수 있습니다
+     * - 쓰기에 실패하면 끊어진 연결임을 알 수 있으므로, 주기가 짧을수록 죽은 연결을 빨리 정리합니다
+     * - 프론트엔드에서는 이 하트비트를 받으면 "연결이 살아있구나"를 확인
      * 
      * 동작 과정:
-     * 1. 10분마다 자동으로 이 메서드가 실행됨 (@Scheduled 어노테이션)
-     * 2. 현재 연결된 모든 사용자에게 하트비트 메시지 전송
-     * 3. 전송에 실패한 연결은 이미 끊어진 것으로 간주하여 제거
-     * 4. 프론트엔드에서는 이 하트비트를 받으면 "연결이 살아있구나"를 확인
+     * 1. heartbeat-tick(기본 1초)마다 자동으로 이 메서드가 실행됨 (@Scheduled 어노테이션)
+     * 2. 휠의 다음 칸에 있는 연결만 확인 → 주기(기본 30초) 동안 모든 연결을 한 번씩, 고르게 나눠서 처리
+     *    (한 번에 모든 연결에 보내는 순간적인 몰림이 없음)
+     * 3. 하트비트 프레임은 tick 마다 한 번만 만들어 그 칸의 연결이 함께 씀
+     * 4. 주기 안에 다른 알림을 쓴 연결은 이미 살아 있음을 알았으므로 생략
+     * 
+     * 쓰기 실패는 전송 스레드가 바로, 멈춘 쓰기는 {@link #checkStalledWrites()} 가 정리합니다.
      */
-    @Scheduled(fixedRate = 10 * 60 * 1000) // 10분(600초)마다 실행
+    @Scheduled(fixedRateString = "#{@notificationDeliveryProperties.heartbeatTick.toMillis()}")
     public void sendHeartbeat() {
-        // 1) 연결된 사용자가 없으면 하트비트를 보낼 필요 없음
-        if (userEmitters.isEmpty()) {
+        // 1) 이번 칸에 연결이 없으면 보낼 필요 없음
+        Set<SseConnection> due = heartbeatWheel.advance();
+        if (due.isEmpty()) {
             return; // 일찍 종료 (early return)
         }
         
-        log.debug("💓SE 하트비트 전송 시작 - 연결된 사용자: {}", userEmitters.size());
-        
-        // 2) 하트비트 데이터 준비 (JSON 형태의 문자열)
-        String heartbeatData = String.format("{\"type\":\"heartbeat\",\"timestamp\":\"%s\"}", LocalDateTime.now());
-        
-        // 3) 모든 사용자의 모든 연결에 하트비트 전송
-        userEmitters.entrySet().removeIf(entry -> {
-            String providerId = entry.getKey();
-            CopyOnWriteArrayList<SseEmitter> emitters = entry.getValue();
-            
-            // 해당 사용자의 모든 연결(탭)에 하트비트 전송
-            emitters.removeIf(emitter -> {
-                try {
-                    emitter.send(SseEmitter.event()
-                        .name("heartbeat")  // 이벤트 이름
-                        .data(heartbeatData)); // 하트비트 데이터
-                    return false; // 성공하면 연결을 유지 (제거하지 않음)
-                } catch (IOException e) {
-                    log.debug("하트비트 전송 실패 (연결이 끊어짐): providerId={}", providerId);
-                    return true; // 실패하면 끊어진 연결로 간주하여 제거
-                }
-            });
-            
-            // 모든 연결이 끊어진 사용자는 맵에서도 제거
-            return emitters.isEmpty();
-        });
-        
-        // 4) 하트비트 전송 결과 로깅
-        int activeConnections = getTotalConnections();
-        if (activeConnections > 0) {
-            log.debug("💓 하트비트 전송 완료 - 살아있는 연결: {}", activeConnections);
+        long now = System.nanoTime();
+        long interval = properties.getHeartbeatInterval().toNanos();
+        Set<DataWithMediaType> frame = null;
+        for (SseConnection connection : due) {
+            // 2) 주기 안에 다른 프레임을 쓴 연결은 생략
+            if (now - connection.lastWriteNanos() < interval) {
+                continue;
+            }
+            // 3) 하트비트 데이터 준비 (JSON 형태의 문자열, tick 당 한 번)
+            if (frame == null) {
+                String heartbeatData = String.format("{\"type\":\"heartbeat\",\"timestamp\":\"%s\"}", LocalDateTime.now());
+                frame = SseEmitter.event()
+                    .name("heartbeat")  // 이벤트 이름
+                    .data(heartbeatData) // 하트비트 데이터
+                    .build();
+            }
+            if (deliver(connection, frame)) {
+                heartbeats.increment();
+            }
         }
     }
     
@@ -354,8 +823,8 @@ public class NotificationService {
      */
     public boolean testConnection(String providerId) {
         // 1) 해당 사용자의 SSE 연결이 있는지 확인
-        CopyOnWriteArrayList<SseEmitter> emitters = userEmitters.get(providerId);
-        if (emitters == null || emitters.isEmpty()) {
+        CopyOnWriteArrayList<SseConnection> connections = userEmitters.get(providerId);
+        if (connections == null || connections.isEmpty()) {
             log.debug("테스트 실패: SSE 연결이 없는 사용자 - providerId={}", providerId);
             return false; // 연결이 없으면 테스트 실패
         }
@@ -365,39 +834,24 @@ public class NotificationService {
             "{\"type\":\"test\",\"message\":\"연결 테스트 성공!\",\"timestamp\":\"%s\"}", 
             LocalDateTime.now()
         );
+        Set<DataWithMediaType> frame = SseEmitter.event()
+            .name("test")      // 이벤트 이름 (프론트엔드에서 구분용)
+            .data(testData)    // 테스트 데이터
+            .build();
         
-        // 3) 해당 사용자의 모든 연결(탭)에 테스트 메시지 전송 (안전하게 처리)
-        boolean anySuccess = false;
-        
-        // removeIf를 사용해서 전송 실패한 연결은 자동으로 제거
-        emitters.removeIf(emitter -> {
-            try {
-                emitter.send(SseEmitter.event()
-                    .name("test")      // 이벤트 이름 (프론트엔드에서 구분용)
-                    .data(testData));  // 테스트 데이터
-                return false; // 성공하면 제거하지 않음
-            } catch (IOException e) {
-                // 테스트 전송 시에도 스택트레이스를 남기지 않습니다.
-                log.debug("테스트 메시지 전송 실패 (연결 끊김): providerId={}", providerId);
-                return true; // 실패하면 리스트에서 제거
-            }
-        });
-        
-        // 전송 후 남은 연결이 있다면 성공으로 간주
-        anySuccess = !emitters.isEmpty();
-        
-        // 빈 리스트가 되면 맵에서도 제거
-        if (emitters.isEmpty()) {
-            userEmitters.remove(providerId);
-            log.debug("모든 연결이 끊어진 사용자 제거: providerId={}", providerId);
-        }
+        // 3) 해당 사용자의 모든 연결(탭) 대기열에 넣습니다
+        //    넣을 수 있는 연결이 하나라도 있으면 성공으로 간주 (끊어진 연결은 전송 스레드가 정리)
+        boolean anySuccess = deliverToUser(providerId, frame) > 0;
         
         if (anySuccess) {
-            log.info("SSE 연결 테스트 성공: providerId={}, activeConnections={}", providerId, emitters.size());
+            log.info("SSE 연결 테스트 성공: providerId={}, activeConnections={}", providerId, connections.size());
         } else {
             log.warn("SSE 연결 테스트 실패: 모든 연결이 끊어짐 - providerId={}", providerId);
         }
         
         return anySuccess;
     }
+    
+    /** 한 번만 만든 알림 프레임과 그 이벤트 id, JSON(다른 노드로 보낼 때 씀) */
+    private record EncodedNotification(long id, String json, Set<DataWithMediaType> frame) {}
 }
@@ -0,0 +1,86 @@
+package com.study.mate.service.notification;
+
+import com.study.mate.dto.NotificationDto;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * 방 하나의 채팅 알림 묶음 창입니다({@link NotificationService} 전용, 항상 맵의 compute 안에서만 접근).
+ *
+ * - 창이 열려 있는 동안 온 채팅 알림을 모아 둡니다(받는 사람 목록은 마지막 것을 씀).
+ * - 창이 끝나면 받는 사람마다 "나 말고 다른 사람이 보낸 메시지"만 세어 요약을 만듭니다.
+ *   내 메시지만 있었다면 요약을 보내지 않고, 한 개뿐이면 원래 채팅 알림을 그대로 보냅니다.
+ */
+final class RoomChatDigest {
+
+    private final List<NotificationDto> pending = new ArrayList<>();
+    private List<String> participants = List.of();
+    private long deadlineNanos;
+
+    RoomChatDigest(long deadlineNanos) {
+        this.deadlineNanos = deadlineNanos;
+    }
+
+    void add(List<String> roomParticipants, NotificationDto notification) {
+        participants = roomParticipants;
+        pending.add(notification);
+    }
+
+    boolean isDue(long nowNanos) {
+        return deadlineNanos - nowNanos <= 0;
+    }
+
+    boolean isEmpty() {
+        return pending.isEmpty();
+    }
+
+    /** 모은 알림을 꺼내고 창을 다음 deadline 까지 이어 둡니다. */
+    Batch drain(long nextDeadlineNanos) {
+        Set<String> senderIds = pending.stream().map(NotificationDto::providerId).collect(Collectors.toSet());
+        Batch batch = new Batch(List.copyOf(pending), participants, senderIds);
+        pending.clear();
+        deadlineNanos = nextDeadlineNanos;
+        return batch;
+    }
+
+    /**
+     * 창 하나에서 모은 채팅 알림
+     */
+    record Batch(List<NotificationDto> notifications, List<String> participants, Set<String> senderIds) {
+
+        /**
+         * excludedProviderId(받는 사람)가 보낸 것을 뺀 요약을 만듭니다. 남는 것이 없으면 null
+         */
+        NotificationDto digestFor(Long roomId, String excludedProviderId, int maxSenders) {
+            Map<String, String> senders = new LinkedHashMap<>();
+            NotificationDto last = null;
+            int count = 0;
+            for (NotificationDto notification : notifications) {
+                if (excludedProviderId != null && excludedProviderId.equals(notification.providerId())) {
+                    continue;
+                }
+                senders.putIfAbsent(notification.providerId(), notification.nickname());
+                last = notification;
+                count++;
+            }
+            if (count == 0) {
+                return null;
+            }
+            if (count == 1) {
+                return last;
+            }
+            List<String> names = senders.values().stream().limit(Math.max(1, maxSenders)).toList();
+            return NotificationDto.chatDigest(roomId, count, names, senders.size(), last.message());
+        }
+
+        /** 이 창에서 메시지를 보낸 사람인지(보낸 사람마다 요약이 달라짐) */
+        boolean isSender(String providerId) {
+            return senderIds.contains(providerId);
+        }
+    }
+}
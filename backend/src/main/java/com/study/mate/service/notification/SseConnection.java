@@ -0,0 +1,135 @@
+package com.study.mate.service.notification;
+
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * SSE 연결(브라우저 탭) 하나와 그 연결로 보낼 알림 대기열입니다({@link NotificationService} 전용).
+ *
+ * - 알림을 보내는 쪽은 대기열에 넣기만 하고(offer) 바로 돌아갑니다. 실제 쓰기는 전송 스레드가 합니다.
+ * - 대기열은 크기가 정해져 있어, 느린 연결 하나가 메모리를 끝없이 쓰지 못합니다(넘치면 offer 가 false).
+ * - scheduled 플래그로 "이 연결을 비우는 작업"이 한 번에 하나만 돌게 합니다. 그래서 한 연결 안의 순서가 지켜집니다.
+ * - 마지막으로 쓴 시각과 지금 쓰는 중인지(언제부터)를 기록해, 하트비트 생략과 멈춘 연결 감지에 씁니다.
+ * - 멈춘 쓰기는 한 번만 표시(markStalled)되고, 그 쓰기가 끝날 때(endWrite) 표시되어 있었는지 알려 줍니다.
+ */
+final class SseConnection {
+
+    private static final int IDLE = 0;
+    private static final int WRITING = 1;
+    private static final int STALLED = 2;
+
+    private final String providerId;
+    private final SseEmitter emitter;
+    private final BlockingQueue<Set<DataWithMediaType>> queue;
+    private final AtomicBoolean scheduled = new AtomicBoolean();
+    private final AtomicBoolean completed = new AtomicBoolean();
+    private volatile boolean closed;
+    // 하트비트 휠의 칸 번호
+    private int wheelSlot;
+    // 마지막으로 쓰기를 끝낸 시각(System.nanoTime)
+    private volatile long lastWriteNanos = System.nanoTime();
+    // 쓰기를 시작한 시각(쓰는 중이 아니면 0)
+    private volatile long writingSinceNanos;
+    // 쓰기 상태(IDLE / WRITING / STALLED: 쓰는 중인데 멈춘 것으로 표시됨)
+    private final AtomicInteger writeState = new AtomicInteger(IDLE);
+
+    SseConnection(String providerId, SseEmitter emitter, int capacity) {
+        this.providerId = providerId;
+        this.emitter = emitter;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, capacity));
+    }
+
+    String providerId() {
+        return providerId;
+    }
+
+    SseEmitter emitter() {
+        return emitter;
+    }
+
+    /** 미리 만들어 둔 SSE 프레임을 대기열에 넣습니다. 닫혔거나 가득 찼으면 false */
+    boolean offer(Set<DataWithMediaType> frame) {
+        return !closed && queue.offer(frame);
+    }
+
+    Set<DataWithMediaType> poll() {
+        return closed ? null : queue.poll();
+    }
+
+    boolean hasPending() {
+        return !closed && !queue.isEmpty();
+    }
+
+    /** 비우는 작업을 맡을 수 있으면 true(이미 누가 맡고 있으면 false) */
+    boolean claim() {
+        return !closed && scheduled.compareAndSet(false, true);
+    }
+
+    void release() {
+        scheduled.set(false);
+    }
+
+    /** @return 처음 닫을 때만 true */
+    synchronized boolean close() {
+        if (closed) {
+            return false;
+        }
+        closed = true;
+        queue.clear();
+        return true;
+    }
+
+    boolean isClosed() {
+        return closed;
+    }
+
+    /** SSE 응답을 끝내는 일을 맡을 수 있으면 true(한 번만) */
+    boolean markCompleted() {
+        return completed.compareAndSet(false, true);
+    }
+
+    int wheelSlot() {
+        return wheelSlot;
+    }
+
+    void wheelSlot(int slot) {
+        this.wheelSlot = slot;
+    }
+
+    void beginWrite(long nowNanos) {
+        writingSinceNanos = nowNanos == 0 ? 1 : nowNanos;
+        writeState.set(WRITING);
+    }
+
+    /** @return 이번 쓰기가 멈춘 것으로 표시되어 있었으면 true */
+    boolean endWrite(long nowNanos) {
+        writingSinceNanos = 0;
+        lastWriteNanos = nowNanos;
+        return writeState.getAndSet(IDLE) == STALLED;
+    }
+
+    /** 지금 하는 쓰기를 멈춘 것으로 표시합니다. 이번 쓰기에서 처음 표시했으면 true */
+    boolean markStalled() {
+        return writeState.compareAndSet(WRITING, STALLED);
+    }
+
+    boolean isWriting() {
+        return writingSinceNanos != 0;
+    }
+
+    /** 지금 쓰기가 시작된 지 얼마나 지났는지(쓰는 중이 아니면 0) */
+    long writingForNanos(long nowNanos) {
+        long since = writingSinceNanos;
+        return since == 0 ? 0 : nowNanos - since;
+    }
+
+    long lastWriteNanos() {
+        return lastWriteNanos;
+    }
+}
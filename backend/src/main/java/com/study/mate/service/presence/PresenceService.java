@@ -3,7 +3,6 @@ package com.study.mate.service.presence;
 import com.study.mate.entity.ParticipantStatus;
 import com.study.mate.service.UsersService;
 import lombok.RequiredArgsConstructor;
-import org.springframework.messaging.simp.SimpMessagingTemplate;
 import org.springframework.stereotype.Service;
 
 import java.util.Map;
@@ -15,6 +14,7 @@ import java.util.concurrent.ConcurrentHashMap;
  * 목표(쉬운 설명)
  * - "누가(사용자) 어느 방에서 ONLINE/STUDYING/BREAK/OFFLINE인지"를 메모리에 기록하고,
  *   변경이 생기면 해당 방을 구독한 모두에게 알려줍니다.
+ * - 실제 전송은 {@link RoomActivityCoalescer} 가 tick 마다 모아서 합니다(짧은 시간의 연속 변경은 최신 상태 하나로).
  */
 @Service
 @RequiredArgsConstructor
@@ -40,8 +40,8 @@ public class PresenceService {
      */
     private final Map<Long, Map<String, ParticipantStatus>> store = new ConcurrentHashMap<>();
 
-    // 화면에 알림을 보내는 도구(스프링이 제공)
-    private final SimpMessagingTemplate messagingTemplate;
+    // 방마다 변경을 모아 tick 단위로 보내는 도구
+    private final RoomActivityCoalescer roomActivityCoalescer;
     private final UsersService usersService;
 
     /** 사용자가 방에 처음 들어왔을 때: ONLINE으로 표시하고 알립니다. */
@@ -71,18 +71,17 @@ public class PresenceService {
         store
             .computeIfAbsent(roomId, k -> new ConcurrentHashMap<>())
             .put(providerId, ParticipantStatus.OFFLINE);
+        // 나간 사람은 입력 중 목록에서도 바로 뺍니다.
+        roomActivityCoalescer.typing(roomId, providerId, false);
         broadcast(roomId, providerId, ParticipantStatus.OFFLINE);
     }
 
-    /** 실제로 화면으로 상태 변경을 보내는 부분(방 토픽의 presence 서브채널로 전송) */
+    /** 상태 변경을 방 토픽의 presence 서브채널(/topic/rooms/{roomId}/presence)로 보낼 대기열에 넣는 부분 */
     private void broadcast(Long roomId, String providerId, ParticipantStatus status) {
         var me = usersService.findMeByProviderId(providerId);
         Long userId = me.getId();
         String nickname = me.getNickname();
-        messagingTemplate.convertAndSend(
-            "/topic/rooms/" + roomId + "/presence",
-            new PresencePayload("PRESENCE", providerId, userId, nickname, status.name())
-        );
+        roomActivityCoalescer.presence(roomId, new PresencePayload("PRESENCE", providerId, userId, nickname, status.name()));
     }
 
     /** 프론트에서 타입별 렌더링을 쉽게 하도록 단순한 구조로 보냅니다. */
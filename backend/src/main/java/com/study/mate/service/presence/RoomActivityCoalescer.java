@@ -0,0 +1,323 @@
+package com.study.mate.service.presence;
+
+import com.study.mate.config.StompSlowConsumerInterceptor;
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.service.presence.PresenceService.PresencePayload;
+import com.study.mate.util.RoomActivityProperties;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.messaging.MessagingException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * "누가 입력 중…" 표시와 프레즌스 변경을 방마다 모았다가 tick(기본 250ms)마다 한 번에 보내는 컴포넌트입니다.
+ *
+ * 왜 필요한가요?
+ * - 입력 중 이벤트는 키를 누를 때마다 올 수 있습니다. 그대로 방 전체에 중계하면
+ *   (이벤트 수 × 구독자 수) 만큼 프레임이 늘어납니다.
+ * - 그래서 서버는 방마다 "지금 입력 중인 사람 목록"만 메모리에 두고,
+ *   목록이 바뀐 방에 한해 tick 마다 목록 전체를 담은 프레임 하나만 보냅니다.
+ *   같은 사람이 계속 입력 중 이벤트를 보내도 만료 시각만 늘어나고 프레임은 나가지 않습니다.
+ * - typing-ttl 동안 이벤트가 없으면(창을 닫는 등) 다음 tick 에 목록에서 빠집니다.
+ * - 프레즌스 변경도 같은 tick 으로 모아, 한 tick 안의 같은 사용자 변경은 최신 상태 하나만 보냅니다.
+ *
+ * 사용자/참여자 확인은 {@link RoomMembershipCache} 로 하므로, 캐시가 채워진 뒤에는 DB 를 읽지 않습니다.
+ *
+ * 서버가 여러 대일 때(stomp-broker.mode=RELAY/EMBEDDED)
+ * - 입력 중 이벤트는 보낸 사람이 연결된 노드로만 들어오므로, 노드마다 자기 목록만 알면 서로 다른 목록을 보내 덮어씁니다.
+ * - 그래서 자기 목록이 바뀌면 {@link ClusterEvents} 로 다른 노드에 알리고, 각 노드는 "내 목록 + 다른 노드 목록"을 합쳐 보냅니다.
+ *   모든 노드가 같은 합친 목록을 보내므로 마지막 프레임이 무엇이든 같습니다(노드 수만큼 같은 프레임이 갈 수 있음).
+ * - 목록이 그대로여도 typing-ttl 의 절반마다 다시 알려 줍니다. 다른 노드 목록은 typing-ttl 동안 소식이 없으면
+ *   (노드가 죽었거나 이벤트가 사라짐) 빼므로, 한 노드의 목록이 영원히 남지 않습니다.
+ */
+@Component
+@Slf4j
+public class RoomActivityCoalescer {
+
+    static final String TYPING_EVENT = "room-typing";
+
+    private final RoomActivityProperties properties;
+    private final SimpMessagingTemplate messagingTemplate;
+    private final RoomMembershipCache roomMembershipCache;
+    private final ClusterEvents clusterEvents;
+    // 방 id → 입력 중 목록/보낼 프레즌스. 모든 변경은 compute 안에서 하므로 방 단위로 원자적입니다.
+    private final Map<Long, RoomActivity> rooms = new ConcurrentHashMap<>();
+    private final Counter typingFrames;
+    private final Counter presenceFrames;
+    private final Counter presenceCoalesced;
+
+    public RoomActivityCoalescer(RoomActivityProperties properties,
+                                 SimpMessagingTemplate messagingTemplate,
+                                 RoomMembershipCache roomMembershipCache,
+                                 ClusterEvents clusterEvents,
+                                 MeterRegistry meterRegistry) {
+        this.properties = properties;
+        this.messagingTemplate = messagingTemplate;
+        this.roomMembershipCache = roomMembershipCache;
+        this.clusterEvents = clusterEvents;
+        this.typingFrames = Counter.builder("room.activity.frames").tag("type", "typing")
+                .description("방으로 보낸 입력 중 목록 프레임 수")
+                .register(meterRegistry);
+        this.presenceFrames = Counter.builder("room.activity.frames").tag("type", "presence")
+                .description("방으로 보낸 프레즌스 프레임 수")
+                .register(meterRegistry);
+        this.presenceCoalesced = Counter.builder("room.activity.presence.coalesced")
+                .description("같은 tick 안에서 최신 상태로 덮여 보내지 않은 프레즌스 변경 수")
+                .register(meterRegistry);
+        clusterEvents.subscribe(TYPING_EVENT, NodeTyping.class, this::remoteTyping);
+    }
+
+    /**
+     * 입력 중 상태를 기록합니다(typing=false 면 목록에서 뺌). 방 참여자가 아니면 무시합니다.
+     */
+    public void typing(Long roomId, String providerId, boolean typing) {
+        if (roomId == null || providerId == null) {
+            return;
+        }
+        if (!typing) {
+            rooms.computeIfPresent(roomId, (id, room) -> {
+                room.stopTyping(providerId);
+                return room;
+            });
+            return;
+        }
+        RoomMembershipCache.Sender sender = roomMembershipCache.findSender(providerId);
+        if (sender == null || !roomMembershipCache.members(roomId).contains(sender.userId())) {
+            return;
+        }
+        Typer typer = new Typer(sender.providerId(), sender.userId(), sender.nickname());
+        long expiresAt = System.nanoTime() + properties.getTypingTtl().toNanos();
+        rooms.compute(roomId, (id, room) -> {
+            RoomActivity activity = room != null ? room : new RoomActivity();
+            activity.startTyping(typer, expiresAt);
+            return activity;
+        });
+    }
+
+    /**
+     * 다른 노드의 입력 중 목록을 기록합니다(다음 tick 에 합친 목록이 바뀌었으면 보냄).
+     */
+    private void remoteTyping(NodeTyping event) {
+        if (event.roomId() == null || event.typers() == null) {
+            return;
+        }
+        long expiresAt = System.nanoTime() + properties.getTypingTtl().toNanos();
+        rooms.compute(event.roomId(), (id, room) -> {
+            RoomActivity activity = room != null ? room : new RoomActivity();
+            activity.remoteTyping(event.node(), event.typers(), event.count(), expiresAt);
+            return activity;
+        });
+    }
+
+    /**
+     * 프레즌스 변경을 다음 tick 에 보내도록 모읍니다(coalesce-presence 가 꺼져 있으면 바로 보냄).
+     */
+    public void presence(Long roomId, PresencePayload payload) {
+        if (!properties.isCoalescePresence()) {
+            sendPresence(roomId, payload);
+            return;
+        }
+        rooms.compute(roomId, (id, room) -> {
+            RoomActivity activity = room != null ? room : new RoomActivity();
+            if (activity.presence(payload)) {
+                presenceCoalesced.increment();
+            }
+            return activity;
+        });
+    }
+
+    /**
+     * 바뀐 방마다 입력 중 목록 프레임 하나와 사용자별 최신 프레즌스를 보냅니다.
+     * 서버가 여러 대면 이 노드의 입력 중 목록도 다른 노드에 알립니다.
+     * 전송은 compute 밖에서 하므로 전송이 느려도 이벤트 기록을 막지 않습니다.
+     */
+    @Scheduled(fixedRateString = "#{@roomActivityProperties.tick.toMillis()}")
+    public void flush() {
+        long now = System.nanoTime();
+        // 다른 노드에 목록을 다시 알리는 간격(서버 한 대면 -1: 알리지 않음)
+        long shareEvery = clusterEvents.isEnabled() ? properties.getTypingTtl().toNanos() / 2 : -1;
+        for (Long roomId : rooms.keySet()) {
+            Drained[] drained = new Drained[1];
+            rooms.computeIfPresent(roomId, (id, room) -> {
+                drained[0] = room.drain(now, properties.getMaxTypers(), shareEvery);
+                return room.isIdle() ? null : room;
+            });
+            if (drained[0] == null) {
+                continue;
+            }
+            if (drained[0].shared() != null) {
+                clusterEvents.publish(TYPING_EVENT, drained[0].shared().withRoom(roomId, clusterEvents.nodeId()));
+            }
+            try {
+                for (PresencePayload payload : drained[0].presences()) {
+                    sendPresence(roomId, payload);
+                }
+                if (drained[0].typing() != null) {
+                    // 느린 세션에는 밀린 목록 중 최신 하나만 전달되도록 합치기 키를 붙입니다.
+                    messagingTemplate.convertAndSend("/topic/rooms/" + roomId + "/typing", drained[0].typing(),
+                            Map.of(StompSlowConsumerInterceptor.COALESCE_KEY_HEADER, "typing"));
+                    typingFrames.increment();
+                }
+            } catch (MessagingException e) {
+                log.warn("입력 중/프레즌스 전송 실패: roomId={}, cause={}", roomId, e.getMessage());
+            }
+        }
+    }
+
+    private void sendPresence(Long roomId, PresencePayload payload) {
+        // 같은 사용자의 상태 프레임은 느린 세션에서 최신 하나로 합쳐지도록 providerId 를 합치기 키로 붙입니다.
+        messagingTemplate.convertAndSend("/topic/rooms/" + roomId + "/presence", payload,
+                Map.of(StompSlowConsumerInterceptor.COALESCE_KEY_HEADER, payload.providerId()));
+        presenceFrames.increment();
+    }
+
+    /** 입력 중인 사람 한 명 */
+    public record Typer(String providerId, Long userId, String nickname) {}
+
+    /**
+     * 입력 중 목록 프레임(/topic/rooms/{roomId}/typing)
+     * - typers: 입력 중인 사람(최대 max-typers 명), count: 전체 인원. 빈 목록이면 아무도 입력 중이 아닙니다.
+     */
+    public record TypingPayload(String type, List<Typer> typers, int count) {}
+
+    /**
+     * 다른 노드로 보내는 "이 노드의 입력 중 목록"(typers: 최대 max-typers 명, count: 이 노드의 전체 인원)
+     */
+    record NodeTyping(Long roomId, int node, List<Typer> typers, int count) {
+        NodeTyping withRoom(Long roomId, int node) {
+            return new NodeTyping(roomId, node, typers, count);
+        }
+    }
+
+    private record Drained(TypingPayload typing, List<PresencePayload> presences, NodeTyping shared) {}
+
+    private record TypingEntry(Typer typer, long expiresAtNanos) {}
+
+    private record RemoteTyping(List<Typer> typers, int count, long expiresAtNanos) {}
+
+    /** 방 하나의 상태(항상 rooms 의 compute 안에서만 접근) */
+    private static final class RoomActivity {
+        private final LinkedHashMap<String, TypingEntry> typers = new LinkedHashMap<>();
+        private final LinkedHashMap<String, PresencePayload> presences = new LinkedHashMap<>();
+        // 노드 번호 → 그 노드의 입력 중 목록
+        private final Map<Integer, RemoteTyping> remote = new HashMap<>();
+        // 보낼 목록(이 노드 + 다른 노드)이 바뀜
+        private boolean typingChanged;
+        // 이 노드의 목록이 바뀜(다른 노드에 알릴 것)
+        private boolean localChanged;
+        private long sharedAtNanos;
+
+        void startTyping(Typer typer, long expiresAtNanos) {
+            if (typers.put(typer.providerId(), new TypingEntry(typer, expiresAtNanos)) == null) {
+                typingChanged = true;
+                localChanged = true;
+            }
+        }
+
+        void stopTyping(String providerId) {
+            if (typers.remove(providerId) != null) {
+                typingChanged = true;
+                localChanged = true;
+            }
+        }
+
+        void remoteTyping(int node, List<Typer> list, int count, long expiresAtNanos) {
+            RemoteTyping previous = list.isEmpty()
+                    ? remote.remove(node)
+                    : remote.put(node, new RemoteTyping(List.copyOf(list), count, expiresAtNanos));
+            boolean same = previous == null
+                    ? list.isEmpty()
+                    : !list.isEmpty() && previous.count() == count && previous.typers().equals(list);
+            if (!same) {
+                typingChanged = true;
+            }
+        }
+
+        /** @return 같은 사용자의 이전 변경을 덮었으면 true */
+        boolean presence(PresencePayload payload) {
+            return presences.put(payload.providerId(), payload) != null;
+        }
+
+        /**
+         * @param shareEveryNanos 목록이 그대로여도 다른 노드에 다시 알리는 간격(음수면 알리지 않음)
+         */
+        Drained drain(long now, int maxTypers, long shareEveryNanos) {
+            if (typers.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0)) {
+                typingChanged = true;
+                localChanged = true;
+            }
+            if (remote.values().removeIf(entry -> entry.expiresAtNanos() - now <= 0)) {
+                typingChanged = true;
+            }
+            TypingPayload typing = null;
+            if (typingChanged) {
+                typing = merged(maxTypers);
+                typingChanged = false;
+            }
+            NodeTyping shared = null;
+            if (shareEveryNanos < 0) {
+                localChanged = false;
+            } else if (localChanged || !typers.isEmpty() && now - sharedAtNanos >= shareEveryNanos) {
+                // 방 id 와 노드 번호는 보내는 쪽에서 채웁니다.
+                shared = new NodeTyping(null, 0, localTypers(maxTypers), typers.size());
+                localChanged = false;
+                sharedAtNanos = now;
+            }
+            List<PresencePayload> pending = presences.isEmpty() ? List.of() : new ArrayList<>(presences.values());
+            presences.clear();
+            return typing == null && pending.isEmpty() && shared == null ? null : new Drained(typing, pending, shared);
+        }
+
+        private List<Typer> localTypers(int maxTypers) {
+            List<Typer> list = new ArrayList<>(Math.min(typers.size(), maxTypers));
+            for (TypingEntry entry : typers.values()) {
+                if (list.size() >= maxTypers) break;
+                list.add(entry.typer());
+            }
+            return list;
+        }
+
+        // 이 노드 목록 뒤에 다른 노드 목록을 붙입니다(여러 노드에서 입력 중인 같은 사람은 한 번만).
+        private TypingPayload merged(int maxTypers) {
+            List<Typer> list = localTypers(maxTypers);
+            if (remote.isEmpty()) {
+                return new TypingPayload("TYPING", list, typers.size());
+            }
+            Set<String> seen = new HashSet<>(typers.keySet());
+            int count = typers.size();
+            for (RemoteTyping node : remote.values()) {
+                int listed = 0;
+                for (Typer typer : node.typers()) {
+                    listed++;
+                    if (!seen.add(typer.providerId())) {
+                        continue;
+                    }
+                    count++;
+                    if (list.size() < maxTypers) {
+                        list.add(typer);
+                    }
+                }
+                // 그 노드가 목록에 다 담지 못한 인원
+                count += Math.max(0, node.count() - listed);
+            }
+            return new TypingPayload("TYPING", list, count);
+        }
+
+        boolean isIdle() {
+            return typers.isEmpty() && remote.isEmpty() && presences.isEmpty() && !typingChanged && !localChanged;
+        }
+    }
+}
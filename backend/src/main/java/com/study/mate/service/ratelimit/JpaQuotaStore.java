@@ -0,0 +1,79 @@
+package com.study.mate.service.ratelimit;
+
+import com.study.mate.entity.AIQuotaUsage;
+import com.study.mate.repository.AIQuotaUsageRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+
+/**
+ * DB 테이블(ai_quota_usage)을 클러스터 공유 저장소로 쓰는 구현.
+ *
+ * - 임대는 행 잠금(SELECT ... FOR UPDATE) 안에서 "남은 한도 확인 → 누계 증가"를 한 트랜잭션으로 처리합니다.
+ * - 오늘 첫 임대라 행이 없으면 새로 만들고, 다른 노드와 동시에 만들다 유니크 제약에 걸리면 한 번 더 시도합니다.
+ * - 요청마다가 아니라 "임대분을 다 썼을 때"만 호출되므로 DB 부하는 (요청 수 / 청크 크기)에 비례합니다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "quota-store", havingValue = "jdbc")
+@Slf4j
+public class JpaQuotaStore implements QuotaStore {
+
+    private final AIQuotaUsageRepository repository;
+    private final TransactionTemplate tx;
+
+    public JpaQuotaStore(AIQuotaUsageRepository repository, PlatformTransactionManager transactionManager) {
+        this.repository = repository;
+        this.tx = new TransactionTemplate(transactionManager);
+    }
+
+    @Override
+    public Lease lease(String providerId, long epochDay, int requests, int tokens, int requestLimit, int tokenLimit) {
+        try {
+            return tx.execute(status -> leaseInTx(providerId, epochDay, requests, tokens, requestLimit, tokenLimit));
+        } catch (DataIntegrityViolationException e) {
+            // 다른 노드가 같은 (사용자, 일자) 행을 먼저 만든 경우: 이제 행이 있으므로 잠금 조회 경로로 다시 시도
+            log.debug("한도 행 동시 생성 감지, 재시도: providerId={}, epochDay={}", providerId, epochDay);
+            return tx.execute(status -> leaseInTx(providerId, epochDay, requests, tokens, requestLimit, tokenLimit));
+        }
+    }
+
+    private Lease leaseInTx(String providerId, long epochDay, int requests, int tokens, int requestLimit, int tokenLimit) {
+        AIQuotaUsage usage = repository.findByProviderIdAndEpochDay(providerId, epochDay)
+                .orElseGet(() -> repository.saveAndFlush(AIQuotaUsage.builder()
+                        .providerId(providerId)
+                        .epochDay(epochDay)
+                        .requests(0)
+                        .tokens(0)
+                        .build()));
+        int grantedRequests = Math.max(0, Math.min(requests, requestLimit - usage.getRequests()));
+        int grantedTokens = Math.max(0, Math.min(tokens, tokenLimit - usage.getTokens()));
+        if (grantedRequests > 0 || grantedTokens > 0) {
+            usage.add(grantedRequests, grantedTokens);
+        }
+        return new Lease(grantedRequests, grantedTokens,
+                requestLimit - usage.getRequests(), tokenLimit - usage.getTokens());
+    }
+
+    @Override
+    public void release(String providerId, long epochDay, int requests, int tokens) {
+        if (requests <= 0 && tokens <= 0) return;
+        tx.executeWithoutResult(status -> repository.findByProviderIdAndEpochDay(providerId, epochDay)
+                .ifPresent(usage -> usage.add(-requests, -tokens)));
+    }
+
+    /**
+     * 매일 자정 직후 지난 날짜의 사용량 행을 정리합니다.
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public void purgePastDays() {
+        long today = LocalDate.now().toEpochDay();
+        Integer deleted = tx.execute(status -> repository.deleteOlderThan(today));
+        log.info("지난 일일 한도 기록 정리: deleted={}", deleted);
+    }
+}
@@ -0,0 +1,158 @@
+package com.study.mate.service.ratelimit;
+
+import com.study.mate.util.RateLimitProperties;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 인메모리 공유 저장소 대역(stand-in).
+ *
+ * - 서버가 한 대이거나 테스트 환경일 때 사용합니다(기본값).
+ * - 키별 compute 로 임대를 원자적으로 처리합니다.
+ *
+ * 재시작 대비 스냅샷(rate-limit.snapshot-path 가 비어 있지 않을 때)
+ * - 배포/재시작 때마다 일일 한도가 초기화되지 않도록, 오늘 사용량을 {@link QuotaSnapshotJournal} 에 주기적으로 기록하고
+ *   시작 시 다시 읽어 옵니다.
+ * - 요청 경로(lease/release)는 "변경됨" 표시만 남기고, 디스크 기록은 스케줄러 스레드가 따로 합니다.
+ *   그래서 기록 비용은 그 사이 변경된 사용자 수에 비례하고, 요청 스레드는 디스크를 기다리지 않습니다.
+ * - 마지막 기록 이후 ~ 비정상 종료 사이(최대 snapshot-interval)의 사용량은 잃을 수 있습니다.
+ */
+@Component
+@ConditionalOnProperty(prefix = "rate-limit", name = "quota-store", havingValue = "local", matchIfMissing = true)
+@Slf4j
+public class LocalQuotaStore implements QuotaStore {
+
+    private final Map<String, Usage> usages = new ConcurrentHashMap<>();
+    // 마지막 스냅샷 이후 사용량이 바뀐 사용자
+    private final Set<String> dirty = ConcurrentHashMap.newKeySet();
+    // 스냅샷을 쓰지 않으면 null
+    private final QuotaSnapshotJournal journal;
+
+    public LocalQuotaStore(RateLimitProperties properties) {
+        this.journal = openJournal(properties);
+    }
+
+    @Override
+    public Lease lease(String providerId, long epochDay, int requests, int tokens, int requestLimit, int tokenLimit) {
+        int[] granted = new int[2];
+        Usage after = usages.compute(providerId, (k, cur) -> {
+            Usage base = (cur == null || cur.epochDay() != epochDay) ? new Usage(epochDay, 0, 0) : cur;
+            granted[0] = Math.max(0, Math.min(requests, requestLimit - base.requests()));
+            granted[1] = Math.max(0, Math.min(tokens, tokenLimit - base.tokens()));
+            return new Usage(epochDay, base.requests() + granted[0], base.tokens() + granted[1]);
+        });
+        markDirty(providerId);
+        return new Lease(granted[0], granted[1], requestLimit - after.requests(), tokenLimit - after.tokens());
+    }
+
+    @Override
+    public void release(String providerId, long epochDay, int requests, int tokens) {
+        usages.computeIfPresent(providerId, (k, cur) -> cur.epochDay() != epochDay ? cur
+                : new Usage(epochDay, Math.max(0, cur.requests() - requests), Math.max(0, cur.tokens() - tokens)));
+        markDirty(providerId);
+    }
+
+    /**
+     * 변경된 사용자의 현재 사용량만 저널에 덧붙입니다. 저널이 가득 차면 오늘 사용량 전체로 체크포인트를 만듭니다.
+     */
+    @Scheduled(fixedDelayString = "#{@rateLimitProperties.snapshotInterval.toMillis()}")
+    public synchronized void flushSnapshot() {
+        if (journal == null || dirty.isEmpty()) {
+            return;
+        }
+        try {
+            Iterator<String> it = dirty.iterator();
+            while (it.hasNext()) {
+                String providerId = it.next();
+                // 먼저 표시를 지우고 값을 읽어야, 그 사이의 변경이 다음 기록에서 빠지지 않습니다.
+                it.remove();
+                Usage u = usages.get(providerId);
+                if (u == null) continue;
+                if (!journal.append(new QuotaSnapshotJournal.Entry(providerId, u.epochDay(), u.requests(), u.tokens()))) {
+                    checkpoint();
+                    break;
+                }
+            }
+            journal.force();
+        } catch (IOException | RuntimeException e) {
+            log.warn("일일 사용량 스냅샷 기록 실패: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 매일 자정 직후 지난 날짜의 기록을 정리합니다.
+     */
+    @Scheduled(cron = "0 5 0 * * *")
+    public void purgePastDays() {
+        long today = LocalDate.now().toEpochDay();
+        usages.values().removeIf(u -> u.epochDay() < today);
+    }
+
+    /**
+     * 종료 직전 오늘 사용량 전체로 체크포인트를 만듭니다(RateLimiterService 가 먼저 미사용 임대분을 반납한 뒤 호출됨).
+     * 복구는 "더 큰 값"을 취하므로, 반납으로 줄어든 값은 저널 덧붙이기가 아닌 체크포인트로만 반영됩니다.
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (journal == null) return;
+        try {
+            dirty.clear();
+            checkpoint();
+            journal.close();
+        } catch (IOException e) {
+            log.warn("일일 사용량 종료 체크포인트 실패: {}", e.getMessage());
+        }
+    }
+
+    private void markDirty(String providerId) {
+        if (journal != null) {
+            dirty.add(providerId);
+        }
+    }
+
+    // 저널 공간이 부족할 때: 오늘 사용량 전체(활성 사용자 수만큼)를 스냅샷으로 쓰고 저널을 비웁니다.
+    private void checkpoint() throws IOException {
+        long today = LocalDate.now().toEpochDay();
+        List<QuotaSnapshotJournal.Entry> entries = new ArrayList<>();
+        usages.forEach((id, u) -> {
+            if (u.epochDay() == today) {
+                entries.add(new QuotaSnapshotJournal.Entry(id, u.epochDay(), u.requests(), u.tokens()));
+            }
+        });
+        journal.checkpoint(entries);
+        log.debug("일일 사용량 체크포인트 작성: entries={}", entries.size());
+    }
+
+    private QuotaSnapshotJournal openJournal(RateLimitProperties properties) {
+        String path = properties.getSnapshotPath();
+        if (path == null || path.isBlank()) {
+            return null;
+        }
+        try {
+            QuotaSnapshotJournal opened = new QuotaSnapshotJournal(Path.of(path), properties.getSnapshotJournalBytes());
+            long today = LocalDate.now().toEpochDay();
+            opened.load(today).forEach((id, e) -> usages.put(id, new Usage(e.epochDay(), e.requests(), e.tokens())));
+            log.info("일일 사용량 스냅샷 복구: users={}, path={}", usages.size(), path);
+            return opened;
+        } catch (IOException | RuntimeException e) {
+            // 스냅샷은 부가 기능이므로, 열 수 없으면 경고만 남기고 메모리로만 동작합니다.
+            log.warn("일일 사용량 스냅샷을 열 수 없어 메모리로만 동작합니다: path={}, cause={}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    private record Usage(long epochDay, int requests, int tokens) {}
+}
@@ -0,0 +1,209 @@
+package com.study.mate.service.ratelimit;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * 일일 사용량을 디스크에 남기는 작은 바이너리 저널입니다({@link LocalQuotaStore} 전용).
+ *
+ * 파일 구성
+ * - quota.journal: 고정 크기로 메모리 매핑(mmap)한 추가 전용(append-only) 파일.
+ *   바뀐 사용자의 "현재 값"만 레코드로 덧붙이므로, 한 번의 기록 비용은 변경된 사용자 수에 비례합니다.
+ * - quota.snap: 체크포인트. 저널이 가득 차면 오늘 사용량 전체를 임시 파일에 쓰고 원자적으로 교체한 뒤,
+ *   저널 헤더의 세대(generation) 번호를 올려 이전 레코드를 한 번에 무효화합니다(파일을 0으로 지우지 않음).
+ *
+ * 장애 안전성
+ * - 레코드마다 길이와 CRC32 를 두어, 기록 도중 프로세스가 죽어 잘린 레코드는 읽을 때 버립니다.
+ * - 레코드는 증감분이 아닌 "그 시점의 누적값"이고, 복구 시 같은 사용자에 대해 더 큰 값을 취합니다.
+ *   그래서 체크포인트 도중 죽어 스냅샷과 저널이 겹쳐도 한도가 느슨해지는 쪽으로는 복구되지 않습니다.
+ *
+ * 레코드 형식: [len:int][crc:int][generation:long][epochDay:long][requests:int][tokens:int][idLen:short][id:UTF-8]
+ *
+ * 스레드 안전하지 않습니다. 호출 측(LocalQuotaStore)에서 한 스레드로만 사용합니다.
+ */
+final class QuotaSnapshotJournal implements Closeable {
+
+    private static final int JOURNAL_MAGIC = 0x51534A31; // "QSJ1"
+    private static final int SNAPSHOT_MAGIC = 0x51535331; // "QSS1"
+    // 헤더: magic(int) + generation(long)
+    private static final int HEADER_BYTES = 12;
+    private static final int RECORD_HEADER_BYTES = 8;
+    private static final int FIXED_PAYLOAD_BYTES = 8 + 8 + 4 + 4 + 2;
+
+    record Entry(String providerId, long epochDay, int requests, int tokens) {}
+
+    private final Path snapshotFile;
+    private final Path snapshotTempFile;
+    private final FileChannel journalChannel;
+    private final MappedByteBuffer journal;
+    private long generation;
+
+    QuotaSnapshotJournal(Path directory, int capacityBytes) throws IOException {
+        Files.createDirectories(directory);
+        this.snapshotFile = directory.resolve("quota.snap");
+        this.snapshotTempFile = directory.resolve("quota.snap.tmp");
+        this.journalChannel = FileChannel.open(directory.resolve("quota.journal"),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        this.journal = journalChannel.map(FileChannel.MapMode.READ_WRITE, 0, Math.max(capacityBytes, 4096));
+        if (journal.getInt(0) != JOURNAL_MAGIC) {
+            journal.putInt(0, JOURNAL_MAGIC);
+            journal.putLong(4, 0L);
+        }
+        this.generation = journal.getLong(4);
+        journal.position(HEADER_BYTES);
+    }
+
+    /**
+     * 스냅샷과 저널을 읽어 해당 일자의 사용량을 복구합니다. 끝에 잘린 레코드가 있으면 그 앞에서 멈추고,
+     * 이후 기록은 유효한 마지막 레코드 뒤부터 이어 씁니다.
+     */
+    Map<String, Entry> load(long epochDay) throws IOException {
+        Map<String, Entry> result = new HashMap<>();
+        if (Files.exists(snapshotFile)) {
+            ByteBuffer snap = ByteBuffer.wrap(Files.readAllBytes(snapshotFile));
+            if (snap.remaining() >= 8 && snap.getInt() == SNAPSHOT_MAGIC) {
+                int count = snap.getInt();
+                for (int i = 0; i < count; i++) {
+                    Entry e = readRecord(snap, -1);
+                    if (e == null) break;
+                    merge(result, e, epochDay);
+                }
+            }
+        }
+        ByteBuffer view = journal.duplicate();
+        view.position(HEADER_BYTES);
+        int validEnd = HEADER_BYTES;
+        while (true) {
+            Entry e = readRecord(view, generation);
+            if (e == null) break;
+            merge(result, e, epochDay);
+            validEnd = view.position();
+        }
+        journal.position(validEnd);
+        return result;
+    }
+
+    /**
+     * 레코드 하나를 저널 끝에 덧붙입니다. 공간이 부족하면 false 를 반환합니다(호출 측이 체크포인트).
+     */
+    boolean append(Entry e) {
+        byte[] id = e.providerId().getBytes(StandardCharsets.UTF_8);
+        int payloadLength = FIXED_PAYLOAD_BYTES + id.length;
+        int start = journal.position();
+        if (start + RECORD_HEADER_BYTES + payloadLength > journal.capacity()) {
+            return false;
+        }
+        ByteBuffer payload = ByteBuffer.allocate(payloadLength);
+        writePayload(payload, generation, e, id);
+        // 본문을 먼저 쓰고 길이/CRC 를 마지막에 채워, 중간에 죽으면 레코드 전체가 무효가 되게 합니다.
+        journal.position(start + RECORD_HEADER_BYTES);
+        journal.put(payload.array());
+        journal.putInt(start + 4, crc(payload.array()));
+        journal.putInt(start, payloadLength);
+        return true;
+    }
+
+    /**
+     * 전달받은 전체 사용량으로 스냅샷을 교체하고 저널을 비웁니다. 비용은 전달된 항목 수(오늘 활성 사용자 수)에 비례합니다.
+     */
+    void checkpoint(Collection<Entry> entries) throws IOException {
+        int bytes = 8;
+        for (Entry e : entries) {
+            bytes += RECORD_HEADER_BYTES + FIXED_PAYLOAD_BYTES + e.providerId().getBytes(StandardCharsets.UTF_8).length;
+        }
+        ByteBuffer out = ByteBuffer.allocate(bytes);
+        out.putInt(SNAPSHOT_MAGIC).putInt(entries.size());
+        for (Entry e : entries) {
+            byte[] id = e.providerId().getBytes(StandardCharsets.UTF_8);
+            ByteBuffer payload = ByteBuffer.allocate(FIXED_PAYLOAD_BYTES + id.length);
+            writePayload(payload, 0L, e, id);
+            out.putInt(payload.capacity()).putInt(crc(payload.array())).put(payload.array());
+        }
+        out.flip();
+        try (FileChannel ch = FileChannel.open(snapshotTempFile, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            while (out.hasRemaining()) {
+                ch.write(out);
+            }
+            ch.force(true);
+        }
+        Files.move(snapshotTempFile, snapshotFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // 세대 번호만 올리면 이전 레코드는 모두 무효가 되므로 저널 전체를 지울 필요가 없습니다.
+        generation++;
+        journal.putLong(4, generation);
+        journal.position(HEADER_BYTES);
+        if (journal.capacity() >= HEADER_BYTES + RECORD_HEADER_BYTES) {
+            journal.putInt(HEADER_BYTES, 0);
+        }
+        journal.force();
+    }
+
+    /** 매핑된 저널 내용을 디스크로 내보냅니다(전원 장애 대비). */
+    void force() {
+        journal.force();
+    }
+
+    @Override
+    public void close() throws IOException {
+        journal.force();
+        journalChannel.close();
+    }
+
+    private static void writePayload(ByteBuffer payload, long generation, Entry e, byte[] id) {
+        payload.putLong(generation)
+                .putLong(e.epochDay())
+                .putInt(e.requests())
+                .putInt(e.tokens())
+                .putShort((short) id.length)
+                .put(id);
+    }
+
+    // 유효한 레코드면 읽고 위치를 옮깁니다. 잘렸거나 CRC/세대가 맞지 않으면 null(위치는 그대로).
+    private static Entry readRecord(ByteBuffer buf, long expectedGeneration) {
+        int start = buf.position();
+        if (buf.remaining() < RECORD_HEADER_BYTES) return null;
+        int length = buf.getInt(start);
+        int crc = buf.getInt(start + 4);
+        if (length < FIXED_PAYLOAD_BYTES || length > buf.remaining() - RECORD_HEADER_BYTES) return null;
+        byte[] payload = new byte[length];
+        buf.get(start + RECORD_HEADER_BYTES, payload);
+        if (crc(payload) != crc) return null;
+        ByteBuffer p = ByteBuffer.wrap(payload);
+        long generation = p.getLong();
+        if (expectedGeneration >= 0 && generation != expectedGeneration) return null;
+        long epochDay = p.getLong();
+        int requests = p.getInt();
+        int tokens = p.getInt();
+        int idLength = p.getShort();
+        if (idLength < 0 || idLength != p.remaining()) return null;
+        byte[] id = new byte[idLength];
+        p.get(id);
+        buf.position(start + RECORD_HEADER_BYTES + length);
+        return new Entry(new String(id, StandardCharsets.UTF_8), epochDay, requests, tokens);
+    }
+
+    private static void merge(Map<String, Entry> result, Entry e, long epochDay) {
+        if (e.epochDay() != epochDay) return;
+        result.merge(e.providerId(), e, (a, b) -> new Entry(a.providerId(), epochDay,
+                Math.max(a.requests(), b.requests()), Math.max(a.tokens(), b.tokens())));
+    }
+
+    private static int crc(byte[] bytes) {
+        CRC32 crc = new CRC32();
+        crc.update(bytes);
+        return (int) crc.getValue();
+    }
+}
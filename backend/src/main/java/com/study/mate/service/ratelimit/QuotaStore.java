@@ -0,0 +1,41 @@
+package com.study.mate.service.ratelimit;
+
+/**
+ * 일일 AI 한도를 여러 서버 인스턴스가 함께 쓰기 위한 공유 저장소 추상화입니다.
+ *
+ * 동작 방식(한도 임대, quota leasing)
+ * - 각 노드는 요청마다 저장소에 가지 않고, 요청/토큰을 청크 단위로 "임대"받아 메모리에서 소진합니다.
+ * - 저장소는 오늘 임대해 준 총량만 기록하며, 총량이 일일 한도를 넘도록 임대하지 않습니다.
+ *   따라서 클러스터 전체 사용량은 한도를 넘지 않고, 다른 노드에 남은 미사용 임대분(최대 청크 크기)만큼 덜 쓸 수 있습니다.
+ *
+ * 구현체
+ * - {@link LocalQuotaStore}: 단일 인스턴스/테스트용 인메모리 구현(기본값)
+ * - {@link JpaQuotaStore}: DB 테이블(ai_quota_usage)을 공유 저장소로 쓰는 구현(rate-limit.quota-store=jdbc)
+ */
+public interface QuotaStore {
+
+    /**
+     * 오늘 한도에서 최대 (requests, tokens) 만큼 임대합니다. 남은 한도가 부족하면 남은 만큼만 임대합니다.
+     *
+     * @param providerId 사용자 식별자
+     * @param epochDay   일자 번호(LocalDate#toEpochDay)
+     * @param requests   임대 희망 요청 수
+     * @param tokens     임대 희망 토큰 수
+     * @param requestLimit 일일 요청 한도
+     * @param tokenLimit   일일 토큰 한도
+     * @return 실제 임대량과 임대 후 저장소에 남은 한도
+     */
+    Lease lease(String providerId, long epochDay, int requests, int tokens, int requestLimit, int tokenLimit);
+
+    /**
+     * 쓰지 않은 임대분을 반납합니다(메모리에서 항목을 정리할 때 호출).
+     */
+    void release(String providerId, long epochDay, int requests, int tokens);
+
+    /**
+     * 임대 결과
+     * - grantedRequests/grantedTokens: 이번에 임대된 양
+     * - remainingRequests/remainingTokens: 임대 후 저장소에 남은 한도(다른 노드 몫 포함)
+     */
+    record Lease(int grantedRequests, int grantedTokens, int remainingRequests, int remainingTokens) {}
+}
@@ -12,6 +12,7 @@ import org.springframework.context.annotation.Configuration;
 public class AppProperties {
     private String oauth2SuccessRedirectUrl;
     private String oauth2FailureRedirectUrl;
+    private int nodeId = -1; // 시간 순 id 발급기의 노드 번호(0~1023, -1이면 호스트 이름으로 결정, prod 는 APP_NODE_ID 필수)
 }
 
 
@@ -0,0 +1,25 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "chat-archive")
+// application.yml에서 오래된 채팅 메시지 보관(압축 세그먼트 파일) 관련 프로퍼티 값을 읽어오는 클래스
+public class ChatArchiveProperties {
+    private boolean enabled = false; // 보관 작업 사용 여부(꺼도 path 가 있으면 이미 보관된 파일은 기록 조회에 계속 쓰임)
+    private String path = ""; // 세그먼트 파일을 둘 디렉터리의 절대 경로(켜려면 필수, 서버가 여러 대면 모든 서버가 보는 공유 저장소)
+    private Duration olderThan = Duration.ofDays(90); // 이보다 오래된 메시지를 DB 에서 파일로 옮김
+    private int batchSize = 5000; // 한 번에 DB 에서 읽어 옮길 메시지 수
+    private int maxBatchesPerRun = 20; // 한 번 실행에 옮길 최대 묶음 수(남은 것은 다음 주기에 이어서 옮김)
+    private int blockMessages = 128; // 압축 블록 하나에 담을 메시지 수(인덱스 한 칸 = 블록 하나)
+    private int maxOpenSegments = 256; // 메모리 매핑해 열어 둘 세그먼트 파일 수 상한
+    private Duration segmentListTtl = Duration.ofMinutes(1); // 방별 세그먼트 목록을 다시 읽는 주기(다른 서버가 보관한 파일 반영, 보관 이벤트를 놓쳤을 때 대비)
+    private Duration interval = Duration.ofHours(1); // 보관 작업 주기
+}
@@ -0,0 +1,19 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "chat-broadcast")
+// application.yml에서 채팅 브로드캐스트 재시도 관련 프로퍼티 값을 읽어오는 클래스
+public class ChatBroadcastProperties {
+    private int maxAttempts = 3; // 첫 시도를 포함한 최대 전송 시도 횟수
+    private Duration initialBackoff = Duration.ofMillis(50); // 첫 재시도 전 대기(이후 2배씩 증가)
+    private Duration maxBackoff = Duration.ofSeconds(2); // 재시도 대기 상한
+}
@@ -0,0 +1,23 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "chat-history-cache")
+// application.yml에서 방별 최근 채팅 메모리 캐시(링 버퍼) 관련 프로퍼티 값을 읽어오는 클래스
+public class ChatHistoryCacheProperties {
+    private boolean enabled = true; // 캐시 사용 여부
+    private int capacity = 64; // 방마다 보관할 최근 메시지 수(2의 거듭제곱으로 올림)
+    private Duration idleTtl = Duration.ofMinutes(10); // 이 시간 동안 조회/메시지가 없으면 방 캐시 정리
+    private Duration sweepInterval = Duration.ofMinutes(1); // 정리 작업 주기
+    private int resumeMaxMessages = 200; // 구독 재개(x-last-seq) 때 한 번에 보충해 줄 최대 메시지 수(넘으면 truncated)
+    private int sequenceBlockSize = 100; // DB 에서 방 순번을 한 번에 예약할 개수(서버가 여러 대면 1, 순번이 서버별로 섞이지 않도록)
+    private Duration sequenceRefreshInterval = Duration.ofSeconds(5); // 다른 서버가 매긴 방별 마지막 순번을 읽어 오는 주기
+}
@@ -0,0 +1,23 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "chat-persistence")
+// application.yml에서 채팅 메시지 저장 방식(즉시 저장/모아서 저장) 관련 프로퍼티 값을 읽어오는 클래스
+public class ChatPersistenceProperties {
+    private Mode mode = Mode.SYNC; // SYNC(저장 후 방송) | WRITE_BEHIND(먼저 방송, 저장은 모아서)
+    private int queueCapacity = 10000; // 저장 대기열 최대 크기(가득 차면 그 메시지만 즉시 저장)
+    private int batchSize = 200; // 한 번에 INSERT 할 최대 메시지 수
+    private Duration flushInterval = Duration.ofMillis(200); // 대기열이 덜 찼어도 이 시간이 지나면 저장
+    private Duration retryBackoff = Duration.ofSeconds(1); // 저장 실패 시 재시도 전 대기 시간
+
+    public enum Mode { SYNC, WRITE_BEHIND }
+}
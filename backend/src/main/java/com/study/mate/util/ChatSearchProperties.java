@@ -0,0 +1,30 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "chat-search")
+// application.yml에서 채팅 기록 검색(2글자 단위 역색인) 관련 프로퍼티 값을 읽어오는 클래스
+public class ChatSearchProperties {
+    private boolean enabled = true; // 검색 색인 사용 여부
+    private boolean rebuildOnStartup = true; // 시작할 때 DB 의 채팅 기록으로 색인을 다시 만듦
+    private int rebuildFetchSize = 1000; // 색인 재구성 때 DB 에서 한 번에 받아 올 행 수
+    private Duration settleDelay = Duration.ofSeconds(2); // 새 메시지를 이 시간 동안 임시 목록에 두었다가 id 순으로 색인에 넣음
+    private Duration sealInterval = Duration.ofSeconds(1); // 임시 목록 → 색인 이동 주기
+    private boolean catchUp = false; // 다른 서버가 저장한 메시지도 DB 에서 주기적으로 읽어 색인(서버 여러 대일 때 켬)
+    private Duration catchUpInterval = Duration.ofSeconds(5); // catch-up 주기
+    private Duration catchUpLag = Duration.ofSeconds(10); // 늦게 저장되는 메시지(write-behind)를 놓치지 않도록 이만큼 겹쳐서 다시 읽음
+    private int maxQueryLength = 50; // 검색어 최대 길이
+    private int maxCandidates = 2000; // 요청 한 번에 DB 로 확인할 후보 메시지 수 상한(넘으면 다음 페이지로 이어감)
+    private int lateMergeSize = 256; // 늦게 도착한(색인 끝보다 작은 id) 메시지가 이만큼 모이면 세그먼트로 색인해 합침
+    private Duration lateMergeAge = Duration.ofSeconds(30); // 늦게 도착한 메시지가 적어도 이 시간이 지나면 합침
+    private Duration purgeInterval = Duration.ofMinutes(10); // 보관/삭제되어 DB 에 없는 메시지를 색인에서 빼는 주기
+    private Duration purgeLag = Duration.ofMinutes(10); // 이보다 최근 메시지는 아직 저장 중일 수 있어 정리하지 않음
+}
@@ -0,0 +1,20 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "llm-limit")
+// application.yml에서 LLM 동시 호출 수(적응형 한도) 관련 프로퍼티 값을 읽어오는 클래스
+public class LlmLimitProperties {
+    private int initialLimit = 8; // 시작 동시 호출 한도
+    private int minLimit = 1; // 아무리 느려도 이 이하로는 줄이지 않음
+    private int maxLimit = 64; // 아무리 빨라도 이 이상으로는 늘리지 않음
+    private double rttTolerance = 2.0; // 평소(장기) 지연의 몇 배까지를 정상으로 볼지
+    private double smoothing = 0.2; // 한도 변화를 얼마나 천천히 반영할지(0~1)
+    private double backoffRatio = 0.7; // 호출 실패(429/5xx/타임아웃 등) 시 한도에 곱할 비율
+}
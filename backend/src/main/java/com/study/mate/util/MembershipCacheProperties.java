@@ -0,0 +1,20 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "membership-cache")
+// application.yml에서 채팅 전송 경로의 방 참여자/사용자 정보 캐시 관련 프로퍼티 값을 읽어오는 클래스
+public class MembershipCacheProperties {
+    private Duration ttl = Duration.ofMinutes(10); // 명시적 무효화를 놓쳤을 때를 대비한 최대 보관 시간
+    private int maxRooms = 10000; // 보관할 최대 방 수(넘으면 오래된 항목부터 정리)
+    private int maxUsers = 50000; // 보관할 최대 사용자 수(넘으면 오래된 항목부터 정리)
+    private Duration sweepInterval = Duration.ofMinutes(1); // 만료 항목 정리 주기
+}
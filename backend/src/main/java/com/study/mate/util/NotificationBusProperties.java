@@ -0,0 +1,23 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "notification-bus")
+// application.yml에서 여러 서버 간 SSE 알림 전달(알림 버스) 관련 프로퍼티 값을 읽어오는 클래스
+public class NotificationBusProperties {
+    private String mode = "local"; // local(서버 한 대, 전달 없음) | jdbc(DB 아웃박스 테이블로 노드 간 전달)
+    private Duration pollInterval = Duration.ofMillis(200); // 발행분 쓰기 + 내 노드 앞으로 온 알림 읽기 주기
+    private int batchSize = 200; // 한 번에 읽을 아웃박스 행 수
+    private int maxPending = 10000; // 아직 DB 에 쓰지 못한 발행 대기 상한(넘치면 버림)
+    private Duration presenceTtl = Duration.ofSeconds(60); // 위치 힌트 유효 시간(노드가 죽으면 이 시간 뒤 무시)
+    private Duration presenceRefresh = Duration.ofSeconds(20); // 내 노드 위치 힌트 만료 시각을 늘리는 주기
+    private Duration outboxTtl = Duration.ofMinutes(1); // 받을 노드가 읽어 가지 않은 아웃박스 행을 지우는 기준
+}
@@ -0,0 +1,23 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "notification-delivery")
+// application.yml에서 SSE 알림 전송(연결별 대기열 + 전송 스레드) 관련 프로퍼티 값을 읽어오는 클래스
+public class NotificationDeliveryProperties {
+    private int workers = 2; // SSE 쓰기를 맡는 전송 스레드 수
+    private int queueCapacity = 64; // 연결(탭)마다 쌓아 둘 수 있는 알림 수(넘치면 느린 연결로 보고 끊음)
+    private int drainBatch = 32; // 전송 스레드가 한 연결에서 한 번에 보내는 최대 알림 수(다른 연결도 차례가 오도록)
+    private Duration heartbeatInterval = Duration.ofSeconds(30); // 연결마다 하트비트를 보내는 주기(그 사이 다른 프레임을 썼으면 생략)
+    private Duration heartbeatTick = Duration.ofSeconds(1); // 하트비트 휠이 한 칸씩 넘어가는 간격(주기 / tick 개의 칸으로 나눠 보냄)
+    private Duration writeTimeout = Duration.ofSeconds(10); // 쓰기 하나가 이보다 오래 걸리면 멈춘 연결로 보고 목록에서 뺌
+    private int stalledWorkerLimit = 32; // 멈춘 쓰기 대신 일하도록 더 띄울 수 있는 전송 스레드 최대 수(막힌 쓰기가 끝나면 다시 줄임)
+}
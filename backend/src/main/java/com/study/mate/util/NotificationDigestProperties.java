@@ -0,0 +1,20 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "notification-digest")
+// application.yml에서 채팅 알림 묶음(바쁜 방의 SSE 알림을 요약 하나로) 관련 프로퍼티 값을 읽어오는 클래스
+public class NotificationDigestProperties {
+    private boolean enabled = true; // 채팅 알림 묶음 사용 여부(끄면 메시지마다 알림)
+    private Duration window = Duration.ofSeconds(3); // 방에서 알림을 보낸 뒤 이 시간 동안 오는 채팅은 모아서 요약 하나로 보냄
+    private Duration flushInterval = Duration.ofMillis(500); // 끝난 묶음 창을 확인하는 주기
+    private int maxSenders = 3; // 요약 문구에 이름을 보여 줄 최대 인원(나머지는 "외 N명")
+}
@@ -0,0 +1,21 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "notification-replay")
+// application.yml에서 SSE 재연결 시 놓친 알림 다시 보내기(Last-Event-ID) 관련 프로퍼티 값을 읽어오는 클래스
+public class NotificationReplayProperties {
+    private boolean enabled = true; // 최근 알림 기록/재전송 사용 여부
+    private int perUser = 50; // 사용자마다 보관할 최근 알림 수
+    private int maxUsers = 10000; // 기록을 보관할 최대 사용자 수(넘으면 연결이 없는 사용자 중 가장 오래된 기록부터 정리)
+    private Duration idleTtl = Duration.ofMinutes(5); // 연결이 모두 끊긴 뒤 이 시간 동안 다시 연결하지 않으면 기록 정리
+    private Duration sweepInterval = Duration.ofMinutes(1); // 정리 작업 주기
+}
@@ -0,0 +1,26 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "rate-limit")
+// application.yml에서 AI 레이트 리미터 상태 관리 관련 프로퍼티 값을 읽어오는 클래스
+public class RateLimitProperties {
+    private Duration idleTtl = Duration.ofMinutes(10); // 이 시간 동안 요청이 없으면 정리 대상
+    private Duration sweepInterval = Duration.ofSeconds(5); // 정리 작업 주기(한 번에 한 세그먼트씩)
+    private int sweepSegments = 12; // 전체 키를 몇 조각으로 나눠 순환 정리할지
+    private int maxTrackedKeys = 50000; // 추적 키 상한(초과 시 분당 버킷이 덜 찼어도 유휴 키부터 정리)
+    private String quotaStore = "local"; // 일일 한도 공유 저장소: local(인메모리) | jdbc(DB 테이블, 다중 인스턴스용)
+    private int leaseRequests = 10; // 공유 저장소에서 한 번에 임대받을 요청 수
+    private int leaseTokens = 10000; // 공유 저장소에서 한 번에 임대받을 토큰 수
+    private String snapshotPath = "data/ratelimit"; // local 저장소의 일일 사용량 스냅샷 폴더(비우면 사용 안 함)
+    private Duration snapshotInterval = Duration.ofSeconds(5); // 변경분을 디스크에 기록하는 주기
+    private int snapshotJournalBytes = 4 * 1024 * 1024; // 저널 파일 크기(가득 차면 체크포인트 후 재사용)
+}
@@ -0,0 +1,18 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "read-receipt")
+// application.yml에서 읽음 위치(안 읽은 메시지 수) 저장 관련 프로퍼티 값을 읽어오는 클래스
+public class ReadReceiptProperties {
+    private Duration flushInterval = Duration.ofSeconds(5); // 바뀐 읽음 위치를 DB 에 모아서 쓰는 주기
+    private int batchSize = 500; // 한 번의 배치 UPDATE/INSERT 에 담을 행 수
+}
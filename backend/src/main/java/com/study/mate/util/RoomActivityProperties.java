@@ -0,0 +1,20 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "room-activity")
+// application.yml에서 입력 중 표시/프레즌스 알림 합치기 관련 프로퍼티 값을 읽어오는 클래스
+public class RoomActivityProperties {
+    private Duration tick = Duration.ofMillis(250); // 방마다 바뀐 내용을 모아 프레임 하나로 보내는 주기
+    private Duration typingTtl = Duration.ofSeconds(5); // 이 시간 동안 입력 중 이벤트가 없으면 목록에서 뺌
+    private int maxTypers = 10; // 입력 중 프레임에 담을 최대 인원(나머지는 count 로만 알림)
+    private boolean coalescePresence = true; // 프레즌스 변경도 tick 단위로 사용자별 최신 상태 하나로 합쳐 보냄
+}
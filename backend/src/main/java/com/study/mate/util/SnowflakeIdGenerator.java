@@ -0,0 +1,86 @@
+package com.study.mate.util;
+
+import java.time.Instant;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 시간 순으로 정렬되는 64비트 id 발급기(Snowflake/TSID 방식)입니다.
+ *
+ * 비트 구성: [0(부호) | 밀리초 41비트(2024-01-01 기준) | 노드 10비트 | 순번 12비트]
+ * - 같은 노드 안에서는 항상 증가하므로 id 자체를 "작성 순서"와 keyset 커서로 쓸 수 있습니다.
+ * - 노드 번호가 다르면 같은 밀리초에 만들어도 겹치지 않습니다(서버마다 app.node-id 를 다르게 지정).
+ *
+ * 락 없이 동작합니다
+ * - (밀리초 | 순번)을 AtomicLong 하나에 담아 compareAndSet 으로만 갱신합니다.
+ *
+ * 시계가 뒤로 가도 멈추지 않습니다(clock skew 허용)
+ * - 현재 시각이 마지막 발급 시각보다 이르면, 마지막 시각을 그대로 쓰며 순번만 올립니다.
+ * - 한 밀리초에 순번(4096개)을 다 쓰면 다음 밀리초를 "미리 빌려" 씁니다. 실제 시계가 따라오면 자연히 맞춰집니다.
+ *   그래서 예외를 던지거나 대기하지 않고, id 는 항상 증가합니다.
+ */
+public final class SnowflakeIdGenerator {
+
+    public static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+    private static final int NODE_BITS = 10;
+    private static final int SEQUENCE_BITS = 12;
+    public static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+    private static final long SEQUENCE_MASK = (1L << SEQUENCE_BITS) - 1;
+
+    // Hibernate 가 직접 만드는 IdentifierGenerator 와 스프링 빈이 같은 상태를 쓰도록 하나만 둡니다.
+    private static final SnowflakeIdGenerator SHARED = new SnowflakeIdGenerator(0);
+
+    // (경과 밀리초 << SEQUENCE_BITS) | 순번
+    private final AtomicLong state = new AtomicLong();
+    private volatile long nodeBits;
+    private volatile int nodeId;
+
+    public SnowflakeIdGenerator(int nodeId) {
+        setNodeId(nodeId);
+    }
+
+    public static SnowflakeIdGenerator shared() {
+        return SHARED;
+    }
+
+    public void setNodeId(int nodeId) {
+        if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+            throw new IllegalArgumentException("nodeId must be between 0 and " + MAX_NODE_ID + ": " + nodeId);
+        }
+        this.nodeId = nodeId;
+        this.nodeBits = (long) nodeId << SEQUENCE_BITS;
+    }
+
+    /** 이 발급기의 노드 번호(서버 인스턴스 식별에도 씀) */
+    public int getNodeId() {
+        return nodeId;
+    }
+
+    public long nextId() {
+        while (true) {
+            long current = state.get();
+            long now = System.currentTimeMillis() - EPOCH_MILLIS;
+            long last = current >>> SEQUENCE_BITS;
+            long next;
+            if (now > last) {
+                next = now << SEQUENCE_BITS;
+            } else {
+                // 같은 밀리초이거나 시계가 뒤로 간 경우: 마지막 시각 기준으로 순번만 올립니다(넘치면 다음 밀리초로 넘어감).
+                next = current + 1;
+            }
+            if (state.compareAndSet(current, next)) {
+                long millis = next >>> SEQUENCE_BITS;
+                return (millis << (NODE_BITS + SEQUENCE_BITS)) | nodeBits | (next & SEQUENCE_MASK);
+            }
+        }
+    }
+
+    /** id 에 담긴 생성 시각(epoch millis) */
+    public static long timestampOf(long id) {
+        return (id >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS;
+    }
+
+    /** 해당 시각 이전에 만들어진 모든 id 보다 큰, 그 시각의 가장 작은 id(시간 범위 조회용) */
+    public static long minIdAt(long epochMillis) {
+        return Math.max(0, epochMillis - EPOCH_MILLIS) << (NODE_BITS + SEQUENCE_BITS);
+    }
+}
@@ -0,0 +1,29 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "stomp-broker")
+// application.yml에서 STOMP 메시지 브로커(내부/외부 중계) 관련 프로퍼티 값을 읽어오는 클래스
+public class StompBrokerProperties {
+    private Mode mode = Mode.SIMPLE; // SIMPLE(서버 메모리) | RELAY(외부 브로커 중계) | EMBEDDED(서버 안에 브로커를 띄워 중계)
+    private String relayHost = "127.0.0.1"; // RELAY 모드에서 연결할 외부 STOMP 브로커 주소
+    private int relayPort = 61613; // 외부 STOMP 브로커 포트(EMBEDDED 모드에서는 띄울 포트)
+    private String clientLogin = "guest"; // 브라우저 세션마다 브로커에 연결할 때 쓰는 계정
+    private String clientPasscode = "guest";
+    private String systemLogin = "guest"; // 서버가 메시지를 보낼 때 쓰는 공용 연결 계정
+    private String systemPasscode = "guest";
+    private String virtualHost; // 브로커가 요구하면 CONNECT 의 host 헤더 값(비우면 relay-host 사용)
+    private Duration systemHeartbeat = Duration.ofSeconds(10); // 공용 연결의 하트비트 간격(끊김 감지)
+
+    public enum Mode {
+        SIMPLE, RELAY, EMBEDDED
+    }
+}
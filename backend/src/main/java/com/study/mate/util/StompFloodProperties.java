@@ -0,0 +1,37 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "stomp-flood")
+// application.yml에서 STOMP 수신 프레임 폭주 방지(토큰 버킷) 관련 프로퍼티 값을 읽어오는 클래스
+public class StompFloodProperties {
+    private boolean enabled = true; // 폭주 방지 사용 여부
+    private Action action = Action.DROP; // 한도 초과 프레임 처리: DROP(조용히 버림) | ERROR(STOMP ERROR 프레임 응답)
+    private double userFactor = 2.0; // 사용자 한도 = 세션 한도 × 이 값(여러 탭을 합친 상한)
+    private Limit chat = new Limit(5, 10); // /app/rooms/{id}/chat
+    private Limit presence = new Limit(2, 5); // /app/rooms/{id}/presence/update
+    private Limit heartbeat = new Limit(1, 3); // /app/rooms/{id}/presence/heartbeat
+    private Limit other = new Limit(10, 20); // 그 밖의 /app/** 전송
+
+    public enum Action { DROP, ERROR }
+
+    @Getter
+    @Setter
+    public static class Limit {
+        private double perSecond; // 초당 보충되는 프레임 수(0이면 제한 없음)
+        private int burst; // 한 번에 몰아서 허용할 수 있는 최대 프레임 수
+
+        public Limit() {}
+
+        public Limit(double perSecond, int burst) {
+            this.perSecond = perSecond;
+            this.burst = burst;
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package com.study.mate.util;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Getter
+@Setter
+@Configuration
+@ConfigurationProperties(prefix = "ws-transport")
+// application.yml에서 WebSocket 채널 스레드 풀/전송 한도/느린 구독자 정책 관련 프로퍼티 값을 읽어오는 클래스
+public class WebSocketTransportProperties {
+    private Pool inbound = new Pool(8, 32, 2000); // 브라우저 → 서버 프레임 처리 스레드 풀
+    private Pool outbound = new Pool(8, 32, 5000); // 서버 → 브라우저 프레임 전송 스레드 풀
+    private Duration sendTimeLimit = Duration.ofSeconds(10); // 한 세션에 보내기가 이 시간 이상 막히면 연결 종료
+    private int sendBufferSizeLimit = 512 * 1024; // 한 세션에 쌓아 둘 수 있는 전송 대기 바이트 상한(넘으면 연결 종료)
+    private int messageSizeLimit = 64 * 1024; // 브라우저가 보내는 프레임 한 개의 최대 크기
+    private Duration timeToFirstMessage = Duration.ofSeconds(30); // 연결 후 이 시간 안에 CONNECT 가 없으면 종료
+    private boolean coalesce = true; // 아직 못 보낸 같은 종류의 프레젠스 프레임은 최신 것 하나만 보냄
+    private int maxPendingFrames = 500; // 세션별 전송 대기 프레임이 이 수를 넘으면 느린 구독자로 보고 연결 종료
+    private boolean cbor = true; // CONNECT 에 "x-payload-encoding: cbor" 를 보낸 세션에는 본문을 CBOR 로 전송
+
+    @Getter
+    @Setter
+    public static class Pool {
+        private int corePoolSize; // 평소 유지하는 스레드 수
+        private int maxPoolSize; // 대기열이 가득 찼을 때 늘릴 수 있는 최대 스레드 수
+        private int queueCapacity; // 스레드를 기다리는 프레임 대기열 크기
+        private Duration keepAlive = Duration.ofSeconds(60); // core 를 넘는 스레드가 놀면 정리하는 시간
+
+        public Pool() {}
+
+        public Pool(int corePoolSize, int maxPoolSize, int queueCapacity) {
+            this.corePoolSize = corePoolSize;
+            this.maxPoolSize = maxPoolSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
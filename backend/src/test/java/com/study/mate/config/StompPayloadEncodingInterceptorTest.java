@@ -0,0 +1,133 @@
+package com.study.mate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.databind.CBORMapper;
+import com.study.mate.util.WebSocketTransportProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageChannel;
+import org.springframework.messaging.simp.SimpMessageHeaderAccessor;
+import org.springframework.messaging.simp.SimpMessageType;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.util.MimeType;
+import org.springframework.util.MimeTypeUtils;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+/**
+ * CONNECT 때 CBOR 를 고른 세션에만 JSON 본문을 CBOR 로 바꿔 보내고,
+ * 같은 본문을 여러 구독자에게 보낼 때는 한 번만 변환하는지 확인합니다.
+ */
+class StompPayloadEncodingInterceptorTest {
+
+    private static final String JSON = "{\"id\":1,\"roomId\":7,\"senderNickname\":\"김철수\",\"content\":\"안녕하세요\","
+            + "\"seq\":3,\"tags\":[true,null,1.5]}";
+
+    private final MessageChannel channel = mock(MessageChannel.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final WebSocketTransportProperties properties = new WebSocketTransportProperties();
+    private StompPayloadEncodingInterceptor interceptor;
+
+    @BeforeEach
+    void setUp() {
+        interceptor = new StompPayloadEncodingInterceptor(properties, meterRegistry);
+    }
+
+    @Test
+    void CBOR_를_고른_세션은_같은_내용을_더_작은_CBOR_로_받고_나머지는_JSON_그대로_받는다() throws Exception {
+        connect("cbor-session", "cbor");
+        connect("json-session", null);
+        byte[] json = JSON.getBytes(StandardCharsets.UTF_8);
+
+        Message<?> toCbor = interceptor.preSend(message("cbor-session", json, MimeTypeUtils.APPLICATION_JSON), channel);
+        Message<?> plain = message("json-session", json, MimeTypeUtils.APPLICATION_JSON);
+
+        assertThat(interceptor.preSend(plain, channel)).isSameAs(plain);
+        byte[] cbor = (byte[]) toCbor.getPayload();
+        assertThat(cbor.length).isLessThan(json.length);
+        assertThat(new CBORMapper().readTree(cbor)).isEqualTo(new ObjectMapper().readTree(json));
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.wrap(toCbor);
+        assertThat(accessor.getContentType()).isEqualTo(MimeTypeUtils.APPLICATION_OCTET_STREAM);
+        assertThat(accessor.getFirstNativeHeader(StompPayloadEncodingInterceptor.ENCODING_HEADER)).isEqualTo("cbor");
+        assertThat(accessor.getSessionId()).isEqualTo("cbor-session");
+    }
+
+    @Test
+    void 같은_본문을_여러_구독자에게_보내면_한_번만_변환하고_결과를_다시_쓴다() {
+        connect("a", "cbor");
+        connect("b", "CBOR");
+        connect("c", "cbor");
+        byte[] json = JSON.getBytes(StandardCharsets.UTF_8);
+
+        byte[] first = (byte[]) interceptor.preSend(message("a", json, MimeTypeUtils.APPLICATION_JSON), channel).getPayload();
+        byte[] second = (byte[]) interceptor.preSend(message("b", json, MimeTypeUtils.APPLICATION_JSON), channel).getPayload();
+        byte[] third = (byte[]) interceptor.preSend(message("c", json, MimeTypeUtils.APPLICATION_JSON), channel).getPayload();
+        // 내용이 같아도 다른 본문 객체(다른 메시지)면 새로 변환합니다.
+        interceptor.preSend(message("a", json.clone(), MimeTypeUtils.APPLICATION_JSON), channel);
+
+        assertThat(second).isSameAs(first);
+        assertThat(third).isSameAs(first);
+        assertThat(count("encoded")).isEqualTo(2);
+        assertThat(count("reused")).isEqualTo(2);
+    }
+
+    @Test
+    void JSON_이_아니거나_깨진_본문과_연결을_끊은_세션은_그대로_보낸다() {
+        connect("cbor-session", "cbor");
+        Message<?> text = message("cbor-session", "hello".getBytes(StandardCharsets.UTF_8), MimeTypeUtils.TEXT_PLAIN);
+        Message<?> broken = message("cbor-session", "{\"id\":".getBytes(StandardCharsets.UTF_8), MimeTypeUtils.APPLICATION_JSON);
+
+        assertThat(interceptor.preSend(text, channel)).isSameAs(text);
+        assertThat(interceptor.preSend(broken, channel)).isSameAs(broken);
+
+        interceptor.preSend(disconnect("cbor-session"), channel);
+        Message<?> afterDisconnect = message("cbor-session", JSON.getBytes(StandardCharsets.UTF_8), MimeTypeUtils.APPLICATION_JSON);
+        assertThat(interceptor.preSend(afterDisconnect, channel)).isSameAs(afterDisconnect);
+        assertThat(count("encoded")).isZero();
+    }
+
+    @Test
+    void 서버에서_CBOR_를_끄면_요청해도_JSON_으로_보낸다() {
+        properties.setCbor(false);
+        connect("cbor-session", "cbor");
+        Message<?> message = message("cbor-session", JSON.getBytes(StandardCharsets.UTF_8), MimeTypeUtils.APPLICATION_JSON);
+
+        assertThat(interceptor.preSend(message, channel)).isSameAs(message);
+    }
+
+    // 클라이언트가 보내는 CONNECT 프레임(encoding 이 null 이면 헤더 없이)
+    private void connect(String sessionId, String encoding) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.CONNECT);
+        accessor.setSessionId(sessionId);
+        if (encoding != null) {
+            accessor.setNativeHeader(StompPayloadEncodingInterceptor.ENCODING_HEADER, encoding);
+        }
+        interceptor.preSend(MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders()), channel);
+    }
+
+    private static Message<byte[]> disconnect(String sessionId) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.DISCONNECT);
+        accessor.setSessionId(sessionId);
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    // 브로커가 구독자 세션으로 내보내는 MESSAGE 프레임
+    private static Message<byte[]> message(String sessionId, byte[] payload, MimeType contentType) {
+        SimpMessageHeaderAccessor accessor = SimpMessageHeaderAccessor.create(SimpMessageType.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setDestination("/topic/rooms/7");
+        accessor.setContentType(contentType);
+        return MessageBuilder.createMessage(payload, accessor.getMessageHeaders());
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("ws.outbound.cbor").tag("result", result).counter().count();
+    }
+}
@@ -0,0 +1,342 @@
+package com.study.mate.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.dto.response.ChatMessageSliceResponse;
+import com.study.mate.entity.Provider;
+import com.study.mate.entity.User;
+import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.repository.RoomParticipantRepository;
+import com.study.mate.repository.UserRepository;
+import com.study.mate.repository.dto.RoomMemberRow;
+import com.study.mate.service.chat.RecentMessageCache;
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.chat.archive.ChatArchiveService;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.service.presence.RoomActivityCoalescer;
+import com.study.mate.util.ChatHistoryCacheProperties;
+import com.study.mate.util.MembershipCacheProperties;
+import com.study.mate.util.RoomActivityProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import com.study.mate.util.StompBrokerProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.converter.MappingJackson2MessageConverter;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+import org.springframework.messaging.simp.stomp.StompBrokerRelayMessageHandler;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 같은 STOMP 브로커(내장 Artemis)에 브로커 중계로 붙은 노드 두 개를 한 JVM 안에 띄워,
+ * 노드 메모리에 있는 최근 채팅 캐시/참여자 캐시/입력 중 목록이 다른 노드의 변경을 따라가는지 확인합니다.
+ * 한 노드에서 방송한 채팅이 다른 노드의 브라우저까지 가는 시간(백분위)도 잽니다.
+ */
+class StompRelayTwoNodeTest {
+
+    private static final Long ROOM_ID = 1L;
+    private static final Duration TIMEOUT = Duration.ofSeconds(15);
+    // 노드 간 전달 시간을 잴 메시지 수와 허용 상한(공유 CI 에서도 넘지 않을 만큼 넉넉하게, 보통 수 ms)
+    private static final int LATENCY_FRAMES = 2000;
+    private static final Duration P99_LIMIT = Duration.ofMillis(250);
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private EmbeddedStompBroker broker;
+    private Node nodeA;
+    private Node nodeB;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        Awaitility.setDefaultPollInterval(5, TimeUnit.MILLISECONDS);
+        StompBrokerProperties brokerProperties = new StompBrokerProperties();
+        brokerProperties.setMode(StompBrokerProperties.Mode.EMBEDDED);
+        brokerProperties.setRelayPort(freePort());
+        broker = new EmbeddedStompBroker(brokerProperties);
+        broker.start();
+
+        nodeA = new Node(1, brokerProperties.getRelayPort());
+        nodeB = new Node(2, brokerProperties.getRelayPort());
+        awaitLinked(nodeA, nodeB);
+        awaitLinked(nodeB, nodeA);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        nodeA.stop();
+        nodeB.stop();
+        broker.stop();
+        Awaitility.reset();
+    }
+
+    @Test
+    void 다른_노드에서_방송한_메시지도_최근_채팅_캐시에서_보인다() {
+        // B 가 먼저 방을 읽어 둡니다(DB 에는 아직 메시지가 없음).
+        assertThat(nodeB.recentMessages.findBefore(ROOM_ID, null, 10).messages()).isEmpty();
+
+        for (long seq = 1; seq <= 3; seq++) {
+            nodeA.recentMessages.append(ROOM_ID, message(seq));
+        }
+
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            ChatMessageSliceResponse slice = nodeB.recentMessages.findBefore(ROOM_ID, null, 10);
+            assertThat(slice).isNotNull();
+            assertThat(slice.messages()).extracting(ChatMessageResponse::seq).containsExactly(3L, 2L, 1L);
+        });
+    }
+
+    @Test
+    void 중간_순번이_빠진_채로는_캐시로_응답하지_않고_DB_로_읽는다() {
+        nodeA.recentMessages.append(ROOM_ID, message(1));
+        // 2번 이벤트가 사라진 상황: B 에는 1, 3 만 도착합니다.
+        nodeA.recentMessages.append(ROOM_ID, message(3));
+
+        // 이벤트가 오기 전의 빈 방도 "2번 뒤로는 없음"(빈 목록)으로 답하므로, 3번이 보일 때까지 기다립니다.
+        await().atMost(TIMEOUT).untilAsserted(() -> assertThat(nodeB.recentMessages.findAfterSeq(ROOM_ID, 2))
+                .isNotNull().extracting(ChatMessageResponse::seq).containsExactly(3L));
+        assertThat(nodeB.recentMessages.findBefore(ROOM_ID, null, 10)).isNull();
+        // 3번 다음 페이지(3번보다 오래된 것)도 1번부터 응답하면 2번이 빠지므로 DB 로 읽습니다.
+        assertThat(nodeB.recentMessages.findBefore(ROOM_ID, 300L, 10)).isNull();
+    }
+
+    @Test
+    void 다른_노드에서_참여자가_바뀌면_내_노드의_참여자_캐시도_지워진다() {
+        when(nodeB.participants.findMemberRows(ROOM_ID)).thenReturn(List.of(new RoomMemberRow(10L, "kim")));
+        assertThat(nodeB.membership.members(ROOM_ID).userIds()).containsExactly(10L);
+
+        // A 에서 입장 처리(DB 변경 + 캐시 무효화)
+        when(nodeB.participants.findMemberRows(ROOM_ID))
+                .thenReturn(List.of(new RoomMemberRow(10L, "kim"), new RoomMemberRow(20L, "lee")));
+        nodeA.membership.evictRoom(ROOM_ID);
+
+        await().atMost(TIMEOUT).untilAsserted(() ->
+                assertThat(nodeB.membership.members(ROOM_ID).userIds()).containsExactlyInAnyOrder(10L, 20L));
+    }
+
+    @Test
+    void 노드마다_입력_중인_사람이_달라도_방에는_합친_목록이_간다() {
+        // 브라우저 하나가 B 를 통해 방의 입력 중 주소를 구독합니다.
+        List<String> frames = nodeB.subscribe("browser-1", "/topic/rooms/" + ROOM_ID + "/typing");
+
+        nodeA.typing.typing(ROOM_ID, "kim", true);
+        nodeB.typing.typing(ROOM_ID, "lee", true);
+
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            nodeA.typing.flush();
+            nodeB.typing.flush();
+            assertThat(frames).isNotEmpty();
+            String last = frames.get(frames.size() - 1);
+            assertThat(last).contains("\"kim\"", "\"lee\"", "\"count\":2");
+        });
+
+        // A 에서 입력을 멈추면 합친 목록에서도 빠집니다.
+        nodeA.typing.typing(ROOM_ID, "kim", false);
+        await().atMost(TIMEOUT).untilAsserted(() -> {
+            nodeA.typing.flush();
+            nodeB.typing.flush();
+            String last = frames.get(frames.size() - 1);
+            assertThat(last).contains("\"lee\"", "\"count\":1").doesNotContain("\"kim\"");
+        });
+    }
+
+    @Test
+    void 다른_노드의_브라우저까지_가는_시간의_p99_가_상한_안이다() throws Exception {
+        // A 가 방송할 때의 시각(nanoTime, 같은 JVM)을 본문에 넣고, B 의 브라우저 세션이 받은 시각과 뺍니다.
+        long[] latencies = new long[LATENCY_FRAMES];
+        AtomicInteger received = new AtomicInteger();
+        AtomicBoolean warmedUp = new AtomicBoolean();
+        String destination = "/topic/rooms/" + ROOM_ID;
+        nodeB.subscribe("browser-1", destination, body -> {
+            long arrivedAt = System.nanoTime();
+            ChatMessageResponse message = readMessage(body);
+            if (message.seq() < 0) {
+                warmedUp.set(true);
+            } else if (message.seq() < LATENCY_FRAMES) {
+                latencies[(int) (long) message.seq()] = arrivedAt - Long.parseLong(message.content());
+                received.incrementAndGet();
+            }
+        });
+        // 구독이 브로커에 등록될 때까지 시험 메시지를 보냅니다.
+        await().atMost(TIMEOUT).until(() -> {
+            nodeA.messagingTemplate.convertAndSend(destination, timed(-1));
+            return warmedUp.get();
+        });
+
+        for (int i = 0; i < LATENCY_FRAMES; i++) {
+            nodeA.messagingTemplate.convertAndSend(destination, timed(i));
+            // 한꺼번에 몰아 보내 줄 서는 시간을 재지 않도록 초당 약 2,000건으로 나눠 보냅니다.
+            LockSupport.parkNanos(500_000);
+        }
+        await().atMost(TIMEOUT).until(() -> received.get() == LATENCY_FRAMES);
+
+        Arrays.sort(latencies);
+        Duration p50 = Duration.ofNanos(latencies[LATENCY_FRAMES / 2]);
+        Duration p99 = Duration.ofNanos(latencies[LATENCY_FRAMES * 99 / 100]);
+        Duration max = Duration.ofNanos(latencies[LATENCY_FRAMES - 1]);
+        assertThat(p99)
+                .as("노드 간 전달 시간 p50=%dus, p99=%dus, max=%dus", p50.toNanos() / 1000, p99.toNanos() / 1000, max.toNanos() / 1000)
+                .isLessThan(P99_LIMIT);
+    }
+
+    // from 이 보낸 이벤트를 to 가 받을 때까지 기다립니다(공용 연결의 구독이 브로커에 등록되는 시간).
+    private static void awaitLinked(Node from, Node to) {
+        AtomicBoolean linked = new AtomicBoolean();
+        to.clusterEvents.subscribe("ping", String.class, ignored -> linked.set(true));
+        await().atMost(TIMEOUT).until(() -> {
+            from.clusterEvents.publish("ping", "hello");
+            return linked.get();
+        });
+    }
+
+    private static ChatMessageResponse message(long seq) {
+        return new ChatMessageResponse(seq * 100, ROOM_ID, 10L, "kim", null, "hello-" + seq, LocalDateTime.now(), seq);
+    }
+
+    // 본문에 보낸 시각(nanoTime)을 담은 채팅 메시지
+    private static ChatMessageResponse timed(long seq) {
+        return new ChatMessageResponse(seq, ROOM_ID, 10L, "kim", null, Long.toString(System.nanoTime()), LocalDateTime.now(), seq);
+    }
+
+    private ChatMessageResponse readMessage(String body) {
+        try {
+            return objectMapper.readValue(body, ChatMessageResponse.class);
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static int freePort() throws IOException {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        }
+    }
+
+    /** 노드 하나: 채널 3개 + 브로커 중계기 + 노드 간 이벤트 + 캐시들(DB 는 목) */
+    private final class Node {
+        final ExecutorSubscribableChannel clientInbound = new ExecutorSubscribableChannel();
+        final ExecutorSubscribableChannel clientOutbound = new ExecutorSubscribableChannel();
+        final ExecutorSubscribableChannel brokerChannel = new ExecutorSubscribableChannel();
+        final StompBrokerRelayMessageHandler relay;
+        final SimpMessagingTemplate messagingTemplate;
+        final ClusterEvents clusterEvents;
+        final RoomParticipantRepository participants = mock(RoomParticipantRepository.class);
+        final RecentMessageCache recentMessages;
+        final RoomMembershipCache membership;
+        final RoomActivityCoalescer typing;
+
+        Node(int nodeId, int brokerPort) {
+            SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+            StompBrokerProperties properties = new StompBrokerProperties();
+            properties.setMode(StompBrokerProperties.Mode.RELAY);
+            properties.setRelayPort(brokerPort);
+
+            relay = new StompBrokerRelayMessageHandler(clientInbound, clientOutbound, brokerChannel, List.of("/topic", "/queue"));
+            relay.setRelayHost(properties.getRelayHost());
+            relay.setRelayPort(brokerPort);
+            messagingTemplate = new SimpMessagingTemplate(brokerChannel);
+            MappingJackson2MessageConverter converter = new MappingJackson2MessageConverter();
+            converter.setObjectMapper(objectMapper);
+            messagingTemplate.setMessageConverter(converter);
+            clusterEvents = new ClusterEvents(properties, messagingTemplate, objectMapper,
+                    new SnowflakeIdGenerator(nodeId), relay, meterRegistry);
+
+            ChatMessageRepository messages = mock(ChatMessageRepository.class);
+            when(messages.findRecentMessagesByRoomId(anyLong(), any())).thenReturn(new SliceImpl<>(List.of()));
+            recentMessages = new RecentMessageCache(new ChatHistoryCacheProperties(), messages,
+                    mock(ChatArchiveService.class), clusterEvents, meterRegistry);
+
+            UserRepository users = mock(UserRepository.class);
+            when(users.findByProviderId(anyString())).thenAnswer(invocation -> Optional.of(user(invocation.getArgument(0))));
+            when(participants.findMemberRows(ROOM_ID))
+                    .thenReturn(List.of(new RoomMemberRow(userId("kim"), "kim"), new RoomMemberRow(userId("lee"), "lee")));
+            membership = new RoomMembershipCache(new MembershipCacheProperties(), participants, users, clusterEvents, meterRegistry);
+            typing = new RoomActivityCoalescer(new RoomActivityProperties(), messagingTemplate, membership, clusterEvents, meterRegistry);
+
+            relay.start();
+            await().atMost(TIMEOUT).until(relay::isBrokerAvailable);
+        }
+
+        /** 브라우저 세션 하나를 브로커 중계로 연결해 destination 을 구독하고, 받은 본문을 모읍니다. */
+        List<String> subscribe(String sessionId, String destination) {
+            List<String> frames = new CopyOnWriteArrayList<>();
+            subscribe(sessionId, destination, frames::add);
+            return frames;
+        }
+
+        /** 위와 같되, 받은 본문을 바로 listener 에 넘깁니다(받은 시각을 잴 때). */
+        void subscribe(String sessionId, String destination, Consumer<String> listener) {
+            AtomicBoolean connected = new AtomicBoolean();
+            clientOutbound.subscribe(message -> {
+                StompHeaderAccessor accessor = StompHeaderAccessor.wrap(message);
+                if (accessor.getCommand() == StompCommand.CONNECTED) {
+                    connected.set(true);
+                } else if (accessor.getCommand() == StompCommand.MESSAGE) {
+                    listener.accept(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+                }
+            });
+            StompHeaderAccessor connect = StompHeaderAccessor.create(StompCommand.CONNECT);
+            connect.setSessionId(sessionId);
+            connect.setAcceptVersion("1.2");
+            connect.setHeartbeat(0, 0);
+            clientInbound.send(frame(connect));
+            await().atMost(TIMEOUT).untilTrue(connected);
+
+            StompHeaderAccessor subscribe = StompHeaderAccessor.create(StompCommand.SUBSCRIBE);
+            subscribe.setSessionId(sessionId);
+            subscribe.setSubscriptionId("sub-1");
+            subscribe.setDestination(destination);
+            clientInbound.send(frame(subscribe));
+        }
+
+        void stop() {
+            relay.stop();
+        }
+    }
+
+    private static Message<byte[]> frame(StompHeaderAccessor accessor) {
+        return MessageBuilder.createMessage(new byte[0], accessor.getMessageHeaders());
+    }
+
+    private static long userId(String providerId) {
+        return "kim".equals(providerId) ? 10L : 20L;
+    }
+
+    private static User user(String providerId) {
+        return User.builder()
+                .id(userId(providerId))
+                .email(providerId + "@example.com")
+                .nickname(providerId)
+                .provider(Provider.values()[0])
+                .providerId(providerId)
+                .build();
+    }
+}
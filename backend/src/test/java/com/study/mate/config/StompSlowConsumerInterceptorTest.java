@@ -0,0 +1,171 @@
+package com.study.mate.config;
+
+import com.study.mate.util.WebSocketTransportProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.simp.stomp.StompCommand;
+import org.springframework.messaging.simp.stomp.StompHeaderAccessor;
+import org.springframework.messaging.support.ExecutorSubscribableChannel;
+import org.springframework.messaging.support.MessageBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 세션별 순서 지키기와 느린 구독자 한도(대기 상한, 합치기)가 실제 스레드 풀 채널에서 함께 동작하는지 확인합니다.
+ */
+class StompSlowConsumerInterceptorTest {
+
+    private static final int MAX_PENDING = 10;
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+    private final Map<String, List<String>> received = new ConcurrentHashMap<>();
+    private final Map<String, CountDownLatch> gates = new ConcurrentHashMap<>();
+    private StompSlowConsumerInterceptor interceptor;
+    private ExecutorSubscribableChannel channel;
+
+    @BeforeEach
+    void setUp() {
+        Awaitility.setDefaultPollInterval(1, TimeUnit.MILLISECONDS);
+        WebSocketTransportProperties properties = new WebSocketTransportProperties();
+        properties.setMaxPendingFrames(MAX_PENDING);
+        interceptor = new StompSlowConsumerInterceptor(properties, meterRegistry);
+
+        executor.setCorePoolSize(4);
+        executor.setMaxPoolSize(4);
+        executor.initialize();
+        channel = new ExecutorSubscribableChannel(executor);
+        channel.addInterceptor(interceptor);
+        // 브라우저로 보내는 대신 세션별로 받은 본문을 기록합니다. 게이트가 걸린 세션은 풀릴 때까지 멈춥니다(느린 휴대폰).
+        channel.subscribe(message -> {
+            String sessionId = StompHeaderAccessor.wrap(message).getSessionId();
+            CountDownLatch gate = gates.get(sessionId);
+            if (gate != null) {
+                try {
+                    gate.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.computeIfAbsent(sessionId, k -> new CopyOnWriteArrayList<>())
+                    .add(new String((byte[]) message.getPayload(), StandardCharsets.UTF_8));
+        });
+    }
+
+    @AfterEach
+    void tearDown() {
+        gates.values().forEach(CountDownLatch::countDown);
+        executor.shutdown();
+        Awaitility.reset();
+    }
+
+    @Test
+    void 한_세션으로_가는_프레임은_발행한_순서대로_보낸다() throws Exception {
+        connect("s1");
+        for (int i = 0; i < 2000; i++) {
+            channel.send(frame("s1", "m" + i, null));
+            // 대기 상한에 걸리지 않도록 보내는 쪽이 조금씩 기다립니다.
+            if (i % MAX_PENDING == MAX_PENDING - 1) {
+                int expected = i + 1;
+                await().atMost(5, TimeUnit.SECONDS).until(() -> receivedOf("s1").size() == expected);
+            }
+        }
+
+        List<String> messages = receivedOf("s1");
+        assertThat(messages).hasSize(2000);
+        for (int i = 0; i < messages.size(); i++) {
+            assertThat(messages.get(i)).isEqualTo("m" + i);
+        }
+        assertThat(meterRegistry.get("ws.outbound.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void 대기_프레임이_한도를_넘으면_느린_세션만_끊고_다른_세션은_계속_받는다() throws Exception {
+        WebSocketSession slow = connect("slow");
+        connect("fast");
+        gates.put("slow", new CountDownLatch(1));
+
+        // 느린 세션이 멈춰 있는 동안에도 다른 세션은 프레임마다 바로 받습니다(느린 세션은 스레드를 하나만 잡음).
+        for (int i = 0; i < 50; i++) {
+            channel.send(frame("slow", "m" + i, null));
+            channel.send(frame("fast", "m" + i, null));
+            int expected = i + 1;
+            await().atMost(5, TimeUnit.SECONDS).until(() -> receivedOf("fast").size() == expected);
+        }
+
+        verify(slow, timeout(5000)).close(CloseStatus.SESSION_NOT_RELIABLE);
+        await().atMost(5, TimeUnit.SECONDS).until(() -> receivedOf("fast").size() == 50);
+        assertThat(receivedOf("fast")).startsWith("m0", "m1", "m2").endsWith("m49");
+        assertThat(meterRegistry.get("ws.outbound.slow_consumer.closed").counter().count()).isEqualTo(1);
+
+        // 끊은 세션 앞으로 세워 둔 프레임은 버려지고, 멈춰 있던 한 프레임만 마저 나갑니다.
+        gates.get("slow").countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> receivedOf("slow").size() == 1);
+        assertThat(meterRegistry.get("ws.outbound.pending").gauge().value()).isZero();
+    }
+
+    @Test
+    void 보내는_중에_쌓인_같은_키_프레임은_최신_하나로_합친다() throws Exception {
+        WebSocketSession session = connect("s1");
+        gates.put("s1", new CountDownLatch(1));
+
+        channel.send(frame("s1", "chat", null));
+        for (String status : List.of("ONLINE", "STUDYING", "BREAK", "ONLINE", "STUDYING", "BREAK")) {
+            channel.send(frame("s1", status, "user-7"));
+        }
+        channel.send(frame("s1", "chat-2", null));
+
+        gates.get("s1").countDown();
+        await().atMost(5, TimeUnit.SECONDS).until(() -> receivedOf("s1").size() == 3);
+        Thread.sleep(100);
+
+        assertThat(receivedOf("s1")).containsExactly("chat", "BREAK", "chat-2");
+        assertThat(meterRegistry.get("ws.outbound.coalesced").counter().count()).isEqualTo(5);
+        verify(session, never()).close(CloseStatus.SESSION_NOT_RELIABLE);
+    }
+
+    private WebSocketSession connect(String sessionId) throws Exception {
+        WebSocketSession session = mock(WebSocketSession.class);
+        when(session.getId()).thenReturn(sessionId);
+        interceptor.decorate(mock(WebSocketHandler.class)).afterConnectionEstablished(session);
+        return session;
+    }
+
+    private List<String> receivedOf(String sessionId) {
+        return received.getOrDefault(sessionId, List.of());
+    }
+
+    private static Message<byte[]> frame(String sessionId, String body, String coalesceKey) {
+        StompHeaderAccessor accessor = StompHeaderAccessor.create(StompCommand.MESSAGE);
+        accessor.setSessionId(sessionId);
+        accessor.setSubscriptionId("sub-0");
+        accessor.setDestination("/topic/rooms/1");
+        if (coalesceKey != null) {
+            accessor.setNativeHeader(StompSlowConsumerInterceptor.COALESCE_KEY_HEADER, coalesceKey);
+        }
+        accessor.setLeaveMutable(true);
+        return MessageBuilder.createMessage(body.getBytes(StandardCharsets.UTF_8), accessor.getMessageHeaders());
+    }
+}
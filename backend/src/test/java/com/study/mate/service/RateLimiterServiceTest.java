@@ -0,0 +1,104 @@
+package com.study.mate.service;
+
+import com.study.mate.service.ratelimit.LocalQuotaStore;
+import com.study.mate.util.RateLimitProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.IntPredicate;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 64개 스레드가 동시에 요청해도 분당/일일 한도를 정확히 지키는지 확인합니다(락 없는 CAS 경로의 경합 검사).
+ * 분당 한도는 한 번에 10건까지 몰아서 허용하므로, 테스트가 6초(요청 1건 간격) 안에 끝나면 결과가 정확히 정해집니다.
+ */
+class RateLimiterServiceTest {
+
+    private static final int THREADS = 64;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+    private RateLimiterService service;
+
+    @BeforeEach
+    void setUp() {
+        RateLimitProperties properties = new RateLimitProperties();
+        properties.setSnapshotPath("");
+        service = new RateLimiterService(properties, new LocalQuotaStore(properties), new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void 한_사용자에게_동시에_몰려도_분당_한도만큼만_허용한다() throws Exception {
+        int allowed = race(THREADS * 20, i -> service.tryConsume("kim", 10));
+
+        assertThat(allowed).isEqualTo(10);
+        assertThat(service.getRemainingRequestsPerMinute("kim")).isZero();
+        assertThat(service.getRemainingRequestsPerDay("kim")).isEqualTo(90);
+        assertThat(service.getRemainingTokensPerDay("kim")).isEqualTo(100_000 - 100);
+    }
+
+    @Test
+    void 일일_토큰이_모자라_거절되면_분당_슬롯을_되돌린다() throws Exception {
+        // 토큰 30,000 씩이면 하루 100,000 토큰으로 3건만 됩니다. 나머지는 분당 슬롯을 돌려줘야 합니다.
+        int allowed = race(THREADS * 20, i -> service.tryConsume("lee", 30_000));
+
+        assertThat(allowed).isEqualTo(3);
+        assertThat(service.getRemainingTokensPerDay("lee")).isEqualTo(10_000);
+        assertThat(service.getRemainingRequestsPerMinute("lee")).isEqualTo(7);
+    }
+
+    @Test
+    void 여러_사용자가_섞여도_사용자마다_분당_한도를_정확히_지킨다() throws Exception {
+        int users = 500;
+        int attemptsPerUser = 12;
+        int allowed = race(users * attemptsPerUser, i -> service.tryConsume("user-" + (i % users), 1));
+
+        assertThat(allowed).isEqualTo(users * 10);
+        for (int u = 0; u < users; u++) {
+            assertThat(service.getRemainingRequestsPerMinute("user-" + u)).isZero();
+            assertThat(service.getRemainingRequestsPerDay("user-" + u)).isEqualTo(90);
+        }
+    }
+
+    // 모든 스레드가 준비된 뒤 한꺼번에 출발해 attempts 번 호출하고, 허용된 수를 돌려줍니다.
+    private int race(int attempts, IntPredicate call) throws Exception {
+        AtomicInteger next = new AtomicInteger();
+        AtomicInteger allowed = new AtomicInteger();
+        CountDownLatch ready = new CountDownLatch(THREADS);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            futures.add(executor.submit(() -> {
+                ready.countDown();
+                start.await();
+                for (int i = next.getAndIncrement(); i < attempts; i = next.getAndIncrement()) {
+                    if (call.test(i)) {
+                        allowed.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+        assertThat(ready.await(10, TimeUnit.SECONDS)).isTrue();
+        start.countDown();
+        for (Future<?> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        return allowed.get();
+    }
+}
@@ -0,0 +1,103 @@
+package com.study.mate.service.chat;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.util.ChatBroadcastProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.Message;
+import org.springframework.messaging.MessageDeliveryException;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 브로드캐스트가 실패하면 보낸 스레드를 붙잡지 않고 재시도 스케줄러에서 같은 메시지로 다시 보내고,
+ * 끝내 실패하면 dead-letter 로 세는지 확인합니다.
+ */
+class ChatBroadcastServiceTest {
+
+    private static final Long ROOM_ID = 3L;
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final List<Message<?>> sent = new CopyOnWriteArrayList<>();
+    private final List<String> sendThreads = new CopyOnWriteArrayList<>();
+    private final AtomicInteger failuresLeft = new AtomicInteger();
+    private ChatBroadcastService service;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> {
+            sent.add(invocation.getArgument(1));
+            sendThreads.add(Thread.currentThread().getName());
+            if (failuresLeft.getAndDecrement() > 0) {
+                throw new MessageDeliveryException("broker down");
+            }
+            return null;
+        }).when(messagingTemplate).send(anyString(), any(Message.class));
+        ChatBroadcastProperties properties = new ChatBroadcastProperties();
+        properties.setMaxAttempts(3);
+        properties.setInitialBackoff(Duration.ofMillis(20));
+        properties.setMaxBackoff(Duration.ofMillis(40));
+        service = new ChatBroadcastService(messagingTemplate, mock(RecentMessageCache.class), objectMapper,
+                properties, meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void 실패하면_재시도_스레드에서_한_번_직렬화한_같은_메시지로_다시_보낸다() throws Exception {
+        failuresLeft.set(2);
+
+        service.broadcastToRoom(ROOM_ID, message());
+
+        // 첫 시도만 호출한 스레드에서 하고, 재시도는 호출한 스레드를 잠재우지 않고 스케줄러가 합니다.
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> assertThat(sent).hasSize(3));
+        assertThat(sendThreads).containsExactly(Thread.currentThread().getName(), "chat-broadcast-retry", "chat-broadcast-retry");
+        assertThat(sent).allSatisfy(message -> assertThat(message).isSameAs(sent.get(0)));
+        verify(objectMapper, times(1)).writeValueAsBytes(any());
+        assertThat(count("chat.broadcast.retries")).isEqualTo(2);
+        assertThat(count("chat.broadcast.dead_letter")).isZero();
+    }
+
+    @Test
+    void 최대_시도_횟수를_모두_실패하면_dead_letter_로_세고_더_보내지_않는다() throws Exception {
+        failuresLeft.set(Integer.MAX_VALUE);
+
+        service.broadcastToRoom(ROOM_ID, message());
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(count("chat.broadcast.dead_letter")).isEqualTo(1));
+        Thread.sleep(100);
+        assertThat(sent).hasSize(3);
+        assertThat(count("chat.broadcast.retries")).isEqualTo(2);
+    }
+
+    private double count(String name) {
+        return meterRegistry.get(name).counter().count();
+    }
+
+    private static ChatMessageResponse message() {
+        return ChatMessageResponse.builder().id(100L).roomId(ROOM_ID).senderId(1L).content("hello").seq(1L).build();
+    }
+}
@@ -0,0 +1,91 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.service.chat.ChatMessageWriteBehindQueue.PendingChatMessage;
+import com.study.mate.util.ChatPersistenceProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * write-behind 저장 스레드가 저장할 수 없는 행(독이 든 행) 하나 때문에 멈추지 않는지 확인합니다(H2 메모리 DB).
+ */
+class ChatMessageWriteBehindQueueTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbcTemplate;
+    private ChatMessageWriteBehindQueue queue;
+
+    @BeforeEach
+    void setUp() {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE chat_messages (id BIGINT PRIMARY KEY, room_id BIGINT NOT NULL, sender_id BIGINT NOT NULL, "
+                + "content VARCHAR(1000) NOT NULL, created_at TIMESTAMP NOT NULL, updated_at TIMESTAMP NOT NULL, seq BIGINT)");
+
+        ChatPersistenceProperties properties = new ChatPersistenceProperties();
+        properties.setMode(ChatPersistenceProperties.Mode.WRITE_BEHIND);
+        properties.setBatchSize(10);
+        properties.setFlushInterval(Duration.ofMillis(50));
+        properties.setRetryBackoff(Duration.ofMillis(50));
+        queue = new ChatMessageWriteBehindQueue(properties, jdbcTemplate,
+                new TransactionTemplate(new DataSourceTransactionManager(dataSource)), meterRegistry);
+        queue.start();
+    }
+
+    @AfterEach
+    void tearDown() throws InterruptedException {
+        queue.drainOnShutdown();
+    }
+
+    @Test
+    void 저장할_수_없는_행은_버리고_같은_묶음의_나머지와_뒤의_메시지는_저장한다() {
+        for (long id = 1; id <= 10; id++) {
+            // 5번은 NOT NULL 제약 위반: 몇 번을 다시 해도 실패합니다.
+            queue.enqueue(message(id, id == 5 ? null : "hello-" + id));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> count() == 9);
+        assertThat(meterRegistry.get("chat.persist.dead_letter").counter().count()).isEqualTo(1);
+
+        queue.enqueue(message(11, "after"));
+        await().atMost(5, TimeUnit.SECONDS).until(() -> count() == 10);
+        assertThat(jdbcTemplate.queryForList("SELECT id FROM chat_messages ORDER BY id", Long.class))
+                .containsExactly(1L, 2L, 3L, 4L, 6L, 7L, 8L, 9L, 10L, 11L);
+    }
+
+    @Test
+    void 이미_저장된_행은_건너뛰고_버리지_않는다() {
+        jdbcTemplate.update("INSERT INTO chat_messages VALUES (2, 1, 1, 'already', CURRENT_TIMESTAMP, CURRENT_TIMESTAMP, 2)");
+
+        for (long id = 1; id <= 3; id++) {
+            queue.enqueue(message(id, "hello-" + id));
+        }
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> count() == 3);
+        assertThat(jdbcTemplate.queryForObject("SELECT content FROM chat_messages WHERE id = 2", String.class)).isEqualTo("already");
+        assertThat(meterRegistry.get("chat.persist.dead_letter").counter().count()).isZero();
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_messages", Integer.class);
+    }
+
+    private static PendingChatMessage message(long id, String content) {
+        return new PendingChatMessage(id, 1L, 1L, content, LocalDateTime.now(), id);
+    }
+}
@@ -0,0 +1,154 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.dto.response.ChatMessageSliceResponse;
+import com.study.mate.repository.ChatMessageRepository;
+import com.study.mate.service.chat.archive.ChatArchiveService;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.ChatHistoryCacheProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * 방별 링 버퍼가 순번이 이어질 때만 메모리로 응답하고, 중간이 비면 null(DB 조회)을 돌려주는지 확인합니다.
+ * 메시지 id 는 순번 x 10 으로 만들어 id 순서와 순번 순서가 같게 둡니다.
+ */
+class RecentMessageCacheTest {
+
+    private static final Long ROOM_ID = 1L;
+
+    private final ChatMessageRepository chatMessageRepository = mock(ChatMessageRepository.class);
+    private final ChatArchiveService chatArchiveService = mock(ChatArchiveService.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private RecentMessageCache cache;
+
+    @BeforeEach
+    void setUp() {
+        ChatHistoryCacheProperties properties = new ChatHistoryCacheProperties();
+        properties.setCapacity(8);
+        cache = new RecentMessageCache(properties, chatMessageRepository, chatArchiveService,
+                mock(ClusterEvents.class), meterRegistry);
+    }
+
+    @Test
+    void DB_에서_읽은_목록과_링을_합쳐_페이지를_응답하고_처음_한_번만_DB_를_읽는다() {
+        stored(1, 2, 3);
+        cache.append(ROOM_ID, message(4));
+        cache.append(ROOM_ID, message(5));
+
+        ChatMessageSliceResponse first = cache.findBefore(ROOM_ID, null, 2);
+        ChatMessageSliceResponse second = cache.findBefore(ROOM_ID, first.nextCursor(), 2);
+        ChatMessageSliceResponse last = cache.findBefore(ROOM_ID, second.nextCursor(), 2);
+
+        assertThat(seqs(first.messages())).containsExactly(5L, 4L);
+        assertThat(first.hasNext()).isTrue();
+        assertThat(seqs(second.messages())).containsExactly(3L, 2L);
+        // 방 전체가 메모리에 있으므로 마지막 페이지도 DB 없이 hasNext=false 로 끝납니다.
+        assertThat(seqs(last.messages())).containsExactly(1L);
+        assertThat(last.hasNext()).isFalse();
+        verify(chatMessageRepository, times(1)).findRecentMessagesByRoomId(eq(ROOM_ID), any(Pageable.class));
+        assertThat(count("hit")).isEqualTo(3);
+    }
+
+    @Test
+    void 중간_순번이_빠지면_그_범위는_DB_로_넘기고_늦게_도착하면_다시_메모리로_응답한다() {
+        stored(1, 2, 3);
+        cache.append(ROOM_ID, message(4));
+        // 5번 이벤트가 아직 오지 않은 채 6, 7번이 먼저 도착했습니다.
+        cache.append(ROOM_ID, message(6));
+        cache.append(ROOM_ID, message(7));
+
+        // 7, 6 은 이어지므로 첫 페이지는 메모리로 응답하지만, 6 과 4 사이가 빈 다음 페이지는 DB 로 넘깁니다.
+        assertThat(seqs(cache.findBefore(ROOM_ID, null, 1).messages())).containsExactly(7L);
+        assertThat(cache.findBefore(ROOM_ID, null, 3)).isNull();
+        assertThat(cache.findBefore(ROOM_ID, id(6), 2)).as("바로 앞 메시지(6)와의 사이도 확인").isNull();
+        assertThat(cache.findAfterSeq(ROOM_ID, 3)).isNull();
+        assertThat(count("miss")).isEqualTo(3);
+
+        cache.append(ROOM_ID, message(5));
+
+        assertThat(seqs(cache.findBefore(ROOM_ID, null, 3).messages())).containsExactly(7L, 6L, 5L);
+        assertThat(seqs(cache.findBefore(ROOM_ID, id(6), 2).messages())).containsExactly(5L, 4L);
+        assertThat(seqs(cache.findAfterSeq(ROOM_ID, 3))).containsExactly(4L, 5L, 6L, 7L);
+    }
+
+    @Test
+    void 놓친_메시지는_순번_오름차순으로_돌려주고_이미_다_받았으면_빈_목록이다() {
+        stored(1, 2);
+        cache.append(ROOM_ID, message(3));
+        cache.append(ROOM_ID, message(4));
+
+        assertThat(seqs(cache.findAfterSeq(ROOM_ID, 1))).containsExactly(2L, 3L, 4L);
+        assertThat(seqs(cache.findAfterSeq(ROOM_ID, 0))).containsExactly(1L, 2L, 3L, 4L);
+        assertThat(cache.findAfterSeq(ROOM_ID, 4)).isEmpty();
+    }
+
+    @Test
+    void 링이_한_바퀴_돌아_덮어쓴_범위는_메모리로_응답하지_않는다() {
+        stored();
+        for (long seq = 1; seq <= 12; seq++) {
+            cache.append(ROOM_ID, message(seq));
+        }
+
+        // 링(8칸)에는 5~12번만 남았습니다. 4번이 남아 있는지 알 수 없으므로 4번 이후는 DB 로 넘깁니다.
+        assertThat(seqs(cache.findAfterSeq(ROOM_ID, 5))).containsExactlyElementsOf(range(6, 12));
+        assertThat(cache.findAfterSeq(ROOM_ID, 4)).isNull();
+        assertThat(seqs(cache.findBefore(ROOM_ID, null, 7).messages())).containsExactly(12L, 11L, 10L, 9L, 8L, 7L, 6L);
+        assertThat(cache.findBefore(ROOM_ID, id(7), 2)).as("5번보다 오래된 메시지는 메모리에 없음").isNull();
+    }
+
+    @Test
+    void 보관_파일이_있는_방은_DB_목록을_다_읽어도_끝이라고_답하지_않는다() {
+        when(chatArchiveService.hasArchive(ROOM_ID)).thenReturn(true);
+        stored(11, 12);
+
+        assertThat(seqs(cache.findBefore(ROOM_ID, null, 1).messages())).containsExactly(12L);
+        assertThat(cache.findBefore(ROOM_ID, null, 2)).isNull();
+        assertThat(cache.findAfterSeq(ROOM_ID, 10)).isNull();
+    }
+
+    // DB 에 저장되어 있는 메시지(첫 조회 때 최신순으로 읽어 옴)
+    private void stored(long... seqs) {
+        List<ChatMessageResponse> newestFirst = LongStream.of(seqs).boxed()
+                .sorted((a, b) -> Long.compare(b, a))
+                .map(RecentMessageCacheTest::message)
+                .toList();
+        when(chatMessageRepository.findRecentMessagesByRoomId(eq(ROOM_ID), any(Pageable.class)))
+                .thenReturn(new SliceImpl<>(newestFirst));
+    }
+
+    private double count(String result) {
+        return meterRegistry.get("chat.history.cache").tag("result", result).counter().count();
+    }
+
+    private static ChatMessageResponse message(long seq) {
+        return ChatMessageResponse.builder().id(id(seq)).roomId(ROOM_ID).senderId(1L)
+                .content("message-" + seq).seq(seq).build();
+    }
+
+    private static Long id(long seq) {
+        return seq * 10;
+    }
+
+    private static List<Long> seqs(List<ChatMessageResponse> messages) {
+        return messages.stream().map(ChatMessageResponse::seq).toList();
+    }
+
+    private static List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+}
@@ -0,0 +1,171 @@
+package com.study.mate.service.chat;
+
+import com.study.mate.util.ChatHistoryCacheProperties;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * 방 순번을 구간으로 예약하고, 커밋된 메시지만 순번 순서대로 방송하는지 확인합니다(H2 메모리 DB).
+ */
+class RoomSequencerTest {
+
+    private static final long ROOM = 7L;
+
+    private final ExecutorService executor = Executors.newFixedThreadPool(2);
+    private final List<Long> published = new CopyOnWriteArrayList<>();
+    private DriverManagerDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private DataSourceTransactionManager transactionManager;
+    private TransactionTemplate outer;
+
+    @BeforeEach
+    void setUp() {
+        dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1;LOCK_TIMEOUT=2000", "sa", "");
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("CREATE TABLE chat_room_sequences (room_id BIGINT PRIMARY KEY, last_seq BIGINT NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE chat_messages (id BIGINT PRIMARY KEY, room_id BIGINT NOT NULL, seq BIGINT)");
+        jdbcTemplate.execute("CREATE TABLE chat_read_receipts (user_id BIGINT, room_id BIGINT, last_read_seq BIGINT)");
+        transactionManager = new DataSourceTransactionManager(dataSource);
+        outer = new TransactionTemplate(transactionManager);
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void 구간마다_DB_예약은_한_번이고_종료할_때_남은_구간을_돌려준다() {
+        RoomSequencer sequencer = sequencer(10);
+        jdbcTemplate.update("INSERT INTO chat_messages (id, room_id, seq) VALUES (1, ?, 3)", ROOM);
+
+        for (int i = 0; i < 25; i++) {
+            send(sequencer);
+        }
+
+        // 남은 메시지(3번)에서 이어 4번부터, 10개씩 세 번 예약했습니다.
+        assertThat(published).containsExactlyElementsOf(range(4, 28));
+        assertThat(storedSeq()).isEqualTo(33);
+        assertThat(sequencer.latest(ROOM)).isEqualTo(28);
+
+        sequencer.releaseReserved();
+
+        assertThat(storedSeq()).isEqualTo(28);
+        assertThat(sequencer(10).latest(ROOM)).isEqualTo(28);
+    }
+
+    @Test
+    void 커밋된_뒤에만_순번_순서대로_방송한다() throws Exception {
+        RoomSequencer sequencer = sequencer(100);
+        CountDownLatch firstWritten = new CountDownLatch(1);
+        CountDownLatch releaseFirst = new CountDownLatch(1);
+
+        // 1번을 받은 트랜잭션이 커밋 전에 멈춰 있는 동안 2번이 먼저 커밋됩니다.
+        Future<?> first = executor.submit(() -> outer.executeWithoutResult(status -> {
+            send(sequencer);
+            firstWritten.countDown();
+            await(releaseFirst);
+        }));
+        assertThat(firstWritten.await(5, TimeUnit.SECONDS)).isTrue();
+        outer.executeWithoutResult(status -> {
+            send(sequencer);
+            assertThat(published).as("커밋 전에는 방송하지 않음").isEmpty();
+        });
+
+        assertThat(published).as("앞 순번이 커밋 전이면 기다림").isEmpty();
+        assertThat(sequencer.latest(ROOM)).isZero();
+
+        releaseFirst.countDown();
+        first.get(5, TimeUnit.SECONDS);
+
+        assertThat(published).containsExactly(1L, 2L);
+        assertThat(sequencer.latest(ROOM)).isEqualTo(2);
+    }
+
+    @Test
+    void 롤백된_순번은_방송하지_않고_다시_쓰지도_않는다() {
+        RoomSequencer sequencer = sequencer(100);
+        send(sequencer);
+
+        outer.executeWithoutResult(status -> {
+            send(sequencer);
+            status.setRollbackOnly();
+        });
+        assertThatThrownBy(() -> sequencer.<Long>sequenced(ROOM, seq -> {
+            throw new IllegalStateException("저장 실패");
+        }, published::add)).isInstanceOf(IllegalStateException.class);
+        send(sequencer);
+
+        assertThat(published).containsExactly(1L, 4L);
+        assertThat(sequencer.latest(ROOM)).isEqualTo(4);
+    }
+
+    @Test
+    void 저장_트랜잭션이_열려_있어도_다른_서버는_순번을_예약할_수_있다() throws Exception {
+        RoomSequencer nodeA = sequencer(1);
+        RoomSequencer nodeB = sequencer(1);
+        CountDownLatch written = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<?> slow = executor.submit(() -> outer.executeWithoutResult(status -> {
+            send(nodeA);
+            written.countDown();
+            await(release);
+        }));
+        assertThat(written.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 예약이 A 의 저장 트랜잭션에 묶여 있었다면 순번 행 잠금 때문에 여기서 LOCK_TIMEOUT 으로 실패합니다.
+        outer.executeWithoutResult(status -> send(nodeB));
+        assertThat(published).containsExactly(2L);
+
+        release.countDown();
+        slow.get(5, TimeUnit.SECONDS);
+        assertThat(published).containsExactly(2L, 1L);
+        assertThat(storedSeq()).isEqualTo(2);
+    }
+
+    private RoomSequencer sequencer(int blockSize) {
+        ChatHistoryCacheProperties properties = new ChatHistoryCacheProperties();
+        properties.setSequenceBlockSize(blockSize);
+        return new RoomSequencer(jdbcTemplate, transactionManager, properties);
+    }
+
+    private void send(RoomSequencer sequencer) {
+        sequencer.sequenced(ROOM, seq -> seq, published::add);
+    }
+
+    private long storedSeq() {
+        return jdbcTemplate.queryForObject("SELECT last_seq FROM chat_room_sequences WHERE room_id = ?", Long.class, ROOM);
+    }
+
+    private static List<Long> range(long from, long to) {
+        return LongStream.rangeClosed(from, to).boxed().toList();
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
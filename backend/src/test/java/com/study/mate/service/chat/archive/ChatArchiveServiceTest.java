@@ -0,0 +1,176 @@
+package com.study.mate.service.chat.archive;
+
+import com.study.mate.dto.response.ChatMessageResponse;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.ChatArchiveProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.nio.file.Path;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+
+/**
+ * 보관 경로 검증과 "한 번 실행에 옮길 묶음 수" 제한, 다른 서버가 보관한 뒤의 기록 조회를 확인합니다(H2 메모리 DB).
+ */
+class ChatArchiveServiceTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void 보관을_켰는데_경로가_없거나_상대_경로면_시작하지_않는다() {
+        ChatArchiveProperties blank = properties(true, "");
+        assertThatThrownBy(() -> new ChatArchiveService(blank, jdbcTemplate(), mock(ClusterEvents.class), new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+
+        ChatArchiveProperties relative = properties(true, "data/chat-archive");
+        assertThatThrownBy(() -> new ChatArchiveService(relative, jdbcTemplate(), mock(ClusterEvents.class), new SimpleMeterRegistry()))
+                .isInstanceOf(IllegalStateException.class);
+    }
+
+    @Test
+    void 보관을_끄고_경로도_없으면_보관_파일_없이_동작한다() {
+        ChatArchiveService service = new ChatArchiveService(properties(false, ""), jdbcTemplate(), mock(ClusterEvents.class), new SimpleMeterRegistry());
+
+        service.archiveOldMessages();
+
+        assertThat(service.hasArchive(1L)).isFalse();
+        assertThat(service.findBefore(1L, null, 10)).isEmpty();
+    }
+
+    @Test
+    void 한_번_실행에는_max_batches_per_run_묶음까지만_옮긴다() {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        insertOldMessages(jdbcTemplate, 30);
+        ChatArchiveProperties properties = properties(true, tempDir.toString());
+        properties.setBatchSize(5);
+        properties.setMaxBatchesPerRun(2);
+        ChatArchiveService service = new ChatArchiveService(properties, jdbcTemplate, mock(ClusterEvents.class), new SimpleMeterRegistry());
+
+        service.archiveOldMessages();
+        assertThat(remaining(jdbcTemplate)).isEqualTo(20);
+        assertThat(service.lastArchivedId(1L)).isEqualTo(10L);
+
+        service.archiveOldMessages();
+        service.archiveOldMessages();
+        assertThat(remaining(jdbcTemplate)).isZero();
+        assertThat(service.findBefore(1L, null, 100)).hasSize(30);
+        service.closeAll();
+    }
+
+    @Test
+    void 다른_서버가_보관하면_이벤트를_받고_경계를_넘어_이어서_읽는다() {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        insertOldMessages(jdbcTemplate, 30);
+        ClusterEvents eventsA = mock(ClusterEvents.class);
+        ClusterEvents eventsB = mock(ClusterEvents.class);
+        connect(eventsA, eventsB);
+        ChatArchiveService archiver = batchArchiver(jdbcTemplate, eventsA);
+        // 읽기만 하는 서버: 목록을 오래 두므로 이벤트가 아니면 다시 읽지 않습니다.
+        ChatArchiveProperties readerProperties = properties(false, tempDir.toString());
+        readerProperties.setSegmentListTtl(Duration.ofHours(1));
+        ChatArchiveService reader = new ChatArchiveService(readerProperties, jdbcTemplate, eventsB, new SimpleMeterRegistry());
+        assertThat(reader.hasArchive(1L)).isFalse();
+
+        archiver.archiveOldMessages();
+
+        // DB 에는 11~30 만 남았습니다. 11 보다 오래된 기록은 보관 파일에서 이어집니다.
+        assertThat(remaining(jdbcTemplate)).isEqualTo(20);
+        assertThat(reader.hasArchive(1L)).isTrue();
+        assertThat(reader.lastArchivedId(1L)).isEqualTo(10L);
+        assertThat(ids(reader.findBefore(1L, 11L, 5))).containsExactly(10L, 9L, 8L, 7L, 6L);
+        assertThat(ids(reader.findAfter(1L, 7L, 5))).containsExactly(8L, 9L, 10L);
+        archiver.closeAll();
+        reader.closeAll();
+    }
+
+    @Test
+    void 보관_이벤트를_놓쳐도_segment_list_ttl_이_지나면_다시_읽는다() {
+        JdbcTemplate jdbcTemplate = jdbcTemplate();
+        insertOldMessages(jdbcTemplate, 30);
+        ChatArchiveService archiver = batchArchiver(jdbcTemplate, mock(ClusterEvents.class));
+        ChatArchiveProperties readerProperties = properties(false, tempDir.toString());
+        readerProperties.setSegmentListTtl(Duration.ofMillis(200));
+        ChatArchiveService reader = new ChatArchiveService(readerProperties, jdbcTemplate, mock(ClusterEvents.class), new SimpleMeterRegistry());
+        assertThat(reader.lastArchivedId(1L)).isEqualTo(Long.MIN_VALUE);
+
+        archiver.archiveOldMessages();
+
+        await().atMost(5, TimeUnit.SECONDS).until(() -> reader.lastArchivedId(1L) == 10L);
+        assertThat(ids(reader.findBefore(1L, null, 100))).hasSize(10).startsWith(10L).endsWith(1L);
+        archiver.closeAll();
+        reader.closeAll();
+    }
+
+    // 한 번 실행에 10건(5건 × 2묶음)만 옮기는 보관 서버
+    private ChatArchiveService batchArchiver(JdbcTemplate jdbcTemplate, ClusterEvents clusterEvents) {
+        ChatArchiveProperties properties = properties(true, tempDir.toString());
+        properties.setBatchSize(5);
+        properties.setMaxBatchesPerRun(2);
+        return new ChatArchiveService(properties, jdbcTemplate, clusterEvents, new SimpleMeterRegistry());
+    }
+
+    // from 이 보낸 보관 이벤트를 to 에 등록된 받는 쪽으로 바로 넘깁니다(브로커 대신).
+    @SuppressWarnings("unchecked")
+    private static void connect(ClusterEvents from, ClusterEvents to) {
+        Consumer<ChatArchiveService.Archived>[] listener = new Consumer[1];
+        doAnswer(invocation -> listener[0] = invocation.getArgument(2))
+                .when(to).subscribe(eq(ChatArchiveService.ARCHIVED_EVENT), eq(ChatArchiveService.Archived.class), any());
+        doAnswer(invocation -> {
+            if (listener[0] != null) {
+                listener[0].accept(invocation.getArgument(1));
+            }
+            return null;
+        }).when(from).publish(eq(ChatArchiveService.ARCHIVED_EVENT), any());
+    }
+
+    private static void insertOldMessages(JdbcTemplate jdbcTemplate, int count) {
+        Timestamp old = Timestamp.valueOf(LocalDateTime.now().minusDays(365));
+        jdbcTemplate.update("INSERT INTO users (id, nickname, profile_image_url) VALUES (1, 'kim', NULL)");
+        for (long id = 1; id <= count; id++) {
+            jdbcTemplate.update("INSERT INTO chat_messages (id, room_id, sender_id, content, created_at, seq) VALUES (?, 1, 1, ?, ?, ?)",
+                    id, "hello-" + id, old, id);
+        }
+    }
+
+    private static List<Long> ids(List<ChatMessageResponse> messages) {
+        return messages.stream().map(ChatMessageResponse::id).toList();
+    }
+
+    private static int remaining(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_messages", Integer.class);
+    }
+
+    private static ChatArchiveProperties properties(boolean enabled, String path) {
+        ChatArchiveProperties properties = new ChatArchiveProperties();
+        properties.setEnabled(enabled);
+        properties.setPath(path);
+        return properties;
+    }
+
+    private static JdbcTemplate jdbcTemplate() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE users (id BIGINT PRIMARY KEY, nickname VARCHAR(50), profile_image_url VARCHAR(255))");
+        jdbcTemplate.execute("CREATE TABLE chat_messages (id BIGINT PRIMARY KEY, room_id BIGINT NOT NULL, sender_id BIGINT NOT NULL, "
+                + "content VARCHAR(1000) NOT NULL, created_at TIMESTAMP NOT NULL, seq BIGINT)");
+        return jdbcTemplate;
+    }
+}
@@ -0,0 +1,128 @@
+package com.study.mate.service.chat.receipt;
+
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.chat.RoomSequencer;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.util.ReadReceiptProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 같은 DB 를 쓰는 노드 두 대(A, B)에서 읽음 위치가 뒤로 가지 않고, 다른 노드가 쓴 값도 보이는지 확인합니다(H2 메모리 DB).
+ */
+class ReadReceiptServiceTest {
+
+    private static final long USER_ID = 1L;
+    private static final long ROOM_ID = 7L;
+
+    private JdbcTemplate jdbcTemplate;
+    private RoomSequencer roomSequencer;
+    private final ClusterEvents eventsA = mock(ClusterEvents.class);
+    private final ClusterEvents eventsB = mock(ClusterEvents.class);
+    private ReadReceiptService nodeA;
+    private ReadReceiptService nodeB;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE chat_read_receipts (id BIGINT AUTO_INCREMENT PRIMARY KEY, user_id BIGINT NOT NULL, "
+                + "room_id BIGINT NOT NULL, last_read_seq BIGINT NOT NULL, updated_at TIMESTAMP NOT NULL, "
+                + "CONSTRAINT uk_read_receipt_user_room UNIQUE (user_id, room_id))");
+        roomSequencer = mock(RoomSequencer.class);
+        when(roomSequencer.latest(anyLong())).thenReturn(20L);
+        connect(eventsA, eventsB);
+        connect(eventsB, eventsA);
+        nodeA = service(eventsA);
+        nodeB = service(eventsB);
+    }
+
+    @Test
+    void 노드마다_다른_값을_써도_DB_읽음_위치는_뒤로_가지_않는다() {
+        nodeA.markRead(USER_ID, ROOM_ID, 10);
+        nodeB.markRead(USER_ID, ROOM_ID, 5);
+
+        nodeA.flush();
+        nodeB.flush();
+
+        assertThat(storedSeq()).isEqualTo(10L);
+    }
+
+    @Test
+    void 시작할_때_없던_읽음_위치는_필요할_때_DB_에서_읽어_온다() {
+        // B 가 먼저 떠서 (빈) 테이블을 읽은 뒤 A 가 읽음 위치를 씁니다.
+        nodeB.load();
+        nodeA.markRead(USER_ID, ROOM_ID, 12);
+        nodeA.flush();
+
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEqualTo(Map.of(ROOM_ID, 8L));
+    }
+
+    @Test
+    void 다른_노드에서_바뀐_읽음_위치를_따라_올리고_나간_방은_지운다() {
+        nodeB.markRead(USER_ID, ROOM_ID, 5);
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEqualTo(Map.of(ROOM_ID, 15L));
+
+        nodeA.markRead(USER_ID, ROOM_ID, 15);
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEqualTo(Map.of(ROOM_ID, 5L));
+
+        nodeA.forget(USER_ID, ROOM_ID);
+        nodeA.flush();
+        nodeB.flush();
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEmpty();
+    }
+
+    @Test
+    void 참여하지_않은_방은_한_번만_DB_에서_확인하고_다른_노드에서_참여하면_보인다() {
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEmpty();
+
+        // 알림 없이 DB 에만 생긴 행은 다시 묻지 않으므로 보이지 않습니다(방 목록마다 IN 쿼리를 하지 않음).
+        jdbcTemplate.update("INSERT INTO chat_read_receipts (user_id, room_id, last_read_seq, updated_at) "
+                + "VALUES (?, ?, 3, CURRENT_TIMESTAMP)", USER_ID, ROOM_ID);
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEmpty();
+
+        // 다른 노드에서 참여(지금까지 모두 읽음)하면 알림으로 채워집니다.
+        nodeA.markAllRead(USER_ID, ROOM_ID);
+        assertThat(nodeB.unreadCounts(USER_ID, List.of(ROOM_ID))).isEqualTo(Map.of(ROOM_ID, 0L));
+    }
+
+    private ReadReceiptService service(ClusterEvents clusterEvents) {
+        return new ReadReceiptService(new ReadReceiptProperties(), jdbcTemplate, roomSequencer,
+                mock(RoomMembershipCache.class), clusterEvents, new SimpleMeterRegistry());
+    }
+
+    // from 이 보낸 읽음 위치 변경을 to 에 등록된 받는 쪽으로 바로 넘깁니다(브로커 대신).
+    @SuppressWarnings("unchecked")
+    private static void connect(ClusterEvents from, ClusterEvents to) {
+        Consumer<ReadReceiptService.Moved>[] listener = new Consumer[1];
+        doAnswer(invocation -> listener[0] = invocation.getArgument(2))
+                .when(to).subscribe(eq(ReadReceiptService.MOVED_EVENT), eq(ReadReceiptService.Moved.class), any());
+        doAnswer(invocation -> {
+            if (listener[0] != null) {
+                listener[0].accept(invocation.getArgument(1));
+            }
+            return null;
+        }).when(from).publish(eq(ReadReceiptService.MOVED_EVENT), any());
+    }
+
+    private Long storedSeq() {
+        return jdbcTemplate.queryForObject("SELECT last_read_seq FROM chat_read_receipts WHERE user_id = ? AND room_id = ?",
+                Long.class, USER_ID, ROOM_ID);
+    }
+}
@@ -0,0 +1,100 @@
+package com.study.mate.service.chat.search;
+
+import com.study.mate.service.chat.search.ChatSearchIndex.Candidates;
+import com.study.mate.service.chat.search.ChatSearchIndex.SearchQuery;
+import com.study.mate.util.ChatSearchProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 늦게 도착한 메시지의 세그먼트 합치기와, 보관/삭제된 메시지 정리를 확인합니다(H2 메모리 DB).
+ */
+class ChatSearchIndexTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private JdbcTemplate jdbcTemplate;
+    private ChatSearchIndex index;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE chat_messages (id BIGINT PRIMARY KEY, room_id BIGINT NOT NULL, content VARCHAR(1000) NOT NULL)");
+
+        ChatSearchProperties properties = new ChatSearchProperties();
+        properties.setRebuildOnStartup(false);
+        properties.setSettleDelay(Duration.ZERO);
+        properties.setLateMergeSize(10);
+        index = new ChatSearchIndex(properties, jdbcTemplate, meterRegistry);
+    }
+
+    @Test
+    void 늦게_도착한_메시지는_세그먼트로_합쳐져도_빠짐없이_최신순으로_찾는다() {
+        index.add(1L, 100_000L, "스터디 모집합니다");
+        index.seal();
+        // 색인 끝(100000)보다 작은 id 가 늦게 도착: late-merge-size(10)마다 세그먼트로 합쳐지고, 세그먼트가 커지면 본 색인에 합쳐집니다.
+        for (long id = 1; id <= 1500; id++) {
+            index.add(1L, id * 10, "오늘 스터디 " + id);
+            if (id % 5 == 0) {
+                index.seal();
+            }
+        }
+        index.seal();
+
+        SearchQuery query = index.parse("스터디");
+        List<Long> all = new ArrayList<>();
+        long before = Long.MAX_VALUE;
+        while (true) {
+            Candidates page = index.candidates(1L, query, before, 70);
+            all.addAll(page.ids());
+            if (page.exhausted() || page.ids().isEmpty()) {
+                break;
+            }
+            before = page.ids().get(page.ids().size() - 1);
+        }
+
+        List<Long> expected = new ArrayList<>();
+        expected.add(100_000L);
+        for (long id = 1500; id >= 1; id--) {
+            expected.add(id * 10);
+        }
+        assertThat(all).containsExactlyElementsOf(expected);
+        assertThat(meterRegistry.get("chat.search.index.messages").gauge().value()).isEqualTo(1501);
+    }
+
+    @Test
+    void 보관되었거나_방이_삭제되어_DB_에_없는_메시지는_색인에서_뺀다() {
+        for (long id = 1; id <= 50; id++) {
+            index.add(1L, id, "스터디 " + id);
+            index.add(2L, 100 + id, "스터디 " + id);
+        }
+        index.seal();
+        // 1번 방은 1~29 가 보관되어 30 부터만 DB 에 남았고, 2번 방은 삭제되어 메시지가 없습니다.
+        for (long id = 30; id <= 50; id++) {
+            jdbcTemplate.update("INSERT INTO chat_messages VALUES (?, 1, ?)", id, "스터디 " + id);
+        }
+
+        index.purge();
+
+        SearchQuery query = index.parse("스터디");
+        List<Long> room1 = index.candidates(1L, query, Long.MAX_VALUE, 100).ids();
+        assertThat(room1).hasSize(21).allMatch(id -> id >= 30);
+        assertThat(index.candidates(2L, query, Long.MAX_VALUE, 100).ids()).isEmpty();
+        assertThat(meterRegistry.get("chat.search.index.messages").gauge().value()).isEqualTo(21);
+
+        // 정리로 빠진 방에도 새 메시지는 다시 색인됩니다.
+        index.add(2L, 500L, "스터디 다시");
+        index.seal();
+        assertThat(index.candidates(2L, query, Long.MAX_VALUE, 100).ids()).containsExactly(500L);
+    }
+}
@@ -0,0 +1,84 @@
+package com.study.mate.service.notification;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 하트비트 휠이 연결을 칸마다 고르게 나누고, 주기(칸 수만큼 tick) 동안 연결마다 한 번씩만 고르는지 확인합니다.
+ */
+class HeartbeatWheelTest {
+
+    private static final int SLOTS = 30;
+
+    private final HeartbeatWheel wheel = new HeartbeatWheel(SLOTS);
+
+    @Test
+    void 연결을_칸마다_고르게_나누고_끊긴_칸은_새_연결로_다시_채운다() {
+        List<SseConnection> connections = connect(300);
+        assertThat(slotSizes()).containsOnly(10);
+
+        // 한 칸(3번)은 모두 끊기고, 다른 칸(7번)은 절반이 끊깁니다.
+        List<SseConnection> slot3 = connections.stream().filter(c -> c.wheelSlot() == 3).toList();
+        List<SseConnection> slot7 = connections.stream().filter(c -> c.wheelSlot() == 7).limit(5).toList();
+        slot3.forEach(wheel::remove);
+        slot7.forEach(wheel::remove);
+        assertThat(slotSizes()[3]).isZero();
+        assertThat(slotSizes()[7]).isEqualTo(5);
+
+        // 끊긴 수만큼 새로 연결하면 빈 칸부터 채워 다시 10개씩이 됩니다.
+        connect(15);
+        assertThat(slotSizes()).containsOnly(10);
+
+        // 그 뒤로는 다시 돌아가며 하나씩 늘어납니다(칸 사이 차이는 많아야 1).
+        connect(45);
+        int[] sizes = slotSizes();
+        assertThat(Arrays.stream(sizes).max().getAsInt() - Arrays.stream(sizes).min().getAsInt()).isLessThanOrEqualTo(1);
+    }
+
+    @Test
+    void 한_주기_동안_연결마다_하트비트_대상으로_한_번씩만_고른다() {
+        List<SseConnection> connections = connect(1000);
+        SseConnection removed = connections.get(123);
+        wheel.remove(removed);
+
+        // 세 주기(칸 수 × 3 tick) 동안 고른 횟수
+        Map<SseConnection, Integer> picks = new HashMap<>();
+        for (int tick = 0; tick < SLOTS * 3; tick++) {
+            Set<SseConnection> due = wheel.advance();
+            // tick 마다 많아야 (연결 수 / 칸 수) 올림만큼
+            assertThat(due.size()).isLessThanOrEqualTo((1000 + SLOTS - 1) / SLOTS);
+            due.forEach(connection -> picks.merge(connection, 1, Integer::sum));
+        }
+
+        assertThat(picks).doesNotContainKey(removed).hasSize(999);
+        assertThat(picks.values()).containsOnly(3);
+    }
+
+    private List<SseConnection> connect(int count) {
+        List<SseConnection> connections = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            SseConnection connection = new SseConnection("user-" + i, new SseEmitter(), 16);
+            wheel.add(connection);
+            connections.add(connection);
+        }
+        return connections;
+    }
+
+    // 한 바퀴 돌며 칸마다 연결 수를 셉니다(advance 는 0번 칸부터 차례로, 한 바퀴 뒤 제자리).
+    private int[] slotSizes() {
+        int[] sizes = new int[SLOTS];
+        for (int i = 0; i < SLOTS; i++) {
+            sizes[i] = wheel.advance().size();
+        }
+        return sizes;
+    }
+}
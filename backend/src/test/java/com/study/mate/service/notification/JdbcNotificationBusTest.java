@@ -0,0 +1,147 @@
+package com.study.mate.service.notification;
+
+import com.study.mate.util.NotificationBusProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 같은 DB(H2 메모리)를 쓰는 노드 세 개를 띄워, 받는 사람이 연결된 노드에만 아웃박스 행을 쓰고
+ * 받는 사람마다 알림을 한 번씩만 받는지 확인합니다.
+ */
+class JdbcNotificationBusTest {
+
+    private JdbcTemplate jdbcTemplate;
+    private Node nodeA;
+    private Node nodeB;
+    private Node nodeC;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate = new JdbcTemplate(new DriverManagerDataSource(
+                "jdbc:h2:mem:" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1", "sa", ""));
+        jdbcTemplate.execute("CREATE TABLE notification_outbox (id BIGINT PRIMARY KEY, target_node INT NOT NULL, "
+                + "origin_node INT NOT NULL, event_id BIGINT NOT NULL, recipients CLOB NOT NULL, payload CLOB NOT NULL, "
+                + "created_at TIMESTAMP NOT NULL)");
+        jdbcTemplate.execute("CREATE TABLE notification_presence (id BIGINT AUTO_INCREMENT PRIMARY KEY, "
+                + "provider_id VARCHAR(255) NOT NULL, node_id INT NOT NULL, expires_at TIMESTAMP NOT NULL, "
+                + "CONSTRAINT uk_notification_presence_user_node UNIQUE (provider_id, node_id))");
+        nodeA = new Node(1);
+        nodeB = new Node(2);
+        nodeC = new Node(3);
+    }
+
+    @Test
+    void 받는_사람이_연결되지_않은_노드에는_행을_쓰지_않는다() {
+        nodeB.connect("kim");
+        pumpAll();
+
+        nodeA.bus.publish(List.of("kim"), 100L, "{\"n\":100}");
+        nodeA.bus.publish(List.of("nobody"), 101L, "{\"n\":101}");
+        nodeA.bus.pump();
+
+        // kim 이 있는 B 앞으로 한 행만 생기고, C 와 아무도 없는 알림은 행이 없습니다.
+        assertThat(jdbcTemplate.queryForList("SELECT target_node FROM notification_outbox", Integer.class))
+                .containsExactly(2);
+        pumpAll();
+        assertThat(nodeB.received()).containsExactly("kim@100");
+        assertThat(nodeC.received()).isEmpty();
+        assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    void 받는_사람마다_알림을_정확히_한_번씩_받는다() {
+        nodeA.connect("choi");
+        nodeB.connect("kim");
+        nodeB.connect("lee");
+        nodeC.connect("park");
+        // 한 번에 7행씩 읽어 여러 번 이어 읽는 경로도 지나가게 합니다.
+        nodeB.properties.setBatchSize(7);
+        nodeC.properties.setBatchSize(7);
+        pumpAll();
+
+        int events = 50;
+        for (long eventId = 1; eventId <= events; eventId++) {
+            nodeA.bus.publish(List.of("kim", "lee", "park", "choi"), eventId, "{\"n\":" + eventId + "}");
+        }
+        nodeA.bus.pump();
+        // 알림마다 받는 사람이 있는 다른 노드에 한 행씩(A 자신은 제외)
+        assertThat(outboxRows()).isEqualTo(events * 2);
+
+        for (int round = 0; round < 3; round++) {
+            pumpAll();
+        }
+
+        assertThat(countsByRecipientEvent(nodeB)).hasSize(events * 2).allSatisfy((key, count) -> assertThat(count).isEqualTo(1L));
+        assertThat(countsByRecipientEvent(nodeC)).hasSize(events).allSatisfy((key, count) -> assertThat(count).isEqualTo(1L));
+        assertThat(nodeA.received()).isEmpty();
+        assertThat(outboxRows()).isZero();
+    }
+
+    @Test
+    void 종료한_노드_앞으로는_행을_쓰지_않는다() {
+        nodeB.connect("kim");
+        nodeC.connect("park");
+        pumpAll();
+
+        nodeC.bus.shutdown();
+        nodeA.bus.publish(List.of("kim", "park"), 7L, "{\"n\":7}");
+        nodeA.bus.pump();
+
+        assertThat(jdbcTemplate.queryForList("SELECT target_node FROM notification_outbox", Integer.class))
+                .containsExactly(2);
+    }
+
+    private void pumpAll() {
+        nodeA.bus.pump();
+        nodeB.bus.pump();
+        nodeC.bus.pump();
+    }
+
+    private int outboxRows() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM notification_outbox", Integer.class);
+    }
+
+    private static Map<String, Long> countsByRecipientEvent(Node node) {
+        return node.received().stream().collect(Collectors.groupingBy(key -> key, Collectors.counting()));
+    }
+
+    /** 노드 하나: 알림 버스 + 받은 알림 기록("받는사람@이벤트id") */
+    private final class Node {
+        final NotificationBusProperties properties = new NotificationBusProperties();
+        final JdbcNotificationBus bus;
+        final List<NotificationBus.RemoteNotification> notifications = new CopyOnWriteArrayList<>();
+
+        Node(int nodeId) {
+            properties.setMode("jdbc");
+            bus = new JdbcNotificationBus(properties, jdbcTemplate, new SnowflakeIdGenerator(nodeId), new SimpleMeterRegistry());
+            bus.subscribe(notifications::add);
+        }
+
+        void connect(String providerId) {
+            bus.userConnected(providerId);
+        }
+
+        List<String> received() {
+            List<String> keys = new ArrayList<>();
+            for (NotificationBus.RemoteNotification notification : notifications) {
+                for (String providerId : notification.providerIds()) {
+                    keys.add(providerId + "@" + notification.eventId());
+                }
+            }
+            return keys;
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package com.study.mate.service.notification;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.NotificationDto;
+import com.study.mate.util.NotificationDeliveryProperties;
+import com.study.mate.util.NotificationDigestProperties;
+import com.study.mate.util.NotificationReplayProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 바쁜 방의 채팅 알림이 묶음 창(window)마다 요약 하나로 나가는지 확인합니다.
+ * 받는 사람마다 자기가 보낸 메시지는 빠지고, 입장/퇴장 알림은 묶지 않고 바로 나가야 합니다.
+ */
+class NotificationDigestTest {
+
+    private static final Long ROOM_ID = 1L;
+    private static final List<String> PARTICIPANTS = List.of("kim", "lee", "park", "choi");
+
+    private final ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+    private final Map<String, RecordingEmitter> emitters = new LinkedHashMap<>();
+    private NotificationService service;
+
+    @AfterEach
+    void tearDown() {
+        if (service != null) {
+            service.shutdown();
+        }
+        Awaitility.reset();
+    }
+
+    @Test
+    void 바쁜_방에서는_받는_사람마다_창_하나에_알림_하나이고_내_메시지는_빠진다() throws Exception {
+        Duration window = Duration.ofMillis(100);
+        connectAll(window);
+        // 1초 동안 10ms 마다 kim/lee/park 중 한 명이 채팅합니다(choi 는 읽기만 함). 스케줄러 대신 10ms 마다 창을 확인합니다.
+        Random random = new Random(7);
+        Map<String, Integer> sent = new HashMap<>();
+        long started = System.nanoTime();
+        for (int i = 0; i < 100; i++) {
+            String sender = PARTICIPANTS.get(random.nextInt(3));
+            sent.merge(sender, 1, Integer::sum);
+            service.sendToRoomParticipants(PARTICIPANTS, NotificationDto.chatMessage(ROOM_ID, sender, sender, "hello-" + i));
+            service.flushChatDigests();
+            TimeUnit.MILLISECONDS.sleep(10);
+        }
+        // 마지막 창이 끝날 때까지 확인을 이어 가면 모아 둔 것이 모두 나갑니다.
+        await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(10)).untilAsserted(() -> {
+            service.flushChatDigests();
+            for (String participant : PARTICIPANTS) {
+                int others = sent.values().stream().mapToInt(Integer::intValue).sum() - sent.getOrDefault(participant, 0);
+                assertThat(emitters.get(participant).chatMessagesCovered()).as(participant).isEqualTo(others);
+            }
+        });
+        long windows = Duration.ofNanos(System.nanoTime() - started).toMillis() / window.toMillis();
+
+        for (String participant : PARTICIPANTS) {
+            List<JsonNode> frames = emitters.get(participant).chatFrames();
+            // 조용한 방의 첫 알림 하나 + 창마다 많아야 하나
+            assertThat(frames.size()).as(participant).isLessThanOrEqualTo((int) windows + 2);
+            assertThat(frames).as("내가 보낸 채팅 알림은 받지 않음")
+                    .noneMatch(frame -> participant.equals(frame.path("providerId").asText(null)));
+        }
+        // 읽기만 한 사람은 메시지 100개를 열 몇 개의 알림으로 받습니다.
+        assertThat(emitters.get("choi").chatFrames().size()).isLessThan(30);
+    }
+
+    @Test
+    void 입장과_퇴장_알림은_채팅_묶음_창이_열려_있어도_바로_나간다() {
+        // 창을 길게 두어, 묶인 채팅은 이 테스트 동안 나가지 않습니다.
+        connectAll(Duration.ofHours(1));
+        service.sendToRoomParticipants(PARTICIPANTS, NotificationDto.chatMessage(ROOM_ID, "kim", "kim", "first"));
+        service.sendToRoomParticipants(PARTICIPANTS, NotificationDto.chatMessage(ROOM_ID, "kim", "kim", "held"));
+
+        service.sendToRoomParticipants(PARTICIPANTS, NotificationDto.userJoin(ROOM_ID, "park", "park"));
+        service.sendToRoomParticipants(PARTICIPANTS, NotificationDto.userLeave(ROOM_ID, "lee", "lee"));
+        service.flushChatDigests();
+
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() ->
+                assertThat(emitters.get("choi").types()).containsExactly("CHAT_MESSAGE", "USER_JOIN", "USER_LEAVE"));
+        assertThat(emitters.get("choi").messages()).doesNotContain("held");
+        assertThat(emitters.get("kim").types()).containsExactly("USER_JOIN", "USER_LEAVE");
+    }
+
+    // 참여자마다 SSE 연결을 하나씩 엽니다. 채팅 알림 묶음은 window 로 켭니다.
+    private void connectAll(Duration window) {
+        NotificationDigestProperties digestProperties = new NotificationDigestProperties();
+        digestProperties.setWindow(window);
+        SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+        service = new NotificationService(objectMapper, new NotificationDeliveryProperties(), new SnowflakeIdGenerator(1),
+                new NotificationEventLog(new NotificationReplayProperties(), meterRegistry),
+                digestProperties, new LocalNotificationBus(), meterRegistry);
+        for (String participant : PARTICIPANTS) {
+            RecordingEmitter emitter = new RecordingEmitter(objectMapper);
+            emitters.put(participant, emitter);
+            service.createConnection(participant, null, emitter);
+        }
+    }
+
+    /** 받은 "notification" 이벤트의 JSON 을 기록하는 emitter */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final ObjectMapper objectMapper;
+        private final List<JsonNode> received = new CopyOnWriteArrayList<>();
+
+        private RecordingEmitter(ObjectMapper objectMapper) {
+            this.objectMapper = objectMapper;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) throws IOException {
+            for (DataWithMediaType item : items) {
+                if (item.getData() instanceof String text && text.startsWith("{")) {
+                    received.add(objectMapper.readTree(text));
+                }
+            }
+        }
+
+        List<String> types() {
+            return received.stream().map(node -> node.path("type").asText()).toList();
+        }
+
+        List<String> messages() {
+            return received.stream().map(node -> node.path("message").asText()).toList();
+        }
+
+        List<JsonNode> chatFrames() {
+            return received.stream().filter(node -> node.path("type").asText().startsWith("CHAT_")).toList();
+        }
+
+        // 받은 채팅 알림이 나타내는 메시지 수(요약은 묶인 개수)
+        int chatMessagesCovered() {
+            return chatFrames().stream()
+                    .mapToInt(node -> "CHAT_DIGEST".equals(node.path("type").asText()) ? node.path("data").path("count").asInt() : 1)
+                    .sum();
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package com.study.mate.service.notification;
+
+import com.study.mate.util.NotificationReplayProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * 재연결 때 "마지막으로 받은 알림 뒤에 보낸 것"만 다시 보내는지 확인합니다.
+ */
+class NotificationEventLogTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationEventLog eventLog;
+
+    @BeforeEach
+    void setUp() {
+        NotificationReplayProperties properties = new NotificationReplayProperties();
+        properties.setPerUser(4);
+        eventLog = new NotificationEventLog(properties, meterRegistry);
+    }
+
+    @Test
+    void 시계가_늦은_다른_노드의_알림도_보낸_순서대로_빠짐없이_다시_보낸다() {
+        NotificationEventLog.UserLog userLog = connect("u1", null);
+        userLog.append(2000L, frame("a"));
+        // 다른 노드에서 온 알림: 그 노드 시계가 늦어 id 가 더 작지만, 먼저 받은 2000 뒤에 보냈습니다.
+        userLog.append(1500L, frame("b"));
+        userLog.append(2100L, frame("c"));
+
+        assertThat(texts(eventLog.replay(userLog, 2000L))).containsExactly("b", "c");
+        assertThat(meterRegistry.get("notification.replay.gaps").counter().count()).isZero();
+    }
+
+    @Test
+    void 링에서_밀려났으면_남은_것만_보내고_빠짐을_센다() {
+        NotificationEventLog.UserLog userLog = connect("u1", null);
+        for (long id = 1; id <= 6; id++) {
+            userLog.append(id, frame("m" + id));
+        }
+
+        assertThat(texts(eventLog.replay(userLog, 1L))).containsExactly("m3", "m4", "m5", "m6");
+        assertThat(meterRegistry.get("notification.replay.gaps").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void 다른_노드에서_받던_사용자가_처음_붙으면_다시_보낼_것이_없고_빠짐으로_센다() {
+        NotificationEventLog.UserLog userLog = eventLog.open("u1");
+        userLog.append(3000L, frame("while-connecting"));
+
+        // 이 노드에는 이전 기록이 없으므로, 연결을 여는 사이에 온 알림만 보냅니다.
+        assertThat(texts(eventLog.replay(userLog, 2000L))).containsExactly("while-connecting");
+        assertThat(meterRegistry.get("notification.replay.gaps").counter().count()).isEqualTo(1);
+    }
+
+    private NotificationEventLog.UserLog connect(String providerId, Long lastEventId) {
+        NotificationEventLog.UserLog userLog = eventLog.open(providerId);
+        eventLog.replay(userLog, lastEventId);
+        return userLog;
+    }
+
+    private static Set<DataWithMediaType> frame(String text) {
+        return Set.of(new DataWithMediaType(text, MediaType.TEXT_PLAIN));
+    }
+
+    private static List<Object> texts(List<Set<DataWithMediaType>> frames) {
+        return frames.stream().map(f -> f.iterator().next().getData()).toList();
+    }
+}
@@ -0,0 +1,143 @@
+package com.study.mate.service.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.NotificationDto;
+import com.study.mate.util.NotificationDeliveryProperties;
+import com.study.mate.util.NotificationDigestProperties;
+import com.study.mate.util.NotificationReplayProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+/**
+ * 브라우저가 Last-Event-ID 로 다시 연결하면 그 뒤에 보낸 알림을 보낸 순서대로 한 번씩 다시 받고,
+ * 다시 연결한 뒤에 온 알림은 다시 보낸 알림 뒤에 이어서 받는지 확인합니다(NotificationService 전체 경로).
+ */
+class NotificationReplayTest {
+
+    private static final String USER = "kim";
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        NotificationReplayProperties replayProperties = new NotificationReplayProperties();
+        replayProperties.setPerUser(5);
+        service = new NotificationService(new ObjectMapper().findAndRegisterModules(), new NotificationDeliveryProperties(),
+                new SnowflakeIdGenerator(1), new NotificationEventLog(replayProperties, meterRegistry),
+                new NotificationDigestProperties(), new LocalNotificationBus(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        service.shutdown();
+    }
+
+    @Test
+    void 마지막으로_받은_알림_뒤의_알림만_순서대로_다시_받고_새_알림이_이어진다() {
+        RecordingEmitter first = connect(null);
+        for (int i = 1; i <= 4; i++) {
+            service.sendToUser(USER, notice("n" + i));
+        }
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.messages().size() == 4);
+
+        // n2 까지 받고 끊겼다가 다시 연결합니다.
+        RecordingEmitter second = connect(first.ids().get(1));
+        service.sendToUser(USER, notice("n5"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> second.messages().size() == 3);
+        assertThat(second.messages()).containsExactly("n3", "n4", "n5");
+        assertThat(second.ids()).isSorted().doesNotHaveDuplicates();
+        assertThat(meterRegistry.get("notification.replay.frames").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("notification.replay.gaps").counter().count()).isZero();
+    }
+
+    @Test
+    void 처음_연결이나_읽을_수_없는_id_면_다시_보내지_않는다() {
+        RecordingEmitter first = connect(null);
+        service.sendToUser(USER, notice("n1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.messages().size() == 1);
+
+        RecordingEmitter fresh = connect(null);
+        RecordingEmitter garbage = connect("not-a-number");
+        service.sendToUser(USER, notice("n2"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> fresh.messages().size() == 1 && garbage.messages().size() == 1);
+        assertThat(fresh.messages()).containsExactly("n2");
+        assertThat(garbage.messages()).containsExactly("n2");
+    }
+
+    @Test
+    void 링에서_밀려난_알림_뒤로_다시_연결하면_남은_것만_받고_빠짐으로_센다() {
+        RecordingEmitter first = connect(null);
+        service.sendToUser(USER, notice("n1"));
+        await().atMost(Duration.ofSeconds(5)).until(() -> first.messages().size() == 1);
+        String lastSeen = first.ids().get(0);
+        // 사용자마다 5개만 기록하므로 n2 는 밀려납니다.
+        for (int i = 2; i <= 7; i++) {
+            service.sendToUser(USER, notice("n" + i));
+        }
+
+        RecordingEmitter second = connect(lastSeen);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> second.messages().size() == 5);
+        assertThat(second.messages()).containsExactly("n3", "n4", "n5", "n6", "n7");
+        assertThat(meterRegistry.get("notification.replay.gaps").counter().count()).isEqualTo(1);
+    }
+
+    private RecordingEmitter connect(String lastEventId) {
+        RecordingEmitter emitter = new RecordingEmitter();
+        service.createConnection(USER, lastEventId, emitter);
+        return emitter;
+    }
+
+    private static NotificationDto notice(String message) {
+        return NotificationDto.presenceUpdate(1L, "lee", message, "STUDYING");
+    }
+
+    /** 받은 "notification" 이벤트의 id 와 닉네임(테스트에서 알림 구분용)을 기록하는 emitter */
+    private static final class RecordingEmitter extends SseEmitter {
+        private static final Pattern ID = Pattern.compile("id:(\\d+)");
+        private static final Pattern NICKNAME = Pattern.compile("\"nickname\":\"([^\"]*)\"");
+
+        private final List<String> ids = new CopyOnWriteArrayList<>();
+        private final List<String> messages = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            String text = items.stream().map(item -> item.getData().toString()).reduce("", String::concat);
+            if (!text.contains("event:notification")) {
+                return;
+            }
+            Matcher id = ID.matcher(text);
+            Matcher nickname = NICKNAME.matcher(text);
+            if (id.find() && nickname.find()) {
+                ids.add(id.group(1));
+                messages.add(nickname.group(1));
+            }
+        }
+
+        List<String> ids() {
+            return ids;
+        }
+
+        List<String> messages() {
+            return messages;
+        }
+    }
+}
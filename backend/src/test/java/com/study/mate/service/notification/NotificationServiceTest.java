@@ -0,0 +1,142 @@
+package com.study.mate.service.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.study.mate.dto.NotificationDto;
+import com.study.mate.util.NotificationDeliveryProperties;
+import com.study.mate.util.NotificationDigestProperties;
+import com.study.mate.util.NotificationReplayProperties;
+import com.study.mate.util.SnowflakeIdGenerator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.awaitility.Awaitility;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+/**
+ * 방 알림을 참여자 수와 상관없이 한 번만 직렬화해 모든 연결에 나눠 주는지,
+ * 쓰기가 멈춘 SSE 연결이 전송 스레드 수만큼 있어도 다른 연결은 계속 알림을 받는지 확인합니다.
+ */
+class NotificationServiceTest {
+
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final ObjectMapper objectMapper = spy(new ObjectMapper().findAndRegisterModules());
+    private final CountDownLatch unblock = new CountDownLatch(1);
+    private NotificationService service;
+
+    @BeforeEach
+    void setUp() {
+        Awaitility.setDefaultPollInterval(1, TimeUnit.MILLISECONDS);
+        NotificationDeliveryProperties properties = new NotificationDeliveryProperties();
+        properties.setWorkers(2);
+        properties.setWriteTimeout(Duration.ofMillis(50));
+        service = new NotificationService(objectMapper, properties, new SnowflakeIdGenerator(1),
+                new NotificationEventLog(new NotificationReplayProperties(), meterRegistry),
+                new NotificationDigestProperties(), new LocalNotificationBus(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        unblock.countDown();
+        service.shutdown();
+        Awaitility.reset();
+    }
+
+    @Test
+    void 방_알림은_한_번만_직렬화해_보낸_사람을_뺀_모든_연결에_같은_프레임을_보낸다() throws Exception {
+        List<String> participants = List.of("kim", "lee", "park", "choi");
+        List<RecordingEmitter> tabs = new CopyOnWriteArrayList<>();
+        for (String participant : participants) {
+            // 참여자마다 탭 두 개
+            for (int tab = 0; tab < 2; tab++) {
+                RecordingEmitter emitter = new RecordingEmitter();
+                service.createConnection(participant, null, emitter);
+                if (!participant.equals("kim")) {
+                    tabs.add(emitter);
+                }
+            }
+        }
+
+        service.sendToRoomParticipants(participants, NotificationDto.userJoin(1L, "kim", "김철수"));
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> tabs.stream().allMatch(tab -> tab.frames.size() == 2));
+        verify(objectMapper, times(1)).writeValueAsString(any());
+        Set<DataWithMediaType> frame = tabs.get(0).frames.get(1);
+        assertThat(tabs).allSatisfy(tab -> assertThat(tab.frames.get(1)).isSameAs(frame));
+        assertThat(service.getUserConnections("kim")).isEqualTo(2);
+    }
+
+    @Test
+    void 쓰기가_멈춘_연결이_전송_스레드_수만큼_있어도_다른_연결은_계속_받는다() {
+        // 전송 스레드 2개가 모두 멈춘 연결의 첫 쓰기("connected")에 묶입니다.
+        service.createConnection("slow-1", null, new StalledEmitter(unblock));
+        service.createConnection("slow-2", null, new StalledEmitter(unblock));
+        RecordingEmitter fast = new RecordingEmitter();
+        service.createConnection("fast", null, fast);
+
+        // write-timeout(50ms)을 넘긴 쓰기를 찾으면 그 연결을 빼고 대신 일할 전송 스레드를 띄웁니다.
+        // 두 번째 멈춘 쓰기는 첫 검사보다 늦게 시작할 수 있으므로 둘 다 빠질 때까지 검사합니다.
+        await().atMost(Duration.ofSeconds(5)).untilAsserted(() -> {
+            service.checkStalledWrites();
+            assertThat(fast.received).contains("connected");
+            assertThat(service.getUserConnections("slow-1")).isZero();
+            assertThat(service.getUserConnections("slow-2")).isZero();
+        });
+        assertThat(service.testConnection("fast")).isTrue();
+        await().atMost(Duration.ofSeconds(5)).until(() -> fast.received.contains("test"));
+
+        assertThat(meterRegistry.get("notification.sse.evicted").tag("reason", "stalled").counter().count()).isEqualTo(2);
+        assertThat(meterRegistry.get("notification.sse.stalled_writes").gauge().value()).isEqualTo(2);
+
+        // 막힌 쓰기가 끝나면 더 띄운 전송 스레드 수를 되돌립니다.
+        unblock.countDown();
+        await().atMost(Duration.ofSeconds(5))
+                .until(() -> meterRegistry.get("notification.sse.stalled_writes").gauge().value() == 0);
+    }
+
+    /** 받은 이벤트 이름(과 프레임 객체)을 기록하는 emitter */
+    private static final class RecordingEmitter extends SseEmitter {
+        private final List<String> received = new CopyOnWriteArrayList<>();
+        private final List<Set<DataWithMediaType>> frames = new CopyOnWriteArrayList<>();
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            frames.add(items);
+            String text = items.stream().map(item -> item.getData().toString()).reduce("", String::concat);
+            received.add(text.contains("event:connected") ? "connected" : text.contains("event:test") ? "test" : text);
+        }
+    }
+
+    /** 풀어 줄 때까지 쓰기가 돌아오지 않는(상대가 읽지 않는) emitter */
+    private static final class StalledEmitter extends SseEmitter {
+        private final CountDownLatch unblock;
+
+        private StalledEmitter(CountDownLatch unblock) {
+            this.unblock = unblock;
+        }
+
+        @Override
+        public void send(Set<DataWithMediaType> items) {
+            try {
+                unblock.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+}
@@ -0,0 +1,158 @@
+package com.study.mate.service.presence;
+
+import com.study.mate.service.chat.RoomMembershipCache;
+import com.study.mate.service.cluster.ClusterEvents;
+import com.study.mate.service.presence.PresenceService.PresencePayload;
+import com.study.mate.service.presence.RoomActivityCoalescer.Typer;
+import com.study.mate.service.presence.RoomActivityCoalescer.TypingPayload;
+import com.study.mate.util.RoomActivityProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.messaging.simp.SimpMessagingTemplate;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * 방마다 입력 중 이벤트를 tick 단위로 모아 바뀐 목록만 한 프레임으로 보내고, typing-ttl 이 지나면 목록에서 빼는지 확인합니다.
+ * 스케줄러 대신 flush() 를 직접 불러 tick 을 흉내 냅니다.
+ */
+class RoomActivityCoalescerTest {
+
+    private static final Long ROOM_ID = 5L;
+    private static final String TYPING = "/topic/rooms/" + ROOM_ID + "/typing";
+    private static final String PRESENCE = "/topic/rooms/" + ROOM_ID + "/presence";
+
+    private final SimpMessagingTemplate messagingTemplate = mock(SimpMessagingTemplate.class);
+    private final RoomMembershipCache membership = mock(RoomMembershipCache.class);
+    private final SimpleMeterRegistry meterRegistry = new SimpleMeterRegistry();
+    private final RoomActivityProperties properties = new RoomActivityProperties();
+    private final List<Frame> frames = new CopyOnWriteArrayList<>();
+    private RoomActivityCoalescer coalescer;
+
+    @BeforeEach
+    void setUp() {
+        doAnswer(invocation -> frames.add(new Frame(invocation.getArgument(0), invocation.getArgument(1))))
+                .when(messagingTemplate).convertAndSend(anyString(), any(Object.class), anyMap());
+        // 참여자는 사용자 1~4, 사용자 9(outsider)는 방 밖
+        when(membership.members(anyLong())).thenReturn(
+                new RoomMembershipCache.RoomMembers(Set.of(1L, 2L, 3L, 4L), List.of(), System.currentTimeMillis()));
+        user(1L, "kim");
+        user(2L, "lee");
+        user(3L, "park");
+        user(4L, "choi");
+        user(9L, "outsider");
+        coalescer = new RoomActivityCoalescer(properties, messagingTemplate, membership, mock(ClusterEvents.class), meterRegistry);
+    }
+
+    @Test
+    void 한_tick_안의_입력_중_이벤트는_목록이_바뀐_방에_프레임_하나로_나간다() {
+        for (int keystroke = 0; keystroke < 20; keystroke++) {
+            coalescer.typing(ROOM_ID, "kim", true);
+            coalescer.typing(ROOM_ID, "lee", true);
+        }
+        coalescer.typing(ROOM_ID, "outsider", true);
+        coalescer.flush();
+
+        assertThat(typingFrames()).singleElement().satisfies(frame -> {
+            assertThat(providerIds(frame)).containsExactly("kim", "lee");
+            assertThat(frame.count()).isEqualTo(2);
+        });
+
+        // 같은 사람이 계속 입력해도 목록이 그대로면 다음 tick 에 아무것도 보내지 않습니다.
+        coalescer.typing(ROOM_ID, "kim", true);
+        coalescer.flush();
+        assertThat(typingFrames()).hasSize(1);
+
+        coalescer.typing(ROOM_ID, "lee", false);
+        coalescer.flush();
+        assertThat(typingFrames()).hasSize(2);
+        assertThat(providerIds(typingFrames().get(1))).containsExactly("kim");
+    }
+
+    @Test
+    void typing_ttl_동안_소식이_없으면_목록에서_빠지고_빈_목록을_한_번_보낸다() {
+        properties.setTypingTtl(Duration.ofMillis(150));
+        coalescer.typing(ROOM_ID, "kim", true);
+        coalescer.typing(ROOM_ID, "lee", true);
+        coalescer.flush();
+
+        // lee 만 계속 입력합니다. kim 은 창을 닫았습니다.
+        await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(20)).untilAsserted(() -> {
+            coalescer.typing(ROOM_ID, "lee", true);
+            coalescer.flush();
+            assertThat(providerIds(typingFrames().get(typingFrames().size() - 1))).containsExactly("lee");
+        });
+        assertThat(typingFrames()).hasSize(2);
+
+        await().atMost(Duration.ofSeconds(5)).pollInterval(Duration.ofMillis(20)).untilAsserted(() -> {
+            coalescer.flush();
+            assertThat(typingFrames().get(typingFrames().size() - 1).typers()).isEmpty();
+        });
+        coalescer.flush();
+        assertThat(typingFrames()).hasSize(3);
+    }
+
+    @Test
+    void 최대_인원을_넘으면_목록은_자르고_전체_인원은_count_로_알린다() {
+        properties.setMaxTypers(2);
+        for (String providerId : List.of("kim", "lee", "park", "choi")) {
+            coalescer.typing(ROOM_ID, providerId, true);
+        }
+        coalescer.flush();
+
+        assertThat(typingFrames()).singleElement().satisfies(frame -> {
+            assertThat(providerIds(frame)).containsExactly("kim", "lee");
+            assertThat(frame.count()).isEqualTo(4);
+        });
+    }
+
+    @Test
+    void 한_tick_안의_같은_사용자_프레즌스는_최신_상태_하나만_보낸다() {
+        coalescer.presence(ROOM_ID, presence("kim", "ONLINE"));
+        coalescer.presence(ROOM_ID, presence("kim", "AWAY"));
+        coalescer.presence(ROOM_ID, presence("lee", "ONLINE"));
+        coalescer.presence(ROOM_ID, presence("kim", "OFFLINE"));
+        assertThat(frames).isEmpty();
+
+        coalescer.flush();
+
+        assertThat(frames).allMatch(frame -> frame.destination().equals(PRESENCE))
+                .extracting(frame -> ((PresencePayload) frame.payload()).providerId() + ":" + ((PresencePayload) frame.payload()).status())
+                .containsExactly("kim:OFFLINE", "lee:ONLINE");
+        assertThat(meterRegistry.get("room.activity.presence.coalesced").counter().count()).isEqualTo(2);
+    }
+
+    private void user(Long userId, String providerId) {
+        when(membership.findSender(providerId)).thenReturn(
+                new RoomMembershipCache.Sender(userId, providerId, providerId + "-nick", null, System.currentTimeMillis()));
+    }
+
+    private List<TypingPayload> typingFrames() {
+        return frames.stream().filter(frame -> frame.destination().equals(TYPING))
+                .map(frame -> (TypingPayload) frame.payload()).toList();
+    }
+
+    private static List<String> providerIds(TypingPayload payload) {
+        return payload.typers().stream().map(Typer::providerId).toList();
+    }
+
+    private static PresencePayload presence(String providerId, String status) {
+        return new PresencePayload("PRESENCE", providerId, 1L, providerId + "-nick", status);
+    }
+
+    private record Frame(String destination, Object payload) {}
+}
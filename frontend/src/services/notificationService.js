@@ -4,6 +4,7 @@ let isConnected = false; // 현재 연결 상태
 let reconnectAttempts = 0; // 재연결 시도 횟수
 let maxReconnectAttempts = 5; // 최대 재연결 시도 횟수
 let reconnectTimeout = null; // 재연결 타이머
+let lastEventId = null; // 마지막으로 받은 알림 id (재연결 때 놓친 알림을 다시 받기 위해 사용)
 
 // 🎧 이벤트 리스너들을 저장하는 맵
 const eventListeners = new Map();
@@ -34,7 +35,11 @@ export function connectSSE() {
   try {
     // 1️⃣ EventSource 객체 생성 (브라우저의 SSE 클라이언트)
     const apiBaseUrl = import.meta.env.VITE_API_BASE_URL || '';
-    const sseUrl = `${apiBaseUrl}/api/notifications/subscribe`;
+    // 직접 다시 연결하면 브라우저가 Last-Event-ID 헤더를 보내지 않으므로,
+    // 마지막으로 받은 알림 id 를 쿼리 파라미터로 넘겨 그 뒤에 놓친 알림을 받습니다.
+    const sseUrl = lastEventId
+      ? `${apiBaseUrl}/api/notifications/subscribe?lastEventId=${encodeURIComponent(lastEventId)}`
+      : `${apiBaseUrl}/api/notifications/subscribe`;
     eventSource = new EventSource(sseUrl, {
       withCredentials: true, // 쿠키(JWT 토큰) 포함해서 요청
     });
@@ -51,6 +56,11 @@ export function connectSSE() {
 
     // 3️⃣ 알림 메시지 수신 처리
     eventSource.addEventListener('notification', (event) => {
+      // 알림 id 기억 (재연결 때 사용)
+      if (event.lastEventId) {
+        lastEventId = event.lastEventId;
+      }
+
       try {
         const notification = JSON.parse(event.data);
         console.log('📱 알림 수신:', notification);
@@ -127,6 +137,20 @@ export function connectSSE() {
 export function disconnectSSE() {
   console.log('🔌 SSE 연결 종료...');
 
+  closeEventSource();
+
+  // 로그아웃 등으로 완전히 끊을 때는 다음 사용자가 이어받지 않도록 알림 id 도 지웁니다
+  lastEventId = null;
+
+  console.log('✅ SSE 연결 종료 완료');
+}
+
+/**
+ * 🔌 재연결 타이머와 EventSource 를 정리합니다 (내부 함수)
+ *
+ * 재연결할 때도 쓰므로 마지막 알림 id 는 그대로 둡니다.
+ */
+function closeEventSource() {
   // 재연결 타이머가 있다면 취소
   if (reconnectTimeout) {
     clearTimeout(reconnectTimeout);
@@ -140,8 +164,6 @@ export function disconnectSSE() {
   }
 
   isConnected = false;
-
-  console.log('✅ SSE 연결 종료 완료');
 }
 
 /**
@@ -171,8 +193,8 @@ function attemptReconnect() {
     `🔄 SSE 재연결 시도 ${reconnectAttempts}/${maxReconnectAttempts} (${delay}ms 후)`
   );
 
-  // 연결 종료 후 재연결
-  disconnectSSE();
+  // 연결 종료 후 재연결 (마지막 알림 id 는 유지)
+  closeEventSource();
 
   reconnectTimeout = setTimeout(() => {
     connectSSE();
@@ -294,6 +316,9 @@ function showBrowserNotification(notification) {
     case 'CHAT_MESSAGE':
       title = `💬 ${notification.nickname}님의 메시지`;
       break;
+    case 'CHAT_DIGEST':
+      title = '💬 새 메시지';
+      break;
     case 'USER_JOIN':
       title = `👋 ${notification.nickname}님 입장`;
       break;